@@ -0,0 +1,167 @@
+package com.db.awmd.challenge.audit;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import lombok.Getter;
+
+/**
+ * One audit record. Instances are preallocated slots of the AuditRingBuffer, filled by request threads
+ * and encoded by the writer thread, so recording an event allocates nothing.
+ * <p>
+ * Record layout : [short length of the rest][long epoch millis][byte type][short status][string accountId]
+ * [string otherAccountId][amount][string detail]. Strings are [short byte length, -1 for null][UTF-8 bytes],
+ * amounts are [short unscaled length, 0 for null][int scale][unscaled two's complement bytes].
+ * Amounts longer than MAX_AMOUNT_BYTES are recorded rounded to MAX_AMOUNT_DIGITS significant digits.
+ */
+@Getter
+public final class AuditEvent {
+
+    /** POST /v1/accounts, amount is the initial balance. */
+    public static final byte ACCOUNT_CREATED = 1;
+
+    /** GET /v1/accounts/{accountId}. */
+    public static final byte ACCOUNT_READ = 2;
+
+    /** POST /v1/transfers. */
+    public static final byte TRANSFER = 3;
+
+    //longer strings are cut, records stay well below the writer's buffer
+    static final int MAX_STRING_BYTES = 1024;
+
+    static final int MAX_AMOUNT_BYTES = 1024;
+
+    //fits MAX_AMOUNT_BYTES, a digit takes log2(10) / 8 bytes
+    static final int MAX_AMOUNT_DIGITS = 2400;
+
+    static final int MAX_RECORD_BYTES = 2 + 8 + 1 + 2 + 3 * (2 + MAX_STRING_BYTES) + 2 + 4 + MAX_AMOUNT_BYTES;
+
+    private long epochMillis;
+
+    private byte type;
+
+    private int status;
+
+    private String accountId;
+
+    private String otherAccountId;
+
+    private BigDecimal amount;
+
+    private String detail;
+
+    AuditEvent() {
+    }
+
+    public AuditEvent(long epochMillis, byte type, int status, String accountId, String otherAccountId,
+                      BigDecimal amount, String detail) {
+        set(epochMillis, type, status, accountId, otherAccountId, amount, detail);
+    }
+
+    void set(long epochMillis, byte type, int status, String accountId, String otherAccountId, BigDecimal amount,
+             String detail) {
+        this.epochMillis = epochMillis;
+        this.type = type;
+        this.status = status;
+        this.accountId = accountId;
+        this.otherAccountId = otherAccountId;
+        this.amount = amount;
+        this.detail = detail;
+    }
+
+    /**
+     * Drops the references once written, the slot should not keep request objects alive.
+     */
+    void clear() {
+        set(0, (byte) 0, 0, null, null, null, null);
+    }
+
+    /**
+     * Encodes the record, the buffer must have MAX_RECORD_BYTES remaining.
+     * @param buffer
+     */
+    void writeTo(ByteBuffer buffer) {
+        int start = buffer.position();
+        buffer.putShort((short) 0);
+        buffer.putLong(epochMillis);
+        buffer.put(type);
+        buffer.putShort((short) status);
+        putString(buffer, accountId);
+        putString(buffer, otherAccountId);
+        if (amount == null) {
+            buffer.putShort((short) 0);
+        } else {
+            BigDecimal recorded = amount;
+            byte[] unscaled = recorded.unscaledValue().toByteArray();
+            if (unscaled.length > MAX_AMOUNT_BYTES) {
+                recorded = amount.round(new MathContext(MAX_AMOUNT_DIGITS));
+                unscaled = recorded.unscaledValue().toByteArray();
+            }
+            buffer.putShort((short) unscaled.length);
+            buffer.putInt(recorded.scale());
+            buffer.put(unscaled);
+        }
+        putString(buffer, detail);
+        buffer.putShort(start, (short) (buffer.position() - start - 2));
+    }
+
+    static AuditEvent readFrom(DataInputStream in) throws IOException {
+        byte[] record = new byte[in.readUnsignedShort()];
+        in.readFully(record);
+        ByteBuffer buffer = ByteBuffer.wrap(record);
+        long epochMillis = buffer.getLong();
+        byte type = buffer.get();
+        int status = buffer.getShort();
+        String accountId = getString(buffer);
+        String otherAccountId = getString(buffer);
+        BigDecimal amount = null;
+        int unscaledLength = buffer.getShort() & 0xFFFF;
+        if (unscaledLength > 0) {
+            int scale = buffer.getInt();
+            byte[] unscaled = new byte[unscaledLength];
+            buffer.get(unscaled);
+            amount = new BigDecimal(new BigInteger(unscaled), scale);
+        }
+        String detail = getString(buffer);
+        return new AuditEvent(epochMillis, type, status, accountId, otherAccountId, amount, detail);
+    }
+
+    public String getTypeName() {
+        switch (type) {
+            case ACCOUNT_CREATED:
+                return "ACCOUNT_CREATED";
+            case ACCOUNT_READ:
+                return "ACCOUNT_READ";
+            case TRANSFER:
+                return "TRANSFER";
+            default:
+                return "UNKNOWN_" + type;
+        }
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putShort((short) -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int length = Math.min(bytes.length, MAX_STRING_BYTES);
+        buffer.putShort((short) length);
+        buffer.put(bytes, 0, length);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+}
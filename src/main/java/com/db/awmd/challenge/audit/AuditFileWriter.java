@@ -0,0 +1,134 @@
+package com.db.awmd.challenge.audit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Encodes audit events into a buffer and writes it to the current audit file, rolling over to a new file
+ * once it reaches maxFileBytes and deleting its oldest files beyond maxFiles. Used by the writer thread only.
+ * Only the files created by this writer are deleted, never the live files of another instance sharing the directory,
+ * files left by earlier runs are kept for the operator to archive.
+ * <p>
+ * File layout : [int magic][byte format version][long file start epoch millis] followed by the records,
+ * see AuditEvent. Files are named audit-[start epoch millis]-[index].log, so name order is write order.
+ */
+@Slf4j
+class AuditFileWriter implements Closeable {
+
+    static final int MAGIC = 0x44424155;
+
+    //2 : amount length as a short
+    static final byte FORMAT_VERSION = 2;
+
+    static final String PREFIX = "audit-";
+
+    static final String SUFFIX = ".log";
+
+    private static final int HEADER_BYTES = 4 + 1 + 8;
+
+    private final Path directory;
+
+    private final long maxFileBytes;
+
+    private final int maxFiles;
+
+    //files created by this writer, oldest first
+    private final Deque<Path> files = new ArrayDeque<>();
+
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(256 * 1024);
+
+    private FileChannel channel;
+
+    private long fileBytes;
+
+    private int fileIndex;
+
+    AuditFileWriter(Path directory, long maxFileBytes, int maxFiles) throws IOException {
+        this.directory = directory;
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        Files.createDirectories(directory);
+        roll();
+    }
+
+    void append(AuditEvent event) throws IOException {
+        if (buffer.remaining() < AuditEvent.MAX_RECORD_BYTES) {
+            flush();
+        }
+        int start = buffer.position();
+        try {
+            event.writeTo(buffer);
+        } catch (RuntimeException ex) {
+            //never leave half a record in the file
+            buffer.position(start);
+            throw ex;
+        }
+        fileBytes += buffer.position() - start;
+        if (fileBytes >= maxFileBytes) {
+            flush();
+            roll();
+        }
+    }
+
+    /**
+     * Writes the buffered records to the file, without forcing them to disk.
+     */
+    void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        channel.force(false);
+        channel.close();
+    }
+
+    private void roll() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+        }
+        channel = null;
+        while (channel == null) {
+            Path file = directory.resolve(PREFIX + System.currentTimeMillis() + "-" + String.format("%06d", fileIndex++)
+                    + SUFFIX);
+            try {
+                channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                files.addLast(file);
+            } catch (FileAlreadyExistsException ex) {
+                //another instance sharing the directory rolled in the same millisecond
+            }
+        }
+        buffer.putInt(MAGIC);
+        buffer.put(FORMAT_VERSION);
+        buffer.putLong(System.currentTimeMillis());
+        fileBytes = HEADER_BYTES;
+        deleteOldFiles();
+    }
+
+    private void deleteOldFiles() {
+        while (files.size() > maxFiles) {
+            Path file = files.removeFirst();
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ex) {
+                log.warn("Failed to delete old audit file {}", file, ex);
+            }
+        }
+    }
+}
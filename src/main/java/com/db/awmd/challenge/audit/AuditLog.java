@@ -0,0 +1,170 @@
+package com.db.awmd.challenge.audit;
+
+import com.db.awmd.challenge.domain.Transfer;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Structured audit trail of the account and transfer requests, written asynchronously to rolling binary files
+ * in 'audit.directory'. Request threads only copy the event into a slot of a lock free ring buffer,
+ * a single background thread encodes the events and writes them in batches, see AuditFileWriter for rolling
+ * and AuditLogReader to read the files back. Disable with '--audit.enabled=false'.
+ * Events recorded after close, or after the writer thread died, are dropped and counted instead of waiting.
+ */
+@Component
+@ConditionalOnProperty(prefix = "audit", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class AuditLog {
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final Path directory;
+
+    private final long maxFileBytes;
+
+    private final int maxFiles;
+
+    private final AuditRingBuffer ringBuffer;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private AuditFileWriter fileWriter;
+
+    private Thread writerThread;
+
+    private volatile boolean running;
+
+    @Autowired
+    public AuditLog(@Value("${audit.directory:${java.io.tmpdir}/challenge-audit}") final String directory,
+                    @Value("${audit.ring-size:65536}") final int ringSize,
+                    @Value("${audit.max-file-bytes:67108864}") final long maxFileBytes,
+                    @Value("${audit.max-files:10}") final int maxFiles) {
+        this.directory = Paths.get(directory);
+        this.maxFileBytes = maxFileBytes;
+        this.maxFiles = maxFiles;
+        this.ringBuffer = new AuditRingBuffer(ringSize);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        fileWriter = new AuditFileWriter(directory, maxFileBytes, maxFiles);
+        running = true;
+        writerThread = new Thread(this::runWriter, "audit-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        log.info("Writing audit log to {}", directory);
+    }
+
+    /**
+     * Writes the events recorded so far and closes the current file.
+     */
+    @PreDestroy
+    public void close() throws InterruptedException {
+        //events claimed so far are still written
+        ringBuffer.close();
+        running = false;
+        LockSupport.unpark(writerThread);
+        writerThread.join();
+    }
+
+    public void accountCreated(String accountId, BigDecimal balance, int status, String detail) {
+        record(AuditEvent.ACCOUNT_CREATED, status, accountId, null, balance, detail);
+    }
+
+    public void accountRead(String accountId, int status) {
+        record(AuditEvent.ACCOUNT_READ, status, accountId, null, null, null);
+    }
+
+    public void transfer(Transfer transfer, int status, String detail) {
+        record(AuditEvent.TRANSFER, status, transfer.getFromAccountId(), transfer.getToAccountId(),
+                transfer.getTransferAmount(), detail);
+    }
+
+    /**
+     * Records an event, waits only while the ring buffer is full and the writer is running.
+     */
+    public void record(byte type, int status, String accountId, String otherAccountId, BigDecimal amount,
+                       String detail) {
+        long sequence = ringBuffer.next();
+        if (sequence < 0) {
+            dropped.increment();
+            return;
+        }
+        ringBuffer.get(sequence).set(System.currentTimeMillis(), type, status, accountId, otherAccountId, amount,
+                detail);
+        ringBuffer.publish(sequence);
+    }
+
+    /**
+     * Number of times a request thread found the ring buffer full and had to wait for the writer.
+     * @return long
+     */
+    public long getStalls() {
+        return ringBuffer.getStalls();
+    }
+
+    /**
+     * Number of events dropped because the audit log was closed or its writer had died.
+     * @return long
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    private void runWriter() {
+        try {
+            while (running || !ringBuffer.isEmpty()) {
+                if (ringBuffer.drain(this::append) == 0) {
+                    //idle, hand the batch to the file system before waiting for more
+                    flush();
+                    if (running) {
+                        LockSupport.parkNanos(IDLE_PARK_NANOS);
+                    }
+                }
+            }
+        } catch (RuntimeException | Error ex) {
+            log.error("Audit writer died, dropping further audit events", ex);
+            throw ex;
+        } finally {
+            ringBuffer.close();
+            try {
+                fileWriter.close();
+            } catch (IOException ex) {
+                log.error("Failed to close audit log", ex);
+            }
+        }
+    }
+
+    private void append(AuditEvent event) {
+        try {
+            fileWriter.append(event);
+        } catch (IOException | RuntimeException ex) {
+            //skip the event, the writer keeps going
+            log.error("Failed to write audit event of account {}", event.getAccountId(), ex);
+        }
+    }
+
+    private void flush() {
+        try {
+            fileWriter.flush();
+        } catch (IOException ex) {
+            log.error("Failed to write audit log", ex);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.db.awmd.challenge.audit;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Reads the audit files written by AuditLog, either a single file or all files of the audit directory in write order.
+ * Run as a tool to print the records as text, one per line:
+ * ./gradlew benchmark -PbenchmarkClass=com.db.awmd.challenge.audit.AuditLogReader -PbenchmarkArgs=/tmp/challenge-audit
+ */
+public class AuditLogReader implements Closeable {
+
+    private final Iterator<File> files;
+
+    private DataInputStream in;
+
+    /**
+     * @param path an audit file or the audit directory
+     * @throws IOException
+     */
+    public AuditLogReader(File path) throws IOException {
+        List<File> list = path.isDirectory() ? listFiles(path) : Collections.singletonList(path);
+        this.files = list.iterator();
+    }
+
+    /**
+     * The next record in write order, null after the last one.
+     * A file cut short, e.g. by a crash, ends at its last complete record.
+     * @return AuditEvent
+     * @throws IOException
+     */
+    public AuditEvent next() throws IOException {
+        while (true) {
+            if (in == null) {
+                if (!files.hasNext()) {
+                    return null;
+                }
+                in = open(files.next());
+                if (in == null) {
+                    continue;
+                }
+            }
+            try {
+                return AuditEvent.readFrom(in);
+            } catch (EOFException ex) {
+                in.close();
+                in = null;
+            }
+        }
+    }
+
+    public List<AuditEvent> readAll() throws IOException {
+        List<AuditEvent> events = new ArrayList<>();
+        AuditEvent event;
+        while ((event = next()) != null) {
+            events.add(event);
+        }
+        return events;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) {
+            in.close();
+            in = null;
+        }
+    }
+
+    static List<File> listFiles(File directory) {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(AuditFileWriter.PREFIX)
+                && name.endsWith(AuditFileWriter.SUFFIX));
+        if (files == null) {
+            return Collections.emptyList();
+        }
+        Arrays.sort(files);
+        return new ArrayList<>(Arrays.asList(files));
+    }
+
+    /**
+     * Opens the file past its header, null if not even the header was written yet.
+     */
+    private static DataInputStream open(File file) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+        try {
+            if (in.readInt() != AuditFileWriter.MAGIC) {
+                throw new IOException(file + " is not an audit file.");
+            }
+            byte version = in.readByte();
+            if (version != AuditFileWriter.FORMAT_VERSION) {
+                throw new IOException("Unsupported audit format version " + version + " in " + file);
+            }
+            in.readLong();
+            return in;
+        } catch (EOFException ex) {
+            in.close();
+            return null;
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: AuditLogReader <audit file or directory>");
+            System.exit(1);
+        }
+        try (AuditLogReader reader = new AuditLogReader(new File(args[0]))) {
+            AuditEvent event;
+            while ((event = reader.next()) != null) {
+                System.out.println(Instant.ofEpochMilli(event.getEpochMillis()) + " " + event.getTypeName()
+                        + " status=" + event.getStatus()
+                        + " account=" + event.getAccountId()
+                        + (event.getOtherAccountId() != null ? " to=" + event.getOtherAccountId() : "")
+                        + (event.getAmount() != null ? " amount=" + event.getAmount().toPlainString() : "")
+                        + (event.getDetail() != null ? " detail=\"" + event.getDetail() + "\"" : ""));
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.db.awmd.challenge.audit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded multi producer, single consumer ring of preallocated AuditEvent slots, without locks.
+ * A producer claims the next sequence with a CAS, fills the slot and publishes it by storing the sequence
+ * in the slot's published marker. The consumer handles slots in sequence order and stops at the first one
+ * not yet published, so events leave the ring in claim order.
+ * A producer finding the ring full waits, spinning briefly and then parking, until the consumer frees a slot:
+ * while the consumer runs audit records are never dropped, size the ring so that this only happens during bursts.
+ * Once the ring is closed, because the consumer stopped, producers no longer wait and get no slot.
+ */
+class AuditRingBuffer {
+
+    private static final int SPINS_BEFORE_PARK = 100;
+
+    private final AuditEvent[] slots;
+
+    private final AtomicLongArray published;
+
+    private final int mask;
+
+    private final AtomicLong claimed = new AtomicLong();
+
+    //next sequence to consume, written by the consumer only
+    private volatile long consumed;
+
+    private final LongAdder stalls = new LongAdder();
+
+    private volatile boolean closed;
+
+    /**
+     * @param capacity rounded up to a power of two
+     */
+    AuditRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.slots = new AuditEvent[size];
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            slots[i] = new AuditEvent();
+            published.set(i, -1);
+        }
+        this.mask = size - 1;
+    }
+
+    int capacity() {
+        return slots.length;
+    }
+
+    /**
+     * Claims the next slot, waiting while the ring is full.
+     * @return the sequence to fill with get and hand over with publish, -1 once the ring is closed
+     */
+    long next() {
+        int spins = 0;
+        boolean stalled = false;
+        while (true) {
+            if (closed) {
+                return -1;
+            }
+            long sequence = claimed.get();
+            if (sequence - consumed >= slots.length) {
+                if (!stalled) {
+                    stalled = true;
+                    stalls.increment();
+                }
+                if (++spins < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(10_000);
+                }
+            } else if (claimed.compareAndSet(sequence, sequence + 1)) {
+                return sequence;
+            }
+        }
+    }
+
+    AuditEvent get(long sequence) {
+        return slots[(int) sequence & mask];
+    }
+
+    void publish(long sequence) {
+        published.lazySet((int) sequence & mask, sequence);
+    }
+
+    /**
+     * Hands the published events to the handler in sequence order, consumer thread only.
+     * @param handler
+     * @return the number of events handled
+     */
+    int drain(Handler handler) {
+        long sequence = consumed;
+        int count = 0;
+        while (published.get((int) sequence & mask) == sequence) {
+            AuditEvent event = slots[(int) sequence & mask];
+            try {
+                handler.handle(event);
+            } finally {
+                event.clear();
+                sequence++;
+                count++;
+                //frees the slot for producers
+                consumed = sequence;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Number of times a producer found the ring full.
+     * @return long
+     */
+    long getStalls() {
+        return stalls.sum();
+    }
+
+    boolean isEmpty() {
+        return consumed == claimed.get();
+    }
+
+    /**
+     * Stops handing out slots, producers waiting for one return.
+     */
+    void close() {
+        closed = true;
+    }
+
+    interface Handler {
+
+        void handle(AuditEvent event);
+    }
+}
@@ -0,0 +1,74 @@
+package com.db.awmd.challenge.capture;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * Reads a file written by CaptureWriter.
+ */
+public class CaptureReader implements Closeable {
+
+    private final DataInputStream in;
+
+    @Getter
+    private final long startEpochMillis;
+
+    public CaptureReader(File file) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+        if (in.readInt() != CaptureWriter.MAGIC) {
+            in.close();
+            throw new IOException(file + " is not a traffic capture.");
+        }
+        byte version = in.readByte();
+        if (version != CaptureWriter.FORMAT_VERSION) {
+            in.close();
+            throw new IOException("Unsupported capture format version " + version);
+        }
+        this.startEpochMillis = in.readLong();
+    }
+
+    /**
+     * The next record in file order, null at the end of the capture.
+     * A capture cut short, e.g. by a crash, ends at its last complete record.
+     * @return CapturedRequest
+     * @throws IOException
+     */
+    public CapturedRequest next() throws IOException {
+        try {
+            return CapturedRequest.readFrom(in);
+        } catch (EOFException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the remaining records, ordered by arrival.
+     * @return List
+     * @throws IOException
+     */
+    public List<CapturedRequest> readAll() throws IOException {
+        List<CapturedRequest> requests = new ArrayList<>();
+        CapturedRequest request;
+        while ((request = next()) != null) {
+            requests.add(request);
+        }
+        //stable, final balances keep their place after the requests
+        requests.sort(Comparator.comparingLong(CapturedRequest::getOffsetNanos));
+        return requests;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
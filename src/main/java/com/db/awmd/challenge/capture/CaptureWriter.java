@@ -0,0 +1,87 @@
+package com.db.awmd.challenge.capture;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Appends captured requests to a capture file. Thread safe, guarded by a ReentrantLock rather than the object
+ * monitor, so that a virtual request thread writing to the file does not pin its carrier thread.
+ * <p>
+ * File layout : [int magic][byte format version][long capture start epoch millis] followed by the records.
+ * Records are appended in completion order, their offsets are arrival times, see CaptureReader.
+ */
+public class CaptureWriter implements Closeable {
+
+    static final int MAGIC = 0x44425443;
+
+    static final byte FORMAT_VERSION = 2;
+
+    private final DataOutputStream out;
+
+    private final long startNanos = System.nanoTime();
+
+    private final Lock lock = new ReentrantLock();
+
+    private boolean closed;
+
+    public CaptureWriter(File file) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+        out.writeInt(MAGIC);
+        out.writeByte(FORMAT_VERSION);
+        out.writeLong(System.currentTimeMillis());
+    }
+
+    /**
+     * Nanoseconds since the capture started, the offset of a request arriving now.
+     * @return long
+     */
+    public long offsetNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Appends the request, requests completing after close are dropped.
+     * @param request
+     * @throws IOException
+     */
+    public void append(CapturedRequest request) throws IOException {
+        lock.lock();
+        try {
+            if (!closed) {
+                request.writeTo(out);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void flush() throws IOException {
+        lock.lock();
+        try {
+            if (!closed) {
+                out.flush();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (!closed) {
+                closed = true;
+                out.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.db.awmd.challenge.capture;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+
+import lombok.Getter;
+
+/**
+ * One request of a traffic capture, with the time it arrived relative to the start of the capture
+ * and the HTTP status it was answered with. If-Match and If-None-Match are kept, so that a replay
+ * gets the same 412 and 304 answers.
+ */
+@Getter
+public class CapturedRequest {
+
+    /** POST /v1/accounts, amount is the initial balance. */
+    public static final byte CREATE_ACCOUNT = 1;
+
+    /** POST /v1/transfers. */
+    public static final byte TRANSFER = 2;
+
+    /** GET /v1/accounts/{accountId}. */
+    public static final byte GET_ACCOUNT = 3;
+
+    /** Balance of an account when the capture was closed, written after all requests. */
+    public static final byte FINAL_BALANCE = 4;
+
+    private final byte type;
+
+    private final long offsetNanos;
+
+    private final int status;
+
+    private final String accountId;
+
+    private final String otherAccountId;
+
+    private final BigDecimal amount;
+
+    private final String ifMatch;
+
+    private final String ifNoneMatch;
+
+    public CapturedRequest(byte type, long offsetNanos, int status, String accountId, String otherAccountId,
+                           BigDecimal amount) {
+        this(type, offsetNanos, status, accountId, otherAccountId, amount, null, null);
+    }
+
+    public CapturedRequest(byte type, long offsetNanos, int status, String accountId, String otherAccountId,
+                           BigDecimal amount, String ifMatch, String ifNoneMatch) {
+        this.type = type;
+        this.offsetNanos = offsetNanos;
+        this.status = status;
+        this.accountId = accountId;
+        this.otherAccountId = otherAccountId;
+        this.amount = amount;
+        this.ifMatch = ifMatch;
+        this.ifNoneMatch = ifNoneMatch;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeByte(type);
+        writeVarLong(out, offsetNanos);
+        writeVarLong(out, status);
+        out.writeUTF(accountId);
+        if (type == TRANSFER) {
+            out.writeUTF(otherAccountId);
+        }
+        if (type != GET_ACCOUNT) {
+            writeVarLong(out, amount.scale());
+            byte[] unscaled = amount.unscaledValue().toByteArray();
+            writeVarLong(out, unscaled.length);
+            out.write(unscaled);
+        }
+        if (type != FINAL_BALANCE) {
+            out.writeByte((ifMatch != null ? 1 : 0) | (ifNoneMatch != null ? 2 : 0));
+            if (ifMatch != null) {
+                out.writeUTF(ifMatch);
+            }
+            if (ifNoneMatch != null) {
+                out.writeUTF(ifNoneMatch);
+            }
+        }
+    }
+
+    static CapturedRequest readFrom(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        long offsetNanos = readVarLong(in);
+        int status = (int) readVarLong(in);
+        String accountId = in.readUTF();
+        String otherAccountId = type == TRANSFER ? in.readUTF() : null;
+        BigDecimal amount = null;
+        if (type != GET_ACCOUNT) {
+            int scale = (int) readVarLong(in);
+            byte[] unscaled = new byte[(int) readVarLong(in)];
+            in.readFully(unscaled);
+            amount = new BigDecimal(new BigInteger(unscaled), scale);
+        }
+        String ifMatch = null;
+        String ifNoneMatch = null;
+        if (type != FINAL_BALANCE) {
+            int headers = in.readUnsignedByte();
+            ifMatch = (headers & 1) != 0 ? in.readUTF() : null;
+            ifNoneMatch = (headers & 2) != 0 ? in.readUTF() : null;
+        }
+        return new CapturedRequest(type, offsetNanos, status, accountId, otherAccountId, amount, ifMatch, ifNoneMatch);
+    }
+
+    //zig-zag varint, offsets and statuses mostly fit in a few bytes
+    private static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        long encoded = (value << 1) ^ (value >> 63);
+        while ((encoded & ~0x7FL) != 0) {
+            out.writeByte((int) ((encoded & 0x7F) | 0x80));
+            encoded >>>= 7;
+        }
+        out.writeByte((int) encoded);
+    }
+
+    private static long readVarLong(DataInputStream in) throws IOException {
+        long encoded = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.readUnsignedByte();
+            encoded |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (encoded >>> 1) ^ -(encoded & 1);
+    }
+}
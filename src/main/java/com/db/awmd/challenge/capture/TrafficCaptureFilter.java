@@ -0,0 +1,179 @@
+package com.db.awmd.challenge.capture;
+
+import com.db.awmd.challenge.cluster.ClusterRouter;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.repository.AccountsRepository;
+import com.db.awmd.challenge.web.AccountsController;
+import com.db.awmd.challenge.web.TransferController;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Records the account and transfer requests received by this instance to 'capture.file', for TrafficReplay.
+ * Requests forwarded by other cluster nodes are left out, they are captured by the node that received them.
+ * Bodies are not parsed again, the transfer or account bound by the controller is taken from the request attributes,
+ * requests rejected before the controller bound their body are not captured.
+ * On shutdown the balances of the local accounts are appended, so a replay can check where it ended up.
+ * Postings and reservations are not captured, their ids and legs can not be replayed by TrafficReplay.
+ * Once one of them changed a balance the final balances are left out, a replay could not reach them.
+ * Neither are transfers received by BinaryTransferServer, with 'binary-protocol.enabled=true' the final balances
+ * are always left out.
+ */
+@Component
+@ConditionalOnProperty(prefix = "capture", name = "enabled", havingValue = "true")
+@Slf4j
+public class TrafficCaptureFilter extends OncePerRequestFilter {
+
+    private static final Pattern ACCOUNT_PATH = Pattern.compile("^/v1/accounts/([^/]+)$");
+
+    //balance changing requests that are not captured
+    private static final Pattern UNCAPTURED_PATH =
+            Pattern.compile("^/v1/postings$|^/v1/accounts/[^/]+/reservations(/.*)?$");
+
+    private final CaptureWriter captureWriter;
+
+    private final AccountsRepository accountsRepository;
+
+    private ScheduledExecutorService flushExecutor;
+
+    private volatile boolean uncapturedChanges;
+
+    @Autowired
+    public TrafficCaptureFilter(final AccountsRepository accountsRepository,
+                                @Value("${capture.file:${java.io.tmpdir}/challenge-traffic.cap}") final String file,
+                                @Value("${binary-protocol.enabled:false}") final boolean binaryIngress)
+            throws IOException {
+        this.accountsRepository = accountsRepository;
+        this.captureWriter = new CaptureWriter(new File(file));
+        log.info("Capturing traffic to {}", file);
+        if (binaryIngress) {
+            log.warn("Transfers received by the binary protocol are not captured, leaving out the final balances");
+            uncapturedChanges = true;
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        byte type = typeOf(request, path);
+        if (type == 0 || request.getHeader(ClusterRouter.FORWARDED_HEADER) != null) {
+            filterChain.doFilter(request, response);
+            if (!uncapturedChanges && !HttpMethod.GET.matches(request.getMethod())
+                    && UNCAPTURED_PATH.matcher(path).matches() && response.getStatus() < 300) {
+                log.warn("Request to {} changed balances without being captured, leaving out the final balances", path);
+                uncapturedChanges = true;
+            }
+            return;
+        }
+        long offsetNanos = captureWriter.offsetNanos();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            capture(type, offsetNanos, response.getStatus(), request, path);
+        }
+    }
+
+    @PostConstruct
+    public void start() {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "capture-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleWithFixedDelay(this::flush, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        flushExecutor.shutdownNow();
+        if (!uncapturedChanges) {
+            long offsetNanos = captureWriter.offsetNanos();
+            for (Account account : accountsRepository.getAccounts()) {
+                captureWriter.append(new CapturedRequest(CapturedRequest.FINAL_BALANCE, offsetNanos, 0,
+                        account.getAccountId(), null, account.getBalance()));
+            }
+        }
+        captureWriter.close();
+    }
+
+    private void flush() {
+        try {
+            captureWriter.flush();
+        } catch (IOException ex) {
+            log.error("Failed to flush traffic capture ", ex);
+        }
+    }
+
+    private static byte typeOf(HttpServletRequest request, String path) {
+        if (HttpMethod.POST.matches(request.getMethod())) {
+            if ("/v1/transfers".equals(path)) {
+                return CapturedRequest.TRANSFER;
+            }
+            if ("/v1/accounts".equals(path)) {
+                return CapturedRequest.CREATE_ACCOUNT;
+            }
+        } else if (HttpMethod.GET.matches(request.getMethod()) && ACCOUNT_PATH.matcher(path).matches()) {
+            return CapturedRequest.GET_ACCOUNT;
+        }
+        return 0;
+    }
+
+    private void capture(byte type, long offsetNanos, int status, HttpServletRequest request, String path) {
+        String ifMatch = request.getHeader(HttpHeaders.IF_MATCH);
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        CapturedRequest captured = null;
+        if (type == CapturedRequest.TRANSFER) {
+            Transfer transfer = (Transfer) request.getAttribute(TransferController.TRANSFER_ATTRIBUTE);
+            if (transfer != null) {
+                captured = new CapturedRequest(type, offsetNanos, status, transfer.getFromAccountId(),
+                        transfer.getToAccountId(), transfer.getTransferAmount(), ifMatch, ifNoneMatch);
+            }
+        } else if (type == CapturedRequest.CREATE_ACCOUNT) {
+            Account account = (Account) request.getAttribute(AccountsController.ACCOUNT_ATTRIBUTE);
+            if (account != null) {
+                captured = new CapturedRequest(type, offsetNanos, status, account.getAccountId(), null,
+                        account.getBalance(), ifMatch, ifNoneMatch);
+            }
+        } else {
+            Matcher matcher = ACCOUNT_PATH.matcher(path);
+            matcher.matches();
+            captured = new CapturedRequest(type, offsetNanos, status, matcher.group(1), null, null, ifMatch,
+                    ifNoneMatch);
+        }
+        if (captured == null) {
+            //rejected before the body was bound, nothing to replay
+            log.debug("Request to {} not captured, answered {} before its body was bound", path, status);
+            return;
+        }
+        try {
+            captureWriter.append(captured);
+        } catch (IOException ex) {
+            log.error("Failed to capture request ", ex);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.db.awmd.challenge.cluster;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Reservation;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import lombok.Data;
+
+/**
+ * State of an account moving to another node, sent by ClusterMembership to the new owner.
+ * Carries the version, so that ETags handed out by the old owner stay valid, and the open reservations.
+ * The hand over id makes adoption idempotent, the old owner retries with the same id until the new owner confirms.
+ */
+@Data
+public class AccountHandOver {
+
+    @NotNull
+    @NotEmpty
+    private final String handOverId;
+
+    @NotNull
+    @NotEmpty
+    private final String accountId;
+
+    @NotNull
+    private final BigDecimal balance;
+
+    private final long version;
+
+    private final List<Reservation> reservations;
+
+    @JsonCreator
+    public AccountHandOver(@JsonProperty("handOverId") String handOverId,
+                           @JsonProperty("accountId") String accountId,
+                           @JsonProperty("balance") BigDecimal balance,
+                           @JsonProperty("version") long version,
+                           @JsonProperty("reservations") List<Reservation> reservations) {
+        this.handOverId = handOverId;
+        this.accountId = accountId;
+        this.balance = balance;
+        this.version = version;
+        this.reservations = reservations == null ? Collections.emptyList() : reservations;
+    }
+
+    /**
+     * Rebuilds the account, its reserved amount is the sum of the reservations handed over with it.
+     * @return Account
+     */
+    public Account toAccount() {
+        BigDecimal reserved = BigDecimal.ZERO;
+        for (Reservation reservation : reservations) {
+            reserved = reserved.add(reservation.getAmount());
+        }
+        return new Account(accountId, balance, version, reserved);
+    }
+}
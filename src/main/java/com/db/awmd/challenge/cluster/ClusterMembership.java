@@ -0,0 +1,448 @@
+package com.db.awmd.challenge.cluster;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Reservation;
+import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+import com.db.awmd.challenge.repository.AccountsRepository;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.ReservationService;
+import com.db.awmd.challenge.transaction.LocalPartitionParticipant;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Membership of the account partitioned cluster.
+ * Accounts are assigned to nodes with a consistent hash ring on the account id.
+ * On every membership change the node hands the accounts it no longer owns over to their new owner,
+ * together with their version and open reservations.
+ * <p>
+ * An account is restored on this node only when the new owner refuses it with a 4xx response. After a timeout or
+ * any other failure the new owner may have taken the account already, so it stays detached here and the hand over
+ * is retried with the same id until the new owner confirms it, never leaving the balance on two nodes.
+ * Every retry looks the owner up again, so a hand over to a node that left meanwhile goes to its successor,
+ * or is restored here once this node owns the account again.
+ * An account with a prepared cross partition transfer is handed over only once the transfer is resolved.
+ * Disabled by default, in which case every account is local.
+ */
+@Component
+@Slf4j
+public class ClusterMembership {
+
+    private static final long HAND_OVER_RETRY_SECONDS = 5;
+
+    //hand over ids remembered to answer retries, far more than accounts move in one retry window
+    private static final int MAX_REMEMBERED_HAND_OVERS = 65536;
+
+    @Getter
+    private final boolean enabled;
+
+    @Getter
+    private final String selfId;
+
+    private final String configuredSelfUrl;
+
+    private final ConsistentHashRing ring;
+
+    private final Map<String, String> nodeUrls = new ConcurrentHashMap<>();
+
+    private final AccountsRepository accountsRepository;
+
+    private final AccountsService accountsService;
+
+    private final Environment environment;
+
+    /**
+     * Request factory with the configured connect and read timeouts, for every call to another node.
+     */
+    @Getter
+    private final ClientHttpRequestFactory requestFactory;
+
+    private final RestTemplate restTemplate;
+
+    //guards ring changes, held without calling other nodes
+    private final Lock membershipLock = new ReentrantLock();
+
+    private final Lock adoptionLock = new ReentrantLock();
+
+    private final Set<String> adoptedHandOvers = Collections.newSetFromMap(new LinkedHashMap<String, Boolean>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > MAX_REMEMBERED_HAND_OVERS;
+        }
+    });
+
+    //unconfirmed hand overs by account id, the accounts stay detached until the new owner confirms
+    private final Map<String, AccountHandOver> pendingHandOvers = new ConcurrentHashMap<>();
+
+    //accounts kept back by a prepared cross partition transfer
+    private final Set<String> deferredHandOvers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean retryScheduled = new AtomicBoolean();
+
+    private final ScheduledExecutorService retryExecutor;
+
+    private ReservationService reservationService;
+
+    private LocalPartitionParticipant localParticipant;
+
+    @Autowired
+    public ClusterMembership(final AccountsRepository accountsRepository, final AccountsService accountsService,
+                             final Environment environment,
+                             @Value("${cluster.enabled:false}") final boolean enabled,
+                             @Value("${cluster.self-id:node-1}") final String selfId,
+                             @Value("${cluster.self-url:}") final String selfUrl,
+                             @Value("${cluster.nodes:}") final String nodes,
+                             @Value("${cluster.virtual-nodes:128}") final int virtualNodes,
+                             @Value("${cluster.connect-timeout-millis:2000}") final int connectTimeoutMillis,
+                             @Value("${cluster.read-timeout-millis:10000}") final int readTimeoutMillis) {
+        this.accountsRepository = accountsRepository;
+        this.accountsService = accountsService;
+        this.environment = environment;
+        this.enabled = enabled;
+        this.selfId = selfId;
+        this.configuredSelfUrl = selfUrl;
+        this.ring = new ConsistentHashRing(virtualNodes);
+        ring.addNode(selfId);
+        for (String node : nodes.split(",")) {
+            String[] idAndUrl = node.trim().split("=", 2);
+            if (idAndUrl.length == 2 && !idAndUrl[0].equals(selfId)) {
+                nodeUrls.put(idAndUrl[0], idAndUrl[1]);
+                ring.addNode(idAndUrl[0]);
+            }
+        }
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(connectTimeoutMillis);
+        requestFactory.setReadTimeout(readTimeoutMillis);
+        this.requestFactory = requestFactory;
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.retryExecutor = enabled ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "cluster-hand-over");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    @PreDestroy
+    public void close() {
+        if (retryExecutor != null) {
+            retryExecutor.shutdownNow();
+        }
+    }
+
+    @Autowired(required = false)
+    public void setReservationService(final ReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    @Autowired(required = false)
+    public void setLocalParticipant(final LocalPartitionParticipant localParticipant) {
+        this.localParticipant = localParticipant;
+    }
+
+    public boolean isLocal(String accountId) {
+        return !enabled || selfId.equals(ring.getOwner(accountId));
+    }
+
+    public String getOwner(String accountId) {
+        return enabled ? ring.getOwner(accountId) : selfId;
+    }
+
+    public String getUrl(String nodeId) {
+        return selfId.equals(nodeId) ? getSelfUrl() : nodeUrls.get(nodeId);
+    }
+
+    public String getSelfUrl() {
+        return configuredSelfUrl.isEmpty()
+                ? "http://localhost:" + environment.getProperty("local.server.port")
+                : configuredSelfUrl;
+    }
+
+    public List<ClusterNode> getNodes() {
+        List<ClusterNode> nodes = new ArrayList<>();
+        for (String nodeId : ring.getNodes()) {
+            nodes.add(new ClusterNode(nodeId, getUrl(nodeId)));
+        }
+        return nodes;
+    }
+
+    /**
+     * Adds a node to the ring and hands over the accounts it now owns.
+     * When propagate is set the change is sent to every other member,
+     * and the new node learns about the existing members. A member that can not be reached is skipped,
+     * the accounts are rebalanced in any case.
+     * @param node
+     * @param propagate
+     */
+    public void join(ClusterNode node, boolean propagate) {
+        List<ClusterNode> members;
+        membershipLock.lock();
+        try {
+            if (selfId.equals(node.getNodeId()) || nodeUrls.containsKey(node.getNodeId())) {
+                return;
+            }
+            members = getNodes();
+            log.info("Node {} joined the cluster at {}", node.getNodeId(), node.getUrl());
+            nodeUrls.put(node.getNodeId(), node.getUrl());
+            ring.addNode(node.getNodeId());
+        } finally {
+            membershipLock.unlock();
+        }
+        try {
+            if (propagate) {
+                for (ClusterNode member : members) {
+                    if (!selfId.equals(member.getNodeId())) {
+                        propagate(member.getUrl() + "/v1/cluster/nodes", HttpMethod.POST, node);
+                    }
+                    propagate(node.getUrl() + "/v1/cluster/nodes", HttpMethod.POST, member);
+                }
+            }
+        } finally {
+            rebalance();
+        }
+    }
+
+    /**
+     * Removes a node from the ring. When the node leaving is this node,
+     * all of its accounts are handed over to the remaining members.
+     * @param nodeId
+     * @param propagate
+     */
+    public void leave(String nodeId, boolean propagate) {
+        List<ClusterNode> members;
+        membershipLock.lock();
+        try {
+            if (!selfId.equals(nodeId) && !nodeUrls.containsKey(nodeId)) {
+                return;
+            }
+            members = getNodes();
+            log.info("Node {} left the cluster", nodeId);
+            ring.removeNode(nodeId);
+            if (!selfId.equals(nodeId)) {
+                nodeUrls.remove(nodeId);
+            }
+        } finally {
+            membershipLock.unlock();
+        }
+        try {
+            if (propagate) {
+                for (ClusterNode member : members) {
+                    if (!selfId.equals(member.getNodeId())) {
+                        propagate(member.getUrl() + "/v1/cluster/nodes/" + nodeId, HttpMethod.DELETE, null);
+                    }
+                }
+            }
+        } finally {
+            rebalance();
+        }
+    }
+
+    /**
+     * Hands every local account that is owned by another node over to its owner.
+     */
+    void rebalance() {
+        //not copied, a tiered repository faults the accounts in one at a time while iterating
+        int moved = 0;
+        for (Account listed : accountsRepository.getAccounts()) {
+            String owner = ring.getOwner(listed.getAccountId());
+            if (owner == null || selfId.equals(owner)) {
+                continue;
+            }
+            if (handOver(listed.getAccountId(), owner)) {
+                moved++;
+            }
+        }
+        log.info("Handed over {} accounts after membership change", moved);
+    }
+
+    /**
+     * Takes over an account handed over by another node, together with its open reservations.
+     * Idempotent, a hand over retried with an id already taken over is not applied again.
+     * Throws DuplicateAccountIdException if the account already exists on this node.
+     * @param handOver
+     * @return false if the hand over was taken over before
+     */
+    public boolean adopt(AccountHandOver handOver) {
+        adoptionLock.lock();
+        try {
+            if (adoptedHandOvers.contains(handOver.getHandOverId())) {
+                return false;
+            }
+            accountsService.createAccount(handOver.toAccount());
+            if (reservationService != null) {
+                reservationService.adoptReservations(handOver.getReservations());
+            }
+            adoptedHandOvers.add(handOver.getHandOverId());
+            return true;
+        } finally {
+            adoptionLock.unlock();
+        }
+    }
+
+    public int getPendingHandOverCount() {
+        return pendingHandOvers.size() + deferredHandOvers.size();
+    }
+
+    /**
+     * The account is detached and removed holding its lock, so transfers holding a stale reference
+     * look it up again, the new owner is called after the lock has been released.
+     */
+    private boolean handOver(String accountId, String owner) {
+        AccountHandOver handOver = detach(accountId);
+        return handOver != null && send(handOver, owner);
+    }
+
+    /**
+     * Sends the hand over to the new owner. It is restored on this node if the owner refuses it,
+     * and retried later if the outcome is unknown.
+     * @return true once the owner confirmed
+     */
+    private boolean send(AccountHandOver handOver, String owner) {
+        String accountId = handOver.getAccountId();
+        String url = getUrl(owner);
+        if (url == null) {
+            log.warn("Hand over of account {} pending, node {} is no longer a member", accountId, owner);
+            retryLater(handOver);
+            return false;
+        }
+        try {
+            send(url + "/v1/cluster/accounts", HttpMethod.POST, handOver);
+            pendingHandOvers.remove(accountId);
+            return true;
+        } catch (HttpClientErrorException ex) {
+            //refused, the owner did not take the account
+            pendingHandOvers.remove(accountId);
+            log.error("Node {} refused account {}, keeping it. Reason : {}", owner, accountId,
+                    ex.getResponseBodyAsString());
+            restore(handOver);
+            return false;
+        } catch (RestClientException ex) {
+            //timed out or failed on the owner's side, it may have taken the account
+            log.warn("Hand over of account {} to node {} unconfirmed, retrying in {}s. Reason : {}", accountId, owner,
+                    HAND_OVER_RETRY_SECONDS, ex.getMessage());
+            retryLater(handOver);
+            return false;
+        }
+    }
+
+    private void restore(AccountHandOver handOver) {
+        try {
+            adopt(handOver);
+        } catch (DuplicateAccountIdException ex) {
+            log.error("Failed to restore account {}, it was created again meanwhile", handOver.getAccountId(), ex);
+        }
+    }
+
+    private void retryLater(AccountHandOver handOver) {
+        pendingHandOvers.put(handOver.getAccountId(), handOver);
+        scheduleRetry();
+    }
+
+    private void scheduleRetry() {
+        if (retryScheduled.compareAndSet(false, true)) {
+            retryExecutor.schedule(this::retryPendingHandOvers, HAND_OVER_RETRY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private void retryPendingHandOvers() {
+        retryScheduled.set(false);
+        for (AccountHandOver pending : new ArrayList<>(pendingHandOvers.values())) {
+            String owner = ring.getOwner(pending.getAccountId());
+            if (owner == null || selfId.equals(owner)) {
+                //owned by this node again, e.g. the new owner left before confirming
+                pendingHandOvers.remove(pending.getAccountId());
+                log.info("Restoring account {}, its hand over is no longer needed", pending.getAccountId());
+                restore(pending);
+            } else {
+                send(pending, owner);
+            }
+        }
+        for (String accountId : new ArrayList<>(deferredHandOvers)) {
+            deferredHandOvers.remove(accountId);
+            String owner = ring.getOwner(accountId);
+            if (owner != null && !selfId.equals(owner)) {
+                handOver(accountId, owner);
+            }
+        }
+    }
+
+    private AccountHandOver detach(String accountId) {
+        Account account;
+        while ((account = accountsRepository.getAccount(accountId)) != null) {
+            account.lock();
+            try {
+                if (account.isDetached()) {
+                    //evicted meanwhile, look the account up again
+                    continue;
+                }
+                if (localParticipant != null && localParticipant.isPrepared(accountId)) {
+                    //its commit or abort must find the account here
+                    log.info("Deferring hand over of account {}, a cross partition transfer is prepared", accountId);
+                    deferredHandOvers.add(accountId);
+                    scheduleRetry();
+                    return null;
+                }
+                List<Reservation> reservations = reservationService == null || account.getReserved().signum() == 0
+                        ? Collections.emptyList()
+                        : reservationService.removeReservations(accountId);
+                account.detach();
+                accountsService.removeAccount(accountId);
+                return new AccountHandOver(UUID.randomUUID().toString(), accountId, account.getBalance(),
+                        account.getVersion(), reservations);
+            } finally {
+                account.unlock();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sends a membership change, a failure is logged and does not keep it from the remaining members.
+     * @param url
+     * @param method
+     * @param body
+     */
+    private void propagate(String url, HttpMethod method, Object body) {
+        try {
+            send(url, method, body);
+        } catch (RestClientException ex) {
+            log.warn("Failed to propagate membership change to {}. Reason : {}", url, ex.getMessage());
+        }
+    }
+
+    private void send(String url, HttpMethod method, Object body) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(ClusterRouter.FORWARDED_HEADER, "true");
+        restTemplate.exchange(url, method, new HttpEntity<>(body, headers), String.class);
+    }
+}
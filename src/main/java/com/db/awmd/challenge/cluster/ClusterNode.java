@@ -0,0 +1,31 @@
+package com.db.awmd.challenge.cluster;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import lombok.Data;
+
+/**
+ * Member of the account partitioned cluster.
+ */
+@Data
+public class ClusterNode {
+
+    @NotNull
+    @NotEmpty
+    private final String nodeId;
+
+    @NotNull
+    @NotEmpty
+    private final String url;
+
+    @JsonCreator
+    public ClusterNode(@JsonProperty("nodeId") String nodeId,
+                       @JsonProperty("url") String url) {
+        this.nodeId = nodeId;
+        this.url = url;
+    }
+}
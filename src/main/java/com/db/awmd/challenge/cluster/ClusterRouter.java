@@ -0,0 +1,95 @@
+package com.db.awmd.challenge.cluster;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.Objects;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Routes account requests to the node owning the account partition.
+ * Requests already forwarded by another node carry FORWARDED_HEADER and are always served locally,
+ * so that nodes with a momentarily different view of the ring never bounce a request around.
+ */
+@Component
+@Slf4j
+public class ClusterRouter {
+
+    public static final String FORWARDED_HEADER = "X-Cluster-Forwarded";
+
+    private final ClusterMembership membership;
+
+    private final RestTemplate restTemplate;
+
+    @Autowired
+    public ClusterRouter(final ClusterMembership membership) {
+        this.membership = membership;
+        //an unresponsive owner fails the forwarded request instead of holding the request thread
+        this.restTemplate = new RestTemplate(membership.getRequestFactory());
+        //pass the owner's error responses through unchanged
+        this.restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+            @Override
+            public boolean hasError(ClientHttpResponse response) {
+                return false;
+            }
+        });
+    }
+
+    public boolean isLocal(String accountId) {
+        return membership.isLocal(accountId);
+    }
+
+    public boolean isSamePartition(String accountId, String otherAccountId) {
+        return !membership.isEnabled()
+                || Objects.equals(membership.getOwner(accountId), membership.getOwner(otherAccountId));
+    }
+
+    /**
+     * Base url of the node owning the account, for requests that can not be proxied such as event streams.
+     * @param accountId
+     * @return String
+     */
+    public String getOwnerUrl(String accountId) {
+        return membership.getUrl(membership.getOwner(accountId));
+    }
+
+    public ResponseEntity<Object> forward(String accountId, HttpMethod method, String path, Object body) {
+        return forward(accountId, method, path, body, new HttpHeaders());
+    }
+
+    /**
+     * Forwards the request to the owner of the account and returns the owner's response.
+     * @param accountId
+     * @param method
+     * @param path
+     * @param body
+     * @param requestHeaders headers passed on to the owner, e.g. conditional request headers
+     * @return ResponseEntity
+     */
+    public ResponseEntity<Object> forward(String accountId, HttpMethod method, String path, Object body,
+                                          HttpHeaders requestHeaders) {
+        String owner = membership.getOwner(accountId);
+        log.debug("Forwarding {} {} to node {}", method, path, owner);
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(requestHeaders);
+        headers.set(FORWARDED_HEADER, "true");
+        ResponseEntity<String> response = restTemplate.exchange(membership.getUrl(owner) + path, method,
+                new HttpEntity<>(body, headers), String.class);
+        HttpHeaders responseHeaders = new HttpHeaders();
+        if (response.getHeaders().getContentType() != null) {
+            responseHeaders.setContentType(response.getHeaders().getContentType());
+        }
+        if (response.getHeaders().getETag() != null) {
+            responseHeaders.setETag(response.getHeaders().getETag());
+        }
+        return new ResponseEntity<>(response.getBody(), responseHeaders, response.getStatusCode());
+    }
+}
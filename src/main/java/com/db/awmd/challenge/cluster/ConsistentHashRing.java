@@ -0,0 +1,79 @@
+package com.db.awmd.challenge.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Consistent hash ring mapping keys (account ids) to node ids.
+ * Every node is placed on the ring several times (virtual nodes) to even out the partition sizes.
+ * Adding or removing a node only moves the keys adjacent to its virtual nodes.
+ * Reads are lock free against an immutable snapshot, membership changes copy the ring.
+ */
+public class ConsistentHashRing {
+
+    private final int virtualNodes;
+
+    private volatile NavigableMap<Long, String> ring = Collections.unmodifiableNavigableMap(new TreeMap<>());
+
+    public ConsistentHashRing(final int virtualNodes) {
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Virtual nodes must be positive.");
+        }
+        this.virtualNodes = virtualNodes;
+    }
+
+    public synchronized void addNode(String nodeId) {
+        TreeMap<Long, String> copy = new TreeMap<>(ring);
+        for (int i = 0; i < virtualNodes; i++) {
+            copy.put(hash(nodeId + "#" + i), nodeId);
+        }
+        ring = Collections.unmodifiableNavigableMap(copy);
+    }
+
+    public synchronized void removeNode(String nodeId) {
+        TreeMap<Long, String> copy = new TreeMap<>(ring);
+        copy.values().removeIf(nodeId::equals);
+        ring = Collections.unmodifiableNavigableMap(copy);
+    }
+
+    /**
+     * Returns the node owning the key, or null if the ring is empty.
+     * @param key
+     * @return String
+     */
+    public String getOwner(String key) {
+        NavigableMap<Long, String> snapshot = ring;
+        if (snapshot.isEmpty()) {
+            return null;
+        }
+        Map.Entry<Long, String> entry = snapshot.ceilingEntry(hash(key));
+        return entry != null ? entry.getValue() : snapshot.firstEntry().getValue();
+    }
+
+    public Set<String> getNodes() {
+        return Collections.unmodifiableSet(new TreeSet<>(ring.values()));
+    }
+
+    /**
+     * 64 bit FNV-1a over the utf-8 bytes followed by the murmur3 finalizer,
+     * so that similar ids like ID-1 and ID-2 land far apart on the ring.
+     */
+    static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,45 @@
+package com.db.awmd.challenge.codec;
+
+import com.db.awmd.challenge.domain.Account;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * {"accountId":"ID-A","balance":123.45}, the only properties Jackson binds on Account.
+ */
+class AccountCodec implements JsonCodec<Account> {
+
+    @Override
+    public Account read(JsonParser parser) throws IOException {
+        JsonCodec.expectStartObject(parser);
+        String accountId = null;
+        BigDecimal balance = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "accountId":
+                    accountId = JsonCodec.readString(parser);
+                    break;
+                case "balance":
+                    balance = JsonCodec.readDecimal(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return new Account(accountId, balance);
+    }
+
+    @Override
+    public void write(Account account, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("accountId", account.getAccountId());
+        JsonCodec.writeDecimalField(generator, "balance", account.getBalance());
+        generator.writeEndObject();
+    }
+}
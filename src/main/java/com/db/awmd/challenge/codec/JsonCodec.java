@@ -0,0 +1,73 @@
+package com.db.awmd.challenge.codec;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Hand written binding of one type to JSON on the streaming parser and generator, no reflection and no tree.
+ * Reading follows what Jackson's default binding accepts : unknown properties are skipped, missing ones are null,
+ * scalars are coerced to strings and numeric strings to decimals.
+ * @param <T>
+ */
+interface JsonCodec<T> {
+
+    /**
+     * Reads the value, the parser is positioned on its first token.
+     */
+    T read(JsonParser parser) throws IOException;
+
+    void write(T value, JsonGenerator generator) throws IOException;
+
+    static void expectStartObject(JsonParser parser) throws IOException {
+        if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a JSON object but found " + parser.getCurrentToken());
+        }
+    }
+
+    static String readString(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (!token.isScalarValue()) {
+            throw new JsonParseException(parser, "Expected a string but found " + token);
+        }
+        return parser.getText();
+    }
+
+    static BigDecimal readDecimal(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+            return parser.getDecimalValue();
+        }
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        }
+        if (token == JsonToken.VALUE_STRING) {
+            String text = parser.getText().trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            try {
+                return new BigDecimal(text);
+            } catch (NumberFormatException ex) {
+                throw new JsonParseException(parser, "Not a valid decimal : " + text);
+            }
+        }
+        throw new JsonParseException(parser, "Expected a number but found " + token);
+    }
+
+    static void writeDecimalField(JsonGenerator generator, String name, BigDecimal value) throws IOException {
+        generator.writeFieldName(name);
+        if (value == null) {
+            generator.writeNull();
+        } else {
+            generator.writeNumber(value);
+        }
+    }
+}
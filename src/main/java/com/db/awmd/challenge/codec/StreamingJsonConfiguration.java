@@ -0,0 +1,32 @@
+package com.db.awmd.challenge.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Puts the StreamingJsonHttpMessageConverter ahead of the Jackson data binding converter,
+ * switch back to data binding with '--codec.streaming-json.enabled=false'.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "codec.streaming-json", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StreamingJsonConfiguration implements WebMvcConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public StreamingJsonConfiguration(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(0, new StreamingJsonHttpMessageConverter(objectMapper.getFactory()));
+    }
+}
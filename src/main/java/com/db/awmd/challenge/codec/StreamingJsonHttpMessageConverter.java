@@ -0,0 +1,69 @@
+package com.db.awmd.challenge.codec;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads and writes Account and Transfer with their JsonCodec, straight between the HTTP streams and the
+ * streaming parser or generator. Buffers are recycled per thread by the JsonFactory.
+ * Other types are left to the Jackson data binding converter. Bean validation runs on the bound object
+ * afterwards, as with any converter.
+ */
+public class StreamingJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+
+    private final JsonFactory jsonFactory;
+
+    private final Map<Class<?>, JsonCodec<?>> codecs = new HashMap<>();
+
+    /**
+     * @param jsonFactory the factory of the application's ObjectMapper, to share its parser and generator features
+     */
+    public StreamingJsonHttpMessageConverter(JsonFactory jsonFactory) {
+        super(StandardCharsets.UTF_8, MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.jsonFactory = jsonFactory;
+        codecs.put(Account.class, new AccountCodec());
+        codecs.put(Transfer.class, new TransferCodec());
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return codecs.containsKey(clazz);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        try (JsonParser parser = jsonFactory.createParser(inputMessage.getBody())) {
+            if (parser.nextToken() == null) {
+                throw new HttpMessageNotReadableException("Required request body is missing", inputMessage);
+            }
+            return codecs.get(clazz).read(parser);
+        } catch (JsonProcessingException ex) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + ex.getOriginalMessage(), ex, inputMessage);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+        //not closed, the response stream belongs to the container
+        JsonGenerator generator = jsonFactory.createGenerator(outputMessage.getBody(), JsonEncoding.UTF8);
+        ((JsonCodec<Object>) codecs.get(value.getClass())).write(value, generator);
+        generator.flush();
+    }
+}
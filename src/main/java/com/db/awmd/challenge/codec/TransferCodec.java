@@ -0,0 +1,51 @@
+package com.db.awmd.challenge.codec;
+
+import com.db.awmd.challenge.domain.Transfer;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * {"fromAccountId":"ID-A","toAccountId":"ID-B","transferAmount":10.00}, the derived transferAmountValid
+ * data binding would add is not written, no reader needs it.
+ */
+class TransferCodec implements JsonCodec<Transfer> {
+
+    @Override
+    public Transfer read(JsonParser parser) throws IOException {
+        JsonCodec.expectStartObject(parser);
+        String fromAccountId = null;
+        String toAccountId = null;
+        BigDecimal transferAmount = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            switch (field) {
+                case "fromAccountId":
+                    fromAccountId = JsonCodec.readString(parser);
+                    break;
+                case "toAccountId":
+                    toAccountId = JsonCodec.readString(parser);
+                    break;
+                case "transferAmount":
+                    transferAmount = JsonCodec.readDecimal(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return new Transfer(fromAccountId, toAccountId, transferAmount);
+    }
+
+    @Override
+    public void write(Transfer transfer, JsonGenerator generator) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("fromAccountId", transfer.getFromAccountId());
+        generator.writeStringField("toAccountId", transfer.getToAccountId());
+        JsonCodec.writeDecimalField(generator, "transferAmount", transfer.getTransferAmount());
+        generator.writeEndObject();
+    }
+}
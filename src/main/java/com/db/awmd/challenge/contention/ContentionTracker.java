@@ -0,0 +1,101 @@
+package com.db.awmd.challenge.contention;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Tracks the accounts involved in the most transfers and the accounts whose locks
+ * transfers wait longest for, in constant memory. Weights halve every half life,
+ * so the top lists reflect the recent past rather than the whole uptime.
+ */
+@Component
+@ConditionalOnProperty(prefix = "contention", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class ContentionTracker {
+
+    public static final String BY_TRANSFERS = "transfers";
+
+    public static final String BY_LOCK_WAIT = "lock-wait";
+
+    private final HeavyHitters transfers;
+
+    private final HeavyHitters lockWaits;
+
+    private final long halfLifeSeconds;
+
+    private ScheduledExecutorService decayExecutor;
+
+    @Autowired
+    public ContentionTracker(@Value("${contention.top-k:32}") final int topK,
+                             @Value("${contention.sketch-depth:4}") final int sketchDepth,
+                             @Value("${contention.sketch-width:4096}") final int sketchWidth,
+                             @Value("${contention.half-life-seconds:30}") final long halfLifeSeconds) {
+        this.transfers = new HeavyHitters(topK, sketchDepth, sketchWidth);
+        this.lockWaits = new HeavyHitters(topK, sketchDepth, sketchWidth);
+        this.halfLifeSeconds = halfLifeSeconds;
+    }
+
+    @PostConstruct
+    public void start() {
+        decayExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "contention-decay");
+            thread.setDaemon(true);
+            return thread;
+        });
+        decayExecutor.scheduleAtFixedRate(this::decay, halfLifeSeconds, halfLifeSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        decayExecutor.shutdownNow();
+    }
+
+    /**
+     * Records one transfer on the account and the time spent waiting for its lock.
+     * @param accountId
+     * @param lockWaitNanos
+     */
+    public void record(String accountId, long lockWaitNanos) {
+        transfers.record(accountId, 1);
+        if (lockWaitNanos > 0) {
+            lockWaits.record(accountId, lockWaitNanos);
+        }
+    }
+
+    /**
+     * Hottest accounts, largest first.
+     * @param by BY_TRANSFERS or BY_LOCK_WAIT
+     * @param limit
+     * @return List
+     */
+    public List<HotAccount> getHotAccounts(String by, int limit) {
+        if (!BY_TRANSFERS.equals(by) && !BY_LOCK_WAIT.equals(by)) {
+            throw new IllegalArgumentException("Unknown ranking " + by + ", expecting "
+                    + BY_TRANSFERS + " or " + BY_LOCK_WAIT + ".");
+        }
+        HeavyHitters ranking = BY_TRANSFERS.equals(by) ? transfers : lockWaits;
+        List<HotAccount> hotAccounts = new ArrayList<>();
+        for (Map.Entry<String, Long> entry : ranking.top(limit)) {
+            String accountId = entry.getKey();
+            hotAccounts.add(new HotAccount(accountId, transfers.estimate(accountId),
+                    lockWaits.estimate(accountId) / 1e6));
+        }
+        return hotAccounts;
+    }
+
+    void decay() {
+        transfers.decay();
+        lockWaits.decay();
+    }
+}
@@ -0,0 +1,151 @@
+package com.db.awmd.challenge.contention;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free count-min sketch. Estimates never undercount, they overcount by at most
+ * e / width of the total weight with probability 1 - e^-depth.
+ * Rows are indexed by double hashing h1 + row * h2 of a seeded 128 bit MurmurHash3 of the key's UTF-8 bytes,
+ * so keys with equal String hash codes do not collide in every row. The seed is random per sketch by default,
+ * account ids colliding in one sketch can not be chosen in advance.
+ */
+public class CountMinSketch {
+
+    private static final long C1 = 0x87C37B91114253D5L;
+
+    private static final long C2 = 0x4CF5AD432745937FL;
+
+    private final int depth;
+
+    private final int mask;
+
+    private final long seed;
+
+    private final AtomicLongArray counters;
+
+    /**
+     * @param depth number of rows, independent hash functions
+     * @param width counters per row, rounded up to a power of two
+     */
+    public CountMinSketch(int depth, int width) {
+        this(depth, width, ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * @param depth number of rows, independent hash functions
+     * @param width counters per row, rounded up to a power of two
+     * @param seed of the hash functions
+     */
+    public CountMinSketch(int depth, int width, long seed) {
+        if (depth < 1 || width < 1) {
+            throw new IllegalArgumentException("Sketch depth and width must be positive.");
+        }
+        int rowWidth = Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.mask = Math.max(rowWidth, 1) - 1;
+        this.seed = seed;
+        this.counters = new AtomicLongArray(depth * (mask + 1));
+    }
+
+    public void add(String key, long weight) {
+        long[] hash = hash(key, seed);
+        for (int row = 0; row < depth; row++) {
+            counters.addAndGet(index(row, hash), weight);
+        }
+    }
+
+    public long estimate(String key) {
+        long[] hash = hash(key, seed);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(row, hash)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Halves every counter, so that old weight fades away with a half life of the decay interval.
+     * Concurrent adds are never lost, they are at most halved along with the older weight.
+     */
+    public void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >> 1);
+        }
+    }
+
+    private int index(int row, long[] hash) {
+        //h2 is odd, so every row probes a different slot of a power of two row
+        long h = hash[0] + row * (hash[1] | 1);
+        return row * (mask + 1) + ((int) (h ^ (h >>> 32)) & mask);
+    }
+
+    /**
+     * MurmurHash3 x64 128 of the UTF-8 bytes of the key, also used by the sketch of the tiered repository.
+     * @param key
+     * @param seed
+     * @return both 64 bit halves
+     */
+    public static long[] hash(String key, long seed) {
+        byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+        long h1 = seed;
+        long h2 = seed;
+        int blocks = bytes.length / 16;
+        for (int i = 0; i < blocks; i++) {
+            long k1 = getLong(bytes, i * 16);
+            long k2 = getLong(bytes, i * 16 + 8);
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27) + h2;
+            h1 = h1 * 5 + 0x52DCE729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31) + h1;
+            h2 = h2 * 5 + 0x38495AB5;
+        }
+        long k1 = 0;
+        long k2 = 0;
+        int tail = blocks * 16;
+        for (int i = bytes.length - 1; i >= tail + 8; i--) {
+            k2 = (k2 << 8) | (bytes[i] & 0xFF);
+        }
+        for (int i = Math.min(bytes.length, tail + 8) - 1; i >= tail; i--) {
+            k1 = (k1 << 8) | (bytes[i] & 0xFF);
+        }
+        h1 ^= mixK1(k1);
+        h2 ^= mixK2(k2);
+        h1 ^= bytes.length;
+        h2 ^= bytes.length;
+        h1 += h2;
+        h2 += h1;
+        h1 = fmix(h1);
+        h2 = fmix(h2);
+        h1 += h2;
+        h2 += h1;
+        return new long[] {h1, h2};
+    }
+
+    private static long getLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (bytes[offset + i] & 0xFF);
+        }
+        return value;
+    }
+
+    private static long mixK1(long k1) {
+        return Long.rotateLeft(k1 * C1, 31) * C2;
+    }
+
+    private static long mixK2(long k2) {
+        return Long.rotateLeft(k2 * C2, 33) * C1;
+    }
+
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xFF51AFD7ED558CCDL;
+        k ^= k >>> 33;
+        k *= 0xC4CEB9FE1A85EC53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
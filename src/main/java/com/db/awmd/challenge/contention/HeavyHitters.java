@@ -0,0 +1,119 @@
+package com.db.awmd.challenge.contention;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Streaming top-K over a count-min sketch. The sketch holds the weight of every key in constant memory,
+ * a space-saving style table monitors the keys with the largest estimates: a new key is admitted by
+ * evicting the monitored key with the smallest estimate once its own estimate is larger.
+ * The table only holds keys, weights are always read from the sketch, so decay applies to both at once.
+ */
+public class HeavyHitters {
+
+    private final CountMinSketch sketch;
+
+    private final int capacity;
+
+    private final Set<String> monitored = ConcurrentHashMap.newKeySet();
+
+    private final ReentrantLock admissionLock = new ReentrantLock();
+
+    /** Smallest estimate in the table when it was last full, a key must exceed it to be admitted. */
+    private volatile long admissionThreshold;
+
+    public HeavyHitters(int capacity, int sketchDepth, int sketchWidth) {
+        this.capacity = capacity;
+        this.sketch = new CountMinSketch(sketchDepth, sketchWidth);
+    }
+
+    /**
+     * Adds weight to the key. Never blocks, admission to the table is skipped if another thread
+     * is updating it, the key is admitted on one of its next updates.
+     * @param key
+     * @param weight
+     */
+    public void record(String key, long weight) {
+        sketch.add(key, weight);
+        if (monitored.contains(key)) {
+            return;
+        }
+        long estimate = sketch.estimate(key);
+        if (estimate <= admissionThreshold || !admissionLock.tryLock()) {
+            return;
+        }
+        try {
+            admit(key, estimate);
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    public long estimate(String key) {
+        return sketch.estimate(key);
+    }
+
+    /**
+     * Keys with the largest weights, largest first.
+     * @param limit
+     * @return List
+     */
+    public List<Map.Entry<String, Long>> top(int limit) {
+        List<Map.Entry<String, Long>> entries = new ArrayList<>(monitored.size());
+        for (String key : monitored) {
+            long estimate = sketch.estimate(key);
+            if (estimate > 0) {
+                entries.add(new SimpleImmutableEntry<>(key, estimate));
+            }
+        }
+        entries.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    /**
+     * Halves all weights and forgets monitored keys whose weight has faded away.
+     */
+    public void decay() {
+        sketch.decay();
+        admissionLock.lock();
+        try {
+            Iterator<String> keys = monitored.iterator();
+            while (keys.hasNext()) {
+                if (sketch.estimate(keys.next()) == 0) {
+                    keys.remove();
+                }
+            }
+            admissionThreshold = monitored.size() < capacity ? 0 : admissionThreshold >> 1;
+        } finally {
+            admissionLock.unlock();
+        }
+    }
+
+    private void admit(String key, long estimate) {
+        if (monitored.size() < capacity) {
+            monitored.add(key);
+            return;
+        }
+        String minKey = null;
+        long minEstimate = Long.MAX_VALUE;
+        for (String candidate : monitored) {
+            long candidateEstimate = sketch.estimate(candidate);
+            if (candidateEstimate < minEstimate) {
+                minKey = candidate;
+                minEstimate = candidateEstimate;
+            }
+        }
+        if (estimate > minEstimate) {
+            monitored.remove(minKey);
+            monitored.add(key);
+        } else {
+            admissionThreshold = minEstimate;
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.db.awmd.challenge.contention;
+
+import lombok.Data;
+
+/**
+ * Decayed transfer count and lock wait time of an account, as estimated by the ContentionTracker.
+ */
+@Data
+public class HotAccount {
+
+    private final String accountId;
+
+    private final long transfers;
+
+    private final double lockWaitMillis;
+}
@@ -2,15 +2,19 @@ package com.db.awmd.challenge.domain;
 
 import com.db.awmd.challenge.exception.InSufficientFundException;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.math.BigDecimal;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
-import javax.validation.constraints.Min;
-import javax.validation.constraints.NotNull;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AccessLevel;
 import lombok.Data;
-import org.hibernate.validator.constraints.NotEmpty;
+import lombok.Getter;
+import lombok.Setter;
 import static java.lang.String.format;
 
 @Data
@@ -24,6 +28,32 @@ public class Account {
   @Min(value = 0, message = "Initial balance must be positive.")
   private volatile BigDecimal balance;
 
+  /**
+   * Set once the account is removed from this node's repository, e.g. handed over to another partition
+   * or evicted to disk by the TieredAccountsRepository. Holders of a stale reference must look the account up again.
+   */
+  @Setter(AccessLevel.NONE)
+  private transient volatile boolean detached;
+
+  /**
+   * Bumped after every balance change, served as the account's ETag.
+   */
+  @Setter(AccessLevel.NONE)
+  private transient volatile long version;
+
+  /**
+   * Sum of the open reservations, earmarked for ReservationService and no longer available to withdraw.
+   */
+  @Setter(AccessLevel.NONE)
+  private transient volatile BigDecimal reserved = BigDecimal.ZERO;
+
+  /**
+   * Guards balance changes. A ReentrantLock rather than the object monitor, a virtual thread waiting for it
+   * or blocked while holding it releases its carrier thread instead of pinning it.
+   */
+  @Getter(AccessLevel.NONE)
+  private final transient Lock lock = new ReentrantLock();
+
   public Account(String accountId) {
     this.accountId = accountId;
     this.balance = BigDecimal.ZERO;
@@ -36,24 +66,150 @@ public class Account {
     this.balance = balance;
   }
 
-  public synchronized void deposit(BigDecimal amount){
-    if(isValidAmount(amount)){
-        balance = balance.add(amount);
+  /**
+   * Restores an account from storage, keeping its version so that ETags stay valid.
+   */
+  public Account(String accountId, BigDecimal balance, long version) {
+    this.accountId = accountId;
+    this.balance = balance;
+    this.version = version;
+  }
+
+  /**
+   * Restores an account handed over by another node, together with the amount earmarked by its open reservations.
+   */
+  public Account(String accountId, BigDecimal balance, long version, BigDecimal reserved) {
+    this.accountId = accountId;
+    this.balance = balance;
+    this.version = version;
+    this.reserved = reserved;
+  }
+
+  public void setBalance(BigDecimal balance) {
+    lock.lock();
+    try {
+      this.balance = balance;
+      version++;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void deposit(BigDecimal amount){
+    lock.lock();
+    try {
+      if(isValidAmount(amount)){
+          balance = balance.add(amount);
+          version++;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void withdraw(BigDecimal amount) throws InSufficientFundException{
+    lock.lock();
+    try {
+      if(isValidAmount(amount)){
+        BigDecimal newBalance = balance.subtract(amount);
+        if (newBalance.compareTo(reserved) < 0){
+            throw new InSufficientFundException(format("Insufficient balance in account : %s, Unable to withdraw amount: %s",
+                    accountId, amount));
+        }else {
+          balance = newBalance;
+          version++;
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Earmarks the amount, it stays part of the balance but can only be withdrawn by captureReservation.
+   */
+  public void reserve(BigDecimal amount) throws InSufficientFundException {
+    lock.lock();
+    try {
+      if(isValidAmount(amount)){
+        if (getAvailableBalance().compareTo(amount) < 0) {
+            throw new InSufficientFundException(format("Insufficient balance in account : %s, Unable to reserve amount: %s",
+                    accountId, amount));
+        }
+        reserved = reserved.add(amount);
+      }
+    } finally {
+      lock.unlock();
     }
   }
 
-  public synchronized void withdraw(BigDecimal amount) throws InSufficientFundException{
-    if(isValidAmount(amount)){
-      BigDecimal newBalance = balance.subtract(amount);
-      if (newBalance.compareTo(BigDecimal.ZERO) < 0){
-          throw new InSufficientFundException(format("Insufficient balance in account : %s, Unable to withdraw amount: %s",
-                  accountId, amount));
-      }else {
-        balance = newBalance;
+  public void releaseReservation(BigDecimal amount) {
+    lock.lock();
+    try {
+      if(isValidAmount(amount)){
+        reserved = reserved.subtract(amount);
       }
+    } finally {
+      lock.unlock();
     }
   }
 
+  /**
+   * Withdraws a reserved amount, always covered since reservations never exceed the balance.
+   */
+  public void captureReservation(BigDecimal amount) {
+    lock.lock();
+    try {
+      if(isValidAmount(amount)){
+        reserved = reserved.subtract(amount);
+        balance = balance.subtract(amount);
+        version++;
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @JsonIgnore
+  public BigDecimal getReserved() {
+    return reserved;
+  }
+
+  @JsonIgnore
+  public BigDecimal getAvailableBalance() {
+    return balance.subtract(reserved);
+  }
+
+  @JsonIgnore
+  public long getVersion() {
+    return version;
+  }
+
+  @JsonIgnore
+  public boolean isDetached() {
+    return detached;
+  }
+
+  /**
+   * Takes the account lock, held by transfers while they change the balances of the accounts involved.
+   * Reentrant, balance changes made while holding it take it again.
+   */
+  public void lock() {
+    lock.lock();
+  }
+
+  public void unlock() {
+    lock.unlock();
+  }
+
+  /**
+   * Marks the account as no longer owned by the repository.
+   * Should be invoked while holding the account lock, see FundTransferService.
+   */
+  public void detach() {
+    detached = true;
+  }
+
   private boolean isValidAmount(BigDecimal amount) {
     return amount != null && (amount.compareTo(BigDecimal.ZERO) >= 0);
   }
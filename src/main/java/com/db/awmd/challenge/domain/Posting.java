@@ -0,0 +1,69 @@
+package com.db.awmd.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import lombok.Data;
+
+/**
+ * Multi-leg transfer, a list of debits and credits that sum to zero and are applied atomically.
+ */
+@Data
+public class Posting {
+
+    //every account of a posting stays locked until all of its legs are applied
+    public static final int MAX_LEGS = 100;
+
+    @NotNull
+    @NotEmpty
+    @Size(max = MAX_LEGS)
+    @Valid
+    private final List<@NotNull @Valid PostingLeg> legs;
+
+    @JsonCreator
+    public Posting(@JsonProperty("legs") List<PostingLeg> legs) {
+        this.legs = legs;
+    }
+
+    @JsonIgnore
+    public boolean isBalanced() {
+        BigDecimal sum = BigDecimal.ZERO;
+        for (PostingLeg leg : legs) {
+            sum = sum.add(leg.getAmount());
+        }
+        return sum.signum() == 0;
+    }
+
+    public boolean areLegAmountsValid() {
+        for (PostingLeg leg : legs) {
+            if (leg.getAmount().signum() == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Net amount per account, in order of first appearance.
+     * @return Map
+     */
+    @JsonIgnore
+    public Map<String, BigDecimal> getNetAmounts() {
+        Map<String, BigDecimal> netAmounts = new LinkedHashMap<>();
+        for (PostingLeg leg : legs) {
+            netAmounts.merge(leg.getAccountId(), leg.getAmount(), BigDecimal::add);
+        }
+        return netAmounts;
+    }
+}
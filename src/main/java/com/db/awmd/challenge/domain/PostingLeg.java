@@ -0,0 +1,32 @@
+package com.db.awmd.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import lombok.Data;
+
+/**
+ * One leg of a posting, a negative amount debits the account and a positive amount credits it.
+ */
+@Data
+public class PostingLeg {
+
+    @NotNull
+    @NotEmpty
+    private final String accountId;
+
+    @NotNull
+    private final BigDecimal amount;
+
+    @JsonCreator
+    public PostingLeg(@JsonProperty("accountId") String accountId,
+                      @JsonProperty("amount") BigDecimal amount) {
+        this.accountId = accountId;
+        this.amount = amount;
+    }
+}
@@ -0,0 +1,42 @@
+package com.db.awmd.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.math.BigDecimal;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import lombok.Data;
+
+/**
+ * Amount earmarked on an account until it is captured into a transfer, released, or expires.
+ * Clients send the amount and optionally a time to live, the other fields are assigned by ReservationService.
+ */
+@Data
+public class Reservation {
+
+    private String reservationId;
+
+    private String accountId;
+
+    @NotNull
+    @Min(value = 0, message = "Amount to be reserved must be positive")
+    private final BigDecimal amount;
+
+    private final Long ttlSeconds;
+
+    private long expiresAt;
+
+    @JsonCreator
+    public Reservation(@JsonProperty("amount") BigDecimal amount,
+                       @JsonProperty("ttlSeconds") Long ttlSeconds) {
+        this.amount = amount;
+        this.ttlSeconds = ttlSeconds;
+    }
+
+    public boolean isAmountValid() {
+        return amount.compareTo(BigDecimal.ZERO) > 0;
+    }
+}
@@ -0,0 +1,25 @@
+package com.db.awmd.challenge.domain;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import lombok.Data;
+
+/**
+ * Destination of a captured reservation, the full reserved amount is transferred to it.
+ */
+@Data
+public class ReservationCapture {
+
+    @NotNull
+    @NotEmpty
+    private final String toAccountId;
+
+    @JsonCreator
+    public ReservationCapture(@JsonProperty("toAccountId") String toAccountId) {
+        this.toAccountId = toAccountId;
+    }
+}
@@ -0,0 +1,25 @@
+package com.db.awmd.challenge.events;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+/**
+ * Balance of an account after a committed change, pushed to the subscribers of the account's event stream.
+ */
+@Data
+public class BalanceEvent {
+
+    private final String accountId;
+
+    private final BigDecimal balance;
+
+    /** Account version after the change, also sent as the SSE event id. */
+    private final long version;
+
+    /** Signed amount of the change, zero for the initial event of a subscription. */
+    private final BigDecimal amount;
+
+    /** Other account of the transfer, null for postings and the initial event. */
+    private final String counterpartyAccountId;
+}
@@ -0,0 +1,229 @@
+package com.db.awmd.challenge.events;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Posting;
+import com.db.awmd.challenge.service.AccountEventListener;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Pushes balance changes to the SSE subscribers of the account, from transfers, postings
+ * and either side of cross partition transfers.
+ * Runs inside the transfer's critical section, so publishing only allocates the event and offers it to the
+ * bounded queue of each subscriber, accounts without subscribers cost a map lookup.
+ * Writing to the clients happens on the dispatcher threads. A write blocked for longer than 'events.write-timeout-millis'
+ * evicts its subscriber, and the dispatcher pool gets one more thread for as long as the write stays blocked,
+ * so that clients which stopped reading do not hold up the others.
+ */
+@Component
+public class BalanceEventPublisher implements AccountEventListener {
+
+    private final ObjectMapper objectMapper;
+
+    private final int bufferSize;
+
+    private final int maxSubscribers;
+
+    private final long timeoutMillis;
+
+    private final long writeTimeoutMillis;
+
+    private final Executor dispatcher;
+
+    private final int dispatcherThreads;
+
+    private final AtomicInteger stalledWrites = new AtomicInteger();
+
+    private final Lock dispatcherLock = new ReentrantLock();
+
+    private ScheduledExecutorService watchdog;
+
+    private final Map<String, List<BalanceSubscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    @Autowired
+    public BalanceEventPublisher(final ObjectMapper objectMapper,
+                                 @Value("${events.buffer-size:256}") final int bufferSize,
+                                 @Value("${events.max-subscribers:10000}") final int maxSubscribers,
+                                 @Value("${events.timeout-millis:3600000}") final long timeoutMillis,
+                                 @Value("${events.write-timeout-millis:5000}") final long writeTimeoutMillis,
+                                 @Value("${events.dispatcher-threads:4}") final int dispatcherThreads) {
+        //unbounded maximum, the core size is raised above dispatcherThreads only to replace stalled writers
+        this(objectMapper, bufferSize, maxSubscribers, timeoutMillis, writeTimeoutMillis,
+                new ThreadPoolExecutor(dispatcherThreads, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<>(), runnable -> {
+                            Thread thread = new Thread(runnable, "balance-events");
+                            thread.setDaemon(true);
+                            return thread;
+                        }), dispatcherThreads);
+    }
+
+    BalanceEventPublisher(ObjectMapper objectMapper, int bufferSize, int maxSubscribers, long timeoutMillis,
+                          long writeTimeoutMillis, Executor dispatcher, int dispatcherThreads) {
+        this.objectMapper = objectMapper;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        this.writeTimeoutMillis = writeTimeoutMillis;
+        this.dispatcher = dispatcher;
+        this.dispatcherThreads = dispatcherThreads;
+    }
+
+    @PostConstruct
+    public void start() {
+        watchdog = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "balance-events-watchdog");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, writeTimeoutMillis / 2);
+        watchdog.scheduleWithFixedDelay(() -> evictStalled(System.nanoTime()), period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (watchdog != null) {
+            watchdog.shutdownNow();
+        }
+        if (dispatcher instanceof ExecutorService) {
+            ((ExecutorService) dispatcher).shutdownNow();
+        }
+    }
+
+    /**
+     * Opens an event stream for the account, starting with its current balance.
+     * Returns null if the subscriber limit is reached.
+     * @param account
+     * @return SseEmitter
+     */
+    public SseEmitter subscribe(Account account) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        String accountId = account.getAccountId();
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        BalanceSubscriber subscriber = new BalanceSubscriber(accountId, emitter, bufferSize, dispatcher,
+                () -> unsubscribe(accountId), this::onStalledWrite);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        //transfers publish holding the account lock, so the initial event precedes every change event
+        account.lock();
+        try {
+            subscribers.compute(accountId, (id, list) -> {
+                List<BalanceSubscriber> current = list != null ? list : new CopyOnWriteArrayList<>();
+                current.add(subscriber);
+                return current;
+            });
+            subscriber.offer(new PublishedEvent(objectMapper, new BalanceEvent(accountId, account.getBalance(),
+                    account.getVersion(), BigDecimal.ZERO, null)));
+        } finally {
+            account.unlock();
+        }
+        return emitter;
+    }
+
+    /**
+     * Evicts the subscribers whose write has been blocked past the write deadline.
+     * @param nowNanos
+     * @return number of subscribers evicted
+     */
+    int evictStalled(long nowNanos) {
+        int evicted = 0;
+        for (List<BalanceSubscriber> list : subscribers.values()) {
+            for (BalanceSubscriber subscriber : list) {
+                if (subscriber.evictIfStalled(nowNanos, TimeUnit.MILLISECONDS.toNanos(writeTimeoutMillis))) {
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    int getStalledWriteCount() {
+        return stalledWrites.get();
+    }
+
+    public int getSubscriberCount(String accountId) {
+        List<BalanceSubscriber> list = subscribers.get(accountId);
+        return list == null ? 0 : list.size();
+    }
+
+    @Override
+    public void onTransferCommitted(Account fromAccount, Account toAccount, BigDecimal amount) {
+        publish(fromAccount, amount.negate(), toAccount.getAccountId());
+        publish(toAccount, amount, fromAccount.getAccountId());
+    }
+
+    @Override
+    public void onPostingCommitted(Posting posting, List<Account> accounts) {
+        Map<String, BigDecimal> netAmounts = null;
+        for (Account account : accounts) {
+            if (subscribers.containsKey(account.getAccountId())) {
+                netAmounts = netAmounts != null ? netAmounts : posting.getNetAmounts();
+                publish(account, netAmounts.get(account.getAccountId()), null);
+            }
+        }
+    }
+
+    @Override
+    public void onBalanceChanged(Account account, BigDecimal amount, String counterpartyAccountId) {
+        publish(account, amount, counterpartyAccountId);
+    }
+
+    private void publish(Account account, BigDecimal amount, String counterpartyAccountId) {
+        List<BalanceSubscriber> list = subscribers.get(account.getAccountId());
+        if (list == null) {
+            return;
+        }
+        PublishedEvent event = new PublishedEvent(objectMapper, new BalanceEvent(account.getAccountId(),
+                account.getBalance(), account.getVersion(), amount, counterpartyAccountId));
+        for (BalanceSubscriber subscriber : list) {
+            subscriber.offer(event);
+        }
+    }
+
+    private void onStalledWrite(int delta) {
+        dispatcherLock.lock();
+        try {
+            int stalled = stalledWrites.addAndGet(delta);
+            if (dispatcher instanceof ThreadPoolExecutor) {
+                ((ThreadPoolExecutor) dispatcher).setCorePoolSize(dispatcherThreads + Math.max(0, stalled));
+            }
+        } finally {
+            dispatcherLock.unlock();
+        }
+    }
+
+    private void unsubscribe(String accountId) {
+        subscriberCount.decrementAndGet();
+        subscribers.computeIfPresent(accountId, (id, list) -> {
+            list.removeIf(BalanceSubscriber::isClosed);
+            return list.isEmpty() ? null : list;
+        });
+    }
+}
@@ -0,0 +1,183 @@
+package com.db.awmd.challenge.events;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * One SSE subscription. Events are offered to a bounded queue by the publishing thread and written to the
+ * emitter by a dispatcher thread, at most one drain of a subscriber runs at a time.
+ * A subscriber whose queue overflows is evicted, the client has to reconnect.
+ * So is a subscriber whose write is blocked past the write deadline, see BalanceEventPublisher.
+ * The blocked write can not be interrupted, it keeps its dispatcher thread until the socket gives up,
+ * onStalledWrite is told when a write is declared stalled (+1) and when it returns (-1).
+ */
+@Slf4j
+class BalanceSubscriber {
+
+    private final String accountId;
+
+    private final SseEmitter emitter;
+
+    private final Queue<PublishedEvent> queue;
+
+    private final Executor dispatcher;
+
+    private final Runnable onClose;
+
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private static final int IDLE = 0;
+
+    private static final int SENDING = 1;
+
+    private static final int STALLED = 2;
+
+    private final IntConsumer onStalledWrite;
+
+    private final AtomicInteger writeState = new AtomicInteger(IDLE);
+
+    private volatile long sendStartedNanos;
+
+    private volatile boolean evicted;
+
+    BalanceSubscriber(String accountId, SseEmitter emitter, int bufferSize, Executor dispatcher, Runnable onClose,
+                      IntConsumer onStalledWrite) {
+        this.accountId = accountId;
+        this.emitter = emitter;
+        this.queue = new ArrayBlockingQueue<>(bufferSize);
+        this.dispatcher = dispatcher;
+        this.onClose = onClose;
+        this.onStalledWrite = onStalledWrite;
+    }
+
+    SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    /**
+     * Never blocks, evicts the subscriber instead when its buffer is full.
+     * @param event
+     */
+    void offer(PublishedEvent event) {
+        if (closed.get()) {
+            return;
+        }
+        if (!queue.offer(event)) {
+            evicted = true;
+        }
+        schedule();
+    }
+
+    boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Evicts the subscriber if its current write has been blocked for longer than the write deadline.
+     * The emitter is completed once the blocked write returns, completing it here would wait for the write.
+     * @param nowNanos
+     * @param writeTimeoutNanos
+     * @return whether the subscriber was evicted
+     */
+    boolean evictIfStalled(long nowNanos, long writeTimeoutNanos) {
+        if (writeState.get() != SENDING || nowNanos - sendStartedNanos < writeTimeoutNanos) {
+            return false;
+        }
+        onStalledWrite.accept(1);
+        if (!writeState.compareAndSet(SENDING, STALLED)) {
+            onStalledWrite.accept(-1);
+            return false;
+        }
+        log.info("Evicting event stream subscriber of account {}, write blocked for more than {} ms", accountId,
+                TimeUnit.NANOSECONDS.toMillis(writeTimeoutNanos));
+        close();
+        queue.clear();
+        return true;
+    }
+
+    /**
+     * Releases the subscription, invoked when the emitter completes, times out or fails.
+     */
+    void close() {
+        if (closed.compareAndSet(false, true)) {
+            onClose.run();
+        }
+    }
+
+    private void schedule() {
+        if (scheduled.compareAndSet(false, true)) {
+            dispatcher.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            if (evicted) {
+                evict();
+                return;
+            }
+            PublishedEvent event;
+            while (!closed.get() && (event = queue.poll()) != null) {
+                if (!send(event)) {
+                    //evicted while the write was blocked
+                    emitter.completeWithError(new IOException("Write deadline exceeded"));
+                    return;
+                }
+            }
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Closing event stream of account {}. Reason : {}", accountId, ex.getMessage());
+            close();
+            emitter.completeWithError(ex);
+        } finally {
+            scheduled.set(false);
+        }
+        if (!closed.get() && (evicted || !queue.isEmpty())) {
+            schedule();
+        }
+    }
+
+    /**
+     * @param event
+     * @return false if the write was declared stalled meanwhile
+     */
+    private boolean send(PublishedEvent event) throws IOException {
+        sendStartedNanos = System.nanoTime();
+        writeState.set(SENDING);
+        boolean stalled = false;
+        try {
+            emitter.send(SseEmitter.event().id(String.valueOf(event.getEvent().getVersion())).name("balance")
+                    .data(event.getJson(), MediaType.APPLICATION_JSON));
+        } finally {
+            if (writeState.getAndSet(IDLE) == STALLED) {
+                stalled = true;
+                onStalledWrite.accept(-1);
+            }
+        }
+        return !stalled;
+    }
+
+    private void evict() {
+        log.info("Evicting slow event stream subscriber of account {}", accountId);
+        close();
+        queue.clear();
+        try {
+            emitter.send(SseEmitter.event().name("evicted").data("Subscriber too slow, reconnect to resume."));
+            emitter.complete();
+        } catch (IOException | IllegalStateException ex) {
+            emitter.completeWithError(ex);
+        }
+    }
+}
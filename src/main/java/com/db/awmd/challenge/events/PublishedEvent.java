@@ -0,0 +1,34 @@
+package com.db.awmd.challenge.events;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.Getter;
+
+/**
+ * Event shared by all subscribers of an account, serialized once by the first dispatcher thread that sends it.
+ */
+class PublishedEvent {
+
+    private final ObjectMapper objectMapper;
+
+    @Getter
+    private final BalanceEvent event;
+
+    private volatile String json;
+
+    PublishedEvent(ObjectMapper objectMapper, BalanceEvent event) {
+        this.objectMapper = objectMapper;
+        this.event = event;
+    }
+
+    String getJson() throws JsonProcessingException {
+        String serialized = json;
+        if (serialized == null) {
+            //benign race, concurrent dispatchers may both serialize the same event
+            serialized = objectMapper.writeValueAsString(event);
+            json = serialized;
+        }
+        return serialized;
+    }
+}
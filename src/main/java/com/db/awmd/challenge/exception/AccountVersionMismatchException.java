@@ -0,0 +1,11 @@
+package com.db.awmd.challenge.exception;
+
+/**
+ *  Represents a conditional update on an account that has changed since the expected version.
+ */
+public class AccountVersionMismatchException extends RuntimeException {
+
+    public AccountVersionMismatchException(final String message){
+        super(message);
+    }
+}
@@ -0,0 +1,10 @@
+package com.db.awmd.challenge.exception;
+
+/**
+ * Exception class to represent a reservation that does not exist, or was already captured, released or expired.
+ */
+public class ReservationNotFoundException extends RuntimeException {
+    public ReservationNotFoundException(final String message){
+        super(message);
+    }
+}
@@ -0,0 +1,139 @@
+package com.db.awmd.challenge.index;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Posting;
+import com.db.awmd.challenge.repository.AccountsRepository;
+import com.db.awmd.challenge.service.AccountEventListener;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Secondary index of the accounts ordered by balance, for top-N and range queries in O(log n + output).
+ * Maintained from the account events, that is inside the account locks right after each deposit and withdraw,
+ * so the updates of an account are applied in order. Covers AccountsService, FundTransferService,
+ * the participant side of cross partition transfers and the changes applied by a replication follower.
+ * Entries of accounts no longer in the repository, e.g. handed over to another partition, are skipped on read.
+ * Entries hold no reference to the account, so accounts evicted by a TieredAccountsRepository stay indexed
+ * without being kept on heap.
+ */
+@Component
+@ConditionalOnProperty(prefix = "balance-index", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceIndex implements AccountEventListener {
+
+    private static final Comparator<Entry> BY_BALANCE = Comparator.comparing((Entry entry) -> entry.balance)
+            .thenComparing(entry -> entry.accountId);
+
+    private final AccountsRepository accountsRepository;
+
+    private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>(BY_BALANCE);
+
+    private final Map<String, Entry> current = new ConcurrentHashMap<>();
+
+    @Autowired
+    public BalanceIndex(final AccountsRepository accountsRepository) {
+        this.accountsRepository = accountsRepository;
+    }
+
+    @Override
+    public void onAccountCreated(Account account) {
+        update(account);
+    }
+
+    @Override
+    public void onTransferCommitted(Account fromAccount, Account toAccount, BigDecimal amount) {
+        update(fromAccount);
+        update(toAccount);
+    }
+
+    @Override
+    public void onPostingCommitted(Posting posting, List<Account> accounts) {
+        for (Account account : accounts) {
+            update(account);
+        }
+    }
+
+    @Override
+    public void onBalanceChanged(Account account, BigDecimal amount, String counterpartyAccountId) {
+        update(account);
+    }
+
+    /**
+     * Accounts with the largest balances, largest first.
+     * @param limit
+     * @return List
+     */
+    public List<Account> getTop(int limit) {
+        return collect(entries.descendingIterator(), limit);
+    }
+
+    /**
+     * Accounts with a balance strictly below the threshold, smallest first.
+     * @param threshold
+     * @param limit
+     * @return List
+     */
+    public List<Account> getBelow(BigDecimal threshold, int limit) {
+        return collect(entries.headSet(new Entry(threshold, ""), false).iterator(), limit);
+    }
+
+    /**
+     * Re-indexes the account. Must be invoked holding the account lock.
+     * The new entry is added before the old one is removed, so a concurrent reader always finds the account.
+     */
+    private void update(Account account) {
+        Entry entry = new Entry(account.getBalance(), account.getAccountId());
+        Entry previous = current.get(account.getAccountId());
+        if (previous != null && BY_BALANCE.compare(previous, entry) == 0 && entries.contains(previous)) {
+            return;
+        }
+        entries.add(entry);
+        current.put(account.getAccountId(), entry);
+        if (previous != null && BY_BALANCE.compare(previous, entry) != 0) {
+            entries.remove(previous);
+        }
+    }
+
+    private List<Account> collect(Iterator<Entry> iterator, int limit) {
+        List<Account> accounts = new ArrayList<>(Math.min(limit, 1024));
+        while (accounts.size() < limit && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (current.get(entry.accountId) != entry) {
+                //superseded by a concurrent update, the newer entry is found at its own position
+                continue;
+            }
+            if (!accountsRepository.containsAccount(entry.accountId)) {
+                //account left the repository, drop it from the index
+                if (current.remove(entry.accountId, entry)) {
+                    entries.remove(entry);
+                }
+                continue;
+            }
+            accounts.add(new Account(entry.accountId, entry.balance));
+        }
+        return accounts;
+    }
+
+    private static final class Entry {
+
+        private final BigDecimal balance;
+
+        private final String accountId;
+
+        private Entry(BigDecimal balance, String accountId) {
+            this.balance = balance;
+            this.accountId = accountId;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.db.awmd.challenge.nio;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Length prefixed binary frame format used by the binary transfer ingress.
+ *
+ * Request frame  : [int length][long correlationId][byte opcode][payload]
+ * Response frame : [int length][long correlationId][byte status][payload]
+ *
+ * length covers everything after the length field itself.
+ * Strings are encoded as [short length][utf-8 bytes], amounts as [int scale, 0 to MAX_SCALE][byte length][unscaled bytes].
+ * Correlation id is echoed back on the response, so a client can keep many requests in flight per connection.
+ */
+public final class BinaryProtocol {
+
+    public static final int MAX_FRAME_LENGTH = 64 * 1024;
+
+    public static final int LENGTH_FIELD_SIZE = 4;
+
+    public static final int HEADER_SIZE = 8 + 1;
+
+    //amounts with a larger scale are rejected, rescaling to them would burn the IO worker
+    public static final int MAX_SCALE = 18;
+
+    public static final byte OP_TRANSFER = 1;
+
+    public static final byte OP_BALANCE = 2;
+
+    public static final byte STATUS_OK = 0;
+
+    public static final byte STATUS_BAD_REQUEST = 1;
+
+    public static final byte STATUS_SERVER_ERROR = 2;
+
+    private BinaryProtocol() {
+    }
+
+    public static ByteBuffer encodeTransferRequest(long correlationId, String fromAccountId, String toAccountId,
+                                                   BigDecimal amount) {
+        byte[] from = fromAccountId.getBytes(StandardCharsets.UTF_8);
+        byte[] to = toAccountId.getBytes(StandardCharsets.UTF_8);
+        byte[] unscaled = amount.unscaledValue().toByteArray();
+        int length = HEADER_SIZE + stringSize(from) + stringSize(to) + decimalSize(unscaled);
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH_FIELD_SIZE + length);
+        buffer.putInt(length).putLong(correlationId).put(OP_TRANSFER);
+        putString(buffer, from);
+        putString(buffer, to);
+        putDecimal(buffer, amount.scale(), unscaled);
+        buffer.flip();
+        return buffer;
+    }
+
+    public static ByteBuffer encodeBalanceRequest(long correlationId, String accountId) {
+        byte[] id = accountId.getBytes(StandardCharsets.UTF_8);
+        int length = HEADER_SIZE + stringSize(id);
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH_FIELD_SIZE + length);
+        buffer.putInt(length).putLong(correlationId).put(OP_BALANCE);
+        putString(buffer, id);
+        buffer.flip();
+        return buffer;
+    }
+
+    public static ByteBuffer encodeOkResponse(long correlationId) {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH_FIELD_SIZE + HEADER_SIZE);
+        buffer.putInt(HEADER_SIZE).putLong(correlationId).put(STATUS_OK);
+        buffer.flip();
+        return buffer;
+    }
+
+    public static ByteBuffer encodeBalanceResponse(long correlationId, BigDecimal balance) {
+        byte[] unscaled = balance.unscaledValue().toByteArray();
+        int length = HEADER_SIZE + decimalSize(unscaled);
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH_FIELD_SIZE + length);
+        buffer.putInt(length).putLong(correlationId).put(STATUS_OK);
+        putDecimal(buffer, balance.scale(), unscaled);
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Encodes an error response, messages too long for a frame are truncated.
+     */
+    public static ByteBuffer encodeErrorResponse(long correlationId, byte status, String message) {
+        byte[] text = truncate((message == null ? "" : message).getBytes(StandardCharsets.UTF_8),
+                MAX_FRAME_LENGTH - HEADER_SIZE - 2);
+        int length = HEADER_SIZE + stringSize(text);
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH_FIELD_SIZE + length);
+        buffer.putInt(length).putLong(correlationId).put(status);
+        putString(buffer, text);
+        buffer.flip();
+        return buffer;
+    }
+
+    public static String getString(ByteBuffer buffer) {
+        int length = buffer.getShort() & 0xFFFF;
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes an amount, throws NumberFormatException for an amount without unscaled bytes
+     * or with a scale outside [0, MAX_SCALE].
+     */
+    public static BigDecimal getDecimal(ByteBuffer buffer) {
+        int scale = buffer.getInt();
+        if (scale < 0 || scale > MAX_SCALE) {
+            throw new NumberFormatException("Amount scale out of range");
+        }
+        int length = buffer.get() & 0xFF;
+        if (length == 0) {
+            throw new NumberFormatException("Amount without digits");
+        }
+        byte[] unscaled = new byte[length];
+        buffer.get(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), scale);
+    }
+
+    //cut at a character boundary, never inside a multi byte UTF-8 sequence
+    private static byte[] truncate(byte[] utf8, int maxLength) {
+        if (utf8.length <= maxLength) {
+            return utf8;
+        }
+        int length = maxLength;
+        while (length > 0 && (utf8[length] & 0xC0) == 0x80) {
+            length--;
+        }
+        return Arrays.copyOf(utf8, length);
+    }
+
+    private static int stringSize(byte[] bytes) {
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String field exceeds " + 0xFFFF + " bytes");
+        }
+        return 2 + bytes.length;
+    }
+
+    private static int decimalSize(byte[] unscaled) {
+        if (unscaled.length > 0xFF) {
+            throw new IllegalArgumentException("Amount exceeds " + 0xFF + " bytes");
+        }
+        return 4 + 1 + unscaled.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] bytes) {
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static void putDecimal(ByteBuffer buffer, int scale, byte[] unscaled) {
+        buffer.putInt(scale).put((byte) unscaled.length).put(unscaled);
+    }
+}
@@ -0,0 +1,137 @@
+package com.db.awmd.challenge.nio;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pipelining client for the binary transfer protocol.
+ * Every request returns a future that completes when the matching response arrives,
+ * so many requests can be in flight on the same connection.
+ */
+@Slf4j
+public class BinaryTransferClient implements Closeable {
+
+    private final SocketChannel channel;
+
+    private final Map<Long, CompletableFuture<Response>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong correlationIds = new AtomicLong();
+
+    private final Thread readerThread;
+
+    public BinaryTransferClient(final String host, final int port) throws IOException {
+        this.channel = SocketChannel.open(new InetSocketAddress(host, port));
+        this.channel.socket().setTcpNoDelay(true);
+        this.readerThread = new Thread(this::readResponses, "binary-transfer-client");
+        this.readerThread.setDaemon(true);
+        this.readerThread.start();
+    }
+
+    public CompletableFuture<Response> transfer(String fromAccountId, String toAccountId, BigDecimal amount) {
+        long correlationId = correlationIds.incrementAndGet();
+        return send(correlationId,
+                BinaryProtocol.encodeTransferRequest(correlationId, fromAccountId, toAccountId, amount));
+    }
+
+    public CompletableFuture<Response> balance(String accountId) {
+        long correlationId = correlationIds.incrementAndGet();
+        return send(correlationId, BinaryProtocol.encodeBalanceRequest(correlationId, accountId));
+    }
+
+    private CompletableFuture<Response> send(long correlationId, ByteBuffer request) {
+        CompletableFuture<Response> future = new CompletableFuture<>();
+        inFlight.put(correlationId, future);
+        try {
+            synchronized (channel) {
+                while (request.hasRemaining()) {
+                    channel.write(request);
+                }
+            }
+        } catch (IOException ex) {
+            inFlight.remove(correlationId);
+            future.completeExceptionally(ex);
+        }
+        return future;
+    }
+
+    private void readResponses() {
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(BinaryProtocol.LENGTH_FIELD_SIZE);
+        try {
+            while (true) {
+                lengthBuffer.clear();
+                readFully(lengthBuffer);
+                ByteBuffer frame = ByteBuffer.allocate(lengthBuffer.getInt(0));
+                readFully(frame);
+                frame.flip();
+                long correlationId = frame.getLong();
+                byte status = frame.get();
+                Response response;
+                if (status != BinaryProtocol.STATUS_OK) {
+                    response = new Response(status, null, BinaryProtocol.getString(frame));
+                } else if (frame.hasRemaining()) {
+                    response = new Response(status, BinaryProtocol.getDecimal(frame), null);
+                } else {
+                    response = new Response(status, null, null);
+                }
+                CompletableFuture<Response> future = inFlight.remove(correlationId);
+                if (future != null) {
+                    future.complete(response);
+                }
+            }
+        } catch (IOException ex) {
+            log.debug("Binary transfer client connection closed. Reason : {}", ex.getMessage());
+            for (CompletableFuture<Response> future : inFlight.values()) {
+                future.completeExceptionally(ex);
+            }
+            inFlight.clear();
+        }
+    }
+
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Connection closed by server");
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Decoded response frame.
+     */
+    @Getter
+    public static class Response {
+
+        private final byte status;
+
+        private final BigDecimal balance;
+
+        private final String message;
+
+        Response(byte status, BigDecimal balance, String message) {
+            this.status = status;
+            this.balance = balance;
+            this.message = message;
+        }
+
+        public boolean isOk() {
+            return status == BinaryProtocol.STATUS_OK;
+        }
+    }
+}
@@ -0,0 +1,343 @@
+package com.db.awmd.challenge.nio;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.InSufficientFundException;
+import com.db.awmd.challenge.exception.InValidTransferRequestException;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.FundTransferService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Non blocking TCP ingress for fund transfers and balance queries, next to the REST api.
+ * A single selector thread does all socket I/O, decoded requests are executed on a worker pool
+ * and responses are queued back to the selector. Clients may pipeline requests on a connection,
+ * responses carry the request correlation id and may come back out of order.
+ * At most 'binary-protocol.max-in-flight' requests of a connection are executing or waiting for their response
+ * to be written, beyond that the server stops reading from the connection until responses went out.
+ * See BinaryProtocol for the frame format.
+ */
+@Component
+@ConditionalOnProperty(prefix = "binary-protocol", name = "enabled", havingValue = "true")
+@Slf4j
+public class BinaryTransferServer {
+
+    private final FundTransferService fundTransferService;
+
+    private final AccountsService accountsService;
+
+    private final int port;
+
+    private final int workerThreads;
+
+    private final boolean virtualThreads;
+
+    private final int maxInFlight;
+
+    private final Queue<Connection> pendingWrites = new ConcurrentLinkedQueue<>();
+
+    private Selector selector;
+
+    private ServerSocketChannel serverChannel;
+
+    private ExecutorService workers;
+
+    private Executor executor;
+
+    private Thread ioThread;
+
+    private volatile boolean running;
+
+    @Autowired
+    public BinaryTransferServer(final FundTransferService fundTransferService, final AccountsService accountsService,
+                                @Value("${binary-protocol.port:18090}") final int port,
+                                @Value("${binary-protocol.worker-threads:4}") final int workerThreads,
+                                @Value("${spring.threads.virtual.enabled:false}") final boolean virtualThreads,
+                                @Value("${binary-protocol.max-in-flight:1024}") final int maxInFlight) {
+        this.fundTransferService = fundTransferService;
+        this.accountsService = accountsService;
+        this.port = port;
+        this.workerThreads = workerThreads;
+        this.virtualThreads = virtualThreads;
+        this.maxInFlight = Math.max(1, maxInFlight);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(port));
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        if (virtualThreads) {
+            //one virtual thread per request, a transfer waiting for an account lock does not hold up the others
+            workers = Executors.newVirtualThreadPerTaskExecutor();
+            executor = workers;
+        } else if (workerThreads > 0) {
+            workers = Executors.newFixedThreadPool(workerThreads);
+            executor = workers;
+        } else {
+            //execute requests directly on the selector thread
+            executor = Runnable::run;
+        }
+        running = true;
+        ioThread = new Thread(this::runEventLoop, "binary-transfer-io");
+        ioThread.setDaemon(true);
+        ioThread.start();
+        log.info("Binary transfer server listening on port {}", getLocalPort());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        selector.wakeup();
+        ioThread.join(5000);
+        if (workers != null) {
+            workers.shutdown();
+        }
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    public int getLocalPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    private void runEventLoop() {
+        while (running) {
+            try {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handleKey(key);
+                }
+                flushPendingWrites();
+            } catch (IOException ex) {
+                log.error("Exception in binary transfer event loop ", ex);
+            }
+        }
+    }
+
+    private void handleKey(SelectionKey key) {
+        try {
+            if (!key.isValid()) {
+                return;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                return;
+            }
+            Connection connection = (Connection) key.attachment();
+            if (key.isReadable()) {
+                connection.read();
+            }
+            if (key.isValid() && key.isWritable()) {
+                connection.write();
+            }
+        } catch (IOException | RuntimeException ex) {
+            log.debug("Closing binary connection. Reason : {}", ex.getMessage());
+            closeQuietly(key);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        SelectionKey key = channel.register(selector, SelectionKey.OP_READ);
+        key.attach(new Connection(channel, key));
+    }
+
+    private void flushPendingWrites() {
+        Connection connection;
+        while ((connection = pendingWrites.poll()) != null) {
+            try {
+                connection.write();
+            } catch (IOException ex) {
+                log.debug("Closing binary connection. Reason : {}", ex.getMessage());
+                closeQuietly(connection.key);
+            }
+        }
+    }
+
+    private void closeQuietly(SelectionKey key) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ex) {
+            log.debug("Exception while closing binary connection ", ex);
+        }
+    }
+
+    /**
+     * Decodes and executes a single request frame, returning the encoded response.
+     * @param frame buffer positioned after the length field, limited to the frame end
+     * @return ByteBuffer
+     */
+    ByteBuffer process(ByteBuffer frame) {
+        long correlationId = frame.getLong();
+        byte opcode = frame.get();
+        try {
+            switch (opcode) {
+                case BinaryProtocol.OP_TRANSFER:
+                    String fromAccountId = BinaryProtocol.getString(frame);
+                    String toAccountId = BinaryProtocol.getString(frame);
+                    fundTransferService.transferFund(new Transfer(fromAccountId, toAccountId,
+                            BinaryProtocol.getDecimal(frame)));
+                    return BinaryProtocol.encodeOkResponse(correlationId);
+                case BinaryProtocol.OP_BALANCE:
+                    String accountId = BinaryProtocol.getString(frame);
+                    Account account = accountsService.getAccount(accountId);
+                    if (account == null) {
+                        throw new AccountNotFoundException("Account with ID: " + accountId + " doesnt exists.");
+                    }
+                    return BinaryProtocol.encodeBalanceResponse(correlationId, account.getBalance());
+                default:
+                    return BinaryProtocol.encodeErrorResponse(correlationId, BinaryProtocol.STATUS_BAD_REQUEST,
+                            "Unknown opcode " + opcode);
+            }
+        } catch (InSufficientFundException | AccountNotFoundException | InValidTransferRequestException ex) {
+            return BinaryProtocol.encodeErrorResponse(correlationId, BinaryProtocol.STATUS_BAD_REQUEST, ex.getMessage());
+        } catch (BufferUnderflowException ex) {
+            return BinaryProtocol.encodeErrorResponse(correlationId, BinaryProtocol.STATUS_BAD_REQUEST, "Malformed frame");
+        } catch (NumberFormatException ex) {
+            return BinaryProtocol.encodeErrorResponse(correlationId, BinaryProtocol.STATUS_BAD_REQUEST,
+                    "Malformed amount");
+        } catch (Exception ex) {
+            log.error("Failed to process binary request ", ex);
+            return BinaryProtocol.encodeErrorResponse(correlationId, BinaryProtocol.STATUS_SERVER_ERROR, ex.getMessage());
+        }
+    }
+
+    /**
+     * Per socket state. Reads happen only on the selector thread,
+     * responses are appended by workers and written by the selector thread.
+     * inFlight and writePending are only touched by the selector thread.
+     */
+    private final class Connection {
+
+        private final SocketChannel channel;
+
+        private final SelectionKey key;
+
+        private final Queue<ByteBuffer> outbox = new ConcurrentLinkedQueue<>();
+
+        private ByteBuffer readBuffer = ByteBuffer.allocate(4096);
+
+        //requests dispatched whose response is not yet written
+        private int inFlight;
+
+        private boolean writePending;
+
+        Connection(SocketChannel channel, SelectionKey key) {
+            this.channel = channel;
+            this.key = key;
+        }
+
+        void read() throws IOException {
+            if (channel.read(readBuffer) < 0) {
+                throw new IOException("Connection closed by peer");
+            }
+            dispatchFrames();
+        }
+
+        /**
+         * Executes the complete frames buffered so far, as long as the connection is below its in flight limit.
+         */
+        private void dispatchFrames() throws IOException {
+            readBuffer.flip();
+            while (inFlight < maxInFlight && readBuffer.remaining() >= BinaryProtocol.LENGTH_FIELD_SIZE) {
+                int length = readBuffer.getInt(readBuffer.position());
+                if (length < BinaryProtocol.HEADER_SIZE || length > BinaryProtocol.MAX_FRAME_LENGTH) {
+                    throw new IOException("Invalid frame length " + length);
+                }
+                if (readBuffer.remaining() < BinaryProtocol.LENGTH_FIELD_SIZE + length) {
+                    break;
+                }
+                byte[] frame = new byte[length];
+                readBuffer.position(readBuffer.position() + BinaryProtocol.LENGTH_FIELD_SIZE);
+                readBuffer.get(frame);
+                inFlight++;
+                executor.execute(() -> respond(process(ByteBuffer.wrap(frame))));
+            }
+            readBuffer.compact();
+            //only a frame larger than the buffer can fill it while below the limit
+            if (!readBuffer.hasRemaining() && inFlight < maxInFlight) {
+                ByteBuffer larger = ByteBuffer.allocate(readBuffer.capacity() * 2);
+                readBuffer.flip();
+                larger.put(readBuffer);
+                readBuffer = larger;
+            }
+            updateInterest();
+        }
+
+        void respond(ByteBuffer response) {
+            outbox.add(response);
+            pendingWrites.add(this);
+            if (Thread.currentThread() != ioThread) {
+                selector.wakeup();
+            }
+        }
+
+        void write() throws IOException {
+            if (!key.isValid()) {
+                return;
+            }
+            ByteBuffer buffer;
+            while ((buffer = outbox.peek()) != null) {
+                channel.write(buffer);
+                if (buffer.hasRemaining()) {
+                    writePending = true;
+                    updateInterest();
+                    return;
+                }
+                outbox.poll();
+                inFlight--;
+            }
+            writePending = false;
+            if (readBuffer.position() > 0 && inFlight < maxInFlight) {
+                //resume with the frames buffered while the connection was over its limit
+                dispatchFrames();
+            } else {
+                updateInterest();
+            }
+        }
+
+        private void updateInterest() {
+            key.interestOps((inFlight < maxInFlight ? SelectionKey.OP_READ : 0)
+                    | (writePending ? SelectionKey.OP_WRITE : 0));
+        }
+    }
+}
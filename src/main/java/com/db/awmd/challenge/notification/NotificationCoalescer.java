@@ -0,0 +1,152 @@
+package com.db.awmd.challenge.notification;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.service.NotificationService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coalesces transfer notifications into one digest per account and window, sent through the NotificationService.
+ * Memory is bounded by 'notification.digest.max-accounts' pending digests: once full, the transfers of accounts
+ * without a pending digest are queued for the notification thread to send right away, so the outbound load follows
+ * the number of accounts rather than the number of transfers. That queue has the same bound, a transfer finding it
+ * full is not notified and only counted, request threads never wait for the notification I/O.
+ */
+@Component
+@ConditionalOnProperty(prefix = "notification.digest", name = "enabled", havingValue = "true")
+@Slf4j
+public class NotificationCoalescer {
+
+    private final NotificationService notificationService;
+
+    private final long windowSeconds;
+
+    private final int maxAccounts;
+
+    private final int maxCounterparties;
+
+    private final Map<String, TransferDigest> pending = new ConcurrentHashMap<>();
+
+    //single transfer digests of accounts that found the pending digests full, sent by the notification thread
+    private final BlockingQueue<TransferDigest> overflow;
+
+    private final AtomicBoolean drainScheduled = new AtomicBoolean();
+
+    private final AtomicLong droppedNotifications = new AtomicLong();
+
+    private ScheduledExecutorService flushExecutor;
+
+    @Autowired
+    public NotificationCoalescer(final NotificationService notificationService,
+                                 @Value("${notification.digest.window-seconds:60}") final long windowSeconds,
+                                 @Value("${notification.digest.max-accounts:100000}") final int maxAccounts,
+                                 @Value("${notification.digest.max-counterparties:10}") final int maxCounterparties) {
+        this.notificationService = notificationService;
+        this.windowSeconds = windowSeconds;
+        this.maxAccounts = maxAccounts;
+        this.maxCounterparties = maxCounterparties;
+        this.overflow = new ArrayBlockingQueue<>(maxAccounts);
+    }
+
+    @PostConstruct
+    public void start() {
+        flushExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-digest");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flushExecutor.scheduleAtFixedRate(this::flush, windowSeconds, windowSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        flushExecutor.shutdownNow();
+        flush();
+        drainOverflow();
+    }
+
+    /**
+     * Adds a transfer to the pending digest of the account, or queues it once the pending digests are full.
+     * Constant time and never sends, safe to call holding account locks.
+     * @param account
+     * @param counterpartyId the other account of the transfer, null for a posting
+     * @param amount
+     * @param incoming
+     */
+    public void record(Account account, String counterpartyId, BigDecimal amount, boolean incoming) {
+        String accountId = account.getAccountId();
+        if (pending.size() >= maxAccounts && !pending.containsKey(accountId)) {
+            TransferDigest digest = new TransferDigest(account, maxCounterparties);
+            digest.add(counterpartyId, amount, incoming);
+            if (!overflow.offer(digest)) {
+                droppedNotifications.incrementAndGet();
+            } else if (drainScheduled.compareAndSet(false, true)) {
+                try {
+                    flushExecutor.execute(this::drainOverflow);
+                } catch (RejectedExecutionException ex) {
+                    //stopping, the queue is drained by stop
+                }
+            }
+            return;
+        }
+        pending.compute(accountId, (id, digest) -> {
+            TransferDigest current = digest != null ? digest : new TransferDigest(account, maxCounterparties);
+            current.add(counterpartyId, amount, incoming);
+            return current;
+        });
+    }
+
+    /**
+     * Sends and clears all pending digests. Transfers recorded meanwhile go to the next window.
+     */
+    public void flush() {
+        for (String accountId : pending.keySet()) {
+            TransferDigest digest = pending.remove(accountId);
+            if (digest != null) {
+                send(digest);
+            }
+        }
+    }
+
+    private void drainOverflow() {
+        drainScheduled.set(false);
+        TransferDigest digest;
+        while ((digest = overflow.poll()) != null) {
+            send(digest);
+        }
+        long dropped = droppedNotifications.getAndSet(0);
+        if (dropped > 0) {
+            log.warn("Dropped {} transfer notifications, the pending digests and their overflow queue were full",
+                    dropped);
+        }
+    }
+
+    private void send(TransferDigest digest) {
+        try {
+            notificationService.notifyAboutTransfer(digest.getAccount(), digest.describe());
+        } catch (Exception ex) {
+            //notification failure should not affect other digests.
+            log.error("Exception while notifying account holder of {} ", digest.getAccount().getAccountId(), ex);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.db.awmd.challenge.notification;
+
+import com.db.awmd.challenge.domain.Account;
+
+import java.math.BigDecimal;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Transfers of one account over a digest window. Holds at most a fixed number of counterparties per direction,
+ * further counterparties are only counted, each once, up to MAX_OTHER_COUNTERPARTIES.
+ * Not thread safe, see NotificationCoalescer.
+ */
+class TransferDigest {
+
+    static final int MAX_OTHER_COUNTERPARTIES = 1024;
+
+    private final Account account;
+
+    private final int maxCounterparties;
+
+    private final Side received = new Side();
+
+    private final Side sent = new Side();
+
+    TransferDigest(Account account, int maxCounterparties) {
+        this.account = account;
+        this.maxCounterparties = maxCounterparties;
+    }
+
+    Account getAccount() {
+        return account;
+    }
+
+    /**
+     * @param counterpartyId the other account of the transfer, null for a posting
+     * @param amount
+     * @param incoming
+     */
+    void add(String counterpartyId, BigDecimal amount, boolean incoming) {
+        Side side = incoming ? received : sent;
+        side.count++;
+        side.total = side.total.add(amount);
+        if (counterpartyId != null && !side.counterparties.contains(counterpartyId)) {
+            if (side.counterparties.size() < maxCounterparties) {
+                side.counterparties.add(counterpartyId);
+            } else if (side.otherCounterparties.size() < MAX_OTHER_COUNTERPARTIES) {
+                side.otherCounterparties.add(counterpartyId);
+            } else if (!side.otherCounterparties.contains(counterpartyId)) {
+                side.moreOtherCounterparties = true;
+            }
+        }
+    }
+
+    /**
+     * e.g. "3 transfers received totalling 30.00 from Accounts ID-A, ID-B. 1 transfer sent totalling 5.00 to Account ID-C."
+     * @return String
+     */
+    String describe() {
+        StringBuilder description = new StringBuilder(128);
+        received.describe(description, "received", "from");
+        sent.describe(description, "sent", "to");
+        return description.toString();
+    }
+
+    private static final class Side {
+
+        private int count;
+
+        private BigDecimal total = BigDecimal.ZERO;
+
+        private final Set<String> counterparties = new LinkedHashSet<>();
+
+        private final Set<String> otherCounterparties = new HashSet<>();
+
+        private boolean moreOtherCounterparties;
+
+        private void describe(StringBuilder description, String verb, String preposition) {
+            if (count == 0) {
+                return;
+            }
+            if (description.length() > 0) {
+                description.append(' ');
+            }
+            description.append(count).append(count == 1 ? " transfer " : " transfers ").append(verb)
+                    .append(" totalling ").append(total);
+            if (!counterparties.isEmpty()) {
+                description.append(' ').append(preposition)
+                        .append(counterparties.size() + otherCounterparties.size() == 1 ? " Account " : " Accounts ")
+                        .append(String.join(", ", counterparties));
+                if (!otherCounterparties.isEmpty()) {
+                    description.append(" and ").append(otherCounterparties.size())
+                            .append(moreOtherCounterparties ? "+ more" : " more");
+                }
+            }
+            description.append('.');
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.db.awmd.challenge.replication;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Rejects writes on a follower, its accounts only change through the replication log.
+ */
+@Component
+@ConditionalOnProperty(prefix = "replication", name = "role", havingValue = "follower")
+public class ReadOnlyFollowerFilter extends OncePerRequestFilter {
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!HttpMethod.GET.matches(request.getMethod())) {
+            response.sendError(HttpStatus.METHOD_NOT_ALLOWED.value(), "Follower is read only, send writes to the leader.");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,271 @@
+package com.db.awmd.challenge.replication;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+import com.db.awmd.challenge.repository.AccountsRepository;
+import com.db.awmd.challenge.service.AccountEventListener;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies the leader's replication log to the local repository, so that this instance can serve reads.
+ * Reconnects and resynchronises from a fresh snapshot whenever the connection to the leader is lost, dropping the
+ * accounts the leader no longer holds.
+ * Applied changes are published to the local account event listeners, e.g. to keep the balance index current.
+ */
+@Component
+@ConditionalOnProperty(prefix = "replication", name = "role", havingValue = "follower")
+@Slf4j
+public class ReplicationFollower implements ReplicationNode {
+
+    private static final long RECONNECT_MILLIS = 1000;
+
+    private final AccountsRepository accountsRepository;
+
+    private final String leaderHost;
+
+    private final int leaderPort;
+
+    private volatile boolean running;
+
+    private volatile boolean connected;
+
+    private volatile long snapshotSequence;
+
+    private volatile long headSequence;
+
+    private volatile long appliedSequence;
+
+    private volatile long lagMillis;
+
+    private volatile long appliedRecords;
+
+    private volatile Socket socket;
+
+    private Thread applierThread;
+
+    private List<AccountEventListener> accountEventListeners = Collections.emptyList();
+
+    @Autowired
+    public ReplicationFollower(final AccountsRepository accountsRepository,
+                               @Value("${replication.leader-host:localhost}") final String leaderHost,
+                               @Value("${replication.leader-port:18070}") final int leaderPort) {
+        this.accountsRepository = accountsRepository;
+        this.leaderHost = leaderHost;
+        this.leaderPort = leaderPort;
+    }
+
+    @Autowired(required = false)
+    public void setAccountEventListeners(final List<AccountEventListener> accountEventListeners) {
+        this.accountEventListeners = accountEventListeners;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        applierThread = new Thread(this::run, "replication-follower");
+        applierThread.setDaemon(true);
+        applierThread.start();
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        Socket current = socket;
+        if (current != null) {
+            current.close();
+        }
+        applierThread.join(5000);
+    }
+
+    @Override
+    public ReplicationStatus getStatus() {
+        ReplicationStatus status = new ReplicationStatus();
+        status.setRole("follower");
+        status.setConnected(connected);
+        status.setHeadSequence(headSequence);
+        status.setAppliedSequence(appliedSequence);
+        status.setLagRecords(Math.max(0, headSequence - appliedSequence));
+        status.setLagMillis(lagMillis);
+        status.setAppliedRecords(appliedRecords);
+        return status;
+    }
+
+    private void run() {
+        while (running) {
+            try (Socket leader = new Socket()) {
+                leader.connect(new InetSocketAddress(leaderHost, leaderPort));
+                leader.setTcpNoDelay(true);
+                socket = leader;
+                connected = true;
+                log.info("Connected to replication leader {}:{}", leaderHost, leaderPort);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(leader.getInputStream(), 64 * 1024));
+                while (running) {
+                    in.readInt();
+                    applyFrame(in);
+                }
+            } catch (IOException ex) {
+                if (running) {
+                    log.warn("Lost replication leader {}:{}. Reason : {}", leaderHost, leaderPort, ex.getMessage());
+                }
+            } finally {
+                connected = false;
+            }
+            sleepBeforeReconnect();
+        }
+    }
+
+    private void applyFrame(DataInputStream in) throws IOException {
+        byte frameType = in.readByte();
+        long leaderTime = in.readLong();
+        long frameSequence = in.readLong();
+        int count = in.readInt();
+        if (frameType == ReplicationLeader.FRAME_SNAPSHOT) {
+            snapshotSequence = frameSequence;
+            appliedSequence = frameSequence - 1;
+            headSequence = frameSequence - 1;
+        } else {
+            headSequence = frameSequence;
+        }
+        Set<String> snapshotAccountIds = frameType == ReplicationLeader.FRAME_SNAPSHOT ? new HashSet<>() : null;
+        for (int i = 0; i < count; i++) {
+            ReplicationRecord record = ReplicationRecord.readFrom(in);
+            if (snapshotAccountIds != null) {
+                snapshotAccountIds.add(record.getAccountId());
+            }
+            if (frameType == ReplicationLeader.FRAME_BATCH && record.getSequence() < snapshotSequence) {
+                continue;
+            }
+            apply(record);
+            if (frameType == ReplicationLeader.FRAME_BATCH) {
+                appliedSequence = record.getSequence();
+            }
+            appliedRecords++;
+        }
+        if (snapshotAccountIds != null) {
+            //removed on the leader while this follower was disconnected
+            List<String> removedAccountIds = new ArrayList<>();
+            for (Account account : accountsRepository.getAccounts()) {
+                if (!snapshotAccountIds.contains(account.getAccountId())) {
+                    removedAccountIds.add(account.getAccountId());
+                }
+            }
+            for (String accountId : removedAccountIds) {
+                removeAccount(accountId);
+            }
+        }
+        lagMillis = Math.max(0, System.currentTimeMillis() - leaderTime);
+    }
+
+    private void apply(ReplicationRecord record) {
+        switch (record.getType()) {
+            case ReplicationRecord.CREATED:
+                if (!accountsRepository.containsAccount(record.getAccountId())) {
+                    setBalance(record.getAccountId(), record.getBalance(), null);
+                }
+                break;
+            case ReplicationRecord.REMOVED:
+                removeAccount(record.getAccountId());
+                break;
+            case ReplicationRecord.TRANSFERRED:
+                setBalance(record.getAccountId(), record.getBalance(), record.getOtherAccountId());
+                setBalance(record.getOtherAccountId(), record.getOtherBalance(), record.getAccountId());
+                break;
+            default:
+                setBalance(record.getAccountId(), record.getBalance(), null);
+        }
+    }
+
+    private void setBalance(String accountId, BigDecimal balance, String counterpartyAccountId) {
+        while (true) {
+            Account account = accountsRepository.getAccount(accountId);
+            if (account == null) {
+                Account created = new Account(accountId, balance);
+                try {
+                    accountsRepository.createAccount(created);
+                } catch (DuplicateAccountIdException ex) {
+                    continue;
+                }
+                created.lock();
+                try {
+                    publish(listener -> listener.onAccountCreated(created));
+                } finally {
+                    created.unlock();
+                }
+                return;
+            }
+            account.lock();
+            try {
+                //detached accounts were evicted or moved meanwhile, look the account up again
+                if (!account.isDetached()) {
+                    BigDecimal amount = balance.subtract(account.getBalance());
+                    account.setBalance(balance);
+                    publish(listener -> listener.onBalanceChanged(account, amount, counterpartyAccountId));
+                    return;
+                }
+            } finally {
+                account.unlock();
+            }
+        }
+    }
+
+    private void removeAccount(String accountId) {
+        Account account;
+        while ((account = accountsRepository.getAccount(accountId)) != null) {
+            account.lock();
+            try {
+                //detached accounts were evicted meanwhile, look the account up again
+                if (!account.isDetached()) {
+                    account.detach();
+                    accountsRepository.removeAccount(accountId);
+                    Account removed = account;
+                    publish(listener -> listener.onAccountRemoved(removed));
+                    return;
+                }
+            } finally {
+                account.unlock();
+            }
+        }
+    }
+
+    private void publish(Consumer<AccountEventListener> event) {
+        for (AccountEventListener listener : accountEventListeners) {
+            try {
+                event.accept(listener);
+            } catch (Exception ex) {
+                //listener failure should not stop the replication
+                log.error("Exception while publishing replicated change to listener {} ", listener, ex);
+            }
+        }
+    }
+
+    private void sleepBeforeReconnect() {
+        try {
+            Thread.sleep(RECONNECT_MILLIS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
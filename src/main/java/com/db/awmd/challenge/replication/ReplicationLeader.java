@@ -0,0 +1,374 @@
+package com.db.awmd.challenge.replication;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Posting;
+import com.db.awmd.challenge.repository.AccountsRepository;
+import com.db.awmd.challenge.service.AccountEventListener;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams committed account creations and removals, transfers, postings and the balance changes of cross partition
+ * transfers to followers over TCP.
+ * Records are appended to a queue on the request thread, while the account locks are held, so the queue keeps
+ * the order of changes per account. The sequence is assigned under the same short lock as the append,
+ * so records are queued and shipped in sequence order. A single shipper thread drains it in batches
+ * and hands every batch to all followers. Each follower has its own writer thread and a bounded backlog of
+ * frames, a follower whose backlog is full is disconnected rather than slowing down the others, and resyncs
+ * from a snapshot when it reconnects. A connecting follower first receives a snapshot of all accounts.
+ *
+ * Frame : [byte frame type][long leader time millis][long sequence][int record count][records]
+ * where sequence is the head of the log for a batch, and the snapshot position for a snapshot.
+ */
+@Component
+@ConditionalOnProperty(prefix = "replication", name = "role", havingValue = "leader")
+@Slf4j
+public class ReplicationLeader implements AccountEventListener, ReplicationNode {
+
+    static final byte FRAME_BATCH = 1;
+
+    static final byte FRAME_SNAPSHOT = 2;
+
+    private static final long HEARTBEAT_MILLIS = 1000;
+
+    //bounds the wait of a joining follower for its snapshot while the leader is idle
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final AccountsRepository accountsRepository;
+
+    private final int port;
+
+    private final int batchSize;
+
+    private final int followerBacklog;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    //held only to number and queue a record, never while blocking
+    private final Lock appendLock = new ReentrantLock();
+
+    //drained without blocking on any follower, so it only grows while the shipper is encoding
+    private final BlockingQueue<ReplicationRecord> pending = new LinkedBlockingQueue<>();
+
+    private final Queue<Socket> joining = new ConcurrentLinkedQueue<>();
+
+    /** Only accessed by the shipper thread. */
+    private final List<Follower> followers = new ArrayList<>();
+
+    private final ByteArrayOutputStream batchBytes = new ByteArrayOutputStream(64 * 1024);
+
+    private volatile int followerCount;
+
+    private volatile long shippedSequence;
+
+    private volatile boolean running;
+
+    private ServerSocket serverSocket;
+
+    private Thread acceptorThread;
+
+    private Thread shipperThread;
+
+    @Autowired
+    public ReplicationLeader(final AccountsRepository accountsRepository,
+                             @Value("${replication.port:18070}") final int port,
+                             @Value("${replication.batch-size:512}") final int batchSize,
+                             @Value("${replication.follower-backlog:1024}") final int followerBacklog) {
+        this.accountsRepository = accountsRepository;
+        this.port = port;
+        this.batchSize = batchSize;
+        this.followerBacklog = followerBacklog;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(port));
+        running = true;
+        acceptorThread = new Thread(this::acceptFollowers, "replication-acceptor");
+        acceptorThread.setDaemon(true);
+        acceptorThread.start();
+        shipperThread = new Thread(this::ship, "replication-shipper");
+        shipperThread.setDaemon(true);
+        shipperThread.start();
+        log.info("Replication leader listening on port {}", getLocalPort());
+    }
+
+    @PreDestroy
+    public void stop() throws IOException, InterruptedException {
+        running = false;
+        serverSocket.close();
+        shipperThread.join(5000);
+        for (Follower follower : followers) {
+            follower.close();
+        }
+    }
+
+    public int getLocalPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    @Override
+    public void onAccountCreated(Account account) {
+        append(ReplicationRecord.CREATED, account.getAccountId(), account.getBalance(), null, null);
+    }
+
+    @Override
+    public void onAccountRemoved(Account account) {
+        append(ReplicationRecord.REMOVED, account.getAccountId(), account.getBalance(), null, null);
+    }
+
+    @Override
+    public void onTransferCommitted(Account fromAccount, Account toAccount, BigDecimal amount) {
+        append(ReplicationRecord.TRANSFERRED, fromAccount.getAccountId(), fromAccount.getBalance(),
+                toAccount.getAccountId(), toAccount.getBalance());
+    }
+
+    @Override
+    public void onPostingCommitted(Posting posting, List<Account> accounts) {
+        for (Account account : accounts) {
+            append(ReplicationRecord.POSTED, account.getAccountId(), account.getBalance(), null, null);
+        }
+    }
+
+    @Override
+    public void onBalanceChanged(Account account, BigDecimal amount, String counterpartyAccountId) {
+        append(ReplicationRecord.BALANCE_CHANGED, account.getAccountId(), account.getBalance(), null, null);
+    }
+
+    @Override
+    public ReplicationStatus getStatus() {
+        ReplicationStatus status = new ReplicationStatus();
+        status.setRole("leader");
+        status.setConnected(true);
+        status.setFollowers(followerCount);
+        status.setHeadSequence(sequence.get());
+        status.setAppliedSequence(shippedSequence);
+        status.setLagRecords(sequence.get() - shippedSequence);
+        return status;
+    }
+
+    private void append(byte type, String accountId, BigDecimal balance, String otherAccountId,
+                        BigDecimal otherBalance) {
+        appendLock.lock();
+        try {
+            pending.add(new ReplicationRecord(type, sequence.incrementAndGet(), accountId, balance, otherAccountId,
+                    otherBalance));
+        } finally {
+            appendLock.unlock();
+        }
+    }
+
+    private void acceptFollowers() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                joining.add(socket);
+            } catch (IOException ex) {
+                if (running) {
+                    log.error("Exception while accepting replication follower ", ex);
+                }
+            }
+        }
+    }
+
+    private void ship() {
+        List<ReplicationRecord> batch = new ArrayList<>(batchSize);
+        long lastSent = System.currentTimeMillis();
+        while (running) {
+            Socket socket;
+            while ((socket = joining.poll()) != null) {
+                addFollower(socket);
+            }
+            pending.drainTo(batch, batchSize);
+            if (batch.isEmpty() && System.currentTimeMillis() - lastSent < HEARTBEAT_MILLIS) {
+                try {
+                    ReplicationRecord record = pending.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                    if (record != null) {
+                        batch.add(record);
+                        pending.drainTo(batch, batchSize - 1);
+                    }
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                continue;
+            }
+            if (!followers.isEmpty()) {
+                send(encode(FRAME_BATCH, sequence.get(), batch));
+            }
+            if (!batch.isEmpty()) {
+                shippedSequence = batch.get(batch.size() - 1).getSequence();
+            }
+            lastSent = System.currentTimeMillis();
+            batch.clear();
+        }
+    }
+
+    /**
+     * Queues the snapshot for a new follower, ahead of every later batch. Changes with a sequence below the
+     * snapshot position are included in the snapshot and skipped by the follower, later ones are applied on top of it.
+     * @param socket
+     */
+    private void addFollower(Socket socket) {
+        try {
+            long snapshotSequence;
+            appendLock.lock();
+            try {
+                //every record below it is queued already, its change is in the balances read below
+                snapshotSequence = sequence.get() + 1;
+            } finally {
+                appendLock.unlock();
+            }
+            List<ReplicationRecord> snapshot = new ArrayList<>();
+            for (Account account : accountsRepository.getAccounts()) {
+                snapshot.add(new ReplicationRecord(ReplicationRecord.SNAPSHOT, snapshotSequence,
+                        account.getAccountId(), account.getBalance(), null, null));
+            }
+            Follower follower = new Follower(socket, followerBacklog);
+            follower.offer(encode(FRAME_SNAPSHOT, snapshotSequence, snapshot));
+            follower.start();
+            followers.add(follower);
+            followerCount = followers.size();
+            log.info("Replication follower {} connected, queued snapshot of {} accounts",
+                    socket.getRemoteSocketAddress(), snapshot.size());
+        } catch (IOException ex) {
+            log.error("Failed to set up replication follower ", ex);
+            try {
+                socket.close();
+            } catch (IOException closeEx) {
+                ex.addSuppressed(closeEx);
+            }
+        }
+    }
+
+    private byte[] encode(byte frameType, long frameSequence, List<ReplicationRecord> records) {
+        batchBytes.reset();
+        try {
+            DataOutputStream out = new DataOutputStream(batchBytes);
+            out.writeByte(frameType);
+            out.writeLong(System.currentTimeMillis());
+            out.writeLong(frameSequence);
+            out.writeInt(records.size());
+            for (ReplicationRecord record : records) {
+                record.writeTo(out);
+            }
+            out.flush();
+        } catch (IOException ex) {
+            throw new IllegalStateException("Failed to encode replication batch", ex);
+        }
+        return batchBytes.toByteArray();
+    }
+
+    private void send(byte[] frame) {
+        Iterator<Follower> iterator = followers.iterator();
+        while (iterator.hasNext()) {
+            Follower follower = iterator.next();
+            if (follower.closed) {
+                iterator.remove();
+            } else if (!follower.offer(frame)) {
+                log.warn("Replication follower {} is {} frames behind, disconnecting it to resync from a snapshot",
+                        follower.socket.getRemoteSocketAddress(), followerBacklog);
+                follower.close();
+                iterator.remove();
+            }
+        }
+        followerCount = followers.size();
+    }
+
+    /**
+     * Connection to one follower, written by its own thread from a bounded backlog of frames.
+     */
+    private static final class Follower {
+
+        private final Socket socket;
+
+        private final DataOutputStream out;
+
+        private final BlockingQueue<byte[]> frames;
+
+        private final Thread writerThread;
+
+        private volatile boolean closed;
+
+        Follower(Socket socket, int backlog) throws IOException {
+            this.socket = socket;
+            this.out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 64 * 1024));
+            this.frames = new ArrayBlockingQueue<>(backlog);
+            this.writerThread = new Thread(this::write, "replication-writer-" + socket.getRemoteSocketAddress());
+            this.writerThread.setDaemon(true);
+        }
+
+        void start() {
+            writerThread.start();
+        }
+
+        boolean offer(byte[] frame) {
+            return frames.offer(frame);
+        }
+
+        void close() {
+            closed = true;
+            writerThread.interrupt();
+            try {
+                socket.close();
+            } catch (IOException ex) {
+                log.warn("Failed to close replication follower {}. Reason : {}",
+                        socket.getRemoteSocketAddress(), ex.getMessage());
+            }
+        }
+
+        private void write() {
+            try {
+                while (!closed) {
+                    byte[] frame = frames.take();
+                    out.writeInt(frame.length);
+                    out.write(frame);
+                    //keep filling the buffer while frames are queued, flush once caught up
+                    if (frames.isEmpty()) {
+                        out.flush();
+                    }
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            } catch (IOException ex) {
+                if (!closed) {
+                    log.warn("Replication follower {} disconnected. Reason : {}",
+                            socket.getRemoteSocketAddress(), ex.getMessage());
+                }
+            } finally {
+                close();
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.db.awmd.challenge.replication;
+
+/**
+ * Role of this instance in leader/follower replication.
+ */
+public interface ReplicationNode {
+
+    ReplicationStatus getStatus();
+}
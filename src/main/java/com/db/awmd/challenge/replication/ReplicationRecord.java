@@ -0,0 +1,78 @@
+package com.db.awmd.challenge.replication;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+import lombok.Getter;
+
+/**
+ * Entry of the replication log. Records carry the balances after the change rather than the amount,
+ * so applying a record is idempotent and a follower converges even if it sees a record twice.
+ */
+@Getter
+public class ReplicationRecord {
+
+    /** Account created on the leader, ignored by followers already holding the account. */
+    public static final byte CREATED = 1;
+
+    /** Committed transfer with the balances of both accounts after the transfer. */
+    public static final byte TRANSFERRED = 2;
+
+    /** Account state sent to a follower when it connects. */
+    public static final byte SNAPSHOT = 3;
+
+    /** Balance of one account after a committed multi-leg posting, one record per account of the posting. */
+    public static final byte POSTED = 4;
+
+    /** Balance of one account after a single sided change, e.g. one side of a cross partition transfer. */
+    public static final byte BALANCE_CHANGED = 5;
+
+    /** Account removed on the leader, e.g. handed over to another cluster node, with its last balance. */
+    public static final byte REMOVED = 6;
+
+    private final byte type;
+
+    private final long sequence;
+
+    private final String accountId;
+
+    private final BigDecimal balance;
+
+    private final String otherAccountId;
+
+    private final BigDecimal otherBalance;
+
+    ReplicationRecord(byte type, long sequence, String accountId, BigDecimal balance,
+                      String otherAccountId, BigDecimal otherBalance) {
+        this.type = type;
+        this.sequence = sequence;
+        this.accountId = accountId;
+        this.balance = balance;
+        this.otherAccountId = otherAccountId;
+        this.otherBalance = otherBalance;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeByte(type);
+        out.writeLong(sequence);
+        out.writeUTF(accountId);
+        out.writeUTF(balance.toString());
+        if (type == TRANSFERRED) {
+            out.writeUTF(otherAccountId);
+            out.writeUTF(otherBalance.toString());
+        }
+    }
+
+    static ReplicationRecord readFrom(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        long sequence = in.readLong();
+        String accountId = in.readUTF();
+        BigDecimal balance = new BigDecimal(in.readUTF());
+        if (type == TRANSFERRED) {
+            return new ReplicationRecord(type, sequence, accountId, balance, in.readUTF(), new BigDecimal(in.readUTF()));
+        }
+        return new ReplicationRecord(type, sequence, accountId, balance, null, null);
+    }
+}
@@ -0,0 +1,29 @@
+package com.db.awmd.challenge.replication;
+
+import lombok.Data;
+
+/**
+ * Replication progress of a leader or follower, sequences are leader log positions.
+ */
+@Data
+public class ReplicationStatus {
+
+    private String role;
+
+    private boolean connected;
+
+    private int followers;
+
+    /** Last sequence assigned by the leader, as last reported to a follower. */
+    private long headSequence;
+
+    /** Last sequence sent to followers by the leader, or applied by the follower. */
+    private long appliedSequence;
+
+    private long lagRecords;
+
+    /** Time between the leader sending the last batch and the follower having applied it. */
+    private long lagMillis;
+
+    private long appliedRecords;
+}
@@ -0,0 +1,188 @@
+package com.db.awmd.challenge.repository;
+
+import com.db.awmd.challenge.domain.Account;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Append only file of account records with an in memory index from account id to the offset of its latest record.
+ * Records are [int length][long version][int scale][int id length][id utf8][unscaled balance bytes].
+ * Superseded records are reclaimed by rewriting the file once they make up most of it.
+ * The file only lives as long as the process, it is a spill area rather than durable storage.
+ */
+class AccountStore implements Closeable {
+
+    private static final long COMPACTION_MIN_BYTES = 16 * 1024 * 1024;
+
+    private final File file;
+
+    private final Map<String, Long> index = new ConcurrentHashMap<>();
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private FileChannel channel;
+
+    private long liveBytes;
+
+    AccountStore(File file) throws IOException {
+        this.file = file;
+        this.channel = open(file, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    boolean contains(String accountId) {
+        return index.containsKey(accountId);
+    }
+
+    Set<String> getAccountIds() {
+        return index.keySet();
+    }
+
+    void write(Account account) {
+        byte[] id = account.getAccountId().getBytes(StandardCharsets.UTF_8);
+        byte[] unscaled = account.getBalance().unscaledValue().toByteArray();
+        int length = 8 + 4 + 4 + id.length + unscaled.length;
+        ByteBuffer record = ByteBuffer.allocate(4 + length);
+        record.putInt(length).putLong(account.getVersion()).putInt(account.getBalance().scale())
+                .putInt(id.length).put(id).put(unscaled).flip();
+        lock.writeLock().lock();
+        try {
+            long offset = channel.size();
+            while (record.hasRemaining()) {
+                channel.write(record, offset + record.position());
+            }
+            Long previous = index.put(account.getAccountId(), offset);
+            liveBytes += 4 + length - (previous != null ? recordSize(previous) : 0);
+            if (channel.size() > COMPACTION_MIN_BYTES && channel.size() > 2 * liveBytes) {
+                compact();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to spill account " + account.getAccountId(), ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Reads the latest record of the account, returns null if the store has none.
+     * @param accountId
+     * @return Account
+     */
+    Account read(String accountId) {
+        lock.readLock().lock();
+        try {
+            Long offset = index.get(accountId);
+            return offset == null ? null : readAt(offset);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to load account " + accountId, ex);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void remove(String accountId) {
+        lock.writeLock().lock();
+        try {
+            Long offset = index.remove(accountId);
+            if (offset != null) {
+                liveBytes -= recordSize(offset);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to remove account " + accountId, ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void clear() {
+        lock.writeLock().lock();
+        try {
+            index.clear();
+            liveBytes = 0;
+            channel.truncate(0);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to clear account store " + file, ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+        Files.deleteIfExists(file.toPath());
+    }
+
+    private Account readAt(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        readFully(header, offset);
+        ByteBuffer record = ByteBuffer.allocate(header.getInt(0));
+        readFully(record, offset + 4);
+        record.flip();
+        long version = record.getLong();
+        int scale = record.getInt();
+        byte[] id = new byte[record.getInt()];
+        record.get(id);
+        byte[] unscaled = new byte[record.remaining()];
+        record.get(unscaled);
+        return new Account(new String(id, StandardCharsets.UTF_8),
+                new BigDecimal(new BigInteger(unscaled), scale), version);
+    }
+
+    private int recordSize(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        readFully(header, offset);
+        return 4 + header.getInt(0);
+    }
+
+    private void readFully(ByteBuffer buffer, long offset) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of account store at " + offset);
+            }
+        }
+    }
+
+    /**
+     * Rewrites the live records to a new file. Invoked holding the write lock.
+     */
+    private void compact() throws IOException {
+        File compacted = new File(file.getPath() + ".compact");
+        try (FileChannel target = open(compacted, StandardOpenOption.TRUNCATE_EXISTING)) {
+            long position = 0;
+            for (Map.Entry<String, Long> entry : index.entrySet()) {
+                int size = recordSize(entry.getValue());
+                long transferred = 0;
+                while (transferred < size) {
+                    transferred += channel.transferTo(entry.getValue() + transferred, size - transferred, target);
+                }
+                entry.setValue(position);
+                position += size;
+            }
+            liveBytes = position;
+        }
+        channel.close();
+        Files.move(compacted.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        channel = open(file, StandardOpenOption.READ);
+    }
+
+    private static FileChannel open(File file, StandardOpenOption option) throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, option,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+}
@@ -2,6 +2,7 @@ package com.db.awmd.challenge.repository;
 
 import com.db.awmd.challenge.domain.Account;
 import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+import java.util.Collection;
 
 public interface AccountsRepository {
 
@@ -9,5 +10,13 @@ public interface AccountsRepository {
 
   Account getAccount(String accountId);
 
+  default boolean containsAccount(String accountId) {
+    return getAccount(accountId) != null;
+  }
+
+  Collection<Account> getAccounts();
+
+  Account removeAccount(String accountId);
+
   void clearAccounts();
 }
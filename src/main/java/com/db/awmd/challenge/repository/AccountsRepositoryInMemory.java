@@ -2,11 +2,14 @@ package com.db.awmd.challenge.repository;
 
 import com.db.awmd.challenge.domain.Account;
 import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
 @Repository
+@ConditionalOnProperty(prefix = "storage.tiered", name = "enabled", havingValue = "false", matchIfMissing = true)
 public class AccountsRepositoryInMemory implements AccountsRepository {
 
   private final Map<String, Account> accounts = new ConcurrentHashMap<>();
@@ -25,6 +28,16 @@ public class AccountsRepositoryInMemory implements AccountsRepository {
     return accounts.get(accountId);
   }
 
+  @Override
+  public Collection<Account> getAccounts() {
+    return accounts.values();
+  }
+
+  @Override
+  public Account removeAccount(String accountId) {
+    return accounts.remove(accountId);
+  }
+
   @Override
   public void clearAccounts() {
     accounts.clear();
@@ -0,0 +1,74 @@
+package com.db.awmd.challenge.repository;
+
+import com.db.awmd.challenge.contention.CountMinSketch;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Approximate access frequency of keys, the TinyLFU admission filter of the WTinyLfuPolicy.
+ * Four rows of counters saturating at 15, each row four times as wide as the cache to keep collisions rare.
+ * Rows are indexed like CountMinSketch, from a randomly seeded MurmurHash3 of the key, so account ids
+ * with equal String hash codes do not share their counters and can not be chosen to inflate one another.
+ * All counters are halved once the number of increments reaches ten times the cache size,
+ * so the sketch reflects recent popularity. Not thread safe.
+ */
+class FrequencySketch {
+
+    private static final int DEPTH = 4;
+
+    private static final int MAX_COUNT = 15;
+
+    private final byte[] counters;
+
+    private final int mask;
+
+    private final int sampleSize;
+
+    private final long seed = ThreadLocalRandom.current().nextLong();
+
+    private int additions;
+
+    FrequencySketch(int maximumSize) {
+        int width = Integer.highestOneBit(Math.max(maximumSize, 16) - 1) << 3;
+        this.counters = new byte[DEPTH * width];
+        this.mask = width - 1;
+        this.sampleSize = 10 * Math.max(maximumSize, 16);
+    }
+
+    void increment(String key) {
+        long[] hash = CountMinSketch.hash(key, seed);
+        boolean added = false;
+        for (int row = 0; row < DEPTH; row++) {
+            int index = index(row, hash);
+            if (counters[index] < MAX_COUNT) {
+                counters[index]++;
+                added = true;
+            }
+        }
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    int frequency(String key) {
+        long[] hash = CountMinSketch.hash(key, seed);
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < DEPTH; row++) {
+            frequency = Math.min(frequency, counters[index(row, hash)]);
+        }
+        return frequency;
+    }
+
+    private void reset() {
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] = (byte) (counters[i] >> 1);
+        }
+        additions /= 2;
+    }
+
+    private int index(int row, long[] hash) {
+        //h2 is odd, so every row probes a different slot of a power of two row
+        long h = hash[0] + row * (hash[1] | 1);
+        return row * (mask + 1) + ((int) (h ^ (h >>> 32)) & mask);
+    }
+}
@@ -0,0 +1,319 @@
+package com.db.awmd.challenge.repository;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Repository;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps at most 'storage.tiered.max-resident' accounts on heap and spills the others to an AccountStore file,
+ * faulting them back in on getAccount. Residency is decided by a WTinyLfuPolicy.
+ * <p>
+ * There is never more than one resident instance of an account, so locking on it stays correct:
+ * an account is evicted holding its lock, after its state has been written to disk it is detached and removed,
+ * and a thread holding the stale reference sees the detached flag once it gets the lock and looks the account up again,
+ * see FundTransferService. Loading goes through computeIfAbsent, so concurrent faults of one account share one instance.
+ * <p>
+ * Reads are recorded in lossy striped buffers and applied to the policy in batches,
+ * evictions run on a background thread so that no caller ever waits for the lock of another account.
+ * Accounts with open reservations are not evicted, the store does not keep reserved amounts. They stay resident
+ * untracked and are offered to the policy again on their next read.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "storage.tiered", name = "enabled", havingValue = "true")
+@Slf4j
+public class TieredAccountsRepository implements AccountsRepository {
+
+    private static final int READ_BUFFER_SIZE = 256;
+
+    private static final int READ_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+
+    //queued by close, compared by reference so that no account id can be mistaken for it
+    private static final String STOP_EVICTOR = new String("stop-evictor");
+
+    private final Map<String, Account> resident = new ConcurrentHashMap<>();
+
+    private final AccountStore store;
+
+    private final WTinyLfuPolicy policy;
+
+    private final ReentrantLock policyLock = new ReentrantLock();
+
+    private final ReadBuffer[] readBuffers;
+
+    private final BlockingQueue<String> evictions = new LinkedBlockingQueue<>();
+
+    private final Thread evictor;
+
+    @Autowired
+    public TieredAccountsRepository(
+            @Value("${storage.tiered.max-resident:100000}") final int maxResident,
+            @Value("${storage.tiered.file:${java.io.tmpdir}/challenge-accounts-${random.uuid}.dat}") final String file)
+            throws IOException {
+        this.store = new AccountStore(new File(file));
+        this.policy = new WTinyLfuPolicy(maxResident);
+        int stripes = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1;
+        this.readBuffers = new ReadBuffer[stripes];
+        for (int i = 0; i < stripes; i++) {
+            readBuffers[i] = new ReadBuffer();
+        }
+        this.evictor = new Thread(this::runEvictions, "accounts-evictor");
+        this.evictor.setDaemon(true);
+        this.evictor.start();
+    }
+
+    /**
+     * Stops the evictor once the evictions queued so far are written, then closes the store.
+     * The evictor is never interrupted, that would close the store's channel in the middle of a write.
+     */
+    @PreDestroy
+    public void close() throws IOException, InterruptedException {
+        evictions.add(STOP_EVICTOR);
+        evictor.join(5000);
+        store.close();
+    }
+
+    @Override
+    public void createAccount(Account account) throws DuplicateAccountIdException {
+        //checked inside compute, an eviction of the same id writes the store before it removes the resident entry
+        resident.compute(account.getAccountId(), (accountId, existing) -> {
+            if (existing != null || store.contains(accountId)) {
+                throw new DuplicateAccountIdException("Account id " + accountId + " already exists!");
+            }
+            return account;
+        });
+        admit(account.getAccountId());
+    }
+
+    @Override
+    public Account getAccount(String accountId) {
+        Account account = resident.get(accountId);
+        if (account != null) {
+            recordRead(accountId);
+            return account;
+        }
+        if (!store.contains(accountId)) {
+            return null;
+        }
+        boolean[] loaded = new boolean[1];
+        account = resident.computeIfAbsent(accountId, id -> {
+            Account stored = store.read(id);
+            loaded[0] = stored != null;
+            return stored;
+        });
+        if (loaded[0]) {
+            admit(accountId);
+        } else if (account != null) {
+            recordRead(accountId);
+        }
+        return account;
+    }
+
+    @Override
+    public boolean containsAccount(String accountId) {
+        return resident.containsKey(accountId) || store.contains(accountId);
+    }
+
+    /**
+     * All accounts, resident or not. The collection is lazy, accounts are faulted in one at a time while iterating.
+     * @return Collection
+     */
+    @Override
+    public Collection<Account> getAccounts() {
+        Set<String> accountIds = new LinkedHashSet<>(resident.keySet());
+        accountIds.addAll(store.getAccountIds());
+        return new AbstractCollection<Account>() {
+            @Override
+            public Iterator<Account> iterator() {
+                return new LoadingIterator(accountIds.iterator());
+            }
+
+            @Override
+            public int size() {
+                return accountIds.size();
+            }
+        };
+    }
+
+    /**
+     * Removes the account from both tiers. Invoked holding the account lock, see ClusterMembership,
+     * the store entry goes first so that a concurrent getAccount can not fault the account back in.
+     * @param accountId
+     * @return Account
+     */
+    @Override
+    public Account removeAccount(String accountId) {
+        store.remove(accountId);
+        Account removed = resident.remove(accountId);
+        policyLock.lock();
+        try {
+            policy.remove(accountId);
+        } finally {
+            policyLock.unlock();
+        }
+        return removed;
+    }
+
+    @Override
+    public void clearAccounts() {
+        policyLock.lock();
+        try {
+            policy.clear();
+            for (ReadBuffer readBuffer : readBuffers) {
+                readBuffer.reads.clear();
+            }
+            evictions.clear();
+            resident.clear();
+            store.clear();
+        } finally {
+            policyLock.unlock();
+        }
+    }
+
+    int getResidentCount() {
+        return resident.size();
+    }
+
+    private void recordRead(String accountId) {
+        int stripe = (int) Thread.currentThread().threadId() & (readBuffers.length - 1);
+        Queue<String> readBuffer = readBuffers[stripe].reads;
+        //lossy, a dropped read only makes the frequency estimate slightly lower
+        readBuffer.offer(accountId);
+        if (readBuffer.size() >= READ_DRAIN_THRESHOLD && policyLock.tryLock()) {
+            List<String> victims = new ArrayList<>();
+            try {
+                drainReads(victims);
+            } finally {
+                policyLock.unlock();
+            }
+            evictions.addAll(victims);
+        }
+    }
+
+    private void admit(String accountId) {
+        List<String> victims = new ArrayList<>();
+        policyLock.lock();
+        try {
+            drainReads(victims);
+            victims.addAll(policy.recordInsert(accountId));
+        } finally {
+            policyLock.unlock();
+        }
+        evictions.addAll(victims);
+    }
+
+    /**
+     * Applies the buffered reads to the policy. Invoked holding the policy lock.
+     * @param victims collects the accounts to evict, reads of resident accounts the policy no longer tracks
+     *                insert them again
+     */
+    private void drainReads(List<String> victims) {
+        for (ReadBuffer readBuffer : readBuffers) {
+            String accountId;
+            while ((accountId = readBuffer.reads.poll()) != null) {
+                if (policy.contains(accountId) || !resident.containsKey(accountId)) {
+                    policy.recordAccess(accountId);
+                } else {
+                    victims.addAll(policy.recordInsert(accountId));
+                }
+            }
+        }
+    }
+
+    private void runEvictions() {
+        while (true) {
+            try {
+                String accountId = evictions.take();
+                if (accountId == STOP_EVICTOR) {
+                    return;
+                }
+                evict(accountId);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("Failed to evict account ", ex);
+            }
+        }
+    }
+
+    private void evict(String accountId) {
+        Account account = resident.get(accountId);
+        if (account == null) {
+            return;
+        }
+        account.lock();
+        try {
+            if (account.isDetached() || account.getReserved().signum() != 0) {
+                return;
+            }
+            store.write(account);
+            account.detach();
+            resident.remove(accountId, account);
+        } finally {
+            account.unlock();
+        }
+    }
+
+    /**
+     * Stripe of the lossy read buffer, a holder rather than a generic array element.
+     */
+    private static final class ReadBuffer {
+
+        private final Queue<String> reads = new ArrayBlockingQueue<>(READ_BUFFER_SIZE);
+    }
+
+    private final class LoadingIterator implements Iterator<Account> {
+
+        private final Iterator<String> accountIds;
+
+        private Account next;
+
+        private LoadingIterator(Iterator<String> accountIds) {
+            this.accountIds = accountIds;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && accountIds.hasNext()) {
+                next = getAccount(accountIds.next());
+            }
+            return next != null;
+        }
+
+        @Override
+        public Account next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Account account = next;
+            next = null;
+            return account;
+        }
+    }
+}
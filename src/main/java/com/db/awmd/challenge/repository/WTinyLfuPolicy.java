@@ -0,0 +1,115 @@
+package com.db.awmd.challenge.repository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Window TinyLFU eviction policy. New keys enter a small LRU window, keys leaving the window compete with the
+ * least recently used key of the main space and are only admitted if the FrequencySketch has seen them more often.
+ * The main space is a segmented LRU, keys hit while on probation are promoted to the protected segment.
+ * A scan of one-off keys therefore never displaces the frequently used ones. Not thread safe.
+ */
+class WTinyLfuPolicy {
+
+    private final int windowCapacity;
+
+    private final int protectedCapacity;
+
+    private final int mainCapacity;
+
+    private final FrequencySketch sketch;
+
+    //access ordered sets, the eldest entry is the least recently used key
+    private final LinkedHashMap<String, Boolean> window = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<String, Boolean> probation = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final LinkedHashMap<String, Boolean> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    WTinyLfuPolicy(int maximumSize) {
+        this.windowCapacity = Math.max(1, maximumSize / 100);
+        this.mainCapacity = Math.max(1, maximumSize - windowCapacity);
+        this.protectedCapacity = Math.max(1, mainCapacity * 8 / 10);
+        this.sketch = new FrequencySketch(maximumSize);
+    }
+
+    int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    boolean contains(String key) {
+        return window.containsKey(key) || probation.containsKey(key) || protectedSegment.containsKey(key);
+    }
+
+    /**
+     * Records a hit on a resident key, keys no longer tracked only count towards the frequency.
+     * @param key
+     */
+    void recordAccess(String key) {
+        sketch.increment(key);
+        if (window.get(key) != null || protectedSegment.get(key) != null) {
+            return;
+        }
+        if (probation.remove(key) != null) {
+            protectedSegment.put(key, Boolean.TRUE);
+            if (protectedSegment.size() > protectedCapacity) {
+                String demoted = eldest(protectedSegment);
+                protectedSegment.remove(demoted);
+                probation.put(demoted, Boolean.TRUE);
+            }
+        }
+    }
+
+    /**
+     * Adds a newly resident key.
+     * @param key
+     * @return the keys to evict, possibly including the new key itself
+     */
+    List<String> recordInsert(String key) {
+        List<String> victims = new ArrayList<>(1);
+        if (contains(key)) {
+            recordAccess(key);
+            return victims;
+        }
+        sketch.increment(key);
+        window.put(key, Boolean.TRUE);
+        if (window.size() <= windowCapacity) {
+            return victims;
+        }
+        String candidate = eldest(window);
+        window.remove(candidate);
+        if (probation.size() + protectedSegment.size() < mainCapacity) {
+            probation.put(candidate, Boolean.TRUE);
+            return victims;
+        }
+        LinkedHashMap<String, Boolean> victimSegment = probation.isEmpty() ? protectedSegment : probation;
+        String victim = eldest(victimSegment);
+        if (sketch.frequency(candidate) > sketch.frequency(victim)) {
+            victimSegment.remove(victim);
+            probation.put(candidate, Boolean.TRUE);
+            victims.add(victim);
+        } else {
+            victims.add(candidate);
+        }
+        return victims;
+    }
+
+    void remove(String key) {
+        if (window.remove(key) == null && probation.remove(key) == null) {
+            protectedSegment.remove(key);
+        }
+    }
+
+    void clear() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+    }
+
+    private static String eldest(LinkedHashMap<String, Boolean> segment) {
+        Iterator<String> keys = segment.keySet().iterator();
+        return keys.next();
+    }
+}
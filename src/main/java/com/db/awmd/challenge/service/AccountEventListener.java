@@ -0,0 +1,54 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Posting;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Callback for committed account changes. Every bean implementing it is registered
+ * with AccountsService, FundTransferService and LocalPartitionParticipant.
+ * Callbacks run on the request thread, transfer callbacks while the account locks are held,
+ * so implementations must be quick and must never block.
+ */
+public interface AccountEventListener {
+
+    default void onAccountCreated(Account account) {
+    }
+
+    /**
+     * Invoked holding the account lock, right after the account has been removed from this node,
+     * e.g. handed over to another cluster node.
+     * @param account
+     */
+    default void onAccountRemoved(Account account) {
+    }
+
+    /**
+     * Invoked holding the locks of both accounts, right after the amount has been moved.
+     * @param fromAccount
+     * @param toAccount
+     * @param amount
+     */
+    default void onTransferCommitted(Account fromAccount, Account toAccount, BigDecimal amount) {
+    }
+
+    /**
+     * Invoked holding the locks of all accounts of the posting, right after every leg has been applied.
+     * @param posting
+     * @param accounts the accounts of the posting, ordered by account id
+     */
+    default void onPostingCommitted(Posting posting, List<Account> accounts) {
+    }
+
+    /**
+     * Invoked holding the account lock, right after the balance of a single account changed outside of a transfer
+     * or posting of this node, e.g. one side of a cross partition transfer being prepared, committed or aborted.
+     * @param account
+     * @param amount signed amount of the change
+     * @param counterpartyAccountId other account of the change, may be null
+     */
+    default void onBalanceChanged(Account account, BigDecimal amount, String counterpartyAccountId) {
+    }
+}
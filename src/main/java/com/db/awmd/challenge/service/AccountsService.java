@@ -2,23 +2,68 @@ package com.db.awmd.challenge.service;
 
 import com.db.awmd.challenge.domain.Account;
 import com.db.awmd.challenge.repository.AccountsRepository;
+import java.util.Collections;
+import java.util.List;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 @Service
+@Slf4j
 public class AccountsService {
 
   @Getter
   private final AccountsRepository accountsRepository;
 
+  private List<AccountEventListener> accountEventListeners = Collections.emptyList();
+
   @Autowired
   public AccountsService(AccountsRepository accountsRepository) {
     this.accountsRepository = accountsRepository;
   }
 
+  @Autowired(required = false)
+  public void setAccountEventListeners(List<AccountEventListener> accountEventListeners) {
+    this.accountEventListeners = accountEventListeners;
+  }
+
   public void createAccount(Account account) {
     this.accountsRepository.createAccount(account);
+    //listeners see the account inside its lock, like every later balance change
+    account.lock();
+    try {
+      for (AccountEventListener listener : accountEventListeners) {
+        try {
+          listener.onAccountCreated(account);
+        } catch (Exception ex) {
+          //listener failure should not affect the account creation.
+          log.error("Exception while publishing account creation to listener {} ", listener, ex);
+        }
+      }
+    } finally {
+      account.unlock();
+    }
+  }
+
+  /**
+   * Removes the account and tells the listeners. Must be invoked holding the account lock.
+   * @param accountId
+   * @return the removed account, null if there was none
+   */
+  public Account removeAccount(String accountId) {
+    Account removed = this.accountsRepository.removeAccount(accountId);
+    if (removed != null) {
+      for (AccountEventListener listener : accountEventListeners) {
+        try {
+          listener.onAccountRemoved(removed);
+        } catch (Exception ex) {
+          //listener failure should not affect the account removal.
+          log.error("Exception while publishing account removal to listener {} ", listener, ex);
+        }
+      }
+    }
+    return removed;
   }
 
   public Account getAccount(String accountId) {
@@ -0,0 +1,147 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.cluster.ClusterMembership;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.InValidTransferRequestException;
+import com.db.awmd.challenge.transaction.CoordinatorLog;
+import com.db.awmd.challenge.transaction.LocalPartitionParticipant;
+import com.db.awmd.challenge.transaction.PartitionParticipant;
+import com.db.awmd.challenge.transaction.RemotePartitionParticipant;
+import com.db.awmd.challenge.transaction.TwoPhaseCommitCoordinator;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Service that transfers funds between accounts owned by different cluster nodes,
+ * using two phase commit with this node as coordinator.
+ */
+@Service
+@Slf4j
+public class CrossPartitionTransferService {
+
+    private static final long RECOVERY_RETRY_SECONDS = 10;
+
+    private final ClusterMembership clusterMembership;
+
+    private final LocalPartitionParticipant localParticipant;
+
+    private final Map<String, PartitionParticipant> remoteParticipants = new ConcurrentHashMap<>();
+
+    private final RestTemplate restTemplate;
+
+    private final CoordinatorLog coordinatorLog;
+
+    private final TwoPhaseCommitCoordinator coordinator;
+
+    private final ScheduledExecutorService recoveryExecutor;
+
+    private final AtomicBoolean retryScheduled = new AtomicBoolean();
+
+    @Autowired
+    public CrossPartitionTransferService(final ClusterMembership clusterMembership,
+                                         final LocalPartitionParticipant localParticipant,
+                                         @Value("${transaction.log-file:${java.io.tmpdir}/challenge-coordinator-${cluster.self-id:node-1}.log}") final String logFile,
+                                         @Value("${transaction.log-sync:true}") final boolean logSync) {
+        this.clusterMembership = clusterMembership;
+        this.localParticipant = localParticipant;
+        //bounded, a hung participant fails the prepare and the transaction is aborted instead of holding the request
+        this.restTemplate = new RestTemplate(clusterMembership.getRequestFactory());
+        if (clusterMembership.isEnabled()) {
+            this.recoveryExecutor = Executors.newSingleThreadScheduledExecutor();
+            this.coordinatorLog = new CoordinatorLog(Paths.get(logFile), logSync);
+            this.coordinator = new TwoPhaseCommitCoordinator(coordinatorLog, this::getParticipant, this::scheduleRetry);
+        } else {
+            this.coordinatorLog = null;
+            this.coordinator = null;
+            this.recoveryExecutor = null;
+        }
+    }
+
+    /**
+     * Transfer fund between two accounts of different partitions.
+     * Throws InValidTransferRequestException if transfer amount is <= 0.
+     * Throws AccountNotFoundException if accounts doesnt exists
+     * Throws InSufficientFundException if there is no fund available to withdraw.
+     * @param transfer
+     */
+    public void transferFund(final Transfer transfer) {
+        if (coordinator == null) {
+            throw new InValidTransferRequestException("Fund transfer between partitions requires cluster mode.");
+        }
+        if (!transfer.isTransferAmountValid()) {
+            throw new InValidTransferRequestException("Fund transfer amount should be greater than Zero.");
+        }
+        coordinator.transfer(transfer, clusterMembership.getOwner(transfer.getFromAccountId()),
+                clusterMembership.getOwner(transfer.getToAccountId()));
+    }
+
+    /**
+     * Resolves transactions left in doubt by a previous run, retrying until all are resolved.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        if (coordinator == null) {
+            return;
+        }
+        logUnresolved(coordinator.recover());
+    }
+
+    /**
+     * Schedules a retry of the transactions whose decision did not reach every participant,
+     * at most one retry is pending at any time.
+     */
+    private void scheduleRetry() {
+        if (retryScheduled.compareAndSet(false, true)) {
+            recoveryExecutor.schedule(this::retryUnresolved, RECOVERY_RETRY_SECONDS, TimeUnit.SECONDS);
+        }
+    }
+
+    private void retryUnresolved() {
+        retryScheduled.set(false);
+        logUnresolved(coordinator.retryUnresolved());
+    }
+
+    private void logUnresolved(int unresolved) {
+        if (unresolved > 0) {
+            log.warn("{} cross partition transfers still in doubt, retrying in {}s", unresolved, RECOVERY_RETRY_SECONDS);
+            scheduleRetry();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (coordinatorLog != null) {
+            recoveryExecutor.shutdownNow();
+            coordinatorLog.close();
+        }
+    }
+
+    private PartitionParticipant getParticipant(String nodeId) {
+        if (clusterMembership.getSelfId().equals(nodeId)) {
+            return localParticipant;
+        }
+        String url = clusterMembership.getUrl(nodeId);
+        if (url == null) {
+            throw new InValidTransferRequestException("Unknown partition " + nodeId);
+        }
+        return remoteParticipants.computeIfAbsent(url, nodeUrl -> new RemotePartitionParticipant(nodeUrl, restTemplate));
+    }
+}
@@ -0,0 +1,133 @@
+package com.db.awmd.challenge.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Two level hashed timing wheel of deadlines, scheduling is O(1) from any thread and advancing costs O(1) per tick
+ * plus O(1) per entry moved or due.
+ * The inner wheel has one slot per tick and holds the deadlines of the revolution being processed. The overflow wheel
+ * has one slot per revolution of the inner wheel, its entries are moved down once when their revolution starts.
+ * With n slots the wheel covers n * n ticks, entries further out stay in their overflow slot until it comes round
+ * again. Entries are never cancelled, the owner ignores keys no longer pending.
+ * advance must be called from a single thread.
+ */
+class ExpiryWheel {
+
+    private final long tickMillis;
+
+    private final int size;
+
+    private final List<Slot> slots;
+
+    private final List<Slot> overflowSlots;
+
+    //entries scheduled into a tick that was already processed, picked up by the next advance
+    private final Queue<Entry> overdue = new ConcurrentLinkedQueue<>();
+
+    private volatile long processedTick;
+
+    ExpiryWheel(long tickMillis, int slotCount, long nowMillis) {
+        this.size = Integer.highestOneBit(Math.max(slotCount, 2) - 1) << 1;
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(size);
+        this.overflowSlots = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            slots.add(new Slot());
+            overflowSlots.add(new Slot());
+        }
+        this.processedTick = nowMillis / tickMillis;
+    }
+
+    void schedule(String key, long deadlineMillis) {
+        Entry entry = new Entry(key, deadlineMillis / tickMillis);
+        if (revolution(entry.tick) > revolution(processedTick)) {
+            overflowSlot(revolution(entry.tick)).entries.add(entry);
+            //its revolution started meanwhile and may have been moved down already, schedule it there as well
+            if (revolution(entry.tick) > revolution(processedTick)) {
+                return;
+            }
+        }
+        slot(entry.tick).entries.add(entry);
+        if (entry.tick <= processedTick) {
+            overdue.add(entry);
+        }
+    }
+
+    /**
+     * Advances the wheel to the time given.
+     * @param nowMillis
+     * @return the keys whose deadline has passed, a key may be returned more than once
+     */
+    List<String> advance(long nowMillis) {
+        long nowTick = nowMillis / tickMillis;
+        long previousTick = processedTick;
+        //published before draining, a concurrent schedule either lands before the drain or sees it and goes overdue
+        processedTick = Math.max(previousTick, nowTick);
+        List<String> due = new ArrayList<>();
+        Entry entry;
+        while ((entry = overdue.poll()) != null) {
+            due.add(entry.key);
+        }
+        //move down the revolutions started since the last advance, a gap longer than n revolutions visits every slot once
+        for (long revolution = Math.max(revolution(previousTick) + 1, revolution(nowTick) - size + 1);
+             revolution <= revolution(nowTick); revolution++) {
+            Queue<Entry> slot = overflowSlot(revolution).entries;
+            for (int pending = slot.size(); pending > 0 && (entry = slot.poll()) != null; pending--) {
+                if (revolution(entry.tick) > revolution) {
+                    slot.add(entry);
+                } else if (entry.tick <= nowTick) {
+                    due.add(entry.key);
+                } else {
+                    slot(entry.tick).entries.add(entry);
+                }
+            }
+        }
+        //a gap longer than a revolution visits every slot once
+        for (long tick = Math.max(previousTick + 1, nowTick - size + 1); tick <= nowTick; tick++) {
+            Queue<Entry> slot = slot(tick).entries;
+            for (int pending = slot.size(); pending > 0 && (entry = slot.poll()) != null; pending--) {
+                if (entry.tick <= nowTick) {
+                    due.add(entry.key);
+                } else {
+                    slot.add(entry);
+                }
+            }
+        }
+        return due;
+    }
+
+    private long revolution(long tick) {
+        return tick / size;
+    }
+
+    private Slot slot(long tick) {
+        return slots.get((int) (tick & (size - 1)));
+    }
+
+    private Slot overflowSlot(long revolution) {
+        return overflowSlots.get((int) (revolution & (size - 1)));
+    }
+
+    /**
+     * Deadlines falling into one tick of the inner wheel, or one revolution of the overflow wheel.
+     */
+    private static final class Slot {
+
+        private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+    }
+
+    private static final class Entry {
+
+        private final String key;
+
+        private final long tick;
+
+        private Entry(String key, long tick) {
+            this.key = key;
+            this.tick = tick;
+        }
+    }
+}
@@ -1,16 +1,27 @@
 package com.db.awmd.challenge.service;
 
+import com.db.awmd.challenge.contention.ContentionTracker;
 import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Posting;
+import com.db.awmd.challenge.domain.Reservation;
 import com.db.awmd.challenge.domain.Transfer;
 import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.AccountVersionMismatchException;
 import com.db.awmd.challenge.exception.FundTransferException;
 import com.db.awmd.challenge.exception.InSufficientFundException;
 import com.db.awmd.challenge.exception.InValidTransferRequestException;
+import com.db.awmd.challenge.notification.NotificationCoalescer;
+import com.db.awmd.challenge.stats.TurnoverTracker;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -23,10 +34,19 @@ import static java.lang.String.format;
 @Slf4j
 public class FundTransferService {
 
+    private static final long ANY_VERSION = -1;
+
     private NotificationService notificationService;
 
     private AccountsService accountsService;
 
+    private List<AccountEventListener> accountEventListeners = Collections.emptyList();
+
+    private ContentionTracker contentionTracker;
+
+    private NotificationCoalescer notificationCoalescer;
+
+    private TurnoverTracker turnoverTracker;
 
     @Autowired
     public FundTransferService(final NotificationService notificationService, final AccountsService accountsService) {
@@ -34,6 +54,26 @@ public class FundTransferService {
         this.accountsService = accountsService;
     }
 
+    @Autowired(required = false)
+    public void setAccountEventListeners(final List<AccountEventListener> accountEventListeners) {
+        this.accountEventListeners = accountEventListeners;
+    }
+
+    @Autowired(required = false)
+    public void setContentionTracker(final ContentionTracker contentionTracker) {
+        this.contentionTracker = contentionTracker;
+    }
+
+    @Autowired(required = false)
+    public void setNotificationCoalescer(final NotificationCoalescer notificationCoalescer) {
+        this.notificationCoalescer = notificationCoalescer;
+    }
+
+    @Autowired(required = false)
+    public void setTurnoverTracker(final TurnoverTracker turnoverTracker) {
+        this.turnoverTracker = turnoverTracker;
+    }
+
     /**
      * Transfer fund between two accounts.
      * Throws InValidTransferRequestException if from and to accounts are same.
@@ -44,6 +84,17 @@ public class FundTransferService {
      * @param transfer
      */
     public void transferFund(final Transfer transfer) {
+        transferFund(transfer, ANY_VERSION);
+    }
+
+    /**
+     * Transfer fund between two accounts, only if the source account is still at the expected version.
+     * Throws AccountVersionMismatchException if the source account has changed in the meantime,
+     * otherwise behaves as transferFund(transfer).
+     * @param transfer
+     * @param expectedFromVersion
+     */
+    public void transferFund(final Transfer transfer, final long expectedFromVersion) {
 
         if (transfer.areAccountsSame()) {
             throw new InValidTransferRequestException("Fund transfer to same account is not allowed.");
@@ -53,49 +104,233 @@ public class FundTransferService {
             throw new InValidTransferRequestException("Fund transfer amount should be greater than Zero.");
         }
 
-        Account fromAccount = accountsService.getAccount(transfer.getFromAccountId());
-        if (fromAccount == null) {
-            throw new AccountNotFoundException(format("Account with ID: %s doesnt exists.", transfer.getFromAccountId()));
+        boolean transferred;
+        do {
+            Account fromAccount = getExistingAccount(transfer.getFromAccountId());
+            Account toAccount = getExistingAccount(transfer.getToAccountId());
+            transferred = transferFundThreadSafely(fromAccount, toAccount, transfer.getTransferAmount(),
+                    expectedFromVersion, false);
+        } while (!transferred);
+        recordTurnover(transfer.getFromAccountId(), transfer.getToAccountId(), transfer.getTransferAmount());
+    }
+
+    /**
+     * Transfer the reserved amount to toAccount, the funds were already checked when the reservation was made.
+     * Invoked by ReservationService once the reservation is claimed.
+     * Throws InValidTransferRequestException if toAccount is the reserving account.
+     * Throws AccountNotFoundException if accounts doesnt exists.
+     * @param reservation
+     * @param toAccountId
+     */
+    public void captureReservation(final Reservation reservation, final String toAccountId) {
+
+        if (reservation.getAccountId().equals(toAccountId)) {
+            throw new InValidTransferRequestException("Fund transfer to same account is not allowed.");
         }
 
-        Account toAccount = accountsService.getAccount(transfer.getToAccountId());
-        if (toAccount == null) {
-            throw new AccountNotFoundException(format("Account with ID: %s doesnt exists.", transfer.getToAccountId()));
+        boolean transferred;
+        do {
+            Account fromAccount = getExistingAccount(reservation.getAccountId());
+            Account toAccount = getExistingAccount(toAccountId);
+            transferred = transferFundThreadSafely(fromAccount, toAccount, reservation.getAmount(), ANY_VERSION, true);
+        } while (!transferred);
+        recordTurnover(reservation.getAccountId(), toAccountId, reservation.getAmount());
+    }
+
+    /**
+     * Apply a multi-leg posting atomically, either every leg is applied or none.
+     * Throws InValidTransferRequestException if a leg amount is zero, the legs do not sum to zero
+     * or there are more than Posting.MAX_LEGS legs.
+     * Throws AccountNotFoundException if an account doesnt exists.
+     * Throws InSufficientFundException if an account can not cover its net debit.
+     * @param posting
+     */
+    public void post(final Posting posting) {
+
+        if (posting.getLegs().size() > Posting.MAX_LEGS) {
+            throw new InValidTransferRequestException(format("Posting should not have more than %d legs.",
+                    Posting.MAX_LEGS));
+        }
+
+        if (!posting.areLegAmountsValid()) {
+            throw new InValidTransferRequestException("Posting leg amount should not be Zero.");
+        }
+
+        if (!posting.isBalanced()) {
+            throw new InValidTransferRequestException("Posting legs should sum to Zero.");
+        }
+
+        Map<String, BigDecimal> netAmounts = posting.getNetAmounts();
+        boolean posted;
+        do {
+            List<Account> accounts = new ArrayList<>(netAmounts.size());
+            for (String accountId : netAmounts.keySet()) {
+                accounts.add(getExistingAccount(accountId));
+            }
+            accounts.sort(Comparator.comparing(Account::getAccountId));
+            posted = postThreadSafely(posting, netAmounts, accounts);
+        } while (!posted);
+        if (turnoverTracker != null) {
+            for (Map.Entry<String, BigDecimal> netAmount : netAmounts.entrySet()) {
+                if (netAmount.getValue().signum() != 0) {
+                    turnoverTracker.record(netAmount.getKey(), netAmount.getValue().abs(), netAmount.getValue().signum() > 0);
+                }
+            }
+        }
+    }
+
+    private Account getExistingAccount(final String accountId) {
+        Account account = accountsService.getAccount(accountId);
+        if (account == null) {
+            throw new AccountNotFoundException(format("Account with ID: %s doesnt exists.", accountId));
         }
-        transferFundThreadSafely(fromAccount, toAccount, transfer.getTransferAmount());
+        return account;
     }
 
 
     /**
-     * Perform's fund transfer inside synchronised context.
+     * Perform's fund transfer holding the locks of both accounts.
      * Thread locking is done on account objects .
      * Account objects are sorted in predictive manner to avoid dead lock.
+     * Returns false without transferring if either account was detached from the repository
+     * before the locks were taken, the caller should look the accounts up again.
      * @param fromAccount
      * @param toAccount
      * @param amount
+     * @param expectedFromVersion
+     * @param reserved the amount is captured from a reservation on fromAccount
+     * @return boolean
      */
-    private void transferFundThreadSafely(Account fromAccount, Account toAccount, BigDecimal amount) {
+    private boolean transferFundThreadSafely(Account fromAccount, Account toAccount, BigDecimal amount,
+                                             long expectedFromVersion, boolean reserved) {
         //prevent dead lock by ordering the lock
-        Object lock_1 = fromAccount.getAccountId().compareTo(toAccount.getAccountId()) < 0 ? fromAccount : toAccount;
-        Object lock_2 = lock_1 != fromAccount ? fromAccount : toAccount;
-        log.debug("Getting lock on lock 1 {} ",lock_1);
-        synchronized (lock_1) {
-            log.debug("Getting lock on lock 2 {} ",lock_2);
-            synchronized (lock_2) {
-                withdrawFund(fromAccount, amount);
-                depositFund(fromAccount, toAccount, amount);
-                notifyTransferStatus(fromAccount, toAccount, amount);
+        Account lock_1 = fromAccount.getAccountId().compareTo(toAccount.getAccountId()) < 0 ? fromAccount : toAccount;
+        Account lock_2 = lock_1 != fromAccount ? fromAccount : toAccount;
+        long waitStart = System.nanoTime();
+        long lock_1Wait = 0;
+        long lock_2Wait = 0;
+        try {
+            log.debug("Getting lock on lock 1 {} ",lock_1);
+            lock_1.lock();
+            try {
+                long lock_1Acquired = System.nanoTime();
+                lock_1Wait = lock_1Acquired - waitStart;
+                log.debug("Getting lock on lock 2 {} ",lock_2);
+                lock_2.lock();
+                try {
+                    lock_2Wait = System.nanoTime() - lock_1Acquired;
+                    if (fromAccount.isDetached() || toAccount.isDetached()) {
+                        return false;
+                    }
+                    if (expectedFromVersion != ANY_VERSION && fromAccount.getVersion() != expectedFromVersion) {
+                        throw new AccountVersionMismatchException(format("Account %s is at version %s, expected version %s.",
+                                fromAccount.getAccountId(), fromAccount.getVersion(), expectedFromVersion));
+                    }
+                    if (reserved) {
+                        fromAccount.captureReservation(amount);
+                    } else {
+                        withdrawFund(fromAccount, amount);
+                    }
+                    depositFund(fromAccount, toAccount, amount);
+                    publishTransferCommitted(fromAccount, toAccount, amount);
+                    notifyTransferStatus(fromAccount, toAccount, amount);
+                } finally {
+                    lock_2.unlock();
+                }
+            } finally {
+                lock_1.unlock();
             }
+            return true;
+        } finally {
+            recordContention(lock_1, lock_1Wait, lock_2, lock_2Wait);
         }
+    }
 
+    /**
+     * Feed the contention tracker once both locks are released, it never extends the critical section.
+     * @param lock_1
+     * @param lock_1Wait
+     * @param lock_2
+     * @param lock_2Wait
+     */
+    private void recordContention(Account lock_1, long lock_1Wait, Account lock_2, long lock_2Wait) {
+        if (contentionTracker != null) {
+            contentionTracker.record(lock_1.getAccountId(), lock_1Wait);
+            contentionTracker.record(lock_2.getAccountId(), lock_2Wait);
+        }
     }
 
 
+    /**
+     * Feed the turnover statistics once the transfer is committed and its locks are released.
+     * @param fromAccountId
+     * @param toAccountId
+     * @param amount
+     */
+    private void recordTurnover(String fromAccountId, String toAccountId, BigDecimal amount) {
+        if (turnoverTracker != null) {
+            turnoverTracker.recordTransfer(fromAccountId, toAccountId, amount);
+        }
+    }
+
+    /**
+     * Perform's a posting holding the locks of all its accounts.
+     * Locks are taken one account at a time in account id order, the same global order as
+     * transferFundThreadSafely, and the legs are applied once all of them are held.
+     * All net debits are checked before any balance changes, so a failing leg leaves every account untouched.
+     * Returns false without posting if an account was detached from the repository before the locks were taken.
+     * @param posting
+     * @param netAmounts
+     * @param accounts
+     * @return boolean
+     */
+    private boolean postThreadSafely(Posting posting, Map<String, BigDecimal> netAmounts, List<Account> accounts) {
+        int locked = 0;
+        try {
+            for (Account account : accounts) {
+                account.lock();
+                locked++;
+            }
+            return postLocked(posting, netAmounts, accounts);
+        } finally {
+            //release in reverse order, only the locks actually taken
+            for (int i = locked - 1; i >= 0; i--) {
+                accounts.get(i).unlock();
+            }
+        }
+    }
+
+    private boolean postLocked(Posting posting, Map<String, BigDecimal> netAmounts, List<Account> accounts) {
+        for (Account account : accounts) {
+            if (account.isDetached()) {
+                return false;
+            }
+        }
+        for (Account account : accounts) {
+            BigDecimal netAmount = netAmounts.get(account.getAccountId());
+            if (netAmount.signum() < 0 && account.getAvailableBalance().add(netAmount).signum() < 0) {
+                throw new InSufficientFundException(format("Insufficient balance in account : %s, Unable to withdraw amount: %s",
+                        account.getAccountId(), netAmount.negate()));
+            }
+        }
+        for (Account account : accounts) {
+            BigDecimal netAmount = netAmounts.get(account.getAccountId());
+            if (netAmount.signum() < 0) {
+                account.withdraw(netAmount.negate());
+            } else if (netAmount.signum() > 0) {
+                account.deposit(netAmount);
+            }
+        }
+        publishPostingCommitted(posting, accounts);
+        notifyPostingStatus(netAmounts, accounts);
+        return true;
+    }
+
     /**
      * Deposit amount to toAccount.
      * Rollback withdrawal from fromAccount, if deposit fails.
      * To avoid data race condition, this method should be invoked
-     * after getting synchronised lock on fromAccount and toAccount.
+     * after getting the locks of fromAccount and toAccount.
      * See implementation of transferFundThreadSafely.
      * @param fromAccount
      * @param toAccount
@@ -106,7 +341,7 @@ public class FundTransferService {
             log.debug("Depositing amount:{} to account {}", amount, toAccount.getAccountId());
             toAccount.deposit(amount);
         } catch (Exception ex) {
-            log.error(format("Exception while depositing fund to account %s",toAccount.getAccountId()),ex);
+            log.error("Exception while depositing fund to account {}", toAccount.getAccountId(), ex);
             //rollback withdrawal
             fromAccount.deposit(amount);
             throw new FundTransferException(format("Failed to transfer fund to Account: %s", toAccount.getAccountId()));
@@ -116,7 +351,7 @@ public class FundTransferService {
     /**
      * Withdraw's amount from fromAccount.
      * To avoid data race condition, this method should be invoked
-     * after getting synchronised lock on fromAccount.
+     * after getting the lock of fromAccount.
      * See implementation of transferFundThreadSafely.
      * @param fromAccount
      * @param amount
@@ -126,19 +361,54 @@ public class FundTransferService {
             log.debug("Withdrawing amount:{} from account {}", amount, fromAccount.getAccountId());
             fromAccount.withdraw(amount);
         } catch (InSufficientFundException ex) {
-            log.error(format("Exception while withdrawing fund from account %s",fromAccount.getAccountId()), ex);
+            //an expected outcome, audited with the rejected request rather than logged with its stack trace
+            log.debug("Insufficient balance in account {} to withdraw {}", fromAccount.getAccountId(), amount);
             throw ex;
         }
     }
 
     /**
-     * Notify fund transfer to account holder's.
+     * Publish the committed transfer to the account event listeners.
+     * Invoked holding both account locks, so listeners observe the transfers of an account in order.
+     * @param fromAccount
+     * @param toAccount
+     * @param amount
+     */
+    private void publishTransferCommitted(Account fromAccount, Account toAccount, BigDecimal amount) {
+        for (AccountEventListener listener : accountEventListeners) {
+            try {
+                listener.onTransferCommitted(fromAccount, toAccount, amount);
+            } catch (Exception ex) {
+                //listener failure should not affect the fund transfer.
+                log.error("Exception while publishing transfer to listener {} ", listener, ex);
+            }
+        }
+    }
+
+    private void publishPostingCommitted(Posting posting, List<Account> accounts) {
+        for (AccountEventListener listener : accountEventListeners) {
+            try {
+                listener.onPostingCommitted(posting, accounts);
+            } catch (Exception ex) {
+                //listener failure should not affect the posting.
+                log.error("Exception while publishing posting to listener {} ", listener, ex);
+            }
+        }
+    }
+
+    /**
+     * Notify fund transfer to account holder's, or add it to their digests when notifications are coalesced.
      * @param fromAccount
      * @param toAccount
      * @param amount
      */
     private void notifyTransferStatus(Account fromAccount, Account toAccount, BigDecimal amount) {
         try {
+            if (notificationCoalescer != null) {
+                notificationCoalescer.record(toAccount, fromAccount.getAccountId(), amount, true);
+                notificationCoalescer.record(fromAccount, toAccount.getAccountId(), amount, false);
+                return;
+            }
             notificationService.notifyAboutTransfer(toAccount, "An amount of " + amount + " received from Account " + fromAccount.getAccountId());
             notificationService.notifyAboutTransfer(fromAccount, "An amount of " + amount + " transferred to Account " + toAccount.getAccountId());
         } catch (Exception ex) {
@@ -146,4 +416,29 @@ public class FundTransferService {
             log.error("Exception while notifying account holders ",ex);
         }
     }
+
+    /**
+     * Notify posting to account holder's.
+     * @param netAmounts
+     * @param accounts
+     */
+    private void notifyPostingStatus(Map<String, BigDecimal> netAmounts, List<Account> accounts) {
+        try {
+            for (Account account : accounts) {
+                BigDecimal netAmount = netAmounts.get(account.getAccountId());
+                if (notificationCoalescer != null) {
+                    if (netAmount.signum() != 0) {
+                        notificationCoalescer.record(account, null, netAmount.abs(), netAmount.signum() > 0);
+                    }
+                } else if (netAmount.signum() < 0) {
+                    notificationService.notifyAboutTransfer(account, "An amount of " + netAmount.negate() + " transferred in a posting");
+                } else if (netAmount.signum() > 0) {
+                    notificationService.notifyAboutTransfer(account, "An amount of " + netAmount + " received in a posting");
+                }
+            }
+        } catch (Exception ex) {
+            //notification failure should not affect the posting.
+            log.error("Exception while notifying account holders ",ex);
+        }
+    }
 }
@@ -0,0 +1,272 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Reservation;
+import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.InValidTransferRequestException;
+import com.db.awmd.challenge.exception.ReservationNotFoundException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import lombok.extern.slf4j.Slf4j;
+
+import static java.lang.String.format;
+
+/**
+ * Two step transfers. A reservation earmarks an amount on the account, which lowers its available balance
+ * and keeps other transfers from spending it. Later the reservation is captured into a transfer by
+ * FundTransferService without checking funds again, released, or it expires.
+ * <p>
+ * Removing the reservation from the open reservations decides which of capture, release and expiry wins,
+ * only that one touches the account. Expiry runs from an ExpiryWheel ticking every 'reservation.tick-millis'.
+ * Reservations live on the node owning the account, in cluster mode they move with the account when it is handed over.
+ */
+@Service
+@Slf4j
+public class ReservationService {
+
+    private final AccountsService accountsService;
+
+    private final FundTransferService fundTransferService;
+
+    private final long defaultTtlSeconds;
+
+    private final long maxTtlSeconds;
+
+    private final long tickMillis;
+
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+
+    private final ExpiryWheel expiryWheel;
+
+    private ScheduledExecutorService expiryExecutor;
+
+    @Autowired
+    public ReservationService(final AccountsService accountsService, final FundTransferService fundTransferService,
+                              @Value("${reservation.default-ttl-seconds:300}") final long defaultTtlSeconds,
+                              @Value("${reservation.max-ttl-seconds:86400}") final long maxTtlSeconds,
+                              @Value("${reservation.tick-millis:100}") final long tickMillis) {
+        this.accountsService = accountsService;
+        this.fundTransferService = fundTransferService;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+        this.tickMillis = tickMillis;
+        this.expiryWheel = new ExpiryWheel(tickMillis, 1024, System.currentTimeMillis());
+    }
+
+    @PostConstruct
+    public void start() {
+        expiryExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        expiryExecutor.scheduleWithFixedDelay(() -> expire(System.currentTimeMillis()), tickMillis, tickMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        expiryExecutor.shutdownNow();
+    }
+
+    /**
+     * Reserves the amount on the account.
+     * Throws InValidTransferRequestException if the amount is <= 0 or the time to live is out of range.
+     * Throws AccountNotFoundException if the account doesnt exists.
+     * Throws InSufficientFundException if the available balance does not cover the amount.
+     * @param accountId
+     * @param request
+     * @return the open reservation
+     */
+    public Reservation reserve(String accountId, Reservation request) {
+        if (!request.isAmountValid()) {
+            throw new InValidTransferRequestException("Reservation amount should be greater than Zero.");
+        }
+        long ttlSeconds = request.getTtlSeconds() != null ? request.getTtlSeconds() : defaultTtlSeconds;
+        if (ttlSeconds <= 0 || ttlSeconds > maxTtlSeconds) {
+            throw new InValidTransferRequestException(format("Reservation time to live should be between 1 and %s seconds.",
+                    maxTtlSeconds));
+        }
+        Reservation reservation = new Reservation(request.getAmount(), ttlSeconds);
+        reservation.setReservationId(UUID.randomUUID().toString());
+        reservation.setAccountId(accountId);
+        reservation.setExpiresAt(System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds));
+        //opened inside the account lock, so a hand over of the account takes the reservation along
+        withAccount(accountId, account -> {
+            account.reserve(reservation.getAmount());
+            reservations.put(reservation.getReservationId(), reservation);
+        });
+        expiryWheel.schedule(reservation.getReservationId(), reservation.getExpiresAt());
+        return reservation;
+    }
+
+    public Reservation getReservation(String accountId, String reservationId) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null || !reservation.getAccountId().equals(accountId)) {
+            throw notFound(reservationId);
+        }
+        return reservation;
+    }
+
+    /**
+     * Transfers the reserved amount to toAccount.
+     * Throws ReservationNotFoundException if the reservation was already captured, released or has expired.
+     * @param accountId
+     * @param reservationId
+     * @param toAccountId
+     */
+    public void capture(String accountId, String reservationId, String toAccountId) {
+        Reservation reservation = claim(accountId, reservationId);
+        try {
+            fundTransferService.captureReservation(reservation, toAccountId);
+        } catch (RuntimeException ex) {
+            //nothing was transferred, reopen the reservation, it still expires at its original time
+            boolean reopened = withLocalAccount(accountId, account -> reservations.put(reservationId, reservation));
+            if (reopened) {
+                expiryWheel.schedule(reservationId, reservation.getExpiresAt());
+            } else {
+                log.warn("Not reopening reservation {}, account {} is no longer on this node", reservationId, accountId);
+            }
+            throw ex;
+        }
+    }
+
+    /**
+     * Makes the reserved amount available again.
+     * Throws ReservationNotFoundException if the reservation was already captured, released or has expired.
+     * @param accountId
+     * @param reservationId
+     */
+    public void release(String accountId, String reservationId) {
+        Reservation reservation = claim(accountId, reservationId);
+        releaseOnAccount(reservation);
+    }
+
+    /**
+     * Releases the reservations expired by the given time.
+     * @param nowMillis
+     * @return number of reservations released
+     */
+    int expire(long nowMillis) {
+        int expired = 0;
+        for (String reservationId : expiryWheel.advance(nowMillis)) {
+            Reservation reservation = reservations.get(reservationId);
+            if (reservation != null && reservation.getExpiresAt() <= nowMillis
+                    && reservations.remove(reservationId, reservation)) {
+                try {
+                    releaseOnAccount(reservation);
+                    expired++;
+                } catch (AccountNotFoundException ex) {
+                    log.warn("Dropping expired reservation {}, account {} is gone", reservationId,
+                            reservation.getAccountId());
+                }
+            }
+        }
+        if (expired > 0) {
+            log.info("Released {} expired reservations", expired);
+        }
+        return expired;
+    }
+
+    /**
+     * Takes the open reservations of the account out of this node, for the account to be handed over.
+     * Invoked holding the account lock, see ClusterMembership.
+     * @param accountId
+     * @return the removed reservations
+     */
+    public List<Reservation> removeReservations(String accountId) {
+        List<Reservation> removed = new ArrayList<>();
+        for (Reservation reservation : reservations.values()) {
+            if (reservation.getAccountId().equals(accountId)
+                    && reservations.remove(reservation.getReservationId(), reservation)) {
+                removed.add(reservation);
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Reopens reservations handed over with their account, they still expire at their original time.
+     * The amounts must already be part of the account's reserved amount.
+     * @param handedOver
+     */
+    public void adoptReservations(List<Reservation> handedOver) {
+        for (Reservation reservation : handedOver) {
+            reservations.put(reservation.getReservationId(), reservation);
+            expiryWheel.schedule(reservation.getReservationId(), reservation.getExpiresAt());
+        }
+    }
+
+    int getOpenReservationCount() {
+        return reservations.size();
+    }
+
+    private Reservation claim(String accountId, String reservationId) {
+        Reservation reservation = getReservation(accountId, reservationId);
+        if (!reservations.remove(reservationId, reservation)) {
+            throw notFound(reservationId);
+        }
+        return reservation;
+    }
+
+    private void releaseOnAccount(Reservation reservation) {
+        withAccount(reservation.getAccountId(), account -> account.releaseReservation(reservation.getAmount()));
+    }
+
+    /**
+     * Runs the action holding the account lock, looking the account up again if it was detached meanwhile.
+     * Throws AccountNotFoundException if the account doesnt exists.
+     * @param accountId
+     * @param action
+     */
+    private void withAccount(String accountId, Consumer<Account> action) {
+        if (!withLocalAccount(accountId, action)) {
+            throw new AccountNotFoundException(format("Account with ID: %s doesnt exists.", accountId));
+        }
+    }
+
+    /**
+     * Like withAccount, but skips the action if the account is not on this node.
+     * @param accountId
+     * @param action
+     * @return whether the action ran
+     */
+    private boolean withLocalAccount(String accountId, Consumer<Account> action) {
+        while (true) {
+            Account account = accountsService.getAccount(accountId);
+            if (account == null) {
+                return false;
+            }
+            account.lock();
+            try {
+                if (!account.isDetached()) {
+                    action.accept(account);
+                    return true;
+                }
+            } finally {
+                account.unlock();
+            }
+        }
+    }
+
+    private static ReservationNotFoundException notFound(String reservationId) {
+        return new ReservationNotFoundException(format("Reservation with ID: %s doesnt exists or is no longer open.",
+                reservationId));
+    }
+}
@@ -0,0 +1,17 @@
+package com.db.awmd.challenge.stats;
+
+import java.util.List;
+
+import lombok.Data;
+
+/**
+ * Turnover of an account over the periods kept by the TurnoverTracker, latest first.
+ * Periods without transfers are left out.
+ */
+@Data
+public class AccountStatistics {
+
+    private final String accountId;
+
+    private final List<TurnoverPeriod> periods;
+}
@@ -0,0 +1,80 @@
+package com.db.awmd.challenge.stats;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Turnover of one account in a ring of time buckets. The bucket of the current period replaces the one of the
+ * period that many buckets ago on first use, so old periods roll off without a sweeper thread.
+ */
+class AccountTurnover {
+
+    private final String accountId;
+
+    private final long bucketMillis;
+
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    AccountTurnover(String accountId, long bucketMillis, int bucketCount) {
+        this.accountId = accountId;
+        this.bucketMillis = bucketMillis;
+        this.buckets = new AtomicReferenceArray<>(bucketCount);
+    }
+
+    void record(BigDecimal amount, boolean inbound, long nowMillis) {
+        Bucket bucket = bucket(nowMillis / bucketMillis);
+        (inbound ? bucket.inbound : bucket.outbound).record(amount);
+    }
+
+    /**
+     * @param nowMillis
+     * @return the buckets still within the window, latest first
+     */
+    AccountStatistics snapshot(long nowMillis) {
+        long currentPeriod = nowMillis / bucketMillis;
+        List<TurnoverPeriod> periods = new ArrayList<>(buckets.length());
+        for (long period = currentPeriod; period > currentPeriod - buckets.length() && period >= 0; period--) {
+            Bucket bucket = buckets.get(index(period));
+            if (bucket != null && bucket.period == period) {
+                periods.add(new TurnoverPeriod(period * bucketMillis, (period + 1) * bucketMillis,
+                        bucket.inbound.getTotal(), bucket.inbound.getCount(), bucket.inbound.getMax(),
+                        bucket.outbound.getTotal(), bucket.outbound.getCount(), bucket.outbound.getMax()));
+            }
+        }
+        return new AccountStatistics(accountId, periods);
+    }
+
+    private Bucket bucket(long period) {
+        int index = index(period);
+        while (true) {
+            Bucket bucket = buckets.get(index);
+            if (bucket != null && bucket.period >= period) {
+                //a late update racing with the rollover lands in the newer period
+                return bucket;
+            }
+            Bucket fresh = new Bucket(period);
+            if (buckets.compareAndSet(index, bucket, fresh)) {
+                return fresh;
+            }
+        }
+    }
+
+    private int index(long period) {
+        return (int) Math.floorMod(period, (long) buckets.length());
+    }
+
+    private static final class Bucket {
+
+        private final long period;
+
+        private final TurnoverCounter inbound = new TurnoverCounter();
+
+        private final TurnoverCounter outbound = new TurnoverCounter();
+
+        private Bucket(long period) {
+            this.period = period;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.db.awmd.challenge.stats;
+
+import java.math.BigDecimal;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Total, count and largest of the amounts moved in one direction, lock free.
+ * Amounts with at most two decimals, that is nearly all, are summed in cents on a striped LongAdder so that
+ * concurrent transfers of one account do not contend. Other amounts, huge ones, and every amount once the cents
+ * approach overflow go to a BigDecimal updated by compare and set. The maximum only takes a compare and set when
+ * it grows.
+ */
+class TurnoverCounter {
+
+    private static final int SCALE = 2;
+
+    //larger amounts are summed as BigDecimal
+    private static final long MAX_CENTS_PER_ADD = 1L << 40;
+
+    //past it the cents are no longer added to, far more concurrent adds than threads are needed to overflow
+    private static final long MAX_CENTS_TOTAL = 1L << 62;
+
+    private final LongAdder cents = new LongAdder();
+
+    private final AtomicReference<BigDecimal> remainder = new AtomicReference<>(BigDecimal.ZERO);
+
+    private final LongAdder count = new LongAdder();
+
+    private final AtomicReference<BigDecimal> max = new AtomicReference<>(BigDecimal.ZERO);
+
+    void record(BigDecimal amount) {
+        long amountCents = toCents(amount);
+        if (amountCents != Long.MIN_VALUE && cents.sum() <= MAX_CENTS_TOTAL) {
+            cents.add(amountCents);
+        } else {
+            remainder.accumulateAndGet(amount, BigDecimal::add);
+        }
+        count.increment();
+        BigDecimal current;
+        while (amount.compareTo(current = max.get()) > 0) {
+            if (max.compareAndSet(current, amount)) {
+                break;
+            }
+        }
+    }
+
+    BigDecimal getTotal() {
+        return BigDecimal.valueOf(cents.sum(), SCALE).add(remainder.get());
+    }
+
+    long getCount() {
+        return count.sum();
+    }
+
+    BigDecimal getMax() {
+        return max.get();
+    }
+
+    /**
+     * @return the amount in cents, Long.MIN_VALUE if it has more decimals or more than MAX_CENTS_PER_ADD cents
+     */
+    private static long toCents(BigDecimal amount) {
+        int exponent = SCALE - amount.scale();
+        if (exponent < 0 || exponent > 18 || amount.unscaledValue().bitLength() > 63) {
+            return Long.MIN_VALUE;
+        }
+        long amountCents;
+        try {
+            amountCents = Math.multiplyExact(amount.unscaledValue().longValue(), pow10(exponent));
+        } catch (ArithmeticException ex) {
+            return Long.MIN_VALUE;
+        }
+        return Math.abs(amountCents) <= MAX_CENTS_PER_ADD ? amountCents : Long.MIN_VALUE;
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+}
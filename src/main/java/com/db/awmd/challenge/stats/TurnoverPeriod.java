@@ -0,0 +1,28 @@
+package com.db.awmd.challenge.stats;
+
+import java.math.BigDecimal;
+
+import lombok.Data;
+
+/**
+ * Inbound and outbound turnover of an account in one period, from inclusive to exclusive, in epoch millis.
+ */
+@Data
+public class TurnoverPeriod {
+
+    private final long from;
+
+    private final long to;
+
+    private final BigDecimal inboundTotal;
+
+    private final long inboundCount;
+
+    private final BigDecimal inboundMax;
+
+    private final BigDecimal outboundTotal;
+
+    private final long outboundCount;
+
+    private final BigDecimal outboundMax;
+}
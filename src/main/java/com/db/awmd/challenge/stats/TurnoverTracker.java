@@ -0,0 +1,78 @@
+package com.db.awmd.challenge.stats;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per account inbound and outbound totals, counts and largest amounts in periods of 'stats.period-minutes',
+ * keeping the last 'stats.periods'. Fed by FundTransferService and the partition participants once the account
+ * locks are released, the counters are lock free and never widen a critical section.
+ * Kept by account id rather than on the Account, so it survives accounts being evicted to disk.
+ */
+@Component
+@ConditionalOnProperty(prefix = "stats", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TurnoverTracker {
+
+    private final Map<String, AccountTurnover> turnovers = new ConcurrentHashMap<>();
+
+    private final long periodMillis;
+
+    private final int periods;
+
+    @Autowired
+    public TurnoverTracker(@Value("${stats.period-minutes:1440}") final long periodMinutes,
+                           @Value("${stats.periods:7}") final int periods) {
+        this.periodMillis = TimeUnit.MINUTES.toMillis(periodMinutes);
+        this.periods = periods;
+    }
+
+    /**
+     * Records a committed transfer.
+     * @param fromAccountId
+     * @param toAccountId
+     * @param amount
+     */
+    public void recordTransfer(String fromAccountId, String toAccountId, BigDecimal amount) {
+        long now = System.currentTimeMillis();
+        record(fromAccountId, amount, false, now);
+        record(toAccountId, amount, true, now);
+    }
+
+    /**
+     * Records one side of a committed transfer or posting.
+     * @param accountId
+     * @param amount
+     * @param inbound
+     */
+    public void record(String accountId, BigDecimal amount, boolean inbound) {
+        record(accountId, amount, inbound, System.currentTimeMillis());
+    }
+
+    public AccountStatistics getStatistics(String accountId) {
+        return getStatistics(accountId, System.currentTimeMillis());
+    }
+
+    void record(String accountId, BigDecimal amount, boolean inbound, long nowMillis) {
+        AccountTurnover turnover = turnovers.get(accountId);
+        if (turnover == null) {
+            turnover = turnovers.computeIfAbsent(accountId, id -> new AccountTurnover(id, periodMillis, periods));
+        }
+        turnover.record(amount, inbound, nowMillis);
+    }
+
+    AccountStatistics getStatistics(String accountId, long nowMillis) {
+        AccountTurnover turnover = turnovers.get(accountId);
+        if (turnover == null) {
+            return new AccountStatistics(accountId, Collections.emptyList());
+        }
+        return turnover.snapshot(nowMillis);
+    }
+}
@@ -0,0 +1,280 @@
+package com.db.awmd.challenge.transaction;
+
+import com.db.awmd.challenge.domain.Transfer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append only log of the two phase commit coordinator.
+ * BEGIN is forced to disk before any participant is prepared and COMMIT before any participant is committed,
+ * so after a crash every transaction without END can be resolved: committed ones are committed again,
+ * all others are aborted (presumed abort). Resolved transactions are dropped when the log is compacted.
+ * An ABORT after COMMIT overrides it, written when the commit record could not be forced to disk.
+ */
+@Slf4j
+public class CoordinatorLog implements Closeable {
+
+    private static final byte BEGIN = 1;
+
+    private static final byte COMMIT = 2;
+
+    private static final byte ABORT = 3;
+
+    private static final byte END = 4;
+
+    private static final long COMPACTION_THRESHOLD = 16 * 1024 * 1024;
+
+    private final Path path;
+
+    private final boolean sync;
+
+    private final Map<String, Entry> active = new LinkedHashMap<>();
+
+    //not the object monitor, a virtual thread forcing the log to disk would pin its carrier thread
+    private final Lock lock = new ReentrantLock();
+
+    private FileOutputStream fileOut;
+
+    private DataOutputStream out;
+
+    private long bytesSinceCompaction;
+
+    /**
+     * Opens the log, replaying any existing content to find the unresolved transactions.
+     * @param path
+     * @param sync force every decision record to disk, disable only for benchmarks and tests
+     */
+    public CoordinatorLog(final Path path, final boolean sync) {
+        this.path = path;
+        this.sync = sync;
+        try {
+            if (path.getParent() != null) {
+                Files.createDirectories(path.getParent());
+            }
+            if (Files.exists(path)) {
+                replay();
+            }
+            compact();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to open coordinator log " + path, ex);
+        }
+    }
+
+    public void begin(Entry entry) {
+        lock.lock();
+        try {
+            active.put(entry.getTransactionId(), entry);
+            write(out -> {
+                out.writeByte(BEGIN);
+                writeEntry(out, entry);
+            }, true);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void commit(String transactionId) {
+        lock.lock();
+        try {
+            write(out -> {
+                out.writeByte(COMMIT);
+                out.writeUTF(transactionId);
+            }, true);
+            //committed only once durable
+            Entry entry = active.get(transactionId);
+            if (entry != null) {
+                entry.committed = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void abort(String transactionId) {
+        lock.lock();
+        try {
+            write(out -> {
+                out.writeByte(ABORT);
+                out.writeUTF(transactionId);
+            }, false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void end(String transactionId) {
+        lock.lock();
+        try {
+            active.remove(transactionId);
+            write(out -> {
+                out.writeByte(END);
+                out.writeUTF(transactionId);
+            }, false);
+            if (bytesSinceCompaction > COMPACTION_THRESHOLD) {
+                try {
+                    compact();
+                } catch (IOException ex) {
+                    throw new UncheckedIOException("Failed to compact coordinator log " + path, ex);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Transactions started but not yet ended, oldest first.
+     * @return List
+     */
+    public List<Entry> getInDoubt() {
+        lock.lock();
+        try {
+            return new ArrayList<>(active.values());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            out.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(RecordWriter writer, boolean force) {
+        try {
+            int before = out.size();
+            writer.write(out);
+            out.flush();
+            if (force && sync) {
+                fileOut.getChannel().force(false);
+            }
+            bytesSinceCompaction += out.size() - before;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Failed to write coordinator log " + path, ex);
+        }
+    }
+
+    private void replay() throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(path.toFile())))) {
+            while (true) {
+                byte type = in.readByte();
+                if (type == BEGIN) {
+                    Entry entry = readEntry(in);
+                    active.put(entry.getTransactionId(), entry);
+                    continue;
+                }
+                if (type != COMMIT && type != ABORT && type != END) {
+                    log.warn("Ignoring corrupt coordinator log tail of {}", path);
+                    return;
+                }
+                String transactionId = in.readUTF();
+                if (type != END && active.containsKey(transactionId)) {
+                    active.get(transactionId).committed = type == COMMIT;
+                } else if (type == END) {
+                    active.remove(transactionId);
+                }
+            }
+        } catch (EOFException ex) {
+            //end of log, a partially written last record is ignored
+        }
+    }
+
+    /**
+     * Rewrites the log with the unresolved transactions only.
+     */
+    private void compact() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+        Path compacted = path.resolveSibling(path.getFileName() + ".compact");
+        try (FileOutputStream compactedOut = new FileOutputStream(compacted.toFile());
+             DataOutputStream data = new DataOutputStream(new BufferedOutputStream(compactedOut))) {
+            for (Entry entry : active.values()) {
+                data.writeByte(BEGIN);
+                writeEntry(data, entry);
+                if (entry.isCommitted()) {
+                    data.writeByte(COMMIT);
+                    data.writeUTF(entry.getTransactionId());
+                }
+            }
+            data.flush();
+            compactedOut.getChannel().force(true);
+        }
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        fileOut = new FileOutputStream(path.toFile(), true);
+        out = new DataOutputStream(new BufferedOutputStream(fileOut));
+        bytesSinceCompaction = 0;
+    }
+
+    private static void writeEntry(DataOutputStream out, Entry entry) throws IOException {
+        out.writeUTF(entry.getTransactionId());
+        out.writeUTF(entry.getDebitPartition());
+        out.writeUTF(entry.getCreditPartition());
+        out.writeUTF(entry.getTransfer().getFromAccountId());
+        out.writeUTF(entry.getTransfer().getToAccountId());
+        out.writeUTF(entry.getTransfer().getTransferAmount().toString());
+    }
+
+    private static Entry readEntry(DataInputStream in) throws IOException {
+        String transactionId = in.readUTF();
+        String debitPartition = in.readUTF();
+        String creditPartition = in.readUTF();
+        Transfer transfer = new Transfer(in.readUTF(), in.readUTF(), new BigDecimal(in.readUTF()));
+        return new Entry(transactionId, debitPartition, creditPartition, transfer);
+    }
+
+    private interface RecordWriter {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    /**
+     * Cross partition transfer as recorded by the coordinator.
+     */
+    @Getter
+    public static class Entry {
+
+        private final String transactionId;
+
+        private final String debitPartition;
+
+        private final String creditPartition;
+
+        private final Transfer transfer;
+
+        private volatile boolean committed;
+
+        public Entry(String transactionId, String debitPartition, String creditPartition, Transfer transfer) {
+            this.transactionId = transactionId;
+            this.debitPartition = debitPartition;
+            this.creditPartition = creditPartition;
+            this.transfer = transfer;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.db.awmd.challenge.transaction;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.InValidTransferRequestException;
+import com.db.awmd.challenge.notification.NotificationCoalescer;
+import com.db.awmd.challenge.repository.AccountsRepository;
+import com.db.awmd.challenge.service.AccountEventListener;
+import com.db.awmd.challenge.service.NotificationService;
+import com.db.awmd.challenge.stats.TurnoverTracker;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import lombok.extern.slf4j.Slf4j;
+
+import static java.lang.String.format;
+
+/**
+ * Participant backed by the accounts of this node's repository.
+ * A prepared debit withdraws the amount straight away, so the funds are reserved
+ * and can not be spent by another transfer. Abort deposits it back, commit only forgets it.
+ * A prepared credit is applied on commit. Every balance change is published to the account event listeners.
+ * A prepared transfer is forgotten only once applied, holding the account lock, so a commit or abort failing
+ * half way leaves it for the coordinator to retry, and a retry racing with the original call applies it once.
+ * Transfers are prepared holding the account lock as well, ClusterMembership does not hand over an account
+ * with a prepared transfer, so its commit or abort always finds the account on this node.
+ * A recently aborted transaction is remembered, a prepare arriving after its abort (e.g. once the coordinator
+ * timed out waiting for it) is rejected instead of reserving funds nobody would ever release.
+ */
+@Component
+@Slf4j
+public class LocalPartitionParticipant implements PartitionParticipant {
+
+    private final AccountsRepository accountsRepository;
+
+    private final NotificationService notificationService;
+
+    private final Map<String, Transfer> preparedDebits = new ConcurrentHashMap<>();
+
+    private final Map<String, Transfer> preparedCredits = new ConcurrentHashMap<>();
+
+    //ids of aborted transactions remembered to reject late prepares, far more than abort in one prepare timeout
+    static final int MAX_REMEMBERED_ABORTS = 65536;
+
+    //ids of recently aborted transactions, never prepared again
+    private final Set<String> abortedTransactions = Collections.synchronizedSet(Collections.newSetFromMap(
+            new LinkedHashMap<String, Boolean>() {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > MAX_REMEMBERED_ABORTS;
+                }
+            }));
+
+    private NotificationCoalescer notificationCoalescer;
+
+    private TurnoverTracker turnoverTracker;
+
+    private List<AccountEventListener> accountEventListeners = Collections.emptyList();
+
+    @Autowired
+    public LocalPartitionParticipant(final AccountsRepository accountsRepository,
+                                     final NotificationService notificationService) {
+        this.accountsRepository = accountsRepository;
+        this.notificationService = notificationService;
+    }
+
+    @Autowired(required = false)
+    public void setNotificationCoalescer(final NotificationCoalescer notificationCoalescer) {
+        this.notificationCoalescer = notificationCoalescer;
+    }
+
+    @Autowired(required = false)
+    public void setTurnoverTracker(final TurnoverTracker turnoverTracker) {
+        this.turnoverTracker = turnoverTracker;
+    }
+
+    @Autowired(required = false)
+    public void setAccountEventListeners(final List<AccountEventListener> accountEventListeners) {
+        this.accountEventListeners = accountEventListeners;
+    }
+
+    @Override
+    public void prepareDebit(String transactionId, Transfer transfer) {
+        rejectIfAborted(transactionId);
+        if (preparedDebits.containsKey(transactionId)) {
+            return;
+        }
+        withAccount(transfer.getFromAccountId(), account -> {
+            rejectIfAborted(transactionId);
+            account.withdraw(transfer.getTransferAmount());
+            preparedDebits.put(transactionId, transfer);
+            publishBalanceChanged(account, transfer.getTransferAmount().negate(), transfer.getToAccountId());
+        });
+        //an abort racing with the prepare may have missed the debit, deposit it back, at most once
+        if (abortedTransactions.contains(transactionId)) {
+            apply(transfer.getFromAccountId(), preparedDebits, transactionId, transfer, transfer.getToAccountId());
+            rejectIfAborted(transactionId);
+        }
+    }
+
+    @Override
+    public void prepareCredit(String transactionId, Transfer transfer) {
+        rejectIfAborted(transactionId);
+        withAccount(transfer.getToAccountId(), account -> preparedCredits.put(transactionId, transfer));
+        if (abortedTransactions.contains(transactionId)) {
+            preparedCredits.remove(transactionId);
+            rejectIfAborted(transactionId);
+        }
+    }
+
+    /**
+     * Whether a transfer is prepared on the account and not yet committed or aborted.
+     * Must be invoked holding the account lock.
+     * @param accountId
+     * @return boolean
+     */
+    public boolean isPrepared(String accountId) {
+        for (Transfer debit : preparedDebits.values()) {
+            if (debit.getFromAccountId().equals(accountId)) {
+                return true;
+            }
+        }
+        for (Transfer credit : preparedCredits.values()) {
+            if (credit.getToAccountId().equals(accountId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void commit(String transactionId) {
+        Transfer debit = preparedDebits.remove(transactionId);
+        if (debit != null) {
+            recordTurnover(debit.getFromAccountId(), debit, false);
+            notify(debit.getFromAccountId(), debit.getToAccountId(), debit.getTransferAmount(), false);
+        }
+        Transfer credit = preparedCredits.get(transactionId);
+        if (credit != null
+                && apply(credit.getToAccountId(), preparedCredits, transactionId, credit, credit.getFromAccountId())) {
+            recordTurnover(credit.getToAccountId(), credit, true);
+            notify(credit.getToAccountId(), credit.getFromAccountId(), credit.getTransferAmount(), true);
+        }
+    }
+
+    @Override
+    public void abort(String transactionId) {
+        //recorded first, so a prepare either sees it or has already registered what this abort releases
+        abortedTransactions.add(transactionId);
+        Transfer debit = preparedDebits.get(transactionId);
+        if (debit != null) {
+            apply(debit.getFromAccountId(), preparedDebits, transactionId, debit, debit.getToAccountId());
+        }
+        preparedCredits.remove(transactionId);
+    }
+
+    int getAbortedTransactionCount() {
+        return abortedTransactions.size();
+    }
+
+    private void rejectIfAborted(String transactionId) {
+        if (abortedTransactions.contains(transactionId)) {
+            throw new InValidTransferRequestException(format("Transaction %s was already aborted.", transactionId));
+        }
+    }
+
+    /**
+     * Deposits the amount of a prepared transfer and only then forgets it, holding the account lock.
+     * @return false if the transfer was applied meanwhile by a concurrent call
+     */
+    private boolean apply(String accountId, Map<String, Transfer> prepared, String transactionId, Transfer transfer,
+                          String counterpartyAccountId) {
+        AtomicBoolean applied = new AtomicBoolean();
+        withAccount(accountId, account -> {
+            if (prepared.get(transactionId) == transfer) {
+                account.deposit(transfer.getTransferAmount());
+                prepared.remove(transactionId);
+                publishBalanceChanged(account, transfer.getTransferAmount(), counterpartyAccountId);
+                applied.set(true);
+            }
+        });
+        return applied.get();
+    }
+
+    /**
+     * Runs the action holding the account lock, on the instance currently held by the repository.
+     * @param accountId
+     * @param action
+     */
+    private void withAccount(String accountId, Consumer<Account> action) {
+        while (true) {
+            Account account = accountsRepository.getAccount(accountId);
+            if (account == null) {
+                throw new AccountNotFoundException(format("Account with ID: %s doesnt exists.", accountId));
+            }
+            account.lock();
+            try {
+                if (!account.isDetached()) {
+                    action.accept(account);
+                    return;
+                }
+            } finally {
+                account.unlock();
+            }
+        }
+    }
+
+    /**
+     * Invoked holding the account lock, so listeners observe the changes of an account in order.
+     */
+    private void publishBalanceChanged(Account account, BigDecimal amount, String counterpartyAccountId) {
+        for (AccountEventListener listener : accountEventListeners) {
+            try {
+                listener.onBalanceChanged(account, amount, counterpartyAccountId);
+            } catch (Exception ex) {
+                //listener failure should not affect the transaction.
+                log.error("Exception while publishing balance change to listener {} ", listener, ex);
+            }
+        }
+    }
+
+    private void recordTurnover(String accountId, Transfer transfer, boolean inbound) {
+        if (turnoverTracker != null) {
+            turnoverTracker.record(accountId, transfer.getTransferAmount(), inbound);
+        }
+    }
+
+    /**
+     * Notify this node's side of a committed transfer, through the coalescer when digests are enabled.
+     * @param accountId
+     * @param counterpartyId
+     * @param amount
+     * @param incoming
+     */
+    private void notify(String accountId, String counterpartyId, BigDecimal amount, boolean incoming) {
+        try {
+            Account account = accountsRepository.getAccount(accountId);
+            if (account == null) {
+                return;
+            }
+            if (notificationCoalescer != null) {
+                notificationCoalescer.record(account, counterpartyId, amount, incoming);
+            } else if (incoming) {
+                notificationService.notifyAboutTransfer(account, "An amount of " + amount
+                        + " received from Account " + counterpartyId);
+            } else {
+                notificationService.notifyAboutTransfer(account, "An amount of " + amount
+                        + " transferred to Account " + counterpartyId);
+            }
+        } catch (Exception ex) {
+            //notification failure should not affect the fund transfer.
+            log.error("Exception while notifying account holders ", ex);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.db.awmd.challenge.transaction;
+
+import com.db.awmd.challenge.domain.Transfer;
+
+/**
+ * One side of a cross partition transfer in the two phase commit protocol.
+ * Commit and abort must be idempotent, since the coordinator repeats them during recovery.
+ */
+public interface PartitionParticipant {
+
+    /**
+     * Reserves the transfer amount on the debit account.
+     * Throws AccountNotFoundException or InSufficientFundException if the debit can not be made.
+     */
+    void prepareDebit(String transactionId, Transfer transfer);
+
+    /**
+     * Checks that the credit account can accept the transfer amount.
+     * Throws AccountNotFoundException if it doesnt exist.
+     */
+    void prepareCredit(String transactionId, Transfer transfer);
+
+    void commit(String transactionId);
+
+    void abort(String transactionId);
+}
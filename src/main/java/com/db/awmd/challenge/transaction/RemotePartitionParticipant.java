@@ -0,0 +1,60 @@
+package com.db.awmd.challenge.transaction;
+
+import com.db.awmd.challenge.cluster.ClusterRouter;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.FundTransferException;
+import com.db.awmd.challenge.exception.InValidTransferRequestException;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Participant living on another cluster node, reached through PartitionTransactionController.
+ */
+public class RemotePartitionParticipant implements PartitionParticipant {
+
+    private final String baseUrl;
+
+    private final RestTemplate restTemplate;
+
+    public RemotePartitionParticipant(final String nodeUrl, final RestTemplate restTemplate) {
+        this.baseUrl = nodeUrl + "/v1/partition/transactions/";
+        this.restTemplate = restTemplate;
+    }
+
+    @Override
+    public void prepareDebit(String transactionId, Transfer transfer) {
+        post(transactionId + "/prepare-debit", transfer);
+    }
+
+    @Override
+    public void prepareCredit(String transactionId, Transfer transfer) {
+        post(transactionId + "/prepare-credit", transfer);
+    }
+
+    @Override
+    public void commit(String transactionId) {
+        post(transactionId + "/commit", null);
+    }
+
+    @Override
+    public void abort(String transactionId) {
+        post(transactionId + "/abort", null);
+    }
+
+    private void post(String path, Transfer transfer) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(ClusterRouter.FORWARDED_HEADER, "true");
+        try {
+            restTemplate.exchange(baseUrl + path, HttpMethod.POST, new HttpEntity<>(transfer, headers), String.class);
+        } catch (HttpClientErrorException ex) {
+            throw new InValidTransferRequestException(ex.getResponseBodyAsString());
+        } catch (RestClientException ex) {
+            throw new FundTransferException("Failed to reach partition " + baseUrl + " : " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.db.awmd.challenge.transaction;
+
+import com.db.awmd.challenge.domain.Transfer;
+
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Coordinates transfers whose accounts live in different partitions.
+ * Phase one reserves the funds on the debit partition and checks the credit account,
+ * phase two commits both sides once the decision is durable in the coordinator log.
+ * A transaction whose decision did not reach every participant stays unresolved until retryUnresolved succeeds,
+ * the owner is told through the unresolved callback so that it can schedule the retry.
+ * A commit decision that could not be written to the log is not taken, the transaction is aborted instead.
+ */
+@Slf4j
+public class TwoPhaseCommitCoordinator {
+
+    private final CoordinatorLog coordinatorLog;
+
+    private final Function<String, PartitionParticipant> participants;
+
+    private final Runnable unresolvedCallback;
+
+    //decided transactions whose decision is still to be delivered, by transaction id
+    private final Map<String, CoordinatorLog.Entry> unresolved = new ConcurrentHashMap<>();
+
+    /**
+     * @param coordinatorLog durable log of decisions
+     * @param participants resolves a partition id to its participant
+     */
+    public TwoPhaseCommitCoordinator(final CoordinatorLog coordinatorLog,
+                                     final Function<String, PartitionParticipant> participants) {
+        this(coordinatorLog, participants, () -> { });
+    }
+
+    /**
+     * @param coordinatorLog durable log of decisions
+     * @param participants resolves a partition id to its participant
+     * @param unresolvedCallback invoked whenever a transaction could not be resolved
+     */
+    public TwoPhaseCommitCoordinator(final CoordinatorLog coordinatorLog,
+                                     final Function<String, PartitionParticipant> participants,
+                                     final Runnable unresolvedCallback) {
+        this.coordinatorLog = coordinatorLog;
+        this.participants = participants;
+        this.unresolvedCallback = unresolvedCallback;
+        //left in doubt by a previous run, resolved by recover
+        for (CoordinatorLog.Entry entry : coordinatorLog.getInDoubt()) {
+            unresolved.put(entry.getTransactionId(), entry);
+        }
+    }
+
+    /**
+     * Transfers funds atomically between accounts of two partitions.
+     * Exceptions of the prepare phase (e.g. InSufficientFundException) are rethrown after aborting.
+     * Once committed the transfer is reported as successful, a participant that could not be reached
+     * is committed later by retryUnresolved.
+     * @param transfer
+     * @param debitPartition partition owning the from account
+     * @param creditPartition partition owning the to account
+     */
+    public void transfer(Transfer transfer, String debitPartition, String creditPartition) {
+        CoordinatorLog.Entry entry = new CoordinatorLog.Entry(UUID.randomUUID().toString(),
+                debitPartition, creditPartition, transfer);
+        PartitionParticipant debit = participants.apply(debitPartition);
+        PartitionParticipant credit = participants.apply(creditPartition);
+        coordinatorLog.begin(entry);
+        try {
+            debit.prepareDebit(entry.getTransactionId(), transfer);
+            credit.prepareCredit(entry.getTransactionId(), transfer);
+        } catch (RuntimeException ex) {
+            abort(entry, ex);
+            throw ex;
+        }
+        try {
+            coordinatorLog.commit(entry.getTransactionId());
+        } catch (RuntimeException ex) {
+            //not durably committed, release the prepared funds
+            log.error("Failed to log the commit of transaction {}, aborting it", entry.getTransactionId(), ex);
+            abort(entry, ex);
+            throw ex;
+        }
+        complete(entry);
+    }
+
+    /**
+     * Aborts the participants even if the abort record can not be written, presumed abort covers a missing record.
+     */
+    private void abort(CoordinatorLog.Entry entry, RuntimeException cause) {
+        try {
+            coordinatorLog.abort(entry.getTransactionId());
+        } catch (RuntimeException ex) {
+            cause.addSuppressed(ex);
+        }
+        complete(entry);
+    }
+
+    /**
+     * Resolves the transactions left in doubt by a previous run, e.g. by a crash of this node.
+     * Transactions with a durable commit decision are committed, all others are aborted.
+     * Transactions started by this run are never touched, only their failed decisions are retried.
+     * @return number of transactions still in doubt
+     */
+    public int recover() {
+        for (CoordinatorLog.Entry entry : unresolved.values()) {
+            if (!entry.isCommitted()) {
+                coordinatorLog.abort(entry.getTransactionId());
+            }
+        }
+        return retryUnresolved();
+    }
+
+    /**
+     * Delivers the decisions that failed to reach a participant again.
+     * @return number of transactions still in doubt
+     */
+    public int retryUnresolved() {
+        for (CoordinatorLog.Entry entry : new ArrayList<>(unresolved.values())) {
+            if (resolve(entry, entry.isCommitted())) {
+                unresolved.remove(entry.getTransactionId());
+                end(entry);
+            }
+        }
+        return unresolved.size();
+    }
+
+    private void complete(CoordinatorLog.Entry entry) {
+        if (resolve(entry, entry.isCommitted())) {
+            end(entry);
+        } else {
+            unresolved.put(entry.getTransactionId(), entry);
+            unresolvedCallback.run();
+        }
+    }
+
+    /**
+     * Every participant has the decision, a missing end record only makes recovery deliver it once more.
+     */
+    private void end(CoordinatorLog.Entry entry) {
+        try {
+            coordinatorLog.end(entry.getTransactionId());
+        } catch (RuntimeException ex) {
+            log.error("Failed to log the end of transaction {}", entry.getTransactionId(), ex);
+        }
+    }
+
+    private boolean resolve(CoordinatorLog.Entry entry, boolean commit) {
+        try {
+            for (String partition : new String[]{entry.getDebitPartition(), entry.getCreditPartition()}) {
+                PartitionParticipant participant = participants.apply(partition);
+                if (commit) {
+                    participant.commit(entry.getTransactionId());
+                } else {
+                    participant.abort(entry.getTransactionId());
+                }
+            }
+            return true;
+        } catch (RuntimeException ex) {
+            log.error("Transaction {} is in doubt, failed to {} it", entry.getTransactionId(),
+                    commit ? "commit" : "abort", ex);
+            return false;
+        }
+    }
+}
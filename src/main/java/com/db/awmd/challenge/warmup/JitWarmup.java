@@ -0,0 +1,195 @@
+package com.db.awmd.challenge.warmup;
+
+import com.db.awmd.challenge.codec.StreamingJsonHttpMessageConverter;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.FundTransferService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+
+import jakarta.validation.Validator;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Drives synthetic traffic through the transfer path after startup, until the JIT compiler has settled,
+ * so that the first real requests do not run interpreted. The instance is not ready until then, see ReadinessController.
+ * Transfers run against scratch accounts in a private repository, with no notifications and no listeners,
+ * so nothing of the warm-up is visible to clients, followers or the contention tracker.
+ * Request and response bodies go through the same message converter as the REST api,
+ * the StreamingJsonHttpMessageConverter unless 'codec.streaming-json.enabled' is false.
+ */
+@Component
+@ConditionalOnProperty(prefix = "warmup", name = "enabled", havingValue = "true", matchIfMissing = true)
+@Slf4j
+public class JitWarmup {
+
+    private static final int SCRATCH_ACCOUNTS = 64;
+
+    private static final int BATCH_SIZE = 10_000;
+
+    /** Consecutive batches with next to no compilation after which the compiler is considered settled. */
+    private static final int SETTLED_BATCHES = 3;
+
+    private final AbstractHttpMessageConverter<Object> messageConverter;
+
+    private final Validator validator;
+
+    private final long maxMillis;
+
+    private final long settledCompilationMillis;
+
+    private volatile boolean ready;
+
+    private volatile long transfers;
+
+    @Autowired
+    public JitWarmup(final ObjectMapper objectMapper, final Validator validator,
+                     @Value("${codec.streaming-json.enabled:true}") final boolean streamingJson,
+                     @Value("${warmup.max-millis:30000}") final long maxMillis,
+                     @Value("${warmup.settled-compilation-millis:5}") final long settledCompilationMillis) {
+        this.messageConverter = streamingJson
+                ? new StreamingJsonHttpMessageConverter(objectMapper.getFactory())
+                : new MappingJackson2HttpMessageConverter(objectMapper);
+        this.validator = validator;
+        this.maxMillis = maxMillis;
+        this.settledCompilationMillis = settledCompilationMillis;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        Thread thread = new Thread(this::run, "jit-warmup");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    long getTransfers() {
+        return transfers;
+    }
+
+    void run() {
+        long start = System.currentTimeMillis();
+        try {
+            AccountsService scratchAccounts = new AccountsService(new AccountsRepositoryInMemory());
+            FundTransferService scratchTransfers = new FundTransferService((account, description) -> { },
+                    scratchAccounts);
+            for (int i = 0; i < SCRATCH_ACCOUNTS; i++) {
+                scratchAccounts.createAccount(new Account("WARMUP-" + i, new BigDecimal("1000000000")));
+            }
+            CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+            boolean monitored = compiler != null && compiler.isCompilationTimeMonitoringSupported();
+            long compilationMillis = monitored ? compiler.getTotalCompilationTime() : 0;
+            int settledBatches = 0;
+            while (settledBatches < SETTLED_BATCHES && System.currentTimeMillis() - start < maxMillis) {
+                runBatch(scratchAccounts, scratchTransfers);
+                if (monitored) {
+                    long totalCompilationMillis = compiler.getTotalCompilationTime();
+                    boolean settled = totalCompilationMillis - compilationMillis <= settledCompilationMillis;
+                    settledBatches = settled ? settledBatches + 1 : 0;
+                    compilationMillis = totalCompilationMillis;
+                } else {
+                    settledBatches++;
+                }
+            }
+            log.info("JIT warm-up ran {} transfers in {} ms, compiler {}", transfers,
+                    System.currentTimeMillis() - start, settledBatches >= SETTLED_BATCHES ? "settled" : "still busy");
+        } catch (Exception ex) {
+            log.error("JIT warm-up failed, reporting ready anyway ", ex);
+        } finally {
+            ready = true;
+        }
+    }
+
+    /**
+     * One batch of the request path: reading the transfer body as sent by clients and its validation,
+     * the transfer itself, the account lookup and writing it as the response body.
+     * The account is read back as a create account request would be.
+     */
+    private void runBatch(AccountsService scratchAccounts, FundTransferService scratchTransfers) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            int from = random.nextInt(SCRATCH_ACCOUNTS);
+            int to = (from + 1 + random.nextInt(SCRATCH_ACCOUNTS - 1)) % SCRATCH_ACCOUNTS;
+            byte[] request = ("{\"fromAccountId\":\"WARMUP-" + from + "\",\"toAccountId\":\"WARMUP-" + to
+                    + "\",\"transferAmount\":0.01}").getBytes(StandardCharsets.UTF_8);
+            Transfer transfer = (Transfer) messageConverter.read(Transfer.class, new BodyInputMessage(request));
+            validator.validate(transfer);
+            scratchTransfers.transferFund(transfer);
+            transfers++;
+            Account account = scratchAccounts.getAccount(transfer.getToAccountId());
+            BodyOutputMessage response = new BodyOutputMessage();
+            messageConverter.write(account, MediaType.APPLICATION_JSON, response);
+            Account created = (Account) messageConverter.read(Account.class,
+                    new BodyInputMessage(response.body.toByteArray()));
+            validator.validate(created);
+        }
+    }
+
+    private static final class BodyInputMessage implements HttpInputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private final InputStream body;
+
+        BodyInputMessage(byte[] body) {
+            this.body = new ByteArrayInputStream(body);
+            headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    private static final class BodyOutputMessage implements HttpOutputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
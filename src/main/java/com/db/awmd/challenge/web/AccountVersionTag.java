@@ -0,0 +1,36 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.exception.InValidTransferRequestException;
+
+/**
+ * Conversion between account versions and the ETag values exchanged with clients.
+ */
+public final class AccountVersionTag {
+
+    private AccountVersionTag() {
+    }
+
+    public static String format(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Parses an If-Match value produced by format, weak tags are accepted as well.
+     * @param tag
+     * @return long
+     */
+    public static long parse(String tag) {
+        String value = tag.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException ex) {
+            throw new InValidTransferRequestException("Invalid account version in If-Match : " + tag);
+        }
+    }
+}
@@ -1,14 +1,22 @@
 package com.db.awmd.challenge.web;
 
+import com.db.awmd.challenge.audit.AuditLog;
+import com.db.awmd.challenge.cluster.ClusterRouter;
 import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.events.BalanceEventPublisher;
 import com.db.awmd.challenge.exception.DuplicateAccountIdException;
 import com.db.awmd.challenge.service.AccountsService;
 
-import javax.validation.Valid;
+import java.net.URI;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -16,36 +24,130 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/v1/accounts")
 @Slf4j
 public class AccountsController {
 
+    /** The account requested to be created, with its initial balance, for TrafficCaptureFilter. */
+    public static final String ACCOUNT_ATTRIBUTE = AccountsController.class.getName() + ".account";
+
     private final AccountsService accountsService;
 
+    private final ClusterRouter clusterRouter;
+
+    private final BalanceEventPublisher balanceEventPublisher;
+
+    private AuditLog auditLog;
+
     @Autowired
-    public AccountsController(AccountsService accountsService) {
+    public AccountsController(AccountsService accountsService, ClusterRouter clusterRouter,
+                              BalanceEventPublisher balanceEventPublisher) {
         this.accountsService = accountsService;
+        this.clusterRouter = clusterRouter;
+        this.balanceEventPublisher = balanceEventPublisher;
+    }
+
+    @Autowired(required = false)
+    public void setAuditLog(final AuditLog auditLog) {
+        this.auditLog = auditLog;
     }
 
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Object> createAccount(@RequestBody @Valid Account account) {
-        log.info("Creating account {}", account);
+    public ResponseEntity<Object> createAccount(HttpServletRequest request, @RequestBody @Valid Account account,
+        @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, defaultValue = "false") boolean forwarded) {
+        //a copy, the bound account becomes the live one and its balance moves with later transfers
+        request.setAttribute(ACCOUNT_ATTRIBUTE, new Account(account.getAccountId(), account.getBalance()));
+        if (!forwarded && !clusterRouter.isLocal(account.getAccountId())) {
+            return clusterRouter.forward(account.getAccountId(), HttpMethod.POST, "/v1/accounts", account);
+        }
         try {
             this.accountsService.createAccount(account);
         } catch (DuplicateAccountIdException daie) {
+            if (auditLog != null) {
+                auditLog.accountCreated(account.getAccountId(), account.getBalance(), HttpStatus.BAD_REQUEST.value(),
+                        daie.getMessage());
+            }
             return new ResponseEntity<>(daie.getMessage(), HttpStatus.BAD_REQUEST);
         }
+        if (auditLog != null) {
+            auditLog.accountCreated(account.getAccountId(), account.getBalance(), HttpStatus.CREATED.value(), null);
+        }
         return new ResponseEntity<>(HttpStatus.CREATED);
     }
 
+    /**
+     * Returns the account with its version as ETag, an empty 200 if the account doesnt exists.
+     * A request whose If-None-Match matches the current version is answered with 304 without a body.
+     * The audit log records the status the client gets.
+     * @param accountId
+     * @param ifNoneMatch
+     * @param forwarded
+     * @param webRequest
+     * @return ResponseEntity
+     */
     @GetMapping(path = "/{accountId}")
-    public Account getAccount(@PathVariable String accountId) {
-        log.info("Retrieving account for id {}", accountId);
-        return this.accountsService.getAccount(accountId);
+    public ResponseEntity<Object> getAccount(@PathVariable String accountId,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+        @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, defaultValue = "false") boolean forwarded,
+        WebRequest webRequest) {
+        if (!forwarded && !clusterRouter.isLocal(accountId)) {
+            HttpHeaders headers = new HttpHeaders();
+            if (ifNoneMatch != null) {
+                headers.setIfNoneMatch(ifNoneMatch);
+            }
+            return clusterRouter.forward(accountId, HttpMethod.GET, "/v1/accounts/" + accountId, null, headers);
+        }
+        Account account = this.accountsService.getAccount(accountId);
+        if (account == null) {
+            auditRead(accountId, HttpStatus.OK);
+            return new ResponseEntity<>(HttpStatus.OK);
+        }
+        //read the version before the balance is serialized, the body is never older than its tag
+        String eTag = AccountVersionTag.format(account.getVersion());
+        if (webRequest.checkNotModified(eTag)) {
+            //the response is already committed as 304 with the ETag
+            auditRead(accountId, HttpStatus.NOT_MODIFIED);
+            return null;
+        }
+        auditRead(accountId, HttpStatus.OK);
+        return ResponseEntity.ok().eTag(eTag).body(account);
+    }
+
+    private void auditRead(String accountId, HttpStatus status) {
+        if (auditLog != null) {
+            auditLog.accountRead(accountId, status.value());
+        }
     }
 
+    /**
+     * Streams the balance changes of the account as server sent events, starting with its current balance.
+     * In cluster mode the client is redirected to the node owning the account.
+     * @param accountId
+     * @return ResponseEntity
+     */
+    @GetMapping(path = "/{accountId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamEvents(@PathVariable String accountId) {
+        if (!clusterRouter.isLocal(accountId)) {
+            return ResponseEntity.status(HttpStatus.TEMPORARY_REDIRECT)
+                .location(URI.create(clusterRouter.getOwnerUrl(accountId) + "/v1/accounts/" + accountId + "/events"))
+                .build();
+        }
+        Account account = this.accountsService.getAccount(accountId);
+        if (account == null) {
+            return ResponseEntity.notFound().build();
+        }
+        SseEmitter emitter = balanceEventPublisher.subscribe(account);
+        if (emitter == null) {
+            log.warn("Rejecting event stream of account {}, subscriber limit reached", accountId);
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
 }
@@ -0,0 +1,58 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.index.BalanceIndex;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Rest API for balance ranking queries, answered from the BalanceIndex of this node.
+ */
+@RestController
+@RequestMapping("/v1/accounts/by-balance")
+public class BalanceIndexController {
+
+    private static final String NEGATIVE_LIMIT = "Limit must not be negative.";
+
+    private final Optional<BalanceIndex> balanceIndex;
+
+    @Autowired
+    public BalanceIndexController(final Optional<BalanceIndex> balanceIndex) {
+        this.balanceIndex = balanceIndex;
+    }
+
+    @GetMapping(path = "/top")
+    public ResponseEntity<Object> getTop(@RequestParam(value = "limit", defaultValue = "1000") int limit) {
+        if (!balanceIndex.isPresent()) {
+            return new ResponseEntity<>("Balance index is not enabled.", HttpStatus.NOT_FOUND);
+        }
+        if (limit < 0) {
+            return new ResponseEntity<>(NEGATIVE_LIMIT, HttpStatus.BAD_REQUEST);
+        }
+        List<Account> accounts = balanceIndex.get().getTop(limit);
+        return new ResponseEntity<>(accounts, HttpStatus.OK);
+    }
+
+    @GetMapping(path = "/below")
+    public ResponseEntity<Object> getBelow(@RequestParam(value = "threshold") BigDecimal threshold,
+                                           @RequestParam(value = "limit", defaultValue = "1000") int limit) {
+        if (!balanceIndex.isPresent()) {
+            return new ResponseEntity<>("Balance index is not enabled.", HttpStatus.NOT_FOUND);
+        }
+        if (limit < 0) {
+            return new ResponseEntity<>(NEGATIVE_LIMIT, HttpStatus.BAD_REQUEST);
+        }
+        List<Account> accounts = balanceIndex.get().getBelow(threshold, limit);
+        return new ResponseEntity<>(accounts, HttpStatus.OK);
+    }
+}
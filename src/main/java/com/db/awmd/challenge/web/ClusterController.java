@@ -0,0 +1,109 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.cluster.AccountHandOver;
+import com.db.awmd.challenge.cluster.ClusterMembership;
+import com.db.awmd.challenge.cluster.ClusterNode;
+import com.db.awmd.challenge.cluster.ClusterRouter;
+import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+import jakarta.validation.Valid;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rest API for cluster membership changes.
+ * A change sent to any member is propagated to the rest of the cluster.
+ * Accounts moving between members are posted to '/v1/cluster/accounts' of their new owner.
+ */
+@RestController
+@RequestMapping("/v1/cluster")
+@Slf4j
+public class ClusterController {
+
+    private static final String CLUSTER_DISABLED = "Cluster mode is not enabled.";
+
+    private final ClusterMembership clusterMembership;
+
+    @Autowired
+    public ClusterController(final ClusterMembership clusterMembership) {
+        this.clusterMembership = clusterMembership;
+    }
+
+    @GetMapping(path = "/nodes")
+    public List<ClusterNode> getNodes() {
+        return clusterMembership.getNodes();
+    }
+
+    /**
+     * Adds a node to the cluster.
+     * @param node
+     * @param forwarded
+     * @return ResponseEntity
+     */
+    @PostMapping(path = "/nodes", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> join(@RequestBody @Valid ClusterNode node,
+                                       @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, defaultValue = "false") boolean forwarded) {
+        if (!clusterMembership.isEnabled()) {
+            return new ResponseEntity<>(CLUSTER_DISABLED, HttpStatus.BAD_REQUEST);
+        }
+        log.info("Received join request for node : {}", node);
+        clusterMembership.join(node, !forwarded);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    /**
+     * Removes a node from the cluster, its accounts are handed over to the remaining nodes.
+     * @param nodeId
+     * @param forwarded
+     * @return ResponseEntity
+     */
+    @DeleteMapping(path = "/nodes/{nodeId}")
+    public ResponseEntity<Object> leave(@PathVariable String nodeId,
+                                        @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, defaultValue = "false") boolean forwarded) {
+        if (!clusterMembership.isEnabled()) {
+            return new ResponseEntity<>(CLUSTER_DISABLED, HttpStatus.BAD_REQUEST);
+        }
+        log.info("Received leave request for node : {}", nodeId);
+        clusterMembership.leave(nodeId, !forwarded);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    /**
+     * Takes over an account handed over by another member.
+     * A retry of a hand over already taken over is answered with 200 and changes nothing,
+     * a 400 tells the old owner that the account was not taken over.
+     * @param handOver
+     * @return ResponseEntity
+     */
+    @PostMapping(path = "/accounts", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> adopt(@RequestBody @Valid AccountHandOver handOver) {
+        if (!clusterMembership.isEnabled()) {
+            return new ResponseEntity<>(CLUSTER_DISABLED, HttpStatus.BAD_REQUEST);
+        }
+        try {
+            if (!clusterMembership.adopt(handOver)) {
+                return new ResponseEntity<>(HttpStatus.OK);
+            }
+        } catch (DuplicateAccountIdException daie) {
+            return new ResponseEntity<>(daie.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+        log.debug("Took over account {} with {} reservations", handOver.getAccountId(),
+                handOver.getReservations().size());
+        return new ResponseEntity<>(HttpStatus.CREATED);
+    }
+}
@@ -0,0 +1,45 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.contention.ContentionTracker;
+import com.db.awmd.challenge.contention.HotAccount;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Rest API for the accounts currently causing the most lock contention.
+ */
+@RestController
+@RequestMapping("/v1/contention")
+public class ContentionController {
+
+    private final Optional<ContentionTracker> contentionTracker;
+
+    @Autowired
+    public ContentionController(final Optional<ContentionTracker> contentionTracker) {
+        this.contentionTracker = contentionTracker;
+    }
+
+    @GetMapping(path = "/hot-accounts")
+    public ResponseEntity<Object> getHotAccounts(
+            @RequestParam(value = "by", defaultValue = ContentionTracker.BY_TRANSFERS) String by,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        if (!contentionTracker.isPresent()) {
+            return new ResponseEntity<>("Contention tracking is not enabled.", HttpStatus.NOT_FOUND);
+        }
+        try {
+            List<HotAccount> hotAccounts = contentionTracker.get().getHotAccounts(by, limit);
+            return new ResponseEntity<>(hotAccounts, HttpStatus.OK);
+        } catch (IllegalArgumentException ex) {
+            return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.InSufficientFundException;
+import com.db.awmd.challenge.exception.InValidTransferRequestException;
+import com.db.awmd.challenge.transaction.LocalPartitionParticipant;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Internal API exposing this node's partition as a two phase commit participant
+ * to coordinators running on other cluster nodes.
+ */
+@RestController
+@RequestMapping("/v1/partition/transactions/{transactionId}")
+@Slf4j
+public class PartitionTransactionController {
+
+    private final LocalPartitionParticipant participant;
+
+    @Autowired
+    public PartitionTransactionController(final LocalPartitionParticipant participant) {
+        this.participant = participant;
+    }
+
+    @PostMapping(path = "/prepare-debit", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> prepareDebit(@PathVariable String transactionId, @RequestBody @Valid Transfer transfer) {
+        participant.prepareDebit(transactionId, transfer);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @PostMapping(path = "/prepare-credit", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> prepareCredit(@PathVariable String transactionId, @RequestBody @Valid Transfer transfer) {
+        participant.prepareCredit(transactionId, transfer);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @PostMapping(path = "/commit")
+    public ResponseEntity<Object> commit(@PathVariable String transactionId) {
+        participant.commit(transactionId);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @PostMapping(path = "/abort")
+    public ResponseEntity<Object> abort(@PathVariable String transactionId) {
+        participant.abort(transactionId);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    /**
+     * Exception handler for bad requests
+     * @param request
+     * @param exception
+     * @return ResponseEntity
+     */
+    @ExceptionHandler({InSufficientFundException.class, AccountNotFoundException.class,
+            InValidTransferRequestException.class})
+    public ResponseEntity<?> handleClientSideExceptions(HttpServletRequest request, Exception exception) {
+        log.error("Rejecting prepare request. Reason : {}", exception.getMessage());
+        return new ResponseEntity<>(exception.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+}
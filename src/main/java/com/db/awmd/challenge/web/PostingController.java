@@ -0,0 +1,98 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.cluster.ClusterRouter;
+import com.db.awmd.challenge.domain.Posting;
+import com.db.awmd.challenge.domain.PostingLeg;
+import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.FundTransferException;
+import com.db.awmd.challenge.exception.InSufficientFundException;
+import com.db.awmd.challenge.exception.InValidTransferRequestException;
+import com.db.awmd.challenge.service.FundTransferService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rest API for multi-leg postings, the debits and credits of a posting are applied atomically.
+ */
+@RestController
+@RequestMapping("/v1/postings")
+@Slf4j
+public class PostingController {
+
+    private FundTransferService fundTransferService;
+
+    private ClusterRouter clusterRouter;
+
+    @Autowired
+    public PostingController(final FundTransferService fundTransferService, final ClusterRouter clusterRouter) {
+        this.fundTransferService = fundTransferService;
+        this.clusterRouter = clusterRouter;
+    }
+
+    /**
+     * Applies a posting. In cluster mode all accounts of the posting must live in the same partition,
+     * the posting is forwarded to the node owning it.
+     * @param posting
+     * @param forwarded
+     * @return ResponseEntity
+     */
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> post(@RequestBody @Valid Posting posting,
+            @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, defaultValue = "false") boolean forwarded) {
+        String firstAccountId = posting.getLegs().get(0).getAccountId();
+        if (!forwarded) {
+            for (PostingLeg leg : posting.getLegs()) {
+                if (!clusterRouter.isSamePartition(firstAccountId, leg.getAccountId())) {
+                    throw new InValidTransferRequestException("Posting across partitions is not supported.");
+                }
+            }
+            if (!clusterRouter.isLocal(firstAccountId)) {
+                return clusterRouter.forward(firstAccountId, HttpMethod.POST, "/v1/postings", posting);
+            }
+        }
+        log.debug("Received posting request : {}", posting);
+        fundTransferService.post(posting);
+        log.debug("Successfully processed posting request : {}", posting);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    /**
+     * Exception handler for bad requests
+     * @param request
+     * @param exception
+     * @return ResponseEntity
+     */
+    @ExceptionHandler({InSufficientFundException.class, AccountNotFoundException.class,
+            InValidTransferRequestException.class})
+    public ResponseEntity<?> handleClientSideExceptions(HttpServletRequest request, Exception exception) {
+        log.debug("Cancelling posting request. Reason : {}", exception.getMessage());
+        return new ResponseEntity(exception.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Exception handler for server side exceptions
+     * @param request
+     * @param exception
+     * @return ResponseEntity
+     */
+    @ExceptionHandler(FundTransferException.class)
+    public ResponseEntity<?> handleFundTransferExceptions(HttpServletRequest request, FundTransferException exception) {
+        log.error("Failed to process posting request. Reason : {}", exception.getMessage());
+        return new ResponseEntity(exception.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
@@ -0,0 +1,33 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.warmup.JitWarmup;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Optional;
+
+/**
+ * Readiness probe for load balancers, the instance reports ready once the JIT warm-up has finished.
+ */
+@RestController
+public class ReadinessController {
+
+    private final Optional<JitWarmup> jitWarmup;
+
+    @Autowired
+    public ReadinessController(final Optional<JitWarmup> jitWarmup) {
+        this.jitWarmup = jitWarmup;
+    }
+
+    @GetMapping(path = "/v1/readiness")
+    public ResponseEntity<Object> getReadiness() {
+        if (jitWarmup.isPresent() && !jitWarmup.get().isReady()) {
+            return new ResponseEntity<>("WARMING_UP", HttpStatus.SERVICE_UNAVAILABLE);
+        }
+        return new ResponseEntity<>("READY", HttpStatus.OK);
+    }
+}
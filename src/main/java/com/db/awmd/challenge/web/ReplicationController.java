@@ -0,0 +1,37 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.replication.ReplicationNode;
+import com.db.awmd.challenge.replication.ReplicationStatus;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Optional;
+
+/**
+ * Rest API for replication progress and lag.
+ */
+@RestController
+@RequestMapping("/v1/replication")
+public class ReplicationController {
+
+    private final Optional<ReplicationNode> replicationNode;
+
+    @Autowired
+    public ReplicationController(final Optional<ReplicationNode> replicationNode) {
+        this.replicationNode = replicationNode;
+    }
+
+    @GetMapping(path = "/status")
+    public ResponseEntity<Object> getStatus() {
+        if (!replicationNode.isPresent()) {
+            return new ResponseEntity<>("Replication is not enabled.", HttpStatus.NOT_FOUND);
+        }
+        ReplicationStatus status = replicationNode.get().getStatus();
+        return new ResponseEntity<>(status, HttpStatus.OK);
+    }
+}
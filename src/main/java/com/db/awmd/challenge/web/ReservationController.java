@@ -0,0 +1,150 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.cluster.ClusterRouter;
+import com.db.awmd.challenge.domain.Reservation;
+import com.db.awmd.challenge.domain.ReservationCapture;
+import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.FundTransferException;
+import com.db.awmd.challenge.exception.InSufficientFundException;
+import com.db.awmd.challenge.exception.InValidTransferRequestException;
+import com.db.awmd.challenge.exception.ReservationNotFoundException;
+import com.db.awmd.challenge.service.ReservationService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rest API for reservations, amounts held on an account until they are captured into a transfer or released.
+ * In cluster mode requests are forwarded to the node owning the account.
+ */
+@RestController
+@RequestMapping("/v1/accounts/{accountId}/reservations")
+@Slf4j
+public class ReservationController {
+
+    private ReservationService reservationService;
+
+    private ClusterRouter clusterRouter;
+
+    @Autowired
+    public ReservationController(final ReservationService reservationService, final ClusterRouter clusterRouter) {
+        this.reservationService = reservationService;
+        this.clusterRouter = clusterRouter;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> reserve(@PathVariable String accountId, @RequestBody @Valid Reservation request,
+            @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, defaultValue = "false") boolean forwarded) {
+        if (!forwarded && !clusterRouter.isLocal(accountId)) {
+            return clusterRouter.forward(accountId, HttpMethod.POST, path(accountId), request);
+        }
+        log.info("Received reservation request for account {} : {}", accountId, request);
+        Reservation reservation = reservationService.reserve(accountId, request);
+        return new ResponseEntity<>(reservation, HttpStatus.CREATED);
+    }
+
+    @GetMapping(path = "/{reservationId}")
+    public ResponseEntity<Object> getReservation(@PathVariable String accountId, @PathVariable String reservationId,
+            @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, defaultValue = "false") boolean forwarded) {
+        if (!forwarded && !clusterRouter.isLocal(accountId)) {
+            return clusterRouter.forward(accountId, HttpMethod.GET, path(accountId) + "/" + reservationId, null);
+        }
+        return new ResponseEntity<>(reservationService.getReservation(accountId, reservationId), HttpStatus.OK);
+    }
+
+    /**
+     * Transfers the reserved amount. Capturing into an account of another partition is not supported.
+     * @param accountId
+     * @param reservationId
+     * @param capture
+     * @param forwarded
+     * @return ResponseEntity
+     */
+    @PostMapping(path = "/{reservationId}/capture", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Object> capture(@PathVariable String accountId, @PathVariable String reservationId,
+            @RequestBody @Valid ReservationCapture capture,
+            @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, defaultValue = "false") boolean forwarded) {
+        if (!forwarded) {
+            if (!clusterRouter.isSamePartition(accountId, capture.getToAccountId())) {
+                throw new InValidTransferRequestException("Capturing a reservation across partitions is not supported.");
+            }
+            if (!clusterRouter.isLocal(accountId)) {
+                return clusterRouter.forward(accountId, HttpMethod.POST,
+                        path(accountId) + "/" + reservationId + "/capture", capture);
+            }
+        }
+        log.info("Capturing reservation {} of account {} to account {}", reservationId, accountId,
+                capture.getToAccountId());
+        reservationService.capture(accountId, reservationId, capture.getToAccountId());
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    @DeleteMapping(path = "/{reservationId}")
+    public ResponseEntity<Object> release(@PathVariable String accountId, @PathVariable String reservationId,
+            @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, defaultValue = "false") boolean forwarded) {
+        if (!forwarded && !clusterRouter.isLocal(accountId)) {
+            return clusterRouter.forward(accountId, HttpMethod.DELETE, path(accountId) + "/" + reservationId, null);
+        }
+        log.info("Releasing reservation {} of account {}", reservationId, accountId);
+        reservationService.release(accountId, reservationId);
+        return new ResponseEntity<>(HttpStatus.OK);
+    }
+
+    /**
+     * Exception handler for reservations already captured, released or expired
+     * @param request
+     * @param exception
+     * @return ResponseEntity
+     */
+    @ExceptionHandler(ReservationNotFoundException.class)
+    public ResponseEntity<?> handleReservationNotFound(HttpServletRequest request, ReservationNotFoundException exception) {
+        log.info("Reservation request rejected. Reason : {}", exception.getMessage());
+        return new ResponseEntity(exception.getMessage(), HttpStatus.NOT_FOUND);
+    }
+
+    /**
+     * Exception handler for bad requests
+     * @param request
+     * @param exception
+     * @return ResponseEntity
+     */
+    @ExceptionHandler({InSufficientFundException.class, AccountNotFoundException.class,
+            InValidTransferRequestException.class})
+    public ResponseEntity<?> handleClientSideExceptions(HttpServletRequest request, Exception exception) {
+        log.error("Cancelling reservation request. Reason : {}", exception.getMessage());
+        return new ResponseEntity(exception.getMessage(), HttpStatus.BAD_REQUEST);
+    }
+
+    /**
+     * Exception handler for server side exceptions
+     * @param request
+     * @param exception
+     * @return ResponseEntity
+     */
+    @ExceptionHandler(FundTransferException.class)
+    public ResponseEntity<?> handleFundTransferExceptions(HttpServletRequest request, FundTransferException exception) {
+        log.error("Failed to process reservation request. Reason : {}", exception.getMessage());
+        return new ResponseEntity(exception.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    private static String path(String accountId) {
+        return "/v1/accounts/" + accountId + "/reservations";
+    }
+}
@@ -0,0 +1,54 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.cluster.ClusterRouter;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.stats.TurnoverTracker;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Optional;
+
+/**
+ * Rest API for the turnover statistics of an account, served by the node owning the account.
+ */
+@RestController
+@RequestMapping("/v1/accounts/{accountId}/stats")
+public class StatsController {
+
+    private final AccountsService accountsService;
+
+    private final ClusterRouter clusterRouter;
+
+    private final Optional<TurnoverTracker> turnoverTracker;
+
+    @Autowired
+    public StatsController(final AccountsService accountsService, final ClusterRouter clusterRouter,
+                           final Optional<TurnoverTracker> turnoverTracker) {
+        this.accountsService = accountsService;
+        this.clusterRouter = clusterRouter;
+        this.turnoverTracker = turnoverTracker;
+    }
+
+    @GetMapping
+    public ResponseEntity<Object> getStatistics(@PathVariable String accountId,
+            @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, defaultValue = "false") boolean forwarded) {
+        if (!turnoverTracker.isPresent()) {
+            return new ResponseEntity<>("Account statistics are not enabled.", HttpStatus.NOT_FOUND);
+        }
+        if (!forwarded && !clusterRouter.isLocal(accountId)) {
+            return clusterRouter.forward(accountId, HttpMethod.GET, "/v1/accounts/" + accountId + "/stats", null);
+        }
+        if (!accountsService.getAccountsRepository().containsAccount(accountId)) {
+            return new ResponseEntity<>("Account with ID: " + accountId + " doesnt exists.", HttpStatus.NOT_FOUND);
+        }
+        return new ResponseEntity<>(turnoverTracker.get().getStatistics(accountId), HttpStatus.OK);
+    }
+}
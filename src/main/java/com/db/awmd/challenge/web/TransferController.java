@@ -1,24 +1,31 @@
 package com.db.awmd.challenge.web;
 
+import com.db.awmd.challenge.audit.AuditLog;
+import com.db.awmd.challenge.cluster.ClusterRouter;
 import com.db.awmd.challenge.domain.Transfer;
 import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.AccountVersionMismatchException;
 import com.db.awmd.challenge.exception.FundTransferException;
 import com.db.awmd.challenge.exception.InSufficientFundException;
 import com.db.awmd.challenge.exception.InValidTransferRequestException;
+import com.db.awmd.challenge.service.CrossPartitionTransferService;
 import com.db.awmd.challenge.service.FundTransferService;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
-import javax.servlet.http.HttpServletRequest;
-import javax.validation.Valid;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 
 import lombok.extern.slf4j.Slf4j;
 
@@ -30,23 +37,73 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class TransferController {
 
+    /** The bound transfer, for the exception handlers and TrafficCaptureFilter. */
+    public static final String TRANSFER_ATTRIBUTE = TransferController.class.getName() + ".transfer";
+
     private FundTransferService fundTransferService;
 
+    private CrossPartitionTransferService crossPartitionTransferService;
+
+    private ClusterRouter clusterRouter;
+
+    private AuditLog auditLog;
+
     @Autowired
-    public TransferController(final FundTransferService fundTransferService) {
+    public TransferController(final FundTransferService fundTransferService,
+                              final CrossPartitionTransferService crossPartitionTransferService,
+                              final ClusterRouter clusterRouter) {
         this.fundTransferService = fundTransferService;
+        this.crossPartitionTransferService = crossPartitionTransferService;
+        this.clusterRouter = clusterRouter;
+    }
+
+    @Autowired(required = false)
+    public void setAuditLog(final AuditLog auditLog) {
+        this.auditLog = auditLog;
     }
 
     /**
      * Transfer's funds between two existing accounts.
+     * In cluster mode the transfer is forwarded to the node owning both accounts,
+     * or coordinated by this node with two phase commit if the accounts live in different partitions.
+     * With If-Match the transfer only proceeds while the source account is still at the given ETag,
+     * conditional transfers are not supported across partitions.
+     * @param request
      * @param transfer
+     * @param ifMatch
+     * @param forwarded
      * @return ResponseEntity
      */
     @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
-    public ResponseEntity<Object> transferFund(@RequestBody @Valid Transfer transfer) {
-        log.info("Received transfer request : {}", transfer);
-        fundTransferService.transferFund(transfer);
-        log.info("Sucessfully processed transfer request : {}", transfer);
+    public ResponseEntity<Object> transferFund(HttpServletRequest request, @RequestBody @Valid Transfer transfer,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestHeader(value = ClusterRouter.FORWARDED_HEADER, defaultValue = "false") boolean forwarded) {
+        //for the exception handlers to audit the rejected transfer, and for the traffic capture
+        request.setAttribute(TRANSFER_ATTRIBUTE, transfer);
+        if (!forwarded) {
+            if (!clusterRouter.isSamePartition(transfer.getFromAccountId(), transfer.getToAccountId())) {
+                if (ifMatch != null) {
+                    throw new InValidTransferRequestException("Conditional transfer across partitions is not supported.");
+                }
+                crossPartitionTransferService.transferFund(transfer);
+                audit(request, HttpStatus.OK, null);
+                return new ResponseEntity<>(HttpStatus.OK);
+            }
+            if (!clusterRouter.isLocal(transfer.getFromAccountId())) {
+                HttpHeaders headers = new HttpHeaders();
+                if (ifMatch != null) {
+                    headers.setIfMatch(ifMatch);
+                }
+                return clusterRouter.forward(transfer.getFromAccountId(), HttpMethod.POST, "/v1/transfers", transfer,
+                        headers);
+            }
+        }
+        if (ifMatch != null) {
+            fundTransferService.transferFund(transfer, AccountVersionTag.parse(ifMatch));
+        } else {
+            fundTransferService.transferFund(transfer);
+        }
+        audit(request, HttpStatus.OK, null);
         return new ResponseEntity<>(HttpStatus.OK);
     }
 
@@ -59,10 +116,22 @@ public class TransferController {
     @ExceptionHandler({InSufficientFundException.class, AccountNotFoundException.class,
             InValidTransferRequestException.class})
     public ResponseEntity<?> handleClientSideExceptions(HttpServletRequest request, Exception exception) {
-        log.error("Cancelling transfer request. Reason : {}", exception.getMessage());
+        audit(request, HttpStatus.BAD_REQUEST, exception.getMessage());
         return new ResponseEntity(exception.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Exception handler for conditional transfers on a changed source account
+     * @param request
+     * @param exception
+     * @return ResponseEntity
+     */
+    @ExceptionHandler(AccountVersionMismatchException.class)
+    public ResponseEntity<?> handleVersionMismatch(HttpServletRequest request, AccountVersionMismatchException exception) {
+        audit(request, HttpStatus.PRECONDITION_FAILED, exception.getMessage());
+        return new ResponseEntity(exception.getMessage(), HttpStatus.PRECONDITION_FAILED);
+    }
+
     /**
      * Exception handler for server side exceptions
      * @param request
@@ -72,7 +141,22 @@ public class TransferController {
     @ExceptionHandler(FundTransferException.class)
     public ResponseEntity<?> handleFundTransferxceptions(HttpServletRequest request, FundTransferException exception) {
         log.error("Failed to process transfer request. Reason : {}", exception.getMessage());
+        audit(request, HttpStatus.INTERNAL_SERVER_ERROR, exception.getMessage());
         return new ResponseEntity(exception.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    /**
+     * Records the outcome of the transfer handled by this request in the audit log, if enabled.
+     * Nothing is recorded for requests rejected before the transfer was bound, or forwarded to another node.
+     * @param request
+     * @param status
+     * @param detail
+     */
+    private void audit(HttpServletRequest request, HttpStatus status, String detail) {
+        Transfer transfer = (Transfer) request.getAttribute(TRANSFER_ATTRIBUTE);
+        if (auditLog != null && transfer != null) {
+            auditLog.transfer(transfer, status.value(), detail);
+        }
+    }
+
 }
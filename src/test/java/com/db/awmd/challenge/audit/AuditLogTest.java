@@ -0,0 +1,174 @@
+package com.db.awmd.challenge.audit;
+
+import com.db.awmd.challenge.domain.Transfer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AuditLogTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void itShouldReadBackEventsAcrossRolledFiles() throws Exception {
+        File directory = folder.newFolder();
+        AuditLog auditLog = new AuditLog(directory.getPath(), 1024, 4096, 100);
+        auditLog.start();
+        auditLog.accountCreated("ID-A", new BigDecimal("1000000000000.01"), 201, null);
+        for (int i = 0; i < 500; i++) {
+            auditLog.transfer(new Transfer("ID-A", "ID-" + i, new BigDecimal(i).movePointLeft(2)), 200, null);
+        }
+        auditLog.transfer(new Transfer("ID-A", "ID-B", new BigDecimal("5.00")), 400, "Insufficient balance");
+        auditLog.accountRead("ID-A", 200);
+        auditLog.close();
+
+        List<AuditEvent> events;
+        try (AuditLogReader reader = new AuditLogReader(directory)) {
+            events = reader.readAll();
+        }
+
+        assertThat(AuditLogReader.listFiles(directory).size()).isGreaterThan(1);
+        assertThat(events).hasSize(503);
+        assertThat(events.get(0).getType()).isEqualTo(AuditEvent.ACCOUNT_CREATED);
+        assertThat(events.get(0).getAmount()).isEqualTo(new BigDecimal("1000000000000.01"));
+        assertThat(events.get(0).getOtherAccountId()).isNull();
+        for (int i = 0; i < 500; i++) {
+            AuditEvent event = events.get(i + 1);
+            assertThat(event.getType()).isEqualTo(AuditEvent.TRANSFER);
+            assertThat(event.getOtherAccountId()).isEqualTo("ID-" + i);
+            assertThat(event.getAmount()).isEqualTo(new BigDecimal(i).movePointLeft(2));
+        }
+        AuditEvent rejected = events.get(501);
+        assertThat(rejected.getStatus()).isEqualTo(400);
+        assertThat(rejected.getDetail()).isEqualTo("Insufficient balance");
+        assertThat(events.get(502).getType()).isEqualTo(AuditEvent.ACCOUNT_READ);
+        assertThat(events.get(502).getAmount()).isNull();
+        assertThat(events.get(502).getEpochMillis()).isGreaterThanOrEqualTo(events.get(0).getEpochMillis());
+    }
+
+    @Test
+    public void itShouldOnlyDeleteItsOwnFiles() throws Exception {
+        File directory = folder.newFolder();
+        //live file of another instance sharing the directory, named before every file of this instance
+        File foreign = new File(directory, AuditFileWriter.PREFIX + "1-000000" + AuditFileWriter.SUFFIX);
+        assertThat(foreign.createNewFile()).isTrue();
+        AuditLog auditLog = new AuditLog(directory.getPath(), 1024, 4096, 2);
+        auditLog.start();
+        for (int i = 0; i < 500; i++) {
+            auditLog.transfer(new Transfer("ID-A", "ID-" + i, new BigDecimal(i).movePointLeft(2)), 200, null);
+        }
+        auditLog.close();
+
+        assertThat(foreign).exists();
+        assertThat(AuditLogReader.listFiles(directory)).hasSize(3);
+    }
+
+    @Test
+    public void itShouldReadBackAmountsOfAnyLength() throws Exception {
+        File directory = folder.newFolder();
+        AuditLog auditLog = new AuditLog(directory.getPath(), 1024, 4096, 100);
+        auditLog.start();
+        //unscaled values of about 290 and 1250 bytes
+        BigDecimal long700Digits = new BigDecimal("9".repeat(698) + ".01");
+        BigDecimal long3000Digits = new BigDecimal("7".repeat(3000));
+        auditLog.transfer(new Transfer("ID-A", "ID-B", long700Digits), 400, "Insufficient balance");
+        auditLog.transfer(new Transfer("ID-A", "ID-B", long3000Digits), 400, "Insufficient balance");
+        auditLog.accountRead("ID-A", 200);
+        auditLog.close();
+
+        List<AuditEvent> events;
+        try (AuditLogReader reader = new AuditLogReader(directory)) {
+            events = reader.readAll();
+        }
+
+        assertThat(events).hasSize(3);
+        assertThat(events.get(0).getAmount()).isEqualTo(long700Digits);
+        assertThat(events.get(1).getAmount()).isEqualByComparingTo(
+                long3000Digits.round(new MathContext(AuditEvent.MAX_AMOUNT_DIGITS)));
+        assertThat(events.get(2).getType()).isEqualTo(AuditEvent.ACCOUNT_READ);
+    }
+
+    @Test
+    public void itShouldDropEventsRecordedAfterClose() throws Exception {
+        AuditLog auditLog = new AuditLog(folder.newFolder().getPath(), 2, 4096, 10);
+        auditLog.start();
+        auditLog.close();
+
+        //more events than the ring holds, none of them waits for the stopped writer
+        for (int i = 0; i < 10; i++) {
+            auditLog.accountRead("ID-" + i, 200);
+        }
+
+        assertThat(auditLog.getDropped()).isEqualTo(10);
+    }
+
+    @Test
+    public void itShouldKeepOnlyTheNewestFiles() throws Exception {
+        File directory = folder.newFolder();
+        AuditLog auditLog = new AuditLog(directory.getPath(), 1024, 1024, 3);
+        auditLog.start();
+        for (int i = 0; i < 1000; i++) {
+            auditLog.accountRead("ID-" + i, 200);
+        }
+        auditLog.close();
+
+        List<AuditEvent> events;
+        try (AuditLogReader reader = new AuditLogReader(directory)) {
+            events = reader.readAll();
+        }
+        assertThat(AuditLogReader.listFiles(directory)).hasSize(3);
+        assertThat(events).isNotEmpty();
+        assertThat(events.get(events.size() - 1).getAccountId()).isEqualTo("ID-999");
+    }
+
+    @Test
+    public void itShouldKeepEveryEventOfConcurrentProducersInOrder() throws Exception {
+        File directory = folder.newFolder();
+        //a small ring, producers keep waiting for the writer
+        AuditLog auditLog = new AuditLog(directory.getPath(), 16, 64 * 1024 * 1024, 10);
+        auditLog.start();
+        int producers = 4;
+        int eventsPerProducer = 20_000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String accountId = "ID-" + p;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < eventsPerProducer; i++) {
+                    auditLog.record(AuditEvent.TRANSFER, 200, accountId, "ID-X", new BigDecimal(i), null);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        auditLog.close();
+
+        Map<String, Integer> next = new HashMap<>();
+        int count = 0;
+        try (AuditLogReader reader = new AuditLogReader(directory)) {
+            AuditEvent event;
+            while ((event = reader.next()) != null) {
+                int expected = next.getOrDefault(event.getAccountId(), 0);
+                assertThat(event.getAmount().intValueExact()).isEqualTo(expected);
+                next.put(event.getAccountId(), expected + 1);
+                count++;
+            }
+        }
+        assertThat(count).isEqualTo(producers * eventsPerProducer);
+        assertThat(auditLog.getStalls()).isGreaterThan(0);
+    }
+}
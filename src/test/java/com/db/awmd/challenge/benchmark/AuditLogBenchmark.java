@@ -0,0 +1,120 @@
+package com.db.awmd.challenge.benchmark;
+
+import com.db.awmd.challenge.audit.AuditLog;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.FundTransferService;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per transfer latency added by request logging: none, the synchronous INFO logging TransferController used to do
+ * (two lines with Transfer.toString() through a logback file appender, the Spring Boot console pattern)
+ * and one AuditLog record. Services are wired by hand so that only the logging differs between the runs.
+ * Arguments: threads (default 8), transfers per thread (default 200000).
+ */
+public class AuditLogBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int transfersPerThread = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        LoggerContext loggerContext = (LoggerContext) LoggerFactory.getILoggerFactory();
+        loggerContext.getLogger(Logger.ROOT_LOGGER_NAME).setLevel(Level.WARN);
+        Logger requestLog = fileLogger(loggerContext);
+        File auditDirectory = Files.createTempDirectory("audit-benchmark").toFile();
+        AuditLog auditLog = new AuditLog(auditDirectory.getPath(), 65536, 64 * 1024 * 1024, 4);
+        auditLog.start();
+
+        for (int round = 0; round < 2; round++) {
+            run("no request logging", threads, transfersPerThread, transfer -> { });
+            run("synchronous info logging", threads, transfersPerThread, transfer -> {
+                requestLog.info("Received transfer request : {}", transfer);
+                requestLog.info("Sucessfully processed transfer request : {}", transfer);
+            });
+            run("audit log", threads, transfersPerThread, transfer -> auditLog.transfer(transfer, 200, null));
+        }
+        auditLog.close();
+        System.out.println("audit log producer stalls: " + auditLog.getStalls());
+    }
+
+    private static void run(String name, int threads, int transfersPerThread, RequestLogging logging) throws Exception {
+        AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+        AccountsService accountsService = new AccountsService(accountsRepository);
+        FundTransferService fundTransferService = new FundTransferService((account, description) -> { }, accountsService);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountsService.createAccount(new Account("BENCH-" + i, new BigDecimal("1000000000")));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<LatencyRecorder>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                LatencyRecorder recorder = new LatencyRecorder();
+                for (int i = 0; i < transfersPerThread; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    Transfer transfer = new Transfer("BENCH-" + from, "BENCH-" + to, new BigDecimal("0.01"));
+                    long transferStart = System.nanoTime();
+                    fundTransferService.transferFund(transfer);
+                    logging.log(transfer);
+                    recorder.record(System.nanoTime() - transferStart);
+                }
+                return recorder;
+            }));
+        }
+        LatencyRecorder transfers = new LatencyRecorder();
+        for (Future<LatencyRecorder> future : futures) {
+            transfers.merge(future.get());
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        transfers.print(name, elapsed);
+    }
+
+    private static Logger fileLogger(LoggerContext loggerContext) throws Exception {
+        File file = File.createTempFile("audit-benchmark", ".log");
+        file.deleteOnExit();
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(loggerContext);
+        encoder.setPattern("%d{yyyy-MM-dd HH:mm:ss.SSS} %5p %t --- %-40.40logger{39} : %m%n");
+        encoder.start();
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(loggerContext);
+        appender.setFile(file.getPath());
+        appender.setEncoder(encoder);
+        appender.start();
+        ch.qos.logback.classic.Logger logger = loggerContext.getLogger("com.db.awmd.challenge.web.TransferController");
+        logger.setAdditive(false);
+        logger.setLevel(Level.INFO);
+        logger.addAppender(appender);
+        return logger;
+    }
+
+    private interface RequestLogging {
+
+        void log(Transfer transfer);
+    }
+}
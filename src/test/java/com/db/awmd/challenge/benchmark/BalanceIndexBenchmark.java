@@ -0,0 +1,96 @@
+package com.db.awmd.challenge.benchmark;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.index.BalanceIndex;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+import com.db.awmd.challenge.service.AccountEventListener;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.FundTransferService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Per transfer cost of maintaining the BalanceIndex, and the latency of its queries.
+ * Services are wired by hand so that only the index differs between the two runs.
+ */
+public class BalanceIndexBenchmark {
+
+    private static final int ACCOUNTS = 100_000;
+
+    private static final int THREADS = 8;
+
+    private static final int TRANSFERS_PER_THREAD = 500_000;
+
+    public static void main(String[] args) throws Exception {
+        for (int round = 0; round < 2; round++) {
+            run("without index", false);
+            run("with index", true);
+        }
+    }
+
+    private static void run(String name, boolean indexed) throws Exception {
+        AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+        AccountsService accountsService = new AccountsService(accountsRepository);
+        FundTransferService fundTransferService = new FundTransferService((account, description) -> { }, accountsService);
+        BalanceIndex balanceIndex = new BalanceIndex(accountsRepository);
+        if (indexed) {
+            List<AccountEventListener> listeners = Collections.singletonList(balanceIndex);
+            accountsService.setAccountEventListeners(listeners);
+            fundTransferService.setAccountEventListeners(listeners);
+        }
+        for (int i = 0; i < ACCOUNTS; i++) {
+            accountsService.createAccount(new Account("BENCH-" + i, new BigDecimal(1_000_000 + i)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<LatencyRecorder>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                LatencyRecorder recorder = new LatencyRecorder();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    Transfer transfer = new Transfer("BENCH-" + from, "BENCH-" + to, new BigDecimal(random.nextInt(1, 100)));
+                    long transferStart = System.nanoTime();
+                    fundTransferService.transferFund(transfer);
+                    recorder.record(System.nanoTime() - transferStart);
+                }
+                return recorder;
+            }));
+        }
+        LatencyRecorder transfers = new LatencyRecorder();
+        for (Future<LatencyRecorder> future : futures) {
+            transfers.merge(future.get());
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        transfers.print("transfer " + name, elapsed);
+
+        if (indexed) {
+            LatencyRecorder top = new LatencyRecorder();
+            LatencyRecorder below = new LatencyRecorder();
+            start = System.nanoTime();
+            for (int i = 0; i < 1_000; i++) {
+                long queryStart = System.nanoTime();
+                balanceIndex.getTop(1_000);
+                top.record(System.nanoTime() - queryStart);
+                queryStart = System.nanoTime();
+                balanceIndex.getBelow(new BigDecimal(1_000_500), 1_000);
+                below.record(System.nanoTime() - queryStart);
+            }
+            elapsed = System.nanoTime() - start;
+            top.print("top 1000", elapsed);
+            below.print("below threshold, 1000 results", elapsed);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.db.awmd.challenge.benchmark;
+
+import com.db.awmd.challenge.DevChallengeApplication;
+import com.db.awmd.challenge.cluster.ClusterMembership;
+import com.db.awmd.challenge.cluster.ClusterNode;
+import com.db.awmd.challenge.cluster.ConsistentHashRing;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Transfer throughput of the account partitioned cluster for a growing number of nodes.
+ * Nodes are started in this JVM by default, so they share its cores. Pass the urls of nodes
+ * already running in separate JVMs (see README) as benchmark arguments to measure real scaling.
+ */
+public class ClusterThroughputBenchmark {
+
+    private static final int MAX_NODES = 3;
+
+    private static final int ACCOUNTS = 200;
+
+    private static final int CLIENT_THREADS = 32;
+
+    private static final int TRANSFERS_PER_THREAD = 2_000;
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0) {
+            List<String> urls = new ArrayList<>();
+            for (String url : args) {
+                urls.add(url);
+            }
+            run(urls);
+            return;
+        }
+        for (int nodes = 1; nodes <= MAX_NODES; nodes++) {
+            List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+            List<String> urls = new ArrayList<>();
+            try {
+                for (int i = 1; i <= nodes; i++) {
+                    ConfigurableApplicationContext context = new SpringApplicationBuilder(DevChallengeApplication.class)
+                            .run("--server.port=0", "--spring.jmx.enabled=false", "--cluster.enabled=true",
+                                    "--cluster.self-id=node-" + i, "--logging.level.com.db.awmd=WARN");
+                    contexts.add(context);
+                    urls.add(context.getBean(ClusterMembership.class).getSelfUrl());
+                    if (i > 1) {
+                        new RestTemplate().postForEntity(urls.get(0) + "/v1/cluster/nodes",
+                                new ClusterNode("node-" + i, urls.get(i - 1)), Void.class);
+                    }
+                }
+                run(urls);
+            } finally {
+                for (ConfigurableApplicationContext context : contexts) {
+                    context.close();
+                }
+            }
+        }
+    }
+
+    private static void run(List<String> urls) throws Exception {
+        RestTemplate restTemplate = new RestTemplate();
+        String prefix = "BENCH-" + System.nanoTime() + "-";
+        for (int i = 0; i < ACCOUNTS; i++) {
+            restTemplate.postForEntity(urls.get(0) + "/v1/accounts",
+                    new Account(prefix + i, new BigDecimal("1000000000")), Void.class);
+        }
+        //only transfers between accounts of the same partition, using the same ring layout as the nodes
+        ConsistentHashRing ring = new ConsistentHashRing(128);
+        for (ClusterNode node : restTemplate.getForObject(urls.get(0) + "/v1/cluster/nodes", ClusterNode[].class)) {
+            ring.addNode(node.getNodeId());
+        }
+        List<Transfer> transfers = new ArrayList<>();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            for (int j = i + 1; j < ACCOUNTS; j++) {
+                if (ring.getOwner(prefix + i).equals(ring.getOwner(prefix + j))) {
+                    transfers.add(new Transfer(prefix + i, prefix + j, new BigDecimal("0.01")));
+                }
+            }
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENT_THREADS);
+        List<Future<LatencyRecorder>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < CLIENT_THREADS; t++) {
+            results.add(executor.submit(() -> {
+                RestTemplate client = new RestTemplate();
+                LatencyRecorder recorder = new LatencyRecorder();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    String url = urls.get(random.nextInt(urls.size()));
+                    Transfer transfer = transfers.get(random.nextInt(transfers.size()));
+                    long requestStart = System.nanoTime();
+                    client.postForEntity(url + "/v1/transfers", transfer, Void.class);
+                    recorder.record(System.nanoTime() - requestStart);
+                }
+                return recorder;
+            }));
+        }
+        LatencyRecorder total = new LatencyRecorder();
+        for (Future<LatencyRecorder> result : results) {
+            total.merge(result.get());
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+        total.print(urls.size() + " node(s)", elapsed);
+    }
+}
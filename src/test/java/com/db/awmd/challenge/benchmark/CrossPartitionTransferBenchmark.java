@@ -0,0 +1,83 @@
+package com.db.awmd.challenge.benchmark;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.FundTransferService;
+import com.db.awmd.challenge.service.NotificationService;
+import com.db.awmd.challenge.transaction.CoordinatorLog;
+import com.db.awmd.challenge.transaction.LocalPartitionParticipant;
+import com.db.awmd.challenge.transaction.PartitionParticipant;
+import com.db.awmd.challenge.transaction.TwoPhaseCommitCoordinator;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cost per transfer of in-process two phase commit across partitions,
+ * with and without forcing the coordinator log, against a same partition transfer.
+ */
+public class CrossPartitionTransferBenchmark {
+
+    private static final int WARMUP = 50_000;
+
+    private static final int ITERATIONS = 200_000;
+
+    private static final int SYNCED_ITERATIONS = 2_000;
+
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    public static void main(String[] args) throws Exception {
+        NotificationService notifications = (account, description) -> { };
+        AccountsRepositoryInMemory partition1 = new AccountsRepositoryInMemory();
+        AccountsRepositoryInMemory partition2 = new AccountsRepositoryInMemory();
+        partition1.createAccount(new Account("BENCH-A", new BigDecimal("1000000000")));
+        partition1.createAccount(new Account("BENCH-C", new BigDecimal("1000000000")));
+        partition2.createAccount(new Account("BENCH-B", new BigDecimal("1000000000")));
+
+        FundTransferService local = new FundTransferService(notifications, new AccountsService(partition1));
+        Transfer sameTransfer = new Transfer("BENCH-A", "BENCH-C", AMOUNT);
+        run(() -> local.transferFund(sameTransfer), WARMUP);
+        LatencyRecorder same = new LatencyRecorder();
+        same.print("same partition", run(() -> local.transferFund(sameTransfer), ITERATIONS, same));
+
+        Map<String, PartitionParticipant> participants = new HashMap<>();
+        participants.put("p1", new LocalPartitionParticipant(partition1, notifications));
+        participants.put("p2", new LocalPartitionParticipant(partition2, notifications));
+        Transfer crossTransfer = new Transfer("BENCH-A", "BENCH-B", AMOUNT);
+        Path directory = Files.createTempDirectory("coordinator-benchmark");
+
+        try (CoordinatorLog unsynced = new CoordinatorLog(directory.resolve("unsynced.log"), false)) {
+            TwoPhaseCommitCoordinator coordinator = new TwoPhaseCommitCoordinator(unsynced, participants::get);
+            run(() -> coordinator.transfer(crossTransfer, "p1", "p2"), WARMUP);
+            LatencyRecorder cross = new LatencyRecorder();
+            cross.print("cross partition, log not forced",
+                    run(() -> coordinator.transfer(crossTransfer, "p1", "p2"), ITERATIONS, cross));
+        }
+
+        try (CoordinatorLog synced = new CoordinatorLog(directory.resolve("synced.log"), true)) {
+            TwoPhaseCommitCoordinator coordinator = new TwoPhaseCommitCoordinator(synced, participants::get);
+            LatencyRecorder cross = new LatencyRecorder();
+            cross.print("cross partition, log forced",
+                    run(() -> coordinator.transfer(crossTransfer, "p1", "p2"), SYNCED_ITERATIONS, cross));
+        }
+    }
+
+    private static void run(Runnable operation, int iterations) {
+        run(operation, iterations, new LatencyRecorder());
+    }
+
+    private static long run(Runnable operation, int iterations, LatencyRecorder recorder) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long operationStart = System.nanoTime();
+            operation.run();
+            recorder.record(System.nanoTime() - operationStart);
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,166 @@
+package com.db.awmd.challenge.benchmark;
+
+import com.db.awmd.challenge.codec.StreamingJsonHttpMessageConverter;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Time and heap allocation per request body read and response body written, Jackson data binding
+ * against the StreamingJsonHttpMessageConverter. Allocation is measured with the per thread counter of the JVM,
+ * run with a fixed heap, e.g. -Xms1g -Xmx1g, so that GC does not blur the timings.
+ */
+public class JsonCodecBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 1_000_000;
+
+    private static final int ITERATIONS = 2_000_000;
+
+    private static final byte[] TRANSFER_JSON = ("{\"fromAccountId\":\"ID-1234567\",\"toAccountId\":\"ID-7654321\","
+            + "\"transferAmount\":1234.56}").getBytes(StandardCharsets.UTF_8);
+
+    private static final Account ACCOUNT = new Account("ID-1234567", new BigDecimal("98765.43"));
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long sink;
+
+    public static void main(String[] args) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpMessageConverter<Object> dataBinding = new MappingJackson2HttpMessageConverter(objectMapper);
+        HttpMessageConverter<Object> streaming = new StreamingJsonHttpMessageConverter(objectMapper.getFactory());
+        for (int round = 0; round < 2; round++) {
+            measureRead("read transfer, data binding", dataBinding);
+            measureRead("read transfer, streaming", streaming);
+            measureWrite("write account, data binding", dataBinding);
+            measureWrite("write account, streaming", streaming);
+        }
+    }
+
+    private static void measureRead(String name, HttpMessageConverter<Object> converter) throws Exception {
+        BodyInputMessage input = new BodyInputMessage();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            read(converter, input);
+        }
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            read(converter, input);
+        }
+        report(name, System.nanoTime() - start, allocatedBytes() - allocated);
+    }
+
+    private static void read(HttpMessageConverter<Object> converter, BodyInputMessage input) throws Exception {
+        input.reset();
+        Transfer transfer = (Transfer) converter.read(Transfer.class.asSubclass(Object.class), input);
+        sink += transfer.getTransferAmount().scale();
+    }
+
+    private static void measureWrite(String name, HttpMessageConverter<Object> converter) throws Exception {
+        BodyOutputMessage output = new BodyOutputMessage();
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            write(converter, output);
+        }
+        long allocated = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            write(converter, output);
+        }
+        report(name, System.nanoTime() - start, allocatedBytes() - allocated);
+    }
+
+    private static void write(HttpMessageConverter<Object> converter, BodyOutputMessage output) throws Exception {
+        output.reset();
+        converter.write(ACCOUNT, MediaType.APPLICATION_JSON, output);
+        sink += output.body.size();
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+
+    /**
+     * Prints the checksum of the results as well, so that the JIT can not drop the measured calls.
+     */
+    private static void report(String name, long elapsedNanos, long allocatedBytes) {
+        System.out.printf("%-40s %8.1f ns/op %8d bytes/op   checksum %d%n", name, elapsedNanos / (double) ITERATIONS,
+                allocatedBytes / ITERATIONS, sink);
+    }
+
+    /**
+     * Request body replayed from the same bytes, the headers are created once as for a real request.
+     */
+    private static class BodyInputMessage implements HttpInputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private final ResettableInputStream body = new ResettableInputStream(TRANSFER_JSON);
+
+        BodyInputMessage() {
+            headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+
+        void reset() {
+            body.reset();
+        }
+
+        @Override
+        public InputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    private static class ResettableInputStream extends ByteArrayInputStream {
+
+        ResettableInputStream(byte[] bytes) {
+            super(bytes);
+        }
+
+        @Override
+        public void close() {
+            //reused by the next iteration
+        }
+    }
+
+    private static class BodyOutputMessage implements HttpOutputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+
+        void reset() {
+            body.reset();
+        }
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.db.awmd.challenge.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects latency samples for the benchmarks and prints throughput and percentiles.
+ * Not thread safe, use one recorder per thread and merge.
+ */
+public class LatencyRecorder {
+
+    private long[] samples = new long[1024];
+
+    private int count;
+
+    public void record(long nanos) {
+        if (count == samples.length) {
+            samples = Arrays.copyOf(samples, samples.length * 2);
+        }
+        samples[count++] = nanos;
+    }
+
+    public void merge(LatencyRecorder other) {
+        for (int i = 0; i < other.count; i++) {
+            record(other.samples[i]);
+        }
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long percentile(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long[] sorted = Arrays.copyOf(samples, count);
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+        return sorted[Math.max(0, Math.min(index, count - 1))];
+    }
+
+    public void print(String name, long elapsedNanos) {
+        double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+        System.out.printf("%-40s ops=%-8d throughput=%10.0f ops/s  p50=%8.1fus  p99=%8.1fus  p99.9=%8.1fus  max=%8.1fus%n",
+                name, count, count / seconds, micros(percentile(50)), micros(percentile(99)),
+                micros(percentile(99.9)), micros(percentile(100)));
+    }
+
+    private static double micros(long nanos) {
+        return nanos / 1000.0;
+    }
+}
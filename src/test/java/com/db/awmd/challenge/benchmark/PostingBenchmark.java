@@ -0,0 +1,87 @@
+package com.db.awmd.challenge.benchmark;
+
+import com.db.awmd.challenge.DevChallengeApplication;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Posting;
+import com.db.awmd.challenge.domain.PostingLeg;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.service.AccountsService;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fan-out payout from one account to many, as sequential REST transfers against a single posting.
+ * Run with ./gradlew benchmark -PbenchmarkClass=com.db.awmd.challenge.benchmark.PostingBenchmark -PbenchmarkArgs=20
+ */
+public class PostingBenchmark {
+
+    private static final int WARMUP = 500;
+
+    private static final int ITERATIONS = 2_000;
+
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    public static void main(String[] args) throws Exception {
+        int recipients = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        ConfigurableApplicationContext context = SpringApplication.run(DevChallengeApplication.class,
+                "--server.port=0", "--logging.level.com.db.awmd=WARN");
+        try {
+            AccountsService accountsService = context.getBean(AccountsService.class);
+            accountsService.createAccount(new Account("BENCH-SOURCE", new BigDecimal("1000000000")));
+            List<Transfer> transfers = new ArrayList<>();
+            List<PostingLeg> legs = new ArrayList<>();
+            legs.add(new PostingLeg("BENCH-SOURCE", AMOUNT.multiply(new BigDecimal(recipients)).negate()));
+            for (int i = 0; i < recipients; i++) {
+                accountsService.createAccount(new Account("BENCH-" + i, BigDecimal.ZERO));
+                transfers.add(new Transfer("BENCH-SOURCE", "BENCH-" + i, AMOUNT));
+                legs.add(new PostingLeg("BENCH-" + i, AMOUNT));
+            }
+            Posting posting = new Posting(legs);
+
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            RestTemplate restTemplate = new RestTemplate();
+
+            runTransfers(restTemplate, baseUrl, transfers, WARMUP, new LatencyRecorder());
+            LatencyRecorder sequential = new LatencyRecorder();
+            long elapsed = runTransfers(restTemplate, baseUrl, transfers, ITERATIONS, sequential);
+            sequential.print(recipients + " sequential transfers", elapsed);
+
+            runPosting(restTemplate, baseUrl, posting, WARMUP, new LatencyRecorder());
+            LatencyRecorder single = new LatencyRecorder();
+            elapsed = runPosting(restTemplate, baseUrl, posting, ITERATIONS, single);
+            single.print("1 posting of " + (recipients + 1) + " legs", elapsed);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static long runTransfers(RestTemplate restTemplate, String baseUrl, List<Transfer> transfers,
+                                     int iterations, LatencyRecorder recorder) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long payoutStart = System.nanoTime();
+            for (Transfer transfer : transfers) {
+                restTemplate.postForEntity(baseUrl + "/v1/transfers", transfer, Void.class);
+            }
+            recorder.record(System.nanoTime() - payoutStart);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runPosting(RestTemplate restTemplate, String baseUrl, Posting posting,
+                                   int iterations, LatencyRecorder recorder) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long payoutStart = System.nanoTime();
+            restTemplate.postForEntity(baseUrl + "/v1/postings", posting, Void.class);
+            recorder.record(System.nanoTime() - payoutStart);
+        }
+        return System.nanoTime() - start;
+    }
+}
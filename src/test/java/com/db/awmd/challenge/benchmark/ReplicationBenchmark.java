@@ -0,0 +1,98 @@
+package com.db.awmd.challenge.benchmark;
+
+import com.db.awmd.challenge.DevChallengeApplication;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.replication.ReplicationFollower;
+import com.db.awmd.challenge.replication.ReplicationLeader;
+import com.db.awmd.challenge.replication.ReplicationStatus;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.FundTransferService;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leader write rate against follower apply rate and replication lag, sampled while the leader is saturated.
+ */
+public class ReplicationBenchmark {
+
+    private static final int ACCOUNTS = 1_000;
+
+    private static final int WRITER_THREADS = 8;
+
+    private static final long DURATION_MILLIS = 20_000;
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableApplicationContext leader = new SpringApplicationBuilder(DevChallengeApplication.class)
+                .run("--server.port=0", "--spring.jmx.enabled=false", "--replication.role=leader",
+                        "--replication.port=0", "--logging.level.com.db.awmd=WARN");
+        ConfigurableApplicationContext follower = new SpringApplicationBuilder(DevChallengeApplication.class)
+                .run("--server.port=0", "--spring.jmx.enabled=false", "--replication.role=follower",
+                        "--replication.leader-port=" + leader.getBean(ReplicationLeader.class).getLocalPort(),
+                        "--logging.level.com.db.awmd=WARN");
+        try {
+            AccountsService accountsService = leader.getBean(AccountsService.class);
+            FundTransferService fundTransferService = leader.getBean(FundTransferService.class);
+            ReplicationLeader replicationLeader = leader.getBean(ReplicationLeader.class);
+            ReplicationFollower replicationFollower = follower.getBean(ReplicationFollower.class);
+            for (int i = 0; i < ACCOUNTS; i++) {
+                accountsService.createAccount(new Account("BENCH-" + i, new BigDecimal("1000000000")));
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(WRITER_THREADS);
+            long deadline = System.currentTimeMillis() + DURATION_MILLIS;
+            List<Future<Integer>> writers = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int t = 0; t < WRITER_THREADS; t++) {
+                writers.add(executor.submit(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    int transfers = 0;
+                    while (System.currentTimeMillis() < deadline) {
+                        int from = random.nextInt(ACCOUNTS);
+                        int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                        fundTransferService.transferFund(new Transfer("BENCH-" + from, "BENCH-" + to, new BigDecimal("0.01")));
+                        transfers++;
+                    }
+                    return transfers;
+                }));
+            }
+            long maxLagRecords = 0;
+            long maxLagMillis = 0;
+            while (System.currentTimeMillis() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(100);
+                ReplicationStatus status = replicationFollower.getStatus();
+                maxLagRecords = Math.max(maxLagRecords, replicationLeader.getStatus().getHeadSequence() - status.getAppliedSequence());
+                maxLagMillis = Math.max(maxLagMillis, status.getLagMillis());
+            }
+            long transfers = 0;
+            for (Future<Integer> writer : writers) {
+                transfers += writer.get();
+            }
+            long writeNanos = System.nanoTime() - start;
+            long head = replicationLeader.getStatus().getHeadSequence();
+            while (replicationFollower.getStatus().getAppliedSequence() < head) {
+                TimeUnit.MILLISECONDS.sleep(1);
+            }
+            long catchUpNanos = System.nanoTime() - start;
+            executor.shutdown();
+
+            System.out.printf("leader writes      %10.0f transfers/s%n", transfers / (writeNanos / 1e9));
+            System.out.printf("follower applies   %10.0f records/s%n", replicationFollower.getStatus().getAppliedRecords() / (catchUpNanos / 1e9));
+            System.out.printf("max lag            %10d records, %d ms%n", maxLagRecords, maxLagMillis);
+            System.out.printf("catch up after end %10.1f ms%n", (catchUpNanos - writeNanos) / 1e6);
+        } finally {
+            follower.close();
+            leader.close();
+        }
+    }
+}
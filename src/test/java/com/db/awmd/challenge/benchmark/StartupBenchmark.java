@@ -0,0 +1,107 @@
+package com.db.awmd.challenge.benchmark;
+
+import com.db.awmd.challenge.DevChallengeApplication;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Startup time and time to peak throughput of a fresh JVM, with and without the JIT warm-up phase.
+ * Startup is measured from process launch until /v1/readiness answers 200. Time to peak is measured from readiness
+ * until a one second window of sequential REST transfers first reaches 95% of the steady state throughput,
+ * the average of the last five windows.
+ * Run with ./gradlew benchmark -PbenchmarkClass=com.db.awmd.challenge.benchmark.StartupBenchmark [-PbenchmarkArgs=on|off]
+ */
+public class StartupBenchmark {
+
+    private static final int WINDOWS = 30;
+
+    private static final int STEADY_WINDOWS = 5;
+
+    private static final long WINDOW_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0 || "off".equals(args[0])) {
+            run(false);
+        }
+        if (args.length == 0 || "on".equals(args[0])) {
+            run(true);
+        }
+    }
+
+    private static void run(boolean warmup) throws Exception {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        String baseUrl = "http://localhost:" + port;
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        long launch = System.nanoTime();
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                DevChallengeApplication.class.getName(), "--server.port=" + port, "--warmup.enabled=" + warmup,
+                "--logging.level.com.db.awmd=WARN")
+                .redirectErrorStream(true)
+                .redirectOutput(File.createTempFile("startup-benchmark", ".log"))
+                .start();
+        try {
+            RestTemplate restTemplate = new RestTemplate();
+            awaitReady(restTemplate, baseUrl);
+            long ready = System.nanoTime();
+
+            restTemplate.postForEntity(baseUrl + "/v1/accounts", new Account("BENCH-A", new BigDecimal("1000000000")), Void.class);
+            restTemplate.postForEntity(baseUrl + "/v1/accounts", new Account("BENCH-B", new BigDecimal("1000000000")), Void.class);
+            Transfer transfer = new Transfer("BENCH-A", "BENCH-B", new BigDecimal("0.01"));
+
+            List<LatencyRecorder> windows = new ArrayList<>(WINDOWS);
+            for (int w = 0; w < WINDOWS; w++) {
+                LatencyRecorder window = new LatencyRecorder();
+                long windowEnd = System.nanoTime() + WINDOW_NANOS;
+                while (System.nanoTime() < windowEnd) {
+                    long requestStart = System.nanoTime();
+                    restTemplate.postForEntity(baseUrl + "/v1/transfers", transfer, Void.class);
+                    window.record(System.nanoTime() - requestStart);
+                }
+                windows.add(window);
+            }
+
+            double steady = 0;
+            for (int w = WINDOWS - STEADY_WINDOWS; w < WINDOWS; w++) {
+                steady += windows.get(w).getCount();
+            }
+            steady /= STEADY_WINDOWS;
+            int peakWindow = 0;
+            while (windows.get(peakWindow).getCount() < 0.95 * steady) {
+                peakWindow++;
+            }
+
+            String mode = warmup ? "warm-up on " : "warm-up off";
+            System.out.printf("%s startup=%6d ms  time-to-peak=%3d s  steady=%8.0f ops/s%n", mode,
+                    TimeUnit.NANOSECONDS.toMillis(ready - launch), peakWindow + 1, steady);
+            windows.get(0).print(mode + " first second", WINDOW_NANOS);
+            windows.get(WINDOWS - 1).print(mode + " last second", WINDOW_NANOS);
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+
+    private static void awaitReady(RestTemplate restTemplate, String baseUrl) throws InterruptedException {
+        while (true) {
+            try {
+                restTemplate.getForEntity(baseUrl + "/v1/readiness", String.class);
+                return;
+            } catch (RestClientException ex) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+        }
+    }
+}
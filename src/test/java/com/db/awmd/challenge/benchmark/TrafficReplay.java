@@ -0,0 +1,291 @@
+package com.db.awmd.challenge.benchmark;
+
+import com.db.awmd.challenge.capture.CaptureReader;
+import com.db.awmd.challenge.capture.CapturedRequest;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.AccountVersionMismatchException;
+import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+import com.db.awmd.challenge.exception.InSufficientFundException;
+import com.db.awmd.challenge.exception.InValidTransferRequestException;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.FundTransferService;
+import com.db.awmd.challenge.web.AccountVersionTag;
+
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.web.client.DefaultResponseErrorHandler;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a capture written with '--capture.enabled=true' against a fresh instance and checks the final balances.
+ * Run with ./gradlew benchmark -PbenchmarkClass=com.db.awmd.challenge.benchmark.TrafficReplay
+ *     -PbenchmarkArgs="capture-file [speed] [target] [threads]"
+ * <ul>
+ *     <li>speed : 1 for the captured pace, N for N times faster, max to replay back to back, default 1</li>
+ *     <li>target : in-process to drive FundTransferService directly, or the base url of an instance, default in-process</li>
+ *     <li>threads : concurrent requests, default 16</li>
+ * </ul>
+ * Requests are issued in arrival order. When paced, latency is measured from the time a request was due,
+ * so a replay falling behind shows up in the percentiles instead of silently slowing down.
+ * Requests racing for the same account may complete in a different order than captured,
+ * answers differing from the captured ones are counted and explain balance differences.
+ */
+public class TrafficReplay {
+
+    private static final int MAX_REPORTED_DIFFERENCES = 10;
+
+    private static final String[] TYPE_NAMES = {null, "create account", "transfer", "get account"};
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage : TrafficReplay capture-file [speed|max] [in-process|http://host:port] [threads]");
+            System.exit(1);
+        }
+        double speed = args.length > 1 && !"max".equals(args[1]) ? Double.parseDouble(args[1]) : 1;
+        boolean paced = args.length <= 1 || !"max".equals(args[1]);
+        Target target = args.length > 2 && !"in-process".equals(args[2]) ? new HttpTarget(args[2]) : new InProcessTarget();
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+
+        List<CapturedRequest> requests = new ArrayList<>();
+        List<CapturedRequest> finalBalances = new ArrayList<>();
+        try (CaptureReader reader = new CaptureReader(new File(args[0]))) {
+            for (CapturedRequest request : reader.readAll()) {
+                (request.getType() == CapturedRequest.FINAL_BALANCE ? finalBalances : requests).add(request);
+            }
+        }
+        System.out.printf("replaying %d requests at %s with %d threads against %s%n", requests.size(),
+                paced ? speed + "x" : "max speed", threads, target);
+
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger outcomeDifferences = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<LatencyRecorder[]>> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers.add(executor.submit(() -> {
+                LatencyRecorder[] recorders = newRecorders();
+                int index;
+                while ((index = next.getAndIncrement()) < requests.size()) {
+                    CapturedRequest request = requests.get(index);
+                    long due = start + (long) (request.getOffsetNanos() / speed);
+                    long issued = System.nanoTime();
+                    if (paced) {
+                        while ((issued = System.nanoTime()) < due) {
+                            LockSupport.parkNanos(due - issued);
+                        }
+                    }
+                    int status = target.execute(request);
+                    recorders[request.getType()].record(System.nanoTime() - (paced ? due : issued));
+                    if (status != request.getStatus()) {
+                        outcomeDifferences.incrementAndGet();
+                    }
+                }
+                return recorders;
+            }));
+        }
+        LatencyRecorder[] total = newRecorders();
+        for (Future<LatencyRecorder[]> worker : workers) {
+            LatencyRecorder[] recorders = worker.get();
+            for (int type = 1; type < total.length; type++) {
+                total[type].merge(recorders[type]);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        LatencyRecorder all = new LatencyRecorder();
+        for (int type = 1; type < total.length; type++) {
+            if (total[type].getCount() > 0) {
+                total[type].print(TYPE_NAMES[type], elapsed);
+                all.merge(total[type]);
+            }
+        }
+        all.print("all", elapsed);
+        System.out.printf("answers differing from the capture : %d%n", outcomeDifferences.get());
+        checkFinalBalances(target, finalBalances);
+    }
+
+    private static void checkFinalBalances(Target target, List<CapturedRequest> finalBalances) {
+        if (finalBalances.isEmpty()) {
+            System.out.println("capture has no final balances, it was not closed by a clean shutdown"
+                    + " or balances were changed by postings, reservations or the binary protocol");
+            return;
+        }
+        int differences = 0;
+        for (CapturedRequest expected : finalBalances) {
+            BigDecimal balance = target.getBalance(expected.getAccountId());
+            if (balance == null || balance.compareTo(expected.getAmount()) != 0) {
+                if (++differences <= MAX_REPORTED_DIFFERENCES) {
+                    System.out.printf("  %s expected %s, replay ended at %s%n", expected.getAccountId(),
+                            expected.getAmount(), balance);
+                }
+            }
+        }
+        System.out.printf("final balances differing from the capture : %d of %d%n", differences, finalBalances.size());
+    }
+
+    private static LatencyRecorder[] newRecorders() {
+        LatencyRecorder[] recorders = new LatencyRecorder[TYPE_NAMES.length];
+        for (int type = 1; type < recorders.length; type++) {
+            recorders[type] = new LatencyRecorder();
+        }
+        return recorders;
+    }
+
+    private interface Target {
+
+        /**
+         * Issues the request and returns the HTTP status it was answered with.
+         */
+        int execute(CapturedRequest request);
+
+        BigDecimal getBalance(String accountId);
+    }
+
+    /**
+     * Calls the services the way the controllers do, statuses are mapped like their exception handlers.
+     */
+    private static final class InProcessTarget implements Target {
+
+        private final AccountsService accountsService = new AccountsService(new AccountsRepositoryInMemory());
+
+        private final FundTransferService fundTransferService =
+                new FundTransferService((account, description) -> { }, accountsService);
+
+        @Override
+        public int execute(CapturedRequest request) {
+            try {
+                switch (request.getType()) {
+                    case CapturedRequest.CREATE_ACCOUNT:
+                        accountsService.createAccount(new Account(request.getAccountId(), request.getAmount()));
+                        return HttpStatus.CREATED.value();
+                    case CapturedRequest.TRANSFER:
+                        Transfer transfer = new Transfer(request.getAccountId(), request.getOtherAccountId(),
+                                request.getAmount());
+                        if (request.getIfMatch() != null) {
+                            fundTransferService.transferFund(transfer, AccountVersionTag.parse(request.getIfMatch()));
+                        } else {
+                            fundTransferService.transferFund(transfer);
+                        }
+                        return HttpStatus.OK.value();
+                    default:
+                        Account account = accountsService.getAccount(request.getAccountId());
+                        if (account != null && request.getIfNoneMatch() != null
+                                && notModified(request.getIfNoneMatch(), account.getVersion())) {
+                            return HttpStatus.NOT_MODIFIED.value();
+                        }
+                        //an unknown account is answered with an empty 200 as well
+                        return HttpStatus.OK.value();
+                }
+            } catch (DuplicateAccountIdException | InSufficientFundException | AccountNotFoundException
+                    | InValidTransferRequestException ex) {
+                return HttpStatus.BAD_REQUEST.value();
+            } catch (AccountVersionMismatchException ex) {
+                return HttpStatus.PRECONDITION_FAILED.value();
+            } catch (RuntimeException ex) {
+                return HttpStatus.INTERNAL_SERVER_ERROR.value();
+            }
+        }
+
+        /**
+         * Matches If-None-Match like WebRequest.checkNotModified : any tag of the list, weak or strong, or '*'.
+         */
+        private static boolean notModified(String ifNoneMatch, long version) {
+            for (String tag : ifNoneMatch.split(",")) {
+                if ("*".equals(tag.trim())) {
+                    return true;
+                }
+                try {
+                    if (AccountVersionTag.parse(tag) == version) {
+                        return true;
+                    }
+                } catch (InValidTransferRequestException ex) {
+                    //not a tag of ours, it never matches
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public BigDecimal getBalance(String accountId) {
+            Account account = accountsService.getAccount(accountId);
+            return account == null ? null : account.getBalance();
+        }
+
+        @Override
+        public String toString() {
+            return "FundTransferService in process";
+        }
+    }
+
+    private static final class HttpTarget implements Target {
+
+        private final String baseUrl;
+
+        private final RestTemplate restTemplate = new RestTemplate();
+
+        private HttpTarget(String baseUrl) {
+            this.baseUrl = baseUrl;
+            //answers are compared with the capture, error statuses are results too
+            restTemplate.setErrorHandler(new DefaultResponseErrorHandler() {
+                @Override
+                public boolean hasError(ClientHttpResponse response) {
+                    return false;
+                }
+            });
+        }
+
+        @Override
+        public int execute(CapturedRequest request) {
+            switch (request.getType()) {
+                case CapturedRequest.CREATE_ACCOUNT:
+                    return exchange(request, "/v1/accounts", HttpMethod.POST,
+                            new Account(request.getAccountId(), request.getAmount()));
+                case CapturedRequest.TRANSFER:
+                    return exchange(request, "/v1/transfers", HttpMethod.POST, new Transfer(request.getAccountId(),
+                            request.getOtherAccountId(), request.getAmount()));
+                default:
+                    return exchange(request, "/v1/accounts/" + request.getAccountId(), HttpMethod.GET, null);
+            }
+        }
+
+        @Override
+        public BigDecimal getBalance(String accountId) {
+            Account account = restTemplate.getForObject(baseUrl + "/v1/accounts/" + accountId, Account.class);
+            return account == null ? null : account.getBalance();
+        }
+
+        private int exchange(CapturedRequest request, String path, HttpMethod method, Object body) {
+            HttpHeaders headers = new HttpHeaders();
+            if (request.getIfMatch() != null) {
+                headers.set(HttpHeaders.IF_MATCH, request.getIfMatch());
+            }
+            if (request.getIfNoneMatch() != null) {
+                headers.set(HttpHeaders.IF_NONE_MATCH, request.getIfNoneMatch());
+            }
+            return restTemplate.exchange(baseUrl + path, method, new HttpEntity<>(body, headers), String.class)
+                    .getStatusCode().value();
+        }
+
+        @Override
+        public String toString() {
+            return baseUrl;
+        }
+    }
+}
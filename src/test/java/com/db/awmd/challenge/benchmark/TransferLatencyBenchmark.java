@@ -0,0 +1,111 @@
+package com.db.awmd.challenge.benchmark;
+
+import com.db.awmd.challenge.DevChallengeApplication;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.nio.BinaryTransferClient;
+import com.db.awmd.challenge.nio.BinaryTransferServer;
+import com.db.awmd.challenge.service.AccountsService;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Loopback latency and throughput of the REST transfer path against the binary NIO path.
+ * Run with ./gradlew benchmark -PbenchmarkClass=com.db.awmd.challenge.benchmark.TransferLatencyBenchmark
+ */
+public class TransferLatencyBenchmark {
+
+    private static final int WARMUP = 20_000;
+
+    private static final int ITERATIONS = 50_000;
+
+    private static final int PIPELINE_DEPTH = 64;
+
+    private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableApplicationContext context = SpringApplication.run(DevChallengeApplication.class,
+                "--server.port=0", "--binary-protocol.enabled=true", "--binary-protocol.port=0",
+                "--logging.level.com.db.awmd=WARN");
+        try {
+            AccountsService accountsService = context.getBean(AccountsService.class);
+            accountsService.createAccount(new Account("BENCH-A", new BigDecimal("1000000000")));
+            accountsService.createAccount(new Account("BENCH-B", new BigDecimal("1000000000")));
+
+            String url = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/v1/transfers";
+            int binaryPort = context.getBean(BinaryTransferServer.class).getLocalPort();
+
+            RestTemplate restTemplate = new RestTemplate();
+            Transfer transfer = new Transfer("BENCH-A", "BENCH-B", AMOUNT);
+            runRest(restTemplate, url, transfer, WARMUP);
+            LatencyRecorder rest = new LatencyRecorder();
+            long elapsed = runRest(restTemplate, url, transfer, ITERATIONS, rest);
+            rest.print("rest sequential", elapsed);
+
+            try (BinaryTransferClient client = new BinaryTransferClient("localhost", binaryPort)) {
+                runBinary(client, WARMUP, new LatencyRecorder());
+                LatencyRecorder binary = new LatencyRecorder();
+                elapsed = runBinary(client, ITERATIONS, binary);
+                binary.print("binary sequential", elapsed);
+
+                runPipelined(client, WARMUP);
+                elapsed = runPipelined(client, ITERATIONS);
+                System.out.printf("binary pipelined throughput %.0f ops/s at depth %d%n",
+                        ITERATIONS / (elapsed / 1e9), PIPELINE_DEPTH);
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static void runRest(RestTemplate restTemplate, String url, Transfer transfer, int iterations) {
+        runRest(restTemplate, url, transfer, iterations, new LatencyRecorder());
+    }
+
+    private static long runRest(RestTemplate restTemplate, String url, Transfer transfer, int iterations,
+                                LatencyRecorder recorder) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long requestStart = System.nanoTime();
+            restTemplate.postForEntity(url, transfer, Void.class);
+            recorder.record(System.nanoTime() - requestStart);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runBinary(BinaryTransferClient client, int iterations, LatencyRecorder recorder)
+            throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            long requestStart = System.nanoTime();
+            client.transfer("BENCH-A", "BENCH-B", AMOUNT).get();
+            recorder.record(System.nanoTime() - requestStart);
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runPipelined(BinaryTransferClient client, int iterations) throws Exception {
+        long start = System.nanoTime();
+        List<CompletableFuture<BinaryTransferClient.Response>> window = new ArrayList<>(PIPELINE_DEPTH);
+        for (int i = 0; i < iterations; i++) {
+            window.add(client.transfer("BENCH-A", "BENCH-B", AMOUNT));
+            if (window.size() == PIPELINE_DEPTH) {
+                for (CompletableFuture<BinaryTransferClient.Response> response : window) {
+                    response.get();
+                }
+                window.clear();
+            }
+        }
+        for (CompletableFuture<BinaryTransferClient.Response> response : window) {
+            response.get();
+        }
+        return System.nanoTime() - start;
+    }
+}
@@ -0,0 +1,130 @@
+package com.db.awmd.challenge.benchmark;
+
+import com.db.awmd.challenge.DevChallengeApplication;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.NotificationService;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * REST transfer throughput and latency at high concurrency, with requests served by the platform thread pool
+ * of Tomcat and by virtual threads ('spring.threads.virtual.enabled').
+ * The notification service is replaced by one blocking for a fixed time, standing in for the I/O of a real
+ * notification gateway, so that request threads spend most of their time blocked as in production.
+ * Arguments: concurrent clients (default 2000), notification delay in millis (default 20), transfers per client (default 50).
+ * Run with -Djdk.tracePinnedThreads=short to report any virtual thread still pinning its carrier.
+ */
+public class VirtualThreadBenchmark {
+
+    private static final int ACCOUNTS = 10_000;
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long delayMillis = args.length > 1 ? Long.parseLong(args[1]) : 20;
+        int transfersPerClient = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        for (int round = 0; round < 2; round++) {
+            run("platform threads", false, clients, delayMillis, transfersPerClient);
+            run("virtual threads", true, clients, delayMillis, transfersPerClient);
+        }
+    }
+
+    private static void run(String name, boolean virtualThreads, int clients, long delayMillis,
+                            int transfersPerClient) throws Exception {
+        ApplicationContextInitializer<GenericApplicationContext> slowNotifications = context ->
+                context.registerBean(BlockingNotificationService.class, () -> new BlockingNotificationService(delayMillis),
+                        definition -> definition.setPrimary(true));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DevChallengeApplication.class)
+                .initializers(slowNotifications)
+                .run("--server.port=0", "--spring.jmx.enabled=false", "--warmup.enabled=false",
+                        "--spring.threads.virtual.enabled=" + virtualThreads,
+                        "--server.tomcat.max-connections=" + (clients + 100),
+                        "--server.tomcat.accept-count=" + clients,
+                        "--logging.level.com.db.awmd=WARN");
+        try {
+            AccountsService accountsService = context.getBean(AccountsService.class);
+            for (int i = 0; i < ACCOUNTS; i++) {
+                accountsService.createAccount(new Account("BENCH-" + i, new BigDecimal("1000000000")));
+            }
+            URI transfers = URI.create("http://localhost:" + context.getEnvironment().getProperty("local.server.port")
+                    + "/v1/transfers");
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+            AtomicInteger failures = new AtomicInteger();
+
+            List<Future<LatencyRecorder>> results = new ArrayList<>();
+            long start = System.nanoTime();
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (int c = 0; c < clients; c++) {
+                    results.add(executor.submit(() -> {
+                        LatencyRecorder recorder = new LatencyRecorder();
+                        ThreadLocalRandom random = ThreadLocalRandom.current();
+                        for (int i = 0; i < transfersPerClient; i++) {
+                            int from = random.nextInt(ACCOUNTS);
+                            int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                            HttpRequest request = HttpRequest.newBuilder(transfers)
+                                    .header("Content-Type", "application/json")
+                                    .POST(HttpRequest.BodyPublishers.ofString("{\"fromAccountId\":\"BENCH-" + from
+                                            + "\",\"toAccountId\":\"BENCH-" + to + "\",\"transferAmount\":0.01}"))
+                                    .build();
+                            long requestStart = System.nanoTime();
+                            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                            recorder.record(System.nanoTime() - requestStart);
+                            if (response.statusCode() != 200) {
+                                failures.incrementAndGet();
+                            }
+                        }
+                        return recorder;
+                    }));
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+            LatencyRecorder total = new LatencyRecorder();
+            for (Future<LatencyRecorder> result : results) {
+                total.merge(result.get());
+            }
+            total.print(name + ", " + clients + " clients", elapsed);
+            if (failures.get() > 0) {
+                System.out.println("  " + failures.get() + " transfers failed");
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Blocks the calling thread for each notification, while the transfer still holds the account locks.
+     */
+    private static class BlockingNotificationService implements NotificationService {
+
+        private final long delayMillis;
+
+        BlockingNotificationService(long delayMillis) {
+            this.delayMillis = delayMillis;
+        }
+
+        @Override
+        public void notifyAboutTransfer(Account account, String transferDescription) {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
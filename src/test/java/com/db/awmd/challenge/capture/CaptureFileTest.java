@@ -0,0 +1,82 @@
+package com.db.awmd.challenge.capture;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CaptureFileTest {
+
+    @Test
+    public void itShouldReadBackRequestsInArrivalOrder() throws Exception {
+        File file = File.createTempFile("capture", ".cap");
+        file.deleteOnExit();
+        try (CaptureWriter writer = new CaptureWriter(file)) {
+            writer.append(new CapturedRequest(CapturedRequest.TRANSFER, 2_000_000_000L, 200, "ID-A", "ID-B",
+                    new BigDecimal("12.34")));
+            writer.append(new CapturedRequest(CapturedRequest.CREATE_ACCOUNT, 5, 201, "ID-A", null,
+                    new BigDecimal("1000000000000.00")));
+            writer.append(new CapturedRequest(CapturedRequest.GET_ACCOUNT, 1_000, 200, "ID-A", null, null));
+        }
+
+        List<CapturedRequest> requests;
+        try (CaptureReader reader = new CaptureReader(file)) {
+            requests = reader.readAll();
+        }
+
+        assertThat(requests).extracting("type").containsExactly(CapturedRequest.CREATE_ACCOUNT,
+                CapturedRequest.GET_ACCOUNT, CapturedRequest.TRANSFER);
+        CapturedRequest transfer = requests.get(2);
+        assertThat(transfer.getOffsetNanos()).isEqualTo(2_000_000_000L);
+        assertThat(transfer.getStatus()).isEqualTo(200);
+        assertThat(transfer.getAccountId()).isEqualTo("ID-A");
+        assertThat(transfer.getOtherAccountId()).isEqualTo("ID-B");
+        assertThat(transfer.getAmount()).isEqualTo(new BigDecimal("12.34"));
+        assertThat(requests.get(0).getAmount()).isEqualTo(new BigDecimal("1000000000000.00"));
+    }
+
+    @Test
+    public void itShouldReadBackConditionalHeadersAndLongAmounts() throws Exception {
+        File file = File.createTempFile("capture", ".cap");
+        file.deleteOnExit();
+        BigDecimal longAmount = new BigDecimal(BigInteger.TEN.pow(1000), 2);
+        try (CaptureWriter writer = new CaptureWriter(file)) {
+            writer.append(new CapturedRequest(CapturedRequest.TRANSFER, 1, 412, "ID-A", "ID-B", longAmount,
+                    "\"3\"", null));
+            writer.append(new CapturedRequest(CapturedRequest.GET_ACCOUNT, 2, 304, "ID-A", null, null, null, "\"4\""));
+        }
+
+        List<CapturedRequest> requests;
+        try (CaptureReader reader = new CaptureReader(file)) {
+            requests = reader.readAll();
+        }
+
+        assertThat(requests.get(0).getAmount()).isEqualTo(longAmount);
+        assertThat(requests.get(0).getIfMatch()).isEqualTo("\"3\"");
+        assertThat(requests.get(0).getIfNoneMatch()).isNull();
+        assertThat(requests.get(1).getIfMatch()).isNull();
+        assertThat(requests.get(1).getIfNoneMatch()).isEqualTo("\"4\"");
+    }
+
+    @Test
+    public void itShouldStopAtLastCompleteRecordOfTruncatedCapture() throws Exception {
+        File file = File.createTempFile("capture", ".cap");
+        file.deleteOnExit();
+        try (CaptureWriter writer = new CaptureWriter(file)) {
+            writer.append(new CapturedRequest(CapturedRequest.GET_ACCOUNT, 1, 200, "ID-A", null, null));
+            writer.append(new CapturedRequest(CapturedRequest.GET_ACCOUNT, 2, 200, "ID-B", null, null));
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 2);
+        }
+
+        try (CaptureReader reader = new CaptureReader(file)) {
+            assertThat(reader.readAll()).extracting("accountId").containsExactly("ID-A");
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.db.awmd.challenge.capture;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+import com.db.awmd.challenge.web.TransferController;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TrafficCaptureFilterTest {
+
+    @Test
+    public void itShouldCaptureBoundTransferWithConditionalHeaders() throws Exception {
+        File file = File.createTempFile("capture", ".cap");
+        file.deleteOnExit();
+        TrafficCaptureFilter underTest = new TrafficCaptureFilter(new AccountsRepositoryInMemory(), file.getPath(),
+                false);
+        underTest.start();
+
+        MockHttpServletRequest transferRequest = new MockHttpServletRequest("POST", "/v1/transfers");
+        transferRequest.addHeader(HttpHeaders.IF_MATCH, "\"7\"");
+        //no body, only the transfer bound by the controller is captured
+        underTest.doFilter(transferRequest, new MockHttpServletResponse(), (request, response) -> {
+            request.setAttribute(TransferController.TRANSFER_ATTRIBUTE,
+                    new Transfer("ID-A", "ID-B", new BigDecimal("5.00")));
+            ((MockHttpServletResponse) response).setStatus(412);
+        });
+        underTest.doFilter(new MockHttpServletRequest("POST", "/v1/transfers"), new MockHttpServletResponse(),
+                (request, response) -> ((MockHttpServletResponse) response).setStatus(400));
+        MockHttpServletRequest getRequest = new MockHttpServletRequest("GET", "/v1/accounts/ID-A");
+        getRequest.addHeader(HttpHeaders.IF_NONE_MATCH, "\"8\"");
+        underTest.doFilter(getRequest, new MockHttpServletResponse(),
+                (request, response) -> ((MockHttpServletResponse) response).setStatus(304));
+        underTest.close();
+
+        List<CapturedRequest> requests;
+        try (CaptureReader reader = new CaptureReader(file)) {
+            requests = reader.readAll();
+        }
+        assertThat(requests).extracting("type").containsExactly(CapturedRequest.TRANSFER, CapturedRequest.GET_ACCOUNT);
+        assertThat(requests.get(0).getStatus()).isEqualTo(412);
+        assertThat(requests.get(0).getAccountId()).isEqualTo("ID-A");
+        assertThat(requests.get(0).getAmount()).isEqualByComparingTo("5.00");
+        assertThat(requests.get(0).getIfMatch()).isEqualTo("\"7\"");
+        assertThat(requests.get(1).getStatus()).isEqualTo(304);
+        assertThat(requests.get(1).getIfNoneMatch()).isEqualTo("\"8\"");
+    }
+
+    @Test
+    public void itShouldLeaveOutFinalBalancesAfterUncapturedPosting() throws Exception {
+        File file = File.createTempFile("capture", ".cap");
+        file.deleteOnExit();
+        AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+        accountsRepository.createAccount(new Account("ID-A", new BigDecimal("10.00")));
+        TrafficCaptureFilter underTest = new TrafficCaptureFilter(accountsRepository, file.getPath(), false);
+        underTest.start();
+
+        underTest.doFilter(new MockHttpServletRequest("POST", "/v1/postings"), new MockHttpServletResponse(),
+                (request, response) -> ((MockHttpServletResponse) response).setStatus(200));
+        underTest.close();
+
+        List<CapturedRequest> requests;
+        try (CaptureReader reader = new CaptureReader(file)) {
+            requests = reader.readAll();
+        }
+        assertThat(requests).isEmpty();
+    }
+
+    @Test
+    public void itShouldLeaveOutFinalBalancesWithBinaryIngress() throws Exception {
+        File file = File.createTempFile("capture", ".cap");
+        file.deleteOnExit();
+        AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+        accountsRepository.createAccount(new Account("ID-A", new BigDecimal("10.00")));
+        TrafficCaptureFilter underTest = new TrafficCaptureFilter(accountsRepository, file.getPath(), true);
+        underTest.start();
+        underTest.close();
+
+        List<CapturedRequest> requests;
+        try (CaptureReader reader = new CaptureReader(file)) {
+            requests = reader.readAll();
+        }
+        assertThat(requests).isEmpty();
+    }
+}
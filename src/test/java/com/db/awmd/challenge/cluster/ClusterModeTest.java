@@ -0,0 +1,274 @@
+package com.db.awmd.challenge.cluster;
+
+import com.db.awmd.challenge.DevChallengeApplication;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Reservation;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.repository.AccountsRepository;
+import com.db.awmd.challenge.service.ReservationService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.RestTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs two cluster nodes side by side and checks routing and hand over on membership changes.
+ */
+public class ClusterModeTest {
+
+    private static final int ACCOUNTS = 50;
+
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    private ConfigurableApplicationContext node1;
+
+    private ConfigurableApplicationContext node2;
+
+    @Before
+    public void setUp() {
+        node1 = startNode("node-1");
+        node2 = startNode("node-2");
+    }
+
+    @After
+    public void tearDown() {
+        node1.close();
+        node2.close();
+    }
+
+    @Test
+    public void itShouldPartitionAccountsAcrossNodes() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            restTemplate.postForEntity(url(node1) + "/v1/accounts", new Account("ID-" + i, new BigDecimal("100")), Void.class);
+        }
+        assertThat(repository(node1).getAccounts()).hasSize(ACCOUNTS);
+
+        join(node1, "node-2", node2);
+
+        ClusterMembership membership = node1.getBean(ClusterMembership.class);
+        assertThat(repository(node1).getAccounts().size() + repository(node2).getAccounts().size()).isEqualTo(ACCOUNTS);
+        assertThat(repository(node2).getAccounts()).isNotEmpty();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            String accountId = "ID-" + i;
+            ConfigurableApplicationContext owner = membership.getOwner(accountId).equals("node-1") ? node1 : node2;
+            assertThat(repository(owner).getAccount(accountId)).isNotNull();
+            assertThat(restTemplate.getForObject(url(node1) + "/v1/accounts/" + accountId, Account.class).getBalance())
+                    .isEqualByComparingTo("100");
+            assertThat(restTemplate.getForObject(url(node2) + "/v1/accounts/" + accountId, Account.class).getBalance())
+                    .isEqualByComparingTo("100");
+        }
+    }
+
+    @Test
+    public void itShouldForwardTransfersToOwningNode() {
+        join(node1, "node-2", node2);
+        ClusterMembership membership = node1.getBean(ClusterMembership.class);
+        String from = null;
+        String to = null;
+        for (int i = 0; to == null; i++) {
+            String accountId = "ID-" + i;
+            if (membership.getOwner(accountId).equals("node-2")) {
+                if (from == null) {
+                    from = accountId;
+                } else {
+                    to = accountId;
+                }
+            }
+        }
+        restTemplate.postForEntity(url(node1) + "/v1/accounts", new Account(from, new BigDecimal("100")), Void.class);
+        restTemplate.postForEntity(url(node1) + "/v1/accounts", new Account(to, new BigDecimal("100")), Void.class);
+
+        ResponseEntity<String> response = restTemplate.postForEntity(url(node1) + "/v1/transfers",
+                new Transfer(from, to, new BigDecimal("40")), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(repository(node2).getAccount(from).getBalance()).isEqualByComparingTo("60");
+        assertThat(repository(node2).getAccount(to).getBalance()).isEqualByComparingTo("140");
+        assertThat(repository(node1).getAccount(from)).isNull();
+    }
+
+    @Test
+    public void itShouldTransferAcrossPartitions() {
+        join(node1, "node-2", node2);
+        ClusterMembership membership = node1.getBean(ClusterMembership.class);
+        String from = null;
+        String to = null;
+        for (int i = 0; from == null || to == null; i++) {
+            String accountId = "ID-" + i;
+            if (membership.getOwner(accountId).equals("node-1")) {
+                from = accountId;
+            } else {
+                to = accountId;
+            }
+        }
+        restTemplate.postForEntity(url(node2) + "/v1/accounts", new Account(from, new BigDecimal("100")), Void.class);
+        restTemplate.postForEntity(url(node2) + "/v1/accounts", new Account(to, new BigDecimal("100")), Void.class);
+
+        ResponseEntity<String> response = restTemplate.postForEntity(url(node2) + "/v1/transfers",
+                new Transfer(from, to, new BigDecimal("40")), String.class);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(repository(node1).getAccount(from).getBalance()).isEqualByComparingTo("60");
+        assertThat(repository(node2).getAccount(to).getBalance()).isEqualByComparingTo("140");
+    }
+
+    @Test
+    public void leavingNodeShouldHandOverItsAccounts() {
+        join(node1, "node-2", node2);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            restTemplate.postForEntity(url(node2) + "/v1/accounts", new Account("ID-" + i, new BigDecimal("100")), Void.class);
+        }
+        assertThat(repository(node2).getAccounts()).isNotEmpty();
+
+        restTemplate.delete(url(node1) + "/v1/cluster/nodes/node-2");
+
+        assertThat(repository(node1).getAccounts()).hasSize(ACCOUNTS);
+        assertThat(repository(node2).getAccounts()).isEmpty();
+        assertThat(node1.getBean(ClusterMembership.class).getNodes()).extracting("nodeId").containsExactly("node-1");
+    }
+
+    @Test
+    public void itShouldCarryVersionAndReservationsOnHandOver() {
+        String accountId = ownedBy("node-2");
+        restTemplate.postForEntity(url(node1) + "/v1/accounts", new Account(accountId, new BigDecimal("100")), Void.class);
+        restTemplate.postForEntity(url(node1) + "/v1/accounts", new Account("OTHER", new BigDecimal("100")), Void.class);
+        restTemplate.postForEntity(url(node1) + "/v1/transfers", new Transfer(accountId, "OTHER", new BigDecimal("10")),
+                String.class);
+        Reservation reservation = node1.getBean(ReservationService.class)
+                .reserve(accountId, new Reservation(new BigDecimal("30"), 600L));
+        long version = repository(node1).getAccount(accountId).getVersion();
+
+        join(node1, "node-2", node2);
+
+        assertThat(repository(node1).getAccount(accountId)).isNull();
+        Account handedOver = repository(node2).getAccount(accountId);
+        assertThat(handedOver.getBalance()).isEqualByComparingTo("90");
+        assertThat(handedOver.getVersion()).isEqualTo(version);
+        assertThat(handedOver.getReserved()).isEqualByComparingTo("30");
+        assertThat(node2.getBean(ReservationService.class).getReservation(accountId, reservation.getReservationId())
+                .getExpiresAt()).isEqualTo(reservation.getExpiresAt());
+    }
+
+    @Test
+    public void itShouldKeepAccountWhenHandOverFails() {
+        String accountId = ownedBy("node-2");
+        restTemplate.postForEntity(url(node1) + "/v1/accounts", new Account(accountId, new BigDecimal("100")), Void.class);
+        //the new owner already has an account with that id and refuses the hand over
+        repository(node2).createAccount(new Account(accountId, new BigDecimal("5")));
+
+        join(node1, "node-2", node2);
+
+        Account kept = repository(node1).getAccount(accountId);
+        assertThat(kept).isNotNull();
+        assertThat(kept.isDetached()).isFalse();
+        assertThat(kept.getBalance()).isEqualByComparingTo("100");
+        assertThat(node1.getBean(ClusterMembership.class).getPendingHandOverCount()).isZero();
+    }
+
+    @Test
+    public void itShouldTakeOverARetriedHandOverOnce() {
+        AccountHandOver handOver = new AccountHandOver("hand-over-1", "ID-1", new BigDecimal("100"), 7,
+                Collections.emptyList());
+
+        ResponseEntity<String> first = restTemplate.postForEntity(url(node2) + "/v1/cluster/accounts", handOver,
+                String.class);
+        repository(node2).getAccount("ID-1").deposit(new BigDecimal("5"));
+        //the old owner did not see the first answer and sends the same hand over again
+        ResponseEntity<String> retried = restTemplate.postForEntity(url(node2) + "/v1/cluster/accounts", handOver,
+                String.class);
+
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+        assertThat(retried.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(repository(node2).getAccount("ID-1").getBalance()).isEqualByComparingTo("105");
+    }
+
+    @Test
+    public void itShouldRestoreAccountWhenTargetLeavesMidHandOver() throws Exception {
+        String accountId = ownedBy("node-3", "node-3");
+        restTemplate.postForEntity(url(node1) + "/v1/accounts", new Account(accountId, new BigDecimal("100")), Void.class);
+        ClusterMembership membership = node1.getBean(ClusterMembership.class);
+
+        //nothing listens there, the hand over stays unconfirmed
+        membership.join(new ClusterNode("node-3", "http://localhost:1"), false);
+        assertThat(repository(node1).getAccount(accountId)).isNull();
+        assertThat(membership.getPendingHandOverCount()).isEqualTo(1);
+
+        membership.leave("node-3", false);
+
+        long deadline = System.currentTimeMillis() + 15000;
+        while (membership.getPendingHandOverCount() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(100);
+        }
+        Account restored = repository(node1).getAccount(accountId);
+        assertThat(restored).isNotNull();
+        assertThat(restored.isDetached()).isFalse();
+        assertThat(restored.getBalance()).isEqualByComparingTo("100");
+        assertThat(membership.getPendingHandOverCount()).isZero();
+    }
+
+    @Test
+    public void itShouldRebalanceWhenAMemberCanNotBeReached() {
+        ClusterMembership membership = node1.getBean(ClusterMembership.class);
+        //nothing listens there, propagating the next join to it fails
+        membership.join(new ClusterNode("node-3", "http://localhost:1"), false);
+        ConsistentHashRing ring = new ConsistentHashRing(128);
+        ring.addNode("node-1");
+        ring.addNode("node-2");
+        ring.addNode("node-3");
+        String accountId = null;
+        for (int i = 0; accountId == null; i++) {
+            if (ring.getOwner("ID-" + i).equals("node-2")) {
+                accountId = "ID-" + i;
+            }
+        }
+        repository(node1).createAccount(new Account(accountId, new BigDecimal("100")));
+
+        membership.join(new ClusterNode("node-2", url(node2)), true);
+
+        assertThat(repository(node1).getAccount(accountId)).isNull();
+        assertThat(repository(node2).getAccount(accountId).getBalance()).isEqualByComparingTo("100");
+        assertThat(node2.getBean(ClusterMembership.class).getNodes()).extracting("nodeId").contains("node-1");
+    }
+
+    private static String ownedBy(String nodeId) {
+        return ownedBy(nodeId, "node-2");
+    }
+
+    private static String ownedBy(String nodeId, String otherNodeId) {
+        ConsistentHashRing ring = new ConsistentHashRing(128);
+        ring.addNode("node-1");
+        ring.addNode(otherNodeId);
+        for (int i = 0; ; i++) {
+            if (ring.getOwner("ID-" + i).equals(nodeId)) {
+                return "ID-" + i;
+            }
+        }
+    }
+
+    private void join(ConfigurableApplicationContext target, String nodeId, ConfigurableApplicationContext node) {
+        restTemplate.postForEntity(url(target) + "/v1/cluster/nodes", new ClusterNode(nodeId, url(node)), Void.class);
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        return new SpringApplicationBuilder(DevChallengeApplication.class).run("--server.port=0",
+                "--spring.jmx.enabled=false", "--cluster.enabled=true", "--cluster.self-id=" + nodeId);
+    }
+
+    private static AccountsRepository repository(ConfigurableApplicationContext node) {
+        return node.getBean(AccountsRepository.class);
+    }
+
+    private static String url(ConfigurableApplicationContext node) {
+        return node.getBean(ClusterMembership.class).getSelfUrl();
+    }
+}
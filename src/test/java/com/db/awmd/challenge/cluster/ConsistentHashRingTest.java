@@ -0,0 +1,90 @@
+package com.db.awmd.challenge.cluster;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConsistentHashRingTest {
+
+    private static final int KEYS = 10_000;
+
+    private ConsistentHashRing underTest;
+
+    @Before
+    public void setUp() {
+        underTest = new ConsistentHashRing(128);
+        underTest.addNode("node-1");
+        underTest.addNode("node-2");
+        underTest.addNode("node-3");
+    }
+
+    @Test
+    public void itShouldReturnNoOwnerForEmptyRing() {
+        assertThat(new ConsistentHashRing(16).getOwner("ID-A")).isNull();
+    }
+
+    @Test
+    public void itShouldAssignKeysDeterministically() {
+        ConsistentHashRing other = new ConsistentHashRing(128);
+        other.addNode("node-3");
+        other.addNode("node-1");
+        other.addNode("node-2");
+        for (int i = 0; i < KEYS; i++) {
+            assertThat(other.getOwner("ID-" + i)).isEqualTo(underTest.getOwner("ID-" + i));
+        }
+    }
+
+    @Test
+    public void itShouldSpreadKeysAcrossNodes() {
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(underTest.getOwner("ID-" + i), 1, Integer::sum);
+        }
+        assertThat(counts).hasSize(3);
+        for (int count : counts.values()) {
+            assertThat(count).isBetween(KEYS / 3 * 7 / 10, KEYS / 3 * 13 / 10);
+        }
+    }
+
+    @Test
+    public void addingNodeShouldOnlyMoveKeysToTheNewNode() {
+        Map<String, String> before = owners();
+        underTest.addNode("node-4");
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String owner = underTest.getOwner("ID-" + i);
+            if (!owner.equals(before.get("ID-" + i))) {
+                assertThat(owner).isEqualTo("node-4");
+                moved++;
+            }
+        }
+        assertThat(moved).isBetween(KEYS / 4 * 7 / 10, KEYS / 4 * 13 / 10);
+    }
+
+    @Test
+    public void removingNodeShouldOnlyMoveItsKeys() {
+        Map<String, String> before = owners();
+        underTest.removeNode("node-2");
+        assertThat(underTest.getNodes()).containsExactly("node-1", "node-3");
+        for (int i = 0; i < KEYS; i++) {
+            String previousOwner = before.get("ID-" + i);
+            if (!previousOwner.equals("node-2")) {
+                assertThat(underTest.getOwner("ID-" + i)).isEqualTo(previousOwner);
+            } else {
+                assertThat(underTest.getOwner("ID-" + i)).isNotEqualTo("node-2");
+            }
+        }
+    }
+
+    private Map<String, String> owners() {
+        Map<String, String> owners = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            owners.put("ID-" + i, underTest.getOwner("ID-" + i));
+        }
+        return owners;
+    }
+}
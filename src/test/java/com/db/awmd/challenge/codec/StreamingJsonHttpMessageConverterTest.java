@@ -0,0 +1,101 @@
+package com.db.awmd.challenge.codec;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Test;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.MediaType.APPLICATION_JSON;
+
+public class StreamingJsonHttpMessageConverterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final StreamingJsonHttpMessageConverter converter =
+            new StreamingJsonHttpMessageConverter(objectMapper.getFactory());
+
+    @Test
+    public void itShouldWriteAccountLikeDataBinding() throws Exception {
+        Account account = new Account("Id-123", new BigDecimal("123.45"));
+
+        assertThat(write(account)).isEqualTo("{\"accountId\":\"Id-123\",\"balance\":123.45}");
+        assertThat(write(account)).isEqualTo(writeWithDataBinding(account));
+        assertThat(write(new Account("Id-123", null))).isEqualTo(writeWithDataBinding(new Account("Id-123", null)));
+    }
+
+    @Test
+    public void itShouldReadTransferSkippingUnknownProperties() throws Exception {
+        Transfer transfer = (Transfer) read(Transfer.class, "{\"comment\":{\"tags\":[1,2]},\"fromAccountId\":\"ID-A\","
+                + "\"toAccountId\":7,\"transferAmount\":\"10.50\",\"extra\":null}");
+
+        assertThat(transfer.getFromAccountId()).isEqualTo("ID-A");
+        assertThat(transfer.getToAccountId()).isEqualTo("7");
+        assertThat(transfer.getTransferAmount()).isEqualByComparingTo("10.50");
+    }
+
+    @Test
+    public void itShouldReadAccountWithMissingBalanceAsNull() throws Exception {
+        Account account = (Account) read(Account.class, "{\"accountId\":\"Id-123\"}");
+
+        assertThat(account.getAccountId()).isEqualTo("Id-123");
+        assertThat(account.getBalance()).isNull();
+    }
+
+    @Test
+    public void itShouldRoundTripTransfer() throws Exception {
+        Transfer transfer = new Transfer("ID-A", "ID-B", new BigDecimal("1000000000000.01"));
+
+        Transfer read = (Transfer) read(Transfer.class, write(transfer));
+
+        assertThat(read).isEqualTo(transfer);
+    }
+
+    @Test(expected = HttpMessageNotReadableException.class)
+    public void itShouldRejectMalformedJson() throws Exception {
+        read(Transfer.class, "{\"fromAccountId\":\"ID-A\",");
+    }
+
+    @Test(expected = HttpMessageNotReadableException.class)
+    public void itShouldRejectNonNumericAmount() throws Exception {
+        read(Transfer.class, "{\"transferAmount\":\"ten\"}");
+    }
+
+    @Test(expected = HttpMessageNotReadableException.class)
+    public void itShouldRejectEmptyBody() throws Exception {
+        read(Account.class, "");
+    }
+
+    @Test
+    public void itShouldOnlyHandleAccountAndTransfer() {
+        assertThat(converter.canRead(Account.class, APPLICATION_JSON)).isTrue();
+        assertThat(converter.canWrite(Transfer.class, APPLICATION_JSON)).isTrue();
+        assertThat(converter.canRead(Object.class, APPLICATION_JSON)).isFalse();
+    }
+
+    private Object read(Class<?> clazz, String json) throws Exception {
+        MockHttpInputMessage input = new MockHttpInputMessage(json.getBytes(StandardCharsets.UTF_8));
+        input.getHeaders().setContentType(APPLICATION_JSON);
+        return converter.read(clazz.asSubclass(Object.class), input);
+    }
+
+    private String write(Object value) throws Exception {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        converter.write(value, APPLICATION_JSON, output);
+        return output.getBodyAsString(StandardCharsets.UTF_8);
+    }
+
+    private String writeWithDataBinding(Object value) throws Exception {
+        MockHttpOutputMessage output = new MockHttpOutputMessage();
+        new MappingJackson2HttpMessageConverter(objectMapper).write(value, APPLICATION_JSON, output);
+        return output.getBodyAsString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,69 @@
+package com.db.awmd.challenge.contention;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class HeavyHittersTest {
+
+    @Test
+    public void itShouldFindHotKeysAmongManyColdKeys() {
+        HeavyHitters underTest = new HeavyHitters(16, 4, 1024);
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            if (i % 10 == 0) {
+                underTest.record("HOT-" + random.nextInt(3), 1);
+            } else {
+                underTest.record("COLD-" + random.nextInt(100_000), 1);
+            }
+        }
+
+        List<Map.Entry<String, Long>> top = underTest.top(3);
+        assertThat(top).extracting(Map.Entry::getKey).containsOnly("HOT-0", "HOT-1", "HOT-2");
+        for (Map.Entry<String, Long> entry : top) {
+            //~6667 each, the sketch may only overcount
+            assertThat(entry.getValue()).isBetween(6_000L, 9_000L);
+        }
+    }
+
+    @Test
+    public void itShouldLetOldHotKeysFadeAway() {
+        HeavyHitters underTest = new HeavyHitters(4, 4, 1024);
+        underTest.record("OLD", 1_000);
+        underTest.decay();
+        assertThat(underTest.estimate("OLD")).isEqualTo(500);
+
+        underTest.record("NEW", 600);
+        assertThat(underTest.top(1).get(0).getKey()).isEqualTo("NEW");
+
+        for (int i = 0; i < 10; i++) {
+            underTest.decay();
+        }
+        assertThat(underTest.top(4)).isEmpty();
+    }
+
+    @Test
+    public void sketchShouldNeverUndercount() {
+        CountMinSketch sketch = new CountMinSketch(4, 256);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.add("KEY-" + (i % 1_000), 1);
+        }
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(sketch.estimate("KEY-" + i)).isGreaterThanOrEqualTo(10);
+        }
+    }
+
+    @Test
+    public void itShouldNotCollideKeysWithEqualHashCodesInEveryRow() {
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+        CountMinSketch underTest = new CountMinSketch(4, 1024, 42);
+        underTest.add("Aa", 1_000);
+
+        assertThat(underTest.estimate("Aa")).isEqualTo(1_000);
+        assertThat(underTest.estimate("BB")).isZero();
+    }
+}
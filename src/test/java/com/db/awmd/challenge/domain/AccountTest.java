@@ -65,4 +65,24 @@ public class AccountTest {
         underTest.deposit(null);
         assertEquals(new BigDecimal("10.00"), underTest.getBalance());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void itShouldBumpVersionOnBalanceChange(){
+        long initial = underTest.getVersion();
+        underTest.deposit(new BigDecimal("5.00"));
+        underTest.withdraw(new BigDecimal("5.00"));
+        assertEquals(initial + 2, underTest.getVersion());
+    }
+
+    @Test
+    public void itShouldNotBumpVersionWithoutBalanceChange(){
+        long initial = underTest.getVersion();
+        underTest.deposit(null);
+        try {
+            underTest.withdraw(new BigDecimal("20.00"));
+            fail("Expecting InSufficientFundException");
+        } catch (InSufficientFundException ex) {
+            assertEquals(initial, underTest.getVersion());
+        }
+    }
+}
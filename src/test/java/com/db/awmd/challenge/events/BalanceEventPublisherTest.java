@@ -0,0 +1,104 @@
+package com.db.awmd.challenge.events;
+
+import com.db.awmd.challenge.domain.Account;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BalanceEventPublisherTest {
+
+    /** Dispatcher tasks are queued here and only run when the test says so, like a stalled client. */
+    private final List<Runnable> dispatcherTasks = new ArrayList<>();
+
+    private final Account accountA = new Account("ID-A", new BigDecimal("100.00"));
+
+    private final Account accountB = new Account("ID-B", new BigDecimal("100.00"));
+
+    private BalanceEventPublisher underTest;
+
+    @Before
+    public void setUp() {
+        underTest = new BalanceEventPublisher(new ObjectMapper(), 2, 1, 60_000, 1_000, dispatcherTasks::add, 1);
+    }
+
+    @Test
+    public void itShouldNotDispatchForAccountsWithoutSubscribers() {
+        underTest.onTransferCommitted(accountA, accountB, BigDecimal.ONE);
+
+        assertThat(dispatcherTasks).isEmpty();
+    }
+
+    @Test
+    public void itShouldEvictSlowSubscriber() {
+        assertThat(underTest.subscribe(accountA)).isNotNull();
+        underTest.onTransferCommitted(accountA, accountB, BigDecimal.ONE);
+        assertThat(underTest.getSubscriberCount("ID-A")).isEqualTo(1);
+
+        //initial event and one transfer fill the buffer of two
+        underTest.onTransferCommitted(accountA, accountB, BigDecimal.ONE);
+        assertThat(dispatcherTasks).hasSize(1);
+        dispatcherTasks.remove(0).run();
+
+        assertThat(underTest.getSubscriberCount("ID-A")).isZero();
+    }
+
+    @Test
+    public void itShouldEvictSubscriberStalledInWrite() throws Exception {
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch socketGivesUp = new CountDownLatch(1);
+        CountDownLatch completed = new CountDownLatch(1);
+        SseEmitter blockingEmitter = new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                writing.countDown();
+                try {
+                    socketGivesUp.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void completeWithError(Throwable ex) {
+                completed.countDown();
+            }
+        };
+        AtomicInteger closed = new AtomicInteger();
+        AtomicInteger stalledWrites = new AtomicInteger();
+        BalanceSubscriber subscriber = new BalanceSubscriber("ID-A", blockingEmitter, 2,
+                runnable -> new Thread(runnable).start(), closed::incrementAndGet, stalledWrites::addAndGet);
+        subscriber.offer(new PublishedEvent(new ObjectMapper(), new BalanceEvent("ID-A", BigDecimal.TEN, 1,
+                BigDecimal.ZERO, null)));
+        assertThat(writing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        long writeTimeoutNanos = TimeUnit.SECONDS.toNanos(1);
+        assertThat(subscriber.evictIfStalled(System.nanoTime(), writeTimeoutNanos)).isFalse();
+        assertThat(subscriber.evictIfStalled(System.nanoTime() + writeTimeoutNanos, writeTimeoutNanos)).isTrue();
+        assertThat(subscriber.isClosed()).isTrue();
+        assertThat(closed.get()).isEqualTo(1);
+        assertThat(stalledWrites.get()).isEqualTo(1);
+
+        socketGivesUp.countDown();
+
+        assertThat(completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(stalledWrites.get()).isZero();
+    }
+
+    @Test
+    public void itShouldLimitSubscribers() {
+        assertThat(underTest.subscribe(accountA)).isNotNull();
+        assertThat(underTest.subscribe(accountB)).isNull();
+    }
+}
@@ -0,0 +1,80 @@
+package com.db.awmd.challenge.index;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.NotificationService;
+import com.db.awmd.challenge.service.FundTransferService;
+import com.db.awmd.challenge.transaction.LocalPartitionParticipant;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class BalanceIndexTest {
+
+    private AccountsRepositoryInMemory accountsRepository;
+
+    private FundTransferService fundTransferService;
+
+    private BalanceIndex underTest;
+
+    @Before
+    public void setUp() {
+        accountsRepository = new AccountsRepositoryInMemory();
+        underTest = new BalanceIndex(accountsRepository);
+        AccountsService accountsService = new AccountsService(accountsRepository);
+        accountsService.setAccountEventListeners(Collections.singletonList(underTest));
+        fundTransferService = new FundTransferService((account, description) -> { }, accountsService);
+        fundTransferService.setAccountEventListeners(Collections.singletonList(underTest));
+        accountsService.createAccount(new Account("ID-A", new BigDecimal("10.00")));
+        accountsService.createAccount(new Account("ID-B", new BigDecimal("20.00")));
+        accountsService.createAccount(new Account("ID-C", new BigDecimal("30.00")));
+        accountsService.createAccount(new Account("ID-D", new BigDecimal("40.00")));
+    }
+
+    @Test
+    public void itShouldFollowTransfers() {
+        fundTransferService.transferFund(new Transfer("ID-D", "ID-A", new BigDecimal("35.00")));
+
+        assertThat(underTest.getTop(2)).extracting("accountId").containsExactly("ID-A", "ID-C");
+        assertThat(underTest.getBelow(new BigDecimal("20.00"), 10)).extracting("accountId").containsExactly("ID-D");
+        assertThat(underTest.getTop(10)).hasSize(4);
+    }
+
+    @Test
+    public void itShouldKeepAccountsWithEqualBalances() {
+        fundTransferService.transferFund(new Transfer("ID-B", "ID-A", new BigDecimal("5.00")));
+
+        assertThat(underTest.getBelow(new BigDecimal("16.00"), 10)).extracting("accountId").containsExactly("ID-A", "ID-B");
+        assertThat(underTest.getTop(10)).hasSize(4);
+    }
+
+    @Test
+    public void itShouldSkipAccountsRemovedFromRepository() {
+        accountsRepository.clearAccounts();
+
+        assertThat(underTest.getTop(10)).isEmpty();
+    }
+
+    @Test
+    public void itShouldFollowCrossPartitionTransfers() {
+        LocalPartitionParticipant participant = new LocalPartitionParticipant(accountsRepository,
+                mock(NotificationService.class));
+        participant.setAccountEventListeners(Collections.singletonList(underTest));
+
+        participant.prepareDebit("tx-1", new Transfer("ID-D", "ID-REMOTE", new BigDecimal("35.00")));
+        participant.commit("tx-1");
+        participant.prepareCredit("tx-2", new Transfer("ID-REMOTE", "ID-A", new BigDecimal("50.00")));
+        participant.commit("tx-2");
+
+        assertThat(underTest.getTop(2)).extracting("accountId").containsExactly("ID-A", "ID-C");
+        assertThat(underTest.getBelow(new BigDecimal("10.00"), 10)).extracting("accountId").containsExactly("ID-D");
+    }
+}
@@ -0,0 +1,168 @@
+package com.db.awmd.challenge.nio;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.repository.AccountsRepository;
+import com.db.awmd.challenge.service.NotificationService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = {"binary-protocol.enabled=true", "binary-protocol.port=0",
+        "binary-protocol.max-in-flight=8"})
+public class BinaryTransferServerTest {
+
+    @Autowired
+    private BinaryTransferServer server;
+
+    @Autowired
+    private AccountsRepository accountsRepository;
+
+    @MockBean
+    private NotificationService notificationService;
+
+    private BinaryTransferClient client;
+
+    private Account accountA = new Account("ID-A", new BigDecimal("10.00"));
+
+    private Account accountB = new Account("ID-B", new BigDecimal("10.00"));
+
+    @Before
+    public void setUp() throws Exception {
+        accountsRepository.clearAccounts();
+        accountsRepository.createAccount(accountA);
+        accountsRepository.createAccount(accountB);
+        client = new BinaryTransferClient("localhost", server.getLocalPort());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.close();
+    }
+
+    @Test
+    public void itShouldTransferFunds() throws Exception {
+        BinaryTransferClient.Response response = client.transfer("ID-A", "ID-B", new BigDecimal("10.00"))
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(response.isOk()).isTrue();
+        assertThat(accountA.getBalance()).isEqualByComparingTo("0.00");
+        assertThat(accountB.getBalance()).isEqualByComparingTo("20.00");
+    }
+
+    @Test
+    public void itShouldReturnBalance() throws Exception {
+        BinaryTransferClient.Response response = client.balance("ID-A").get(5, TimeUnit.SECONDS);
+
+        assertThat(response.isOk()).isTrue();
+        assertThat(response.getBalance()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    public void itShouldRejectTransferOnInsufficientFunds() throws Exception {
+        BinaryTransferClient.Response response = client.transfer("ID-A", "ID-B", new BigDecimal("50.00"))
+                .get(5, TimeUnit.SECONDS);
+
+        assertThat(response.getStatus()).isEqualTo(BinaryProtocol.STATUS_BAD_REQUEST);
+        assertThat(response.getMessage())
+                .isEqualTo("Insufficient balance in account : ID-A, Unable to withdraw amount: 50.00");
+        assertThat(accountA.getBalance()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    public void itShouldRejectUnknownAccount() throws Exception {
+        BinaryTransferClient.Response response = client.balance("ID-X").get(5, TimeUnit.SECONDS);
+
+        assertThat(response.getStatus()).isEqualTo(BinaryProtocol.STATUS_BAD_REQUEST);
+    }
+
+    @Test
+    public void itShouldProcessPipelinedRequests() throws Exception {
+        List<CompletableFuture<BinaryTransferClient.Response>> responses = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            responses.add(client.transfer("ID-A", "ID-B", new BigDecimal("0.01")));
+            responses.add(client.transfer("ID-B", "ID-A", new BigDecimal("0.01")));
+        }
+        for (CompletableFuture<BinaryTransferClient.Response> response : responses) {
+            assertThat(response.get(5, TimeUnit.SECONDS).isOk()).isTrue();
+        }
+
+        assertThat(accountA.getBalance()).isEqualByComparingTo("10.00");
+        assertThat(accountB.getBalance()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    public void itShouldRejectAmountWithoutDigits() throws Exception {
+        byte[] from = "ID-A".getBytes(StandardCharsets.UTF_8);
+        byte[] to = "ID-B".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(BinaryProtocol.HEADER_SIZE + 2 + from.length + 2 + to.length + 4 + 1);
+        frame.putLong(7L).put(BinaryProtocol.OP_TRANSFER)
+                .putShort((short) from.length).put(from)
+                .putShort((short) to.length).put(to)
+                .putInt(2).put((byte) 0);
+        frame.flip();
+
+        ByteBuffer response = server.process(frame);
+
+        assertThat(response.getInt()).isPositive();
+        assertThat(response.getLong()).isEqualTo(7L);
+        assertThat(response.get()).isEqualTo(BinaryProtocol.STATUS_BAD_REQUEST);
+        assertThat(BinaryProtocol.getString(response)).isEqualTo("Malformed amount");
+        assertThat(accountA.getBalance()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    public void itShouldRejectAmountWithScaleOutOfRange() throws Exception {
+        byte[] from = "ID-A".getBytes(StandardCharsets.UTF_8);
+        byte[] to = "ID-B".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer frame = ByteBuffer.allocate(BinaryProtocol.HEADER_SIZE + 2 + from.length + 2 + to.length + 4 + 2);
+        frame.putLong(8L).put(BinaryProtocol.OP_TRANSFER)
+                .putShort((short) from.length).put(from)
+                .putShort((short) to.length).put(to)
+                .putInt(-1_000_000_000).put((byte) 1).put((byte) 1);
+        frame.flip();
+
+        ByteBuffer response = server.process(frame);
+
+        assertThat(response.getInt()).isPositive();
+        assertThat(response.getLong()).isEqualTo(8L);
+        assertThat(response.get()).isEqualTo(BinaryProtocol.STATUS_BAD_REQUEST);
+        assertThat(BinaryProtocol.getString(response)).isEqualTo("Malformed amount");
+        assertThat(accountA.getBalance()).isEqualByComparingTo("10.00");
+        assertThat(accountB.getBalance()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    public void itShouldTruncateLongErrorMessages() {
+        StringBuilder message = new StringBuilder();
+        for (int i = 0; i < 40_000; i++) {
+            message.append('\u20AC');
+        }
+
+        ByteBuffer response = BinaryProtocol.encodeErrorResponse(1L, BinaryProtocol.STATUS_SERVER_ERROR,
+                message.toString());
+
+        assertThat(response.getInt()).isLessThanOrEqualTo(BinaryProtocol.MAX_FRAME_LENGTH);
+        response.getLong();
+        response.get();
+        String text = BinaryProtocol.getString(response);
+        assertThat(text).isNotEmpty().matches("\u20AC+");
+        assertThat(message.toString()).startsWith(text);
+    }
+}
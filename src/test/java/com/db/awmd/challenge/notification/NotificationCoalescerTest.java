@@ -0,0 +1,64 @@
+package com.db.awmd.challenge.notification;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.service.NotificationService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.mockito.Mockito.*;
+
+public class NotificationCoalescerTest {
+
+    private NotificationService notificationService;
+
+    private NotificationCoalescer underTest;
+
+    private Account accountA = new Account("ID-A", new BigDecimal("100.00"));
+
+    private Account accountB = new Account("ID-B", new BigDecimal("100.00"));
+
+    @Before
+    public void setUp() {
+        notificationService = mock(NotificationService.class);
+        underTest = new NotificationCoalescer(notificationService, 60, 1, 2);
+        underTest.start();
+    }
+
+    @After
+    public void tearDown() {
+        underTest.stop();
+    }
+
+    @Test
+    public void itShouldSendOneDigestPerAccountAndWindow() {
+        underTest.record(accountA, "ID-X", new BigDecimal("10.00"), true);
+        underTest.record(accountA, "ID-Y", new BigDecimal("5.00"), true);
+        underTest.record(accountA, "ID-Z", new BigDecimal("1.00"), true);
+        //counterparties beyond the listed ones are counted once each
+        underTest.record(accountA, "ID-Z", new BigDecimal("1.00"), true);
+        underTest.record(accountA, "ID-X", new BigDecimal("2.50"), false);
+        verify(notificationService, never()).notifyAboutTransfer(any(Account.class), anyString());
+
+        underTest.flush();
+        underTest.flush();
+
+        verify(notificationService).notifyAboutTransfer(accountA, "4 transfers received totalling 17.00 "
+                + "from Accounts ID-X, ID-Y and 1 more. 1 transfer sent totalling 2.50 to Account ID-X.");
+        verifyNoMoreInteractions(notificationService);
+    }
+
+    @Test
+    public void itShouldNotifyRightAwayOncePendingDigestsAreFull() {
+        underTest.record(accountA, "ID-X", new BigDecimal("10.00"), true);
+        underTest.record(accountB, "ID-X", new BigDecimal("7.00"), false);
+
+        verify(notificationService, timeout(1000))
+                .notifyAboutTransfer(accountB, "1 transfer sent totalling 7.00 to Account ID-X.");
+        underTest.flush();
+        verify(notificationService).notifyAboutTransfer(accountA, "1 transfer received totalling 10.00 from Account ID-X.");
+    }
+}
@@ -0,0 +1,130 @@
+package com.db.awmd.challenge.replication;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class ReplicationLeaderTest {
+
+    private ReplicationLeader leader;
+
+    @Before
+    public void setUp() throws Exception {
+        AccountsRepositoryInMemory accountsRepository = new AccountsRepositoryInMemory();
+        accountsRepository.createAccount(new Account("ID-A", new BigDecimal("1000")));
+        leader = new ReplicationLeader(accountsRepository, 0, 16, 2);
+        leader.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        leader.stop();
+    }
+
+    @Test
+    public void itShouldDisconnectStalledFollowerAndResyncItFromSnapshot() throws Exception {
+        Account account = new Account("ID-A", new BigDecimal("1000"));
+        try (Socket stalled = new Socket()) {
+            stalled.setReceiveBufferSize(1024);
+            stalled.connect(new InetSocketAddress("localhost", leader.getLocalPort()));
+            waitForFollowers(1);
+
+            //never read, the socket buffers fill up and then the follower's backlog
+            long deadline = System.currentTimeMillis() + 60_000;
+            while (leader.getStatus().getFollowers() > 0) {
+                if (System.currentTimeMillis() > deadline) {
+                    fail("Stalled follower not disconnected within 60 seconds.");
+                }
+                for (int i = 0; i < 10_000; i++) {
+                    leader.onBalanceChanged(account, BigDecimal.ONE, "ID-B");
+                }
+            }
+        }
+
+        try (Socket follower = new Socket()) {
+            follower.connect(new InetSocketAddress("localhost", leader.getLocalPort()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(follower.getInputStream()));
+            in.readInt();
+            assertThat(in.readByte()).isEqualTo(ReplicationLeader.FRAME_SNAPSHOT);
+            waitForFollowers(1);
+        }
+    }
+
+    @Test
+    public void itShouldShipRecordsInSequenceOrder() throws Exception {
+        int threads = 8;
+        int recordsPerThread = 2_000;
+        //backlog for every batch, the follower is only read once all records are appended
+        ReplicationLeader underTest = new ReplicationLeader(new AccountsRepositoryInMemory(), 0, 16,
+                threads * recordsPerThread);
+        underTest.start();
+        try (Socket follower = new Socket()) {
+            follower.connect(new InetSocketAddress("localhost", underTest.getLocalPort()));
+            DataInputStream in = new DataInputStream(new BufferedInputStream(follower.getInputStream()));
+            in.readInt();
+            assertThat(in.readByte()).isEqualTo(ReplicationLeader.FRAME_SNAPSHOT);
+            in.readLong();
+            long lastSequence = in.readLong() - 1;
+            assertThat(in.readInt()).isZero();
+
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Account account = new Account("ID-" + t, new BigDecimal("1000"));
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < recordsPerThread; i++) {
+                        underTest.onBalanceChanged(account, BigDecimal.ONE, null);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            executor.shutdown();
+
+            while (lastSequence < threads * recordsPerThread) {
+                in.readInt();
+                assertThat(in.readByte()).isEqualTo(ReplicationLeader.FRAME_BATCH);
+                in.readLong();
+                in.readLong();
+                int count = in.readInt();
+                for (int i = 0; i < count; i++) {
+                    long recordSequence = ReplicationRecord.readFrom(in).getSequence();
+                    assertThat(recordSequence).isEqualTo(lastSequence + 1);
+                    lastSequence = recordSequence;
+                }
+            }
+        } finally {
+            underTest.stop();
+        }
+    }
+
+    private void waitForFollowers(int followers) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (leader.getStatus().getFollowers() != followers) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Expecting " + followers + " followers within 10 seconds.");
+            }
+            //an idle leader only ships a heartbeat every second
+            leader.onBalanceChanged(new Account("ID-A", new BigDecimal("1000")), BigDecimal.ONE, "ID-B");
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.db.awmd.challenge.replication;
+
+import com.db.awmd.challenge.DevChallengeApplication;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.FundTransferService;
+import com.db.awmd.challenge.transaction.LocalPartitionParticipant;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs the leader in this JVM and a follower in a second JVM.
+ */
+public class ReplicationTest {
+
+    private static final int ACCOUNTS = 20;
+
+    private final RestTemplate restTemplate = new RestTemplate();
+
+    private ConfigurableApplicationContext leader;
+
+    private Process follower;
+
+    private String followerUrl;
+
+    @Before
+    public void setUp() throws Exception {
+        leader = new SpringApplicationBuilder(DevChallengeApplication.class).run("--server.port=0",
+                "--spring.jmx.enabled=false", "--replication.role=leader", "--replication.port=0");
+        int followerPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            followerPort = socket.getLocalPort();
+        }
+        followerUrl = "http://localhost:" + followerPort;
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        follower = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                DevChallengeApplication.class.getName(), "--server.port=" + followerPort,
+                "--replication.role=follower",
+                "--replication.leader-port=" + leader.getBean(ReplicationLeader.class).getLocalPort())
+                .redirectErrorStream(true)
+                .redirectOutput(File.createTempFile("replication-follower", ".log"))
+                .start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        follower.destroy();
+        follower.waitFor();
+        leader.close();
+    }
+
+    @Test
+    public void followerShouldServeLeaderState() throws Exception {
+        AccountsService accountsService = leader.getBean(AccountsService.class);
+        FundTransferService fundTransferService = leader.getBean(FundTransferService.class);
+        for (int i = 0; i < ACCOUNTS / 2; i++) {
+            accountsService.createAccount(new Account("ID-" + i, new BigDecimal("1000")));
+        }
+        waitFor(() -> followerStatus() != null && followerStatus().isConnected());
+        for (int i = ACCOUNTS / 2; i < ACCOUNTS; i++) {
+            accountsService.createAccount(new Account("ID-" + i, new BigDecimal("1000")));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2_000; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    fundTransferService.transferFund(new Transfer("ID-" + from, "ID-" + to, new BigDecimal("0.01")));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        waitFor(() -> followerStatus().getLagRecords() == 0
+                && followerStatus().getAppliedSequence() == leader.getBean(ReplicationLeader.class).getStatus().getHeadSequence());
+        for (int i = 0; i < ACCOUNTS; i++) {
+            Account replica = restTemplate.getForObject(followerUrl + "/v1/accounts/ID-" + i, Account.class);
+            assertThat(replica.getBalance()).isEqualByComparingTo(accountsService.getAccount("ID-" + i).getBalance());
+        }
+    }
+
+    @Test
+    public void followerShouldServeCrossPartitionTransfers() throws Exception {
+        AccountsService accountsService = leader.getBean(AccountsService.class);
+        accountsService.createAccount(new Account("ID-A", new BigDecimal("1000")));
+        accountsService.createAccount(new Account("ID-B", new BigDecimal("1000")));
+        waitFor(() -> followerStatus() != null && followerStatus().isConnected());
+        //the leader's side of transfers with accounts of another partition
+        LocalPartitionParticipant participant = leader.getBean(LocalPartitionParticipant.class);
+        participant.prepareDebit("tx-1", new Transfer("ID-A", "ID-REMOTE", new BigDecimal("10")));
+        participant.commit("tx-1");
+        participant.prepareCredit("tx-2", new Transfer("ID-REMOTE", "ID-B", new BigDecimal("5")));
+        participant.commit("tx-2");
+        participant.prepareDebit("tx-3", new Transfer("ID-B", "ID-REMOTE", new BigDecimal("3")));
+        participant.abort("tx-3");
+
+        waitFor(() -> followerStatus().getLagRecords() == 0
+                && followerStatus().getAppliedSequence() == leader.getBean(ReplicationLeader.class).getStatus().getHeadSequence());
+        assertThat(restTemplate.getForObject(followerUrl + "/v1/accounts/ID-A", Account.class).getBalance())
+                .isEqualByComparingTo("990");
+        assertThat(restTemplate.getForObject(followerUrl + "/v1/accounts/ID-B", Account.class).getBalance())
+                .isEqualByComparingTo("1005");
+    }
+
+    @Test
+    public void followerShouldRejectWrites() throws Exception {
+        waitFor(() -> followerStatus() != null && followerStatus().isConnected());
+        try {
+            restTemplate.postForEntity(followerUrl + "/v1/accounts", new Account("ID-X", BigDecimal.ONE), Void.class);
+            fail("Expecting follower to reject writes.");
+        } catch (HttpClientErrorException ex) {
+            assertThat(ex.getStatusCode()).isEqualTo(HttpStatus.METHOD_NOT_ALLOWED);
+        }
+    }
+
+    private ReplicationStatus followerStatus() {
+        try {
+            return restTemplate.getForObject(followerUrl + "/v1/replication/status", ReplicationStatus.class);
+        } catch (RestClientException ex) {
+            return null;
+        }
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Condition not met within 60 seconds.");
+            }
+            Thread.sleep(200);
+        }
+    }
+}
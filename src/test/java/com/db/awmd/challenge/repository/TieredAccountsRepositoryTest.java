@@ -0,0 +1,194 @@
+package com.db.awmd.challenge.repository;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.FundTransferService;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class TieredAccountsRepositoryTest {
+
+    private static final int ACCOUNTS = 500;
+
+    private static final int MAX_RESIDENT = 50;
+
+    private TieredAccountsRepository underTest;
+
+    @Before
+    public void setUp() throws Exception {
+        File file = File.createTempFile("tiered-accounts", ".dat");
+        underTest = new TieredAccountsRepository(MAX_RESIDENT, file.getPath());
+        for (int i = 0; i < ACCOUNTS; i++) {
+            underTest.createAccount(new Account("ID-" + i, new BigDecimal("100.00")));
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        underTest.close();
+    }
+
+    @Test
+    public void itShouldKeepEvictedAccountsRetrievable() throws Exception {
+        waitForEvictions();
+
+        assertThat(underTest.getResidentCount()).isLessThanOrEqualTo(MAX_RESIDENT);
+        assertThat(underTest.getAccounts()).hasSize(ACCOUNTS);
+        for (int i = 0; i < ACCOUNTS; i++) {
+            assertThat(underTest.containsAccount("ID-" + i)).isTrue();
+            assertThat(underTest.getAccount("ID-" + i).getBalance()).isEqualByComparingTo("100.00");
+        }
+        assertThat(underTest.getAccount("ID-" + ACCOUNTS)).isNull();
+    }
+
+    @Test
+    public void itShouldRestoreBalanceAndVersion() throws Exception {
+        Account account = underTest.getAccount("ID-0");
+        account.deposit(new BigDecimal("0.50"));
+        long version = account.getVersion();
+        for (int i = 0; i < ACCOUNTS; i++) {
+            underTest.getAccount("ID-" + i);
+        }
+        waitForEvictions();
+
+        Account loaded = underTest.getAccount("ID-0");
+        assertThat(loaded.getBalance()).isEqualByComparingTo("100.50");
+        assertThat(loaded.getVersion()).isEqualTo(version);
+    }
+
+    @Test(expected = DuplicateAccountIdException.class)
+    public void itShouldRejectDuplicateOfEvictedAccount() throws Exception {
+        waitForEvictions();
+
+        underTest.createAccount(new Account("ID-0", BigDecimal.ONE));
+    }
+
+    @Test
+    public void itShouldConserveTotalUnderConcurrentTransfers() throws Exception {
+        FundTransferService fundTransferService = new FundTransferService((account, description) -> { },
+                new AccountsService(underTest));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 5_000; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    fundTransferService.transferFund(new Transfer("ID-" + from, "ID-" + to, new BigDecimal("0.01")));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (Account account : underTest.getAccounts()) {
+            total = total.add(account.getBalance());
+        }
+        assertThat(total).isEqualByComparingTo(new BigDecimal("100.00").multiply(BigDecimal.valueOf(ACCOUNTS)));
+    }
+
+    @Test
+    public void itShouldFinishPendingEvictionsOnClose() throws Exception {
+        Logger logger = (Logger) LoggerFactory.getLogger(TieredAccountsRepository.class);
+        ListAppender<ILoggingEvent> logEvents = new ListAppender<>();
+        logEvents.start();
+        logger.addAppender(logEvents);
+        try {
+            //evictions of the accounts created by setUp are still queued
+            underTest.close();
+        } finally {
+            logger.detachAppender(logEvents);
+        }
+
+        assertThat(underTest.getResidentCount()).isLessThanOrEqualTo(MAX_RESIDENT);
+        assertThat(logEvents.list).extracting(ILoggingEvent::getLevel).doesNotContain(Level.ERROR);
+    }
+
+    @Test
+    public void policyShouldResistScans() {
+        WTinyLfuPolicy policy = new WTinyLfuPolicy(100);
+        for (int i = 0; i < 90; i++) {
+            policy.recordInsert("HOT-" + i);
+        }
+        //one-off keys, with the working set still in use in between
+        for (int i = 0; i < 10_000; i++) {
+            policy.recordInsert("SCAN-" + i);
+            if (i % 100 == 0) {
+                for (int j = 0; j < 90; j++) {
+                    policy.recordAccess("HOT-" + j);
+                }
+            }
+        }
+
+        int hot = 0;
+        for (int i = 0; i < 90; i++) {
+            hot += policy.contains("HOT-" + i) ? 1 : 0;
+        }
+        //a plain LRU would have kept none of them
+        assertThat(hot).isGreaterThanOrEqualTo(85);
+        assertThat(policy.size()).isLessThanOrEqualTo(100);
+    }
+
+    @Test
+    public void sketchShouldNotShareCountersOfEqualHashCodes() {
+        FrequencySketch sketch = new FrequencySketch(100);
+        assertThat("Aa".hashCode()).isEqualTo("BB".hashCode());
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("Aa");
+        }
+
+        assertThat(sketch.frequency("Aa")).isEqualTo(10);
+        assertThat(sketch.frequency("BB")).isZero();
+    }
+
+    @Test
+    public void storeShouldKeepIdsLongerThanAShort() throws Exception {
+        File file = File.createTempFile("account-store", ".dat");
+        StringBuilder accountId = new StringBuilder();
+        while (accountId.length() <= Short.MAX_VALUE) {
+            accountId.append("ID-LONG-");
+        }
+        try (AccountStore store = new AccountStore(file)) {
+            store.write(new Account(accountId.toString(), new BigDecimal("12.34")));
+
+            Account loaded = store.read(accountId.toString());
+            assertThat(loaded.getAccountId()).isEqualTo(accountId.toString());
+            assertThat(loaded.getBalance()).isEqualByComparingTo("12.34");
+        }
+    }
+
+    private void waitForEvictions() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (underTest.getResidentCount() > MAX_RESIDENT) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Accounts not evicted within 10 seconds.");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
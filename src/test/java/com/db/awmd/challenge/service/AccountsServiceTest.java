@@ -5,8 +5,15 @@ import static org.junit.Assert.fail;
 
 import com.db.awmd.challenge.domain.Account;
 import com.db.awmd.challenge.exception.DuplicateAccountIdException;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
 import com.db.awmd.challenge.service.AccountsService;
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -43,4 +50,73 @@ public class AccountsServiceTest {
     }
 
   }
+
+  @Test
+  public void addAccount_notifiesListenersHoldingAccountLock() throws Exception {
+    AccountsService underTest = new AccountsService(new AccountsRepositoryInMemory());
+    AtomicBoolean lockedDuringListener = new AtomicBoolean(true);
+    CountDownLatch otherLocked = new CountDownLatch(1);
+    underTest.setAccountEventListeners(Collections.singletonList(new AccountEventListener() {
+      @Override
+      public void onAccountCreated(Account account) {
+        new Thread(() -> {
+          account.lock();
+          account.unlock();
+          otherLocked.countDown();
+        }).start();
+        try {
+          lockedDuringListener.set(!otherLocked.await(200, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+        }
+      }
+    }));
+
+    underTest.createAccount(new Account("Id-Locked", BigDecimal.TEN));
+
+    assertThat(otherLocked.await(5, TimeUnit.SECONDS)).isTrue();
+    assertThat(lockedDuringListener.get()).isTrue();
+  }
+
+  @Test
+  public void addAndRemoveAccount_survivesFailingListener() throws Exception {
+    AccountsService underTest = new AccountsService(new AccountsRepositoryInMemory());
+    AtomicInteger notified = new AtomicInteger();
+    AccountEventListener failing = new AccountEventListener() {
+      @Override
+      public void onAccountCreated(Account account) {
+        throw new IllegalStateException("listener failure");
+      }
+
+      @Override
+      public void onAccountRemoved(Account account) {
+        throw new IllegalStateException("listener failure");
+      }
+    };
+    AccountEventListener counting = new AccountEventListener() {
+      @Override
+      public void onAccountCreated(Account account) {
+        notified.incrementAndGet();
+      }
+
+      @Override
+      public void onAccountRemoved(Account account) {
+        notified.incrementAndGet();
+      }
+    };
+    underTest.setAccountEventListeners(Arrays.asList(failing, counting));
+
+    Account account = new Account("Id-Failing", BigDecimal.TEN);
+    underTest.createAccount(account);
+    assertThat(underTest.getAccount("Id-Failing")).isEqualTo(account);
+    account.lock();
+    try {
+      assertThat(underTest.removeAccount("Id-Failing")).isEqualTo(account);
+    } finally {
+      account.unlock();
+    }
+
+    assertThat(underTest.getAccount("Id-Failing")).isNull();
+    assertThat(notified.get()).isEqualTo(2);
+  }
 }
@@ -0,0 +1,43 @@
+package com.db.awmd.challenge.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class ExpiryWheelTest {
+
+  @Test
+  public void itShouldExpireDeadlinesBeyondOneRevolutionOnTime() {
+    //8 slots of 10 ms, a revolution is 80 ms
+    ExpiryWheel underTest = new ExpiryWheel(10, 8, 0);
+    underTest.schedule("near", 30);
+    underTest.schedule("far", 250);
+
+    for (long now = 10; now < 250; now += 10) {
+      assertThat(underTest.advance(now)).as("at %s ms", now).doesNotContain("far");
+    }
+    assertThat(underTest.advance(250)).containsExactly("far");
+  }
+
+  @Test
+  public void itShouldExpireDeadlinesSkippedOverByALongGap() {
+    ExpiryWheel underTest = new ExpiryWheel(10, 8, 0);
+    underTest.schedule("first", 50);
+    underTest.schedule("second", 400);
+    underTest.schedule("later", 2000);
+
+    assertThat(underTest.advance(1000)).containsExactlyInAnyOrder("first", "second");
+    assertThat(underTest.advance(1990)).isEmpty();
+    assertThat(underTest.advance(2000)).containsExactly("later");
+  }
+
+  @Test
+  public void itShouldExpireDeadlinesAlreadyPassedOnNextAdvance() {
+    ExpiryWheel underTest = new ExpiryWheel(10, 8, 0);
+    underTest.advance(500);
+
+    underTest.schedule("late", 100);
+
+    assertThat(underTest.advance(510)).contains("late");
+  }
+}
@@ -1,6 +1,8 @@
 package com.db.awmd.challenge.service;
 
 import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Posting;
+import com.db.awmd.challenge.domain.PostingLeg;
 import com.db.awmd.challenge.domain.Transfer;
 import com.db.awmd.challenge.exception.AccountNotFoundException;
 import com.db.awmd.challenge.exception.FundTransferException;
@@ -18,6 +20,7 @@ import org.springframework.test.context.junit4.SpringRunner;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -181,6 +184,73 @@ public class FundTransferServiceTest {
         }
     }
 
+    @Test
+    public void itShouldApplyPosting(){
+        accountsService.createAccount(accountA);
+        accountsService.createAccount(accountB);
+        accountsService.createAccount(accountC);
+        Posting posting = new Posting(Arrays.asList(new PostingLeg("ID-C", new BigDecimal("-30.00")),
+                new PostingLeg("ID-A", new BigDecimal("20.00")), new PostingLeg("ID-B", new BigDecimal("10.00"))));
+        underTest.post(posting);
+        assertThat(accountA.getBalance()).isEqualByComparingTo("30.00");
+        assertThat(accountB.getBalance()).isEqualByComparingTo("20.00");
+        assertThat(accountC.getBalance()).isEqualByComparingTo("970.00");
+        verify(notificationService).notifyAboutTransfer(eq(accountC), eq("An amount of 30.00 transferred in a posting"));
+        verify(notificationService).notifyAboutTransfer(eq(accountA), eq("An amount of 20.00 received in a posting"));
+    }
+
+    @Test
+    public void itShouldNotApplyPartialPosting(){
+        accountsService.createAccount(accountA);
+        accountsService.createAccount(accountB);
+        accountsService.createAccount(accountC);
+        Posting posting = new Posting(Arrays.asList(new PostingLeg("ID-C", new BigDecimal("-5.00")),
+                new PostingLeg("ID-B", new BigDecimal("-15.00")), new PostingLeg("ID-A", new BigDecimal("20.00"))));
+        try {
+            underTest.post(posting);
+            fail("Expecting InSufficientFundException to be thrown.");
+        } catch (InSufficientFundException ex) {
+            assertEquals("Insufficient balance in account : ID-B, Unable to withdraw amount: 15.00", ex.getMessage());
+        }
+        assertThat(accountA.getBalance()).isEqualByComparingTo("10.00");
+        assertThat(accountB.getBalance()).isEqualByComparingTo("10.00");
+        assertThat(accountC.getBalance()).isEqualByComparingTo("1000.00");
+        verify(notificationService, never()).notifyAboutTransfer(any(Account.class), anyString());
+    }
+
+    @Test
+    public void itShouldNotApplyUnbalancedPosting(){
+        accountsService.createAccount(accountA);
+        accountsService.createAccount(accountB);
+        Posting posting = new Posting(Arrays.asList(new PostingLeg("ID-A", new BigDecimal("-5.00")),
+                new PostingLeg("ID-B", new BigDecimal("4.00"))));
+        try {
+            underTest.post(posting);
+            fail("Expecting InValidTransferRequestException to be thrown.");
+        } catch (InValidTransferRequestException ex) {
+            assertEquals("Posting legs should sum to Zero.", ex.getMessage());
+        }
+        assertThat(accountA.getBalance()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    public void itShouldNotApplyPostingWithTooManyLegs(){
+        accountsService.createAccount(accountA);
+        accountsService.createAccount(accountB);
+        List<PostingLeg> legs = new ArrayList<>();
+        for (int i = 0; i <= Posting.MAX_LEGS / 2; i++) {
+            legs.add(new PostingLeg("ID-A", new BigDecimal("-1.00")));
+            legs.add(new PostingLeg("ID-B", new BigDecimal("1.00")));
+        }
+        try {
+            underTest.post(new Posting(legs));
+            fail("Expecting InValidTransferRequestException to be thrown.");
+        } catch (InValidTransferRequestException ex) {
+            assertEquals("Posting should not have more than 100 legs.", ex.getMessage());
+        }
+        assertThat(accountA.getBalance()).isEqualByComparingTo("10.00");
+    }
+
     class CallableTransferService implements Callable<String> {
         Transfer transfer;
         FundTransferService fundTransferService;
@@ -0,0 +1,138 @@
+package com.db.awmd.challenge.service;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Reservation;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.InSufficientFundException;
+import com.db.awmd.challenge.exception.InValidTransferRequestException;
+import com.db.awmd.challenge.exception.ReservationNotFoundException;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+
+public class ReservationServiceTest {
+
+    private AccountsService accountsService;
+
+    private FundTransferService fundTransferService;
+
+    private ReservationService underTest;
+
+    @Before
+    public void setUp() {
+        accountsService = new AccountsService(new AccountsRepositoryInMemory());
+        fundTransferService = new FundTransferService((account, description) -> { }, accountsService);
+        underTest = new ReservationService(accountsService, fundTransferService, 300, 3600, 100);
+        accountsService.createAccount(new Account("ID-A", new BigDecimal("100.00")));
+        accountsService.createAccount(new Account("ID-B", new BigDecimal("0.00")));
+    }
+
+    @Test
+    public void reservedFundsShouldOnlyBeCaptured() {
+        Reservation reservation = underTest.reserve("ID-A", new Reservation(new BigDecimal("80.00"), null));
+
+        assertThat(accountsService.getAccount("ID-A").getAvailableBalance()).isEqualByComparingTo("20.00");
+        try {
+            fundTransferService.transferFund(new Transfer("ID-A", "ID-B", new BigDecimal("30.00")));
+            fail("Expecting reserved funds to be unavailable.");
+        } catch (InSufficientFundException ex) {
+            assertThat(accountsService.getAccount("ID-A").getBalance()).isEqualByComparingTo("100.00");
+        }
+
+        underTest.capture("ID-A", reservation.getReservationId(), "ID-B");
+
+        assertThat(accountsService.getAccount("ID-A").getBalance()).isEqualByComparingTo("20.00");
+        assertThat(accountsService.getAccount("ID-A").getAvailableBalance()).isEqualByComparingTo("20.00");
+        assertThat(accountsService.getAccount("ID-B").getBalance()).isEqualByComparingTo("80.00");
+        assertThat(underTest.getOpenReservationCount()).isZero();
+    }
+
+    @Test(expected = InSufficientFundException.class)
+    public void itShouldNotReserveMoreThanAvailable() {
+        underTest.reserve("ID-A", new Reservation(new BigDecimal("60.00"), null));
+        underTest.reserve("ID-A", new Reservation(new BigDecimal("60.00"), null));
+    }
+
+    @Test(expected = InValidTransferRequestException.class)
+    public void itShouldRejectTimeToLiveAboveMaximum() {
+        underTest.reserve("ID-A", new Reservation(new BigDecimal("10.00"), 3601L));
+    }
+
+    @Test
+    public void releasedReservationShouldNotBeCaptured() {
+        Reservation reservation = underTest.reserve("ID-A", new Reservation(new BigDecimal("80.00"), null));
+
+        underTest.release("ID-A", reservation.getReservationId());
+
+        assertThat(accountsService.getAccount("ID-A").getAvailableBalance()).isEqualByComparingTo("100.00");
+        try {
+            underTest.capture("ID-A", reservation.getReservationId(), "ID-B");
+            fail("Expecting released reservation to be closed.");
+        } catch (ReservationNotFoundException ex) {
+            assertThat(accountsService.getAccount("ID-B").getBalance()).isEqualByComparingTo("0.00");
+        }
+    }
+
+    @Test
+    public void failedCaptureShouldKeepReservationOpen() {
+        Reservation reservation = underTest.reserve("ID-A", new Reservation(new BigDecimal("80.00"), null));
+
+        try {
+            underTest.capture("ID-A", reservation.getReservationId(), "ID-A");
+            fail("Expecting capture into the reserving account to fail.");
+        } catch (InValidTransferRequestException ex) {
+            assertThat(underTest.getReservation("ID-A", reservation.getReservationId())).isEqualTo(reservation);
+        }
+    }
+
+    @Test
+    public void failedCaptureShouldNotReopenReservationOfAccountHandedOver() {
+        FundTransferService handingOver = new FundTransferService((account, description) -> { }, accountsService) {
+            @Override
+            public void captureReservation(Reservation reservation, String toAccountId) {
+                //the account moves to another node while the capture runs
+                Account account = accountsService.getAccount(reservation.getAccountId());
+                account.lock();
+                try {
+                    account.detach();
+                    accountsService.getAccountsRepository().removeAccount(reservation.getAccountId());
+                } finally {
+                    account.unlock();
+                }
+                throw new AccountNotFoundException("Account with ID: ID-A doesnt exists.");
+            }
+        };
+        underTest = new ReservationService(accountsService, handingOver, 300, 3600, 100);
+        Reservation reservation = underTest.reserve("ID-A", new Reservation(new BigDecimal("80.00"), null));
+
+        try {
+            underTest.capture("ID-A", reservation.getReservationId(), "ID-B");
+            fail("Expecting capture of the handed over account to fail.");
+        } catch (AccountNotFoundException ex) {
+            assertThat(underTest.getOpenReservationCount()).isZero();
+        }
+    }
+
+    @Test
+    public void itShouldReleaseExpiredReservations() {
+        Reservation shortLived = underTest.reserve("ID-A", new Reservation(new BigDecimal("30.00"), 1L));
+        Reservation longLived = underTest.reserve("ID-A", new Reservation(new BigDecimal("50.00"), 600L));
+
+        assertThat(underTest.expire(System.currentTimeMillis())).isZero();
+        assertThat(underTest.expire(shortLived.getExpiresAt() + 200)).isEqualTo(1);
+        assertThat(accountsService.getAccount("ID-A").getAvailableBalance()).isEqualByComparingTo("50.00");
+
+        //further out than a revolution of the wheel
+        assertThat(underTest.expire(longLived.getExpiresAt() + TimeUnit.SECONDS.toMillis(1))).isEqualTo(1);
+        assertThat(accountsService.getAccount("ID-A").getAvailableBalance()).isEqualByComparingTo("100.00");
+        assertThat(underTest.getOpenReservationCount()).isZero();
+    }
+}
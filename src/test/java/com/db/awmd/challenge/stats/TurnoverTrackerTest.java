@@ -0,0 +1,89 @@
+package com.db.awmd.challenge.stats;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TurnoverTrackerTest {
+
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private final TurnoverTracker underTest = new TurnoverTracker(TimeUnit.DAYS.toMinutes(1), 3);
+
+    @Test
+    public void itShouldKeepTotalsCountsAndMaximaPerDirection() {
+        long now = 10 * DAY + 1000;
+        underTest.record("ID-A", new BigDecimal("10.50"), false, now);
+        underTest.record("ID-A", new BigDecimal("0.001"), false, now);
+        underTest.record("ID-A", new BigDecimal("25"), false, now);
+        underTest.record("ID-A", new BigDecimal("7.25"), true, now);
+
+        List<TurnoverPeriod> periods = underTest.getStatistics("ID-A", now).getPeriods();
+
+        assertThat(periods).hasSize(1);
+        TurnoverPeriod period = periods.get(0);
+        assertThat(period.getFrom()).isEqualTo(10 * DAY);
+        assertThat(period.getTo()).isEqualTo(11 * DAY);
+        assertThat(period.getOutboundTotal()).isEqualByComparingTo("35.501");
+        assertThat(period.getOutboundCount()).isEqualTo(3);
+        assertThat(period.getOutboundMax()).isEqualByComparingTo("25");
+        assertThat(period.getInboundTotal()).isEqualByComparingTo("7.25");
+        assertThat(period.getInboundCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void itShouldRollOverPeriods() {
+        for (int day = 0; day < 5; day++) {
+            underTest.record("ID-A", BigDecimal.valueOf(day + 1), true, day * DAY);
+        }
+
+        List<TurnoverPeriod> periods = underTest.getStatistics("ID-A", 4 * DAY).getPeriods();
+
+        assertThat(periods).extracting("from").containsExactly(4 * DAY, 3 * DAY, 2 * DAY);
+        assertThat(periods).extracting("inboundTotal").containsExactly(new BigDecimal("5.00"),
+                new BigDecimal("4.00"), new BigDecimal("3.00"));
+        assertThat(underTest.getStatistics("ID-A", 10 * DAY).getPeriods()).isEmpty();
+    }
+
+    @Test
+    public void itShouldNotLoseConcurrentUpdates() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    underTest.record("ID-A", new BigDecimal("0.01"), true, DAY);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        TurnoverPeriod period = underTest.getStatistics("ID-A", DAY).getPeriods().get(0);
+        assertThat(period.getInboundCount()).isEqualTo(80_000);
+        assertThat(period.getInboundTotal()).isEqualByComparingTo("800.00");
+    }
+
+    @Test
+    public void itShouldNotOverflowOnLargeAmounts() {
+        for (int i = 0; i < 2_000; i++) {
+            underTest.record("ID-A", new BigDecimal("90000000000000.00"), true, DAY);
+            underTest.record("ID-A", new BigDecimal("10000000000.00"), true, DAY);
+        }
+
+        TurnoverPeriod period = underTest.getStatistics("ID-A", DAY).getPeriods().get(0);
+        assertThat(period.getInboundCount()).isEqualTo(4_000);
+        assertThat(period.getInboundTotal()).isEqualByComparingTo("180020000000000000.00");
+        assertThat(period.getInboundMax()).isEqualByComparingTo("90000000000000.00");
+    }
+}
@@ -0,0 +1,188 @@
+package com.db.awmd.challenge.stress;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Decides whether a history is linearizable against a sequential model, following Wing and Gong with
+ * Lowe's memoization of (linearized operations, model state) pairs already explored.
+ * Operations are tried in invocation order; one may be linearized only while no other operation has returned
+ * before it was invoked. The search backtracks when an operation returns before it could be linearized.
+ * Memory and time grow with the number of operations that overlap, keep the thread count small.
+ * @param <S> immutable model state with value equality
+ */
+final class LinearizabilityChecker<S> {
+
+    interface Model<S> {
+
+        /**
+         * Applies the operation to the state.
+         * @return the next state, or null if the operation could not have returned what it did in this state
+         */
+        S step(S state, Operation operation);
+    }
+
+    private final Model<S> model;
+
+    LinearizabilityChecker(Model<S> model) {
+        this.model = model;
+    }
+
+    /**
+     * @param history completed operations, in any order
+     * @param initial model state before the first operation
+     * @return true if the history is linearizable
+     */
+    boolean check(List<Operation> history, S initial) {
+        Entry head = buildEntries(history);
+        Set<Explored<S>> explored = new HashSet<>();
+        Deque<Linearized<S>> stack = new ArrayDeque<>();
+        BitSet linearized = new BitSet();
+        S state = initial;
+        Entry entry = head.next;
+        while (head.next != null) {
+            if (entry.call) {
+                S next = model.step(state, entry.operation);
+                if (next != null) {
+                    BitSet withEntry = (BitSet) linearized.clone();
+                    withEntry.set(entry.index);
+                    if (explored.add(new Explored<>(withEntry, next))) {
+                        stack.push(new Linearized<>(entry, state));
+                        linearized = withEntry;
+                        state = next;
+                        entry.lift();
+                        entry = head.next;
+                        continue;
+                    }
+                }
+                entry = entry.next;
+            } else {
+                //the earliest pending operation returned before any order could explain it, undo the last choice
+                if (stack.isEmpty()) {
+                    return false;
+                }
+                Linearized<S> last = stack.pop();
+                state = last.state;
+                linearized = (BitSet) linearized.clone();
+                linearized.clear(last.entry.index);
+                last.entry.unlift();
+                entry = last.entry.next;
+            }
+        }
+        return true;
+    }
+
+    private static Entry buildEntries(List<Operation> history) {
+        List<Entry> entries = new ArrayList<>(history.size() * 2);
+        for (int i = 0; i < history.size(); i++) {
+            Operation operation = history.get(i);
+            Entry call = new Entry(operation, i, true, operation.invokedNanos);
+            Entry ret = new Entry(operation, i, false, operation.returnedNanos);
+            call.match = ret;
+            entries.add(call);
+            entries.add(ret);
+        }
+        //calls before returns at equal times, operations that may have overlapped are treated as concurrent
+        entries.sort((a, b) -> a.time != b.time ? Long.compare(a.time, b.time) : Boolean.compare(b.call, a.call));
+        Entry head = new Entry(null, -1, false, Long.MIN_VALUE);
+        Entry previous = head;
+        for (Entry entry : entries) {
+            previous.next = entry;
+            entry.previous = previous;
+            previous = entry;
+        }
+        return head;
+    }
+
+    private static final class Entry {
+
+        private final Operation operation;
+
+        private final int index;
+
+        private final boolean call;
+
+        private final long time;
+
+        private Entry match;
+
+        private Entry previous;
+
+        private Entry next;
+
+        private Entry(Operation operation, int index, boolean call, long time) {
+            this.operation = operation;
+            this.index = index;
+            this.call = call;
+            this.time = time;
+        }
+
+        /** Unlinks the call and its return. */
+        private void lift() {
+            previous.next = next;
+            if (next != null) {
+                next.previous = previous;
+            }
+            match.previous.next = match.next;
+            if (match.next != null) {
+                match.next.previous = match.previous;
+            }
+        }
+
+        /** Links the call and its return back in, in the reverse order of lift. */
+        private void unlift() {
+            match.previous.next = match;
+            if (match.next != null) {
+                match.next.previous = match;
+            }
+            previous.next = this;
+            if (next != null) {
+                next.previous = this;
+            }
+        }
+    }
+
+    private static final class Linearized<S> {
+
+        private final Entry entry;
+
+        private final S state;
+
+        private Linearized(Entry entry, S state) {
+            this.entry = entry;
+            this.state = state;
+        }
+    }
+
+    private static final class Explored<S> {
+
+        private final BitSet linearized;
+
+        private final S state;
+
+        private Explored(BitSet linearized, S state) {
+            this.linearized = linearized;
+            this.state = state;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Explored)) {
+                return false;
+            }
+            Explored<?> that = (Explored<?>) other;
+            return linearized.equals(that.linearized) && state.equals(that.state);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(linearized, state);
+        }
+    }
+}
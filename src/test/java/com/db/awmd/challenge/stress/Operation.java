@@ -0,0 +1,63 @@
+package com.db.awmd.challenge.stress;
+
+/**
+ * One completed operation of a stress history, with the times it was invoked and returned.
+ * Amounts and balances are in cents.
+ */
+final class Operation {
+
+    static final byte TRANSFER = 1;
+
+    static final byte READ = 2;
+
+    final int id;
+
+    final byte type;
+
+    final int fromAccount;
+
+    final int toAccount;
+
+    final long amount;
+
+    /** Transfer committed, false if rejected for insufficient funds. */
+    final boolean ok;
+
+    /** Balance returned by a read. */
+    final long balance;
+
+    final long invokedNanos;
+
+    final long returnedNanos;
+
+    private Operation(int id, byte type, int fromAccount, int toAccount, long amount, boolean ok, long balance,
+                      long invokedNanos, long returnedNanos) {
+        this.id = id;
+        this.type = type;
+        this.fromAccount = fromAccount;
+        this.toAccount = toAccount;
+        this.amount = amount;
+        this.ok = ok;
+        this.balance = balance;
+        this.invokedNanos = invokedNanos;
+        this.returnedNanos = returnedNanos;
+    }
+
+    static Operation transfer(int id, int fromAccount, int toAccount, long amount, boolean ok,
+                              long invokedNanos, long returnedNanos) {
+        return new Operation(id, TRANSFER, fromAccount, toAccount, amount, ok, 0, invokedNanos, returnedNanos);
+    }
+
+    static Operation read(int id, int account, long balance, long invokedNanos, long returnedNanos) {
+        return new Operation(id, READ, account, -1, 0, true, balance, invokedNanos, returnedNanos);
+    }
+
+    @Override
+    public String toString() {
+        if (type == READ) {
+            return String.format("#%d read(%d) = %d [%d, %d]", id, fromAccount, balance, invokedNanos, returnedNanos);
+        }
+        return String.format("#%d transfer(%d -> %d, %d) = %s [%d, %d]", id, fromAccount, toAccount, amount,
+                ok ? "ok" : "insufficient", invokedNanos, returnedNanos);
+    }
+}
@@ -0,0 +1,143 @@
+package com.db.awmd.challenge.stress;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks a history of transfers and balance reads against a bank where every transfer is atomic.
+ * <ul>
+ *     <li>conservation : the final balances add up to the initial total and no read saw a negative balance</li>
+ *     <li>transfers : all transfers together are linearizable, that is some order respecting real time explains
+ *     which of them were committed and which were rejected for insufficient funds</li>
+ *     <li>reads : each account's reads are linearizable with the transfers touching that account,
+ *     and so is its final balance, read once the last operation returned</li>
+ * </ul>
+ * Reads are checked per account because balances are read without locks, a reader looking at two accounts
+ * may see the debit of a transfer before its credit. Each read on its own always sees a committed balance.
+ */
+final class TransferHistoryChecker {
+
+    private static final int MAX_REPORTED_OPERATIONS = 20;
+
+    private TransferHistoryChecker() {
+    }
+
+    /**
+     * @param history completed operations
+     * @param initialBalances balance of each account before the first operation, in cents
+     * @param finalBalances balance of each account after the last operation, in cents
+     * @return the violations found, empty if the history is correct
+     */
+    static List<String> check(List<Operation> history, long[] initialBalances, long[] finalBalances) {
+        List<String> violations = new ArrayList<>();
+        long initialTotal = Arrays.stream(initialBalances).sum();
+        long finalTotal = Arrays.stream(finalBalances).sum();
+        if (initialTotal != finalTotal) {
+            violations.add("money not conserved, total went from " + initialTotal + " to " + finalTotal);
+        }
+        List<Operation> transfers = new ArrayList<>();
+        for (Operation operation : history) {
+            if (operation.type == Operation.TRANSFER) {
+                transfers.add(operation);
+            } else if (operation.balance < 0) {
+                violations.add("negative balance read " + operation);
+            }
+        }
+        LinearizabilityChecker<Balances> transferChecker = new LinearizabilityChecker<>(TransferHistoryChecker::transfer);
+        if (!transferChecker.check(transfers, new Balances(initialBalances))) {
+            violations.add("transfers not linearizable " + describe(transfers));
+        }
+        long lastReturnedNanos = Long.MIN_VALUE;
+        for (Operation operation : history) {
+            lastReturnedNanos = Math.max(lastReturnedNanos, operation.returnedNanos);
+        }
+        for (int account = 0; account < initialBalances.length; account++) {
+            List<Operation> projection = new ArrayList<>();
+            for (Operation operation : history) {
+                if (operation.fromAccount == account || (operation.toAccount == account && operation.ok)) {
+                    projection.add(operation);
+                }
+            }
+            int observed = account;
+            LinearizabilityChecker<Long> projected = new LinearizabilityChecker<>(
+                    (balance, operation) -> accountStep(observed, balance, operation));
+            List<Operation> closed = new ArrayList<>(projection);
+            closed.add(Operation.read(history.size() + account, account, finalBalances[account],
+                    lastReturnedNanos + 1, lastReturnedNanos + 1));
+            if (!projected.check(closed, initialBalances[account])) {
+                //searched again only on failure, to tell a wrong final balance from a wrong history
+                if (projected.check(projection, initialBalances[account])) {
+                    violations.add("account " + account + " final balance " + finalBalances[account]
+                            + " not reachable " + describe(projection));
+                } else {
+                    violations.add("account " + account + " not linearizable " + describe(projection));
+                }
+            }
+        }
+        return violations;
+    }
+
+    private static Balances transfer(Balances balances, Operation operation) {
+        boolean sufficient = balances.get(operation.fromAccount) >= operation.amount;
+        if (sufficient != operation.ok) {
+            return null;
+        }
+        return operation.ok ? balances.transfer(operation.fromAccount, operation.toAccount, operation.amount) : balances;
+    }
+
+    private static Long accountStep(int account, Long balance, Operation operation) {
+        if (operation.type == Operation.READ) {
+            return balance == operation.balance ? balance : null;
+        }
+        if (operation.fromAccount == account) {
+            boolean sufficient = balance >= operation.amount;
+            if (sufficient != operation.ok) {
+                return null;
+            }
+            return operation.ok ? balance - operation.amount : balance;
+        }
+        return balance + operation.amount;
+    }
+
+    private static String describe(List<Operation> operations) {
+        StringBuilder description = new StringBuilder("in ").append(operations.size()).append(" operations");
+        for (int i = 0; i < Math.min(operations.size(), MAX_REPORTED_OPERATIONS); i++) {
+            description.append(System.lineSeparator()).append("  ").append(operations.get(i));
+        }
+        return description.toString();
+    }
+
+    /**
+     * Immutable balances of all accounts, the state of the bank model.
+     */
+    private static final class Balances {
+
+        private final long[] cents;
+
+        private Balances(long[] cents) {
+            this.cents = cents;
+        }
+
+        private long get(int account) {
+            return cents[account];
+        }
+
+        private Balances transfer(int fromAccount, int toAccount, long amount) {
+            long[] next = cents.clone();
+            next[fromAccount] -= amount;
+            next[toAccount] += amount;
+            return new Balances(next);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Balances && Arrays.equals(cents, ((Balances) other).cents);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(cents);
+        }
+    }
+}
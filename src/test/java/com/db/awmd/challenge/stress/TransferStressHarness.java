@@ -0,0 +1,181 @@
+package com.db.awmd.challenge.stress;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.InSufficientFundException;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.FundTransferService;
+
+import ch.qos.logback.classic.Level;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Runs rounds of random transfers and balance reads from many threads against FundTransferService,
+ * records the history of each round and checks it with TransferHistoryChecker.
+ * Few accounts with small balances keep the threads colliding and transfers regularly running out of funds,
+ * which is where ordering bugs show. Throughput only counts the time spent running operations, not checking.
+ * Run with ./gradlew benchmark -PbenchmarkClass=com.db.awmd.challenge.stress.TransferStressHarness
+ *     -PbenchmarkArgs="[threads] [accounts] [operations per thread and round] [rounds]"
+ */
+public class TransferStressHarness {
+
+    private static final int READ_PERCENT = 30;
+
+    private static final long INITIAL_BALANCE_CENTS = 100_00;
+
+    private static final long MAX_AMOUNT_CENTS = 40_00;
+
+    private final int threads;
+
+    private final int accounts;
+
+    private final int operationsPerThread;
+
+    TransferStressHarness(int threads, int accounts, int operationsPerThread) {
+        this.threads = threads;
+        this.accounts = accounts;
+        this.operationsPerThread = operationsPerThread;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int accounts = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int operations = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        //logback defaults to DEBUG, the lock and balance steps every transfer logs would be most of what gets measured
+        ((ch.qos.logback.classic.Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+        TransferStressHarness harness = new TransferStressHarness(threads, accounts, operations);
+        long totalOperations = 0;
+        long runNanos = 0;
+        long checkNanos = 0;
+        int failedRounds = 0;
+        for (int round = 0; round < rounds; round++) {
+            Result result = harness.runRound();
+            totalOperations += result.operations;
+            runNanos += result.runNanos;
+            checkNanos += result.checkNanos;
+            if (!result.violations.isEmpty()) {
+                failedRounds++;
+                System.out.printf("round %d failed :%n", round);
+                result.violations.forEach(violation -> System.out.println("  " + violation));
+            }
+        }
+        System.out.printf("%d rounds of %d threads on %d accounts, %d operations%n", rounds, threads, accounts,
+                totalOperations);
+        System.out.printf("throughput %10.0f ops/s, checking took %.1f s%n", totalOperations / (runNanos / 1e9),
+                checkNanos / 1e9);
+        System.out.println(failedRounds == 0 ? "all histories linearizable and conserving money"
+                : failedRounds + " rounds with violations");
+        System.exit(failedRounds == 0 ? 0 : 1);
+    }
+
+    /**
+     * Runs one round against fresh accounts and checks its history.
+     * @return Result
+     */
+    Result runRound() throws Exception {
+        AccountsService accountsService = new AccountsService(new AccountsRepositoryInMemory());
+        FundTransferService fundTransferService = new FundTransferService((account, description) -> { },
+                accountsService);
+        long[] initialBalances = new long[accounts];
+        for (int i = 0; i < accounts; i++) {
+            initialBalances[i] = INITIAL_BALANCE_CENTS;
+            accountsService.createAccount(new Account(accountId(i), BigDecimal.valueOf(INITIAL_BALANCE_CENTS, 2)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Operation>>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int firstId = t * operationsPerThread;
+            workers.add(executor.submit(() -> {
+                List<Operation> operations = new ArrayList<>(operationsPerThread);
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                start.await();
+                for (int i = 0; i < operationsPerThread; i++) {
+                    operations.add(runOperation(firstId + i, random, accountsService, fundTransferService));
+                }
+                return operations;
+            }));
+        }
+        long startNanos = System.nanoTime();
+        start.countDown();
+        List<Operation> history = new ArrayList<>(threads * operationsPerThread);
+        Result result = new Result();
+        for (Future<List<Operation>> worker : workers) {
+            try {
+                history.addAll(worker.get());
+            } catch (Exception ex) {
+                result.violations.add("unexpected failure " + ex.getCause());
+            }
+        }
+        result.runNanos = System.nanoTime() - startNanos;
+        executor.shutdown();
+        result.operations = history.size();
+
+        long checkStart = System.nanoTime();
+        long[] finalBalances = new long[accounts];
+        for (int i = 0; i < accounts; i++) {
+            finalBalances[i] = cents(accountsService.getAccount(accountId(i)).getBalance());
+        }
+        result.violations.addAll(TransferHistoryChecker.check(history, initialBalances, finalBalances));
+        result.checkNanos = System.nanoTime() - checkStart;
+        return result;
+    }
+
+    private Operation runOperation(int id, ThreadLocalRandom random, AccountsService accountsService,
+                                   FundTransferService fundTransferService) {
+        int from = random.nextInt(accounts);
+        if (random.nextInt(100) < READ_PERCENT) {
+            long invoked = System.nanoTime();
+            BigDecimal balance = accountsService.getAccount(accountId(from)).getBalance();
+            return Operation.read(id, from, cents(balance), invoked, System.nanoTime());
+        }
+        int to = (from + 1 + random.nextInt(accounts - 1)) % accounts;
+        long amount = 1 + random.nextLong(MAX_AMOUNT_CENTS);
+        Transfer transfer = new Transfer(accountId(from), accountId(to), BigDecimal.valueOf(amount, 2));
+        boolean ok = true;
+        long invoked = System.nanoTime();
+        try {
+            fundTransferService.transferFund(transfer);
+        } catch (InSufficientFundException ex) {
+            ok = false;
+        }
+        return Operation.transfer(id, from, to, amount, ok, invoked, System.nanoTime());
+    }
+
+    private static String accountId(int account) {
+        return "STRESS-" + account;
+    }
+
+    private static long cents(BigDecimal amount) {
+        return amount.movePointRight(2).longValueExact();
+    }
+
+    static final class Result {
+
+        private final List<String> violations = new ArrayList<>();
+
+        private long operations;
+
+        private long runNanos;
+
+        private long checkNanos;
+
+        List<String> getViolations() {
+            return violations;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.db.awmd.challenge.stress;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class TransferStressTest {
+
+    @Test
+    public void fundTransferServiceHistoriesShouldBeLinearizable() throws Exception {
+        TransferStressHarness harness = new TransferStressHarness(4, 3, 500);
+        for (int round = 0; round < 5; round++) {
+            assertThat(harness.runRound().getViolations()).isEmpty();
+        }
+    }
+
+    @Test
+    public void checkerShouldAcceptConcurrentTransfersInEitherOrder() {
+        //both overlap, only the order 1 then 0 explains the rejection
+        List<Operation> history = Arrays.asList(
+                Operation.transfer(0, 0, 1, 80, false, 0, 10),
+                Operation.transfer(1, 0, 1, 50, true, 1, 9));
+
+        assertThat(TransferHistoryChecker.check(history, new long[]{100, 0}, new long[]{50, 50})).isEmpty();
+    }
+
+    @Test
+    public void checkerShouldRejectRejectionExplainedOnlyByLaterTransfer() {
+        List<Operation> history = Arrays.asList(
+                Operation.transfer(0, 0, 1, 50, true, 20, 30),
+                Operation.transfer(1, 0, 1, 80, false, 0, 10));
+
+        //the global transfer order and the projection on account 0 both fail, account 1 only sees the credit
+        assertThat(TransferHistoryChecker.check(history, new long[]{100, 0}, new long[]{50, 50}))
+                .containsExactly("transfers not linearizable in 2 operations"
+                                + System.lineSeparator() + "  " + history.get(0)
+                                + System.lineSeparator() + "  " + history.get(1),
+                        "account 0 not linearizable in 2 operations"
+                                + System.lineSeparator() + "  " + history.get(0)
+                                + System.lineSeparator() + "  " + history.get(1));
+    }
+
+    @Test
+    public void checkerShouldRejectStaleRead() {
+        List<Operation> history = Arrays.asList(
+                Operation.transfer(0, 0, 1, 50, true, 0, 10),
+                Operation.read(1, 1, 0, 20, 30));
+
+        assertThat(TransferHistoryChecker.check(history, new long[]{100, 0}, new long[]{50, 50}))
+                .containsExactly("account 1 not linearizable in 2 operations"
+                        + System.lineSeparator() + "  " + history.get(0)
+                        + System.lineSeparator() + "  " + history.get(1));
+    }
+
+    @Test
+    public void checkerShouldRejectLostMoney() {
+        List<Operation> history = Arrays.asList(Operation.transfer(0, 0, 1, 50, true, 0, 10));
+
+        assertThat(TransferHistoryChecker.check(history, new long[]{100, 0}, new long[]{50, 0}))
+                .containsExactly("money not conserved, total went from 100 to 50",
+                        "account 1 final balance 0 not reachable in 1 operations"
+                                + System.lineSeparator() + "  " + history.get(0));
+    }
+
+    @Test
+    public void checkerShouldRejectFinalBalancesSwappedBetweenAccounts() {
+        List<Operation> history = Arrays.asList(Operation.transfer(0, 0, 1, 30, true, 0, 10));
+
+        //the total is conserved, only the per account final balances show the difference
+        assertThat(TransferHistoryChecker.check(history, new long[]{100, 0}, new long[]{30, 70}))
+                .containsExactly("account 0 final balance 30 not reachable in 1 operations"
+                                + System.lineSeparator() + "  " + history.get(0),
+                        "account 1 final balance 70 not reachable in 1 operations"
+                                + System.lineSeparator() + "  " + history.get(0));
+    }
+}
@@ -0,0 +1,361 @@
+package com.db.awmd.challenge.transaction;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
+import com.db.awmd.challenge.exception.AccountNotFoundException;
+import com.db.awmd.challenge.exception.InSufficientFundException;
+import com.db.awmd.challenge.exception.InValidTransferRequestException;
+import com.db.awmd.challenge.notification.NotificationCoalescer;
+import com.db.awmd.challenge.repository.AccountsRepositoryInMemory;
+import com.db.awmd.challenge.service.NotificationService;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+public class TwoPhaseCommitCoordinatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final Map<String, PartitionParticipant> participants = new HashMap<>();
+
+    private Path logFile;
+
+    private AccountsRepositoryInMemory partition2;
+
+    private Account accountA = new Account("ID-A", new BigDecimal("10.00"));
+
+    private Account accountB = new Account("ID-B", new BigDecimal("10.00"));
+
+    @Before
+    public void setUp() throws Exception {
+        logFile = folder.getRoot().toPath().resolve("coordinator.log");
+        AccountsRepositoryInMemory partition1 = new AccountsRepositoryInMemory();
+        partition2 = new AccountsRepositoryInMemory();
+        partition1.createAccount(accountA);
+        partition2.createAccount(accountB);
+        participants.put("p1", new LocalPartitionParticipant(partition1, mock(NotificationService.class)));
+        participants.put("p2", new LocalPartitionParticipant(partition2, mock(NotificationService.class)));
+    }
+
+    @Test
+    public void itShouldTransferAcrossPartitions() {
+        TwoPhaseCommitCoordinator underTest = coordinator(new CoordinatorLog(logFile, false));
+
+        underTest.transfer(new Transfer("ID-A", "ID-B", new BigDecimal("4.00")), "p1", "p2");
+
+        assertThat(accountA.getBalance()).isEqualByComparingTo("6.00");
+        assertThat(accountB.getBalance()).isEqualByComparingTo("14.00");
+        assertThat(underTest.recover()).isZero();
+    }
+
+    @Test
+    public void itShouldAbortOnInsufficientFunds() {
+        CoordinatorLog coordinatorLog = new CoordinatorLog(logFile, false);
+        try {
+            coordinator(coordinatorLog).transfer(new Transfer("ID-A", "ID-B", new BigDecimal("50.00")), "p1", "p2");
+            fail("Expecting InSufficientFundException to be thrown.");
+        } catch (InSufficientFundException ex) {
+            assertThat(accountA.getBalance()).isEqualByComparingTo("10.00");
+            assertThat(accountB.getBalance()).isEqualByComparingTo("10.00");
+            assertThat(coordinatorLog.getInDoubt()).isEmpty();
+        }
+    }
+
+    @Test
+    public void itShouldRollbackDebitIfCreditAccountDoesntExist() {
+        try {
+            coordinator(new CoordinatorLog(logFile, false))
+                    .transfer(new Transfer("ID-A", "ID-X", new BigDecimal("5.00")), "p1", "p2");
+            fail("Expecting AccountNotFoundException to be thrown.");
+        } catch (AccountNotFoundException ex) {
+            assertThat(accountA.getBalance()).isEqualByComparingTo("10.00");
+        }
+    }
+
+    @Test
+    public void itShouldCommitInDoubtTransactionOnRecovery() throws Exception {
+        PartitionParticipant credit = participants.get("p2");
+        participants.put("p2", new CrashingParticipant(credit, false));
+        CoordinatorLog coordinatorLog = new CoordinatorLog(logFile, true);
+        try {
+            coordinator(coordinatorLog).transfer(new Transfer("ID-A", "ID-B", new BigDecimal("4.00")), "p1", "p2");
+            fail("Expecting crash after commit decision.");
+        } catch (Crash crash) {
+            coordinatorLog.close();
+        }
+        assertThat(accountB.getBalance()).isEqualByComparingTo("10.00");
+
+        participants.put("p2", credit);
+        CoordinatorLog reopened = new CoordinatorLog(logFile, true);
+        assertThat(reopened.getInDoubt()).hasSize(1);
+        assertThat(coordinator(reopened).recover()).isZero();
+
+        assertThat(accountA.getBalance()).isEqualByComparingTo("6.00");
+        assertThat(accountB.getBalance()).isEqualByComparingTo("14.00");
+        assertThat(new CoordinatorLog(logFile, true).getInDoubt()).isEmpty();
+    }
+
+    @Test
+    public void itShouldAbortUndecidedTransactionOnRecovery() throws Exception {
+        PartitionParticipant credit = participants.get("p2");
+        participants.put("p2", new CrashingParticipant(credit, true));
+        CoordinatorLog coordinatorLog = new CoordinatorLog(logFile, true);
+        try {
+            coordinator(coordinatorLog).transfer(new Transfer("ID-A", "ID-B", new BigDecimal("4.00")), "p1", "p2");
+            fail("Expecting crash before commit decision.");
+        } catch (Crash crash) {
+            coordinatorLog.close();
+        }
+        assertThat(accountA.getBalance()).isEqualByComparingTo("6.00");
+
+        participants.put("p2", credit);
+        assertThat(coordinator(new CoordinatorLog(logFile, true)).recover()).isZero();
+
+        assertThat(accountA.getBalance()).isEqualByComparingTo("10.00");
+        assertThat(accountB.getBalance()).isEqualByComparingTo("10.00");
+    }
+
+    @Test
+    public void itShouldRetryCommitThatFailedAtRuntime() {
+        participants.put("p2", new FailingOnceParticipant(participants.get("p2")));
+        CoordinatorLog coordinatorLog = new CoordinatorLog(logFile, false);
+        AtomicInteger unresolvedCallbacks = new AtomicInteger();
+        TwoPhaseCommitCoordinator underTest = new TwoPhaseCommitCoordinator(coordinatorLog, participants::get,
+                unresolvedCallbacks::incrementAndGet);
+
+        underTest.transfer(new Transfer("ID-A", "ID-B", new BigDecimal("4.00")), "p1", "p2");
+
+        assertThat(unresolvedCallbacks.get()).isEqualTo(1);
+        assertThat(accountB.getBalance()).isEqualByComparingTo("10.00");
+        assertThat(coordinatorLog.getInDoubt()).hasSize(1);
+
+        assertThat(underTest.retryUnresolved()).isZero();
+
+        assertThat(accountA.getBalance()).isEqualByComparingTo("6.00");
+        assertThat(accountB.getBalance()).isEqualByComparingTo("14.00");
+        assertThat(coordinatorLog.getInDoubt()).isEmpty();
+    }
+
+    @Test
+    public void itShouldKeepPreparedCreditWhenDepositFails() {
+        PartitionParticipant participant = participants.get("p2");
+        participant.prepareCredit("tx-1", new Transfer("ID-A", "ID-B", new BigDecimal("4.00")));
+        partition2.clearAccounts();
+        try {
+            participant.commit("tx-1");
+            fail("Expecting AccountNotFoundException to be thrown.");
+        } catch (AccountNotFoundException ex) {
+            partition2.createAccount(accountB);
+        }
+
+        participant.commit("tx-1");
+        participant.commit("tx-1");
+
+        assertThat(accountB.getBalance()).isEqualByComparingTo("14.00");
+    }
+
+    @Test
+    public void itShouldAbortWhenCommitRecordCannotBeWritten() {
+        CoordinatorLog coordinatorLog = new CoordinatorLog(logFile, false) {
+            @Override
+            public void commit(String transactionId) {
+                throw new UncheckedIOException(new IOException("Disk full"));
+            }
+        };
+        try {
+            coordinator(coordinatorLog).transfer(new Transfer("ID-A", "ID-B", new BigDecimal("4.00")), "p1", "p2");
+            fail("Expecting UncheckedIOException to be thrown.");
+        } catch (UncheckedIOException ex) {
+            assertThat(accountA.getBalance()).isEqualByComparingTo("10.00");
+            assertThat(accountB.getBalance()).isEqualByComparingTo("10.00");
+            assertThat(coordinatorLog.getInDoubt()).isEmpty();
+        }
+    }
+
+    @Test
+    public void itShouldTreatAbortAfterCommitRecordAsAbortOnRecovery() throws Exception {
+        CoordinatorLog coordinatorLog = new CoordinatorLog(logFile, false);
+        coordinatorLog.begin(new CoordinatorLog.Entry("tx-1", "p1", "p2",
+                new Transfer("ID-A", "ID-B", new BigDecimal("4.00"))));
+        coordinatorLog.commit("tx-1");
+        coordinatorLog.abort("tx-1");
+        coordinatorLog.close();
+
+        assertThat(new CoordinatorLog(logFile, false).getInDoubt())
+                .extracting(CoordinatorLog.Entry::isCommitted).containsExactly(false);
+    }
+
+    @Test
+    public void itShouldReportAccountsWithPreparedTransfers() {
+        LocalPartitionParticipant participant = (LocalPartitionParticipant) participants.get("p2");
+        participant.prepareCredit("tx-1", new Transfer("ID-A", "ID-B", new BigDecimal("4.00")));
+
+        assertThat(participant.isPrepared("ID-B")).isTrue();
+        assertThat(participant.isPrepared("ID-A")).isFalse();
+
+        participant.commit("tx-1");
+
+        assertThat(participant.isPrepared("ID-B")).isFalse();
+    }
+
+    @Test
+    public void itShouldRejectPrepareArrivingAfterAbort() {
+        LocalPartitionParticipant debit = (LocalPartitionParticipant) participants.get("p1");
+        LocalPartitionParticipant credit = (LocalPartitionParticipant) participants.get("p2");
+        Transfer transfer = new Transfer("ID-A", "ID-B", new BigDecimal("4.00"));
+        debit.abort("tx-1");
+        credit.abort("tx-1");
+        try {
+            debit.prepareDebit("tx-1", transfer);
+            fail("Expecting InValidTransferRequestException to be thrown.");
+        } catch (InValidTransferRequestException ex) {
+            assertThat(accountA.getBalance()).isEqualByComparingTo("10.00");
+            assertThat(debit.isPrepared("ID-A")).isFalse();
+        }
+        try {
+            credit.prepareCredit("tx-1", transfer);
+            fail("Expecting InValidTransferRequestException to be thrown.");
+        } catch (InValidTransferRequestException ex) {
+            assertThat(credit.isPrepared("ID-B")).isFalse();
+        }
+    }
+
+    @Test
+    public void itShouldForgetTheOldestAbortsBeyondTheBound() {
+        LocalPartitionParticipant participant = (LocalPartitionParticipant) participants.get("p1");
+        for (int i = 0; i < LocalPartitionParticipant.MAX_REMEMBERED_ABORTS + 100; i++) {
+            participant.abort("tx-" + i);
+        }
+
+        assertThat(participant.getAbortedTransactionCount()).isEqualTo(LocalPartitionParticipant.MAX_REMEMBERED_ABORTS);
+        //forgotten, prepared like a new transaction
+        participant.prepareDebit("tx-0", new Transfer("ID-A", "ID-B", new BigDecimal("4.00")));
+        assertThat(accountA.getBalance()).isEqualByComparingTo("6.00");
+        try {
+            participant.prepareDebit("tx-" + LocalPartitionParticipant.MAX_REMEMBERED_ABORTS,
+                    new Transfer("ID-A", "ID-B", new BigDecimal("4.00")));
+            fail("Expecting InValidTransferRequestException to be thrown.");
+        } catch (InValidTransferRequestException ex) {
+            assertThat(accountA.getBalance()).isEqualByComparingTo("6.00");
+        }
+    }
+
+    @Test
+    public void itShouldRecordCommittedTransfersIntoTheDigests() {
+        NotificationService notificationService = mock(NotificationService.class);
+        NotificationCoalescer notificationCoalescer = mock(NotificationCoalescer.class);
+        AccountsRepositoryInMemory partition1 = new AccountsRepositoryInMemory();
+        partition1.createAccount(accountA);
+        LocalPartitionParticipant participant = new LocalPartitionParticipant(partition1, notificationService);
+        participant.setNotificationCoalescer(notificationCoalescer);
+        participants.put("p1", participant);
+
+        coordinator(new CoordinatorLog(logFile, false))
+                .transfer(new Transfer("ID-A", "ID-B", new BigDecimal("4.00")), "p1", "p2");
+
+        verify(notificationCoalescer).record(accountA, "ID-B", new BigDecimal("4.00"), false);
+        verify(notificationService, never()).notifyAboutTransfer(any(Account.class), anyString());
+    }
+
+    private TwoPhaseCommitCoordinator coordinator(CoordinatorLog coordinatorLog) {
+        return new TwoPhaseCommitCoordinator(coordinatorLog, participants::get);
+    }
+
+    /**
+     * Simulates the coordinator process dying in the middle of the protocol.
+     */
+    static class Crash extends Error {
+    }
+
+    /**
+     * Fails the first commit as a participant that can not be reached would.
+     */
+    static class FailingOnceParticipant implements PartitionParticipant {
+
+        private final PartitionParticipant delegate;
+
+        private boolean failed;
+
+        FailingOnceParticipant(PartitionParticipant delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void prepareDebit(String transactionId, Transfer transfer) {
+            delegate.prepareDebit(transactionId, transfer);
+        }
+
+        @Override
+        public void prepareCredit(String transactionId, Transfer transfer) {
+            delegate.prepareCredit(transactionId, transfer);
+        }
+
+        @Override
+        public void commit(String transactionId) {
+            if (!failed) {
+                failed = true;
+                throw new IllegalStateException("Partition unreachable");
+            }
+            delegate.commit(transactionId);
+        }
+
+        @Override
+        public void abort(String transactionId) {
+            delegate.abort(transactionId);
+        }
+    }
+
+    static class CrashingParticipant implements PartitionParticipant {
+
+        private final PartitionParticipant delegate;
+
+        private final boolean crashOnPrepare;
+
+        CrashingParticipant(PartitionParticipant delegate, boolean crashOnPrepare) {
+            this.delegate = delegate;
+            this.crashOnPrepare = crashOnPrepare;
+        }
+
+        @Override
+        public void prepareDebit(String transactionId, Transfer transfer) {
+            delegate.prepareDebit(transactionId, transfer);
+        }
+
+        @Override
+        public void prepareCredit(String transactionId, Transfer transfer) {
+            if (crashOnPrepare) {
+                throw new Crash();
+            }
+            delegate.prepareCredit(transactionId, transfer);
+        }
+
+        @Override
+        public void commit(String transactionId) {
+            throw new Crash();
+        }
+
+        @Override
+        public void abort(String transactionId) {
+            delegate.abort(transactionId);
+        }
+    }
+}
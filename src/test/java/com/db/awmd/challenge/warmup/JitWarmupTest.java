@@ -0,0 +1,62 @@
+package com.db.awmd.challenge.warmup;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import jakarta.validation.Validation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class JitWarmupTest {
+
+    private final Logger logger = (Logger) LoggerFactory.getLogger(JitWarmup.class);
+
+    private final ListAppender<ILoggingEvent> logEvents = new ListAppender<>();
+
+    @Before
+    public void setUp() {
+        logEvents.start();
+        logger.addAppender(logEvents);
+    }
+
+    @After
+    public void tearDown() {
+        logger.detachAppender(logEvents);
+    }
+
+    @Test
+    public void itShouldReportReadyAfterWarmup() {
+        JitWarmup underTest = warmup(true);
+        assertThat(underTest.isReady()).isFalse();
+
+        underTest.run();
+
+        assertThat(underTest.isReady()).isTrue();
+        assertThat(underTest.getTransfers()).isPositive();
+        assertThat(logEvents.list).extracting(ILoggingEvent::getLevel).doesNotContain(Level.ERROR);
+    }
+
+    @Test
+    public void itShouldWarmUpDataBindingWhenStreamingCodecsAreDisabled() {
+        JitWarmup underTest = warmup(false);
+
+        underTest.run();
+
+        assertThat(underTest.isReady()).isTrue();
+        assertThat(underTest.getTransfers()).isPositive();
+        assertThat(logEvents.list).extracting(ILoggingEvent::getLevel).doesNotContain(Level.ERROR);
+    }
+
+    private static JitWarmup warmup(boolean streamingJson) {
+        return new JitWarmup(new ObjectMapper(), Validation.buildDefaultValidatorFactory().getValidator(),
+                streamingJson, 2_000, 5);
+    }
+}
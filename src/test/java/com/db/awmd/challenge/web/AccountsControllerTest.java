@@ -1,24 +1,34 @@
 package com.db.awmd.challenge.web;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.setup.MockMvcBuilders.webAppContextSetup;
 
+import com.db.awmd.challenge.audit.AuditLog;
 import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.domain.Transfer;
 import com.db.awmd.challenge.service.AccountsService;
+import com.db.awmd.challenge.service.FundTransferService;
+import com.db.awmd.challenge.transaction.LocalPartitionParticipant;
 import java.math.BigDecimal;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.context.WebApplicationContext;
 
 @RunWith(SpringRunner.class)
@@ -31,9 +41,18 @@ public class AccountsControllerTest {
   @Autowired
   private AccountsService accountsService;
 
+  @Autowired
+  private FundTransferService fundTransferService;
+
+  @Autowired
+  private LocalPartitionParticipant localPartitionParticipant;
+
   @Autowired
   private WebApplicationContext webApplicationContext;
 
+  @MockBean
+  private AuditLog auditLog;
+
   @Before
   public void prepareMockMvc() {
     this.mockMvc = webAppContextSetup(this.webApplicationContext).build();
@@ -101,4 +120,97 @@ public class AccountsControllerTest {
       .andExpect(
         content().string("{\"accountId\":\"" + uniqueAccountId + "\",\"balance\":123.45}"));
   }
+
+  @Test
+  public void getAccountNotModified() throws Exception {
+    Account account = new Account("Id-123", new BigDecimal("123.45"));
+    this.accountsService.createAccount(account);
+    String eTag = this.mockMvc.perform(get("/v1/accounts/Id-123"))
+      .andExpect(status().isOk())
+      .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+    this.mockMvc.perform(get("/v1/accounts/Id-123").header(HttpHeaders.IF_NONE_MATCH, eTag))
+      .andExpect(status().isNotModified())
+      .andExpect(content().string(""));
+
+    account.deposit(BigDecimal.ONE);
+    this.mockMvc.perform(get("/v1/accounts/Id-123").header(HttpHeaders.IF_NONE_MATCH, eTag))
+      .andExpect(status().isOk())
+      .andExpect(header().string(HttpHeaders.ETAG, "\"" + account.getVersion() + "\""))
+      .andExpect(content().string("{\"accountId\":\"Id-123\",\"balance\":124.45}"));
+  }
+
+  @Test
+  public void getUnknownAccount() throws Exception {
+    this.mockMvc.perform(get("/v1/accounts/Id-404"))
+      .andExpect(status().isOk())
+      .andExpect(content().string(""));
+
+    verify(auditLog).accountRead("Id-404", 200);
+  }
+
+  @Test
+  public void auditAccountReadsWithTheStatusAnswered() throws Exception {
+    this.accountsService.createAccount(new Account("Id-123", new BigDecimal("123.45")));
+    String eTag = this.mockMvc.perform(get("/v1/accounts/Id-123"))
+      .andExpect(status().isOk())
+      .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    this.mockMvc.perform(get("/v1/accounts/Id-123").header(HttpHeaders.IF_NONE_MATCH, eTag))
+      .andExpect(status().isNotModified())
+      .andExpect(header().string(HttpHeaders.ETAG, eTag));
+
+    verify(auditLog).accountRead("Id-123", 200);
+    verify(auditLog).accountRead("Id-123", 304);
+  }
+
+  @Test
+  public void streamAccountEvents() throws Exception {
+    this.accountsService.createAccount(new Account("Id-123", new BigDecimal("100.00")));
+    this.accountsService.createAccount(new Account("Id-456", new BigDecimal("100.00")));
+    MvcResult result = this.mockMvc.perform(get("/v1/accounts/Id-123/events"))
+      .andExpect(request().asyncStarted())
+      .andReturn();
+
+    this.fundTransferService.transferFund(new Transfer("Id-456", "Id-123", new BigDecimal("5.00")));
+
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (!result.getResponse().getContentAsString().contains("\"amount\":5.00")
+      && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(result.getResponse().getContentAsString())
+      .contains("\"balance\":100.00,\"version\":0")
+      .contains("\"balance\":105.00,\"version\":1,\"amount\":5.00,\"counterpartyAccountId\":\"Id-456\"");
+  }
+
+  @Test
+  public void streamCrossPartitionTransferEvents() throws Exception {
+    this.accountsService.createAccount(new Account("Id-123", new BigDecimal("100.00")));
+    MvcResult result = this.mockMvc.perform(get("/v1/accounts/Id-123/events"))
+      .andExpect(request().asyncStarted())
+      .andReturn();
+
+    //this node's side of a transfer from an account of another partition
+    this.localPartitionParticipant.prepareCredit("tx-1", new Transfer("Id-789", "Id-123", new BigDecimal("7.00")));
+    this.localPartitionParticipant.commit("tx-1");
+
+    long deadline = System.currentTimeMillis() + 5_000;
+    while (!result.getResponse().getContentAsString().contains("\"amount\":7.00")
+      && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(result.getResponse().getContentAsString())
+      .contains("\"balance\":107.00,\"version\":1,\"amount\":7.00,\"counterpartyAccountId\":\"Id-789\"");
+  }
+
+  @Test
+  public void streamEventsOfUnknownAccount() throws Exception {
+    this.mockMvc.perform(get("/v1/accounts/Id-404/events")).andExpect(status().isNotFound());
+  }
+
+  @Test
+  public void rejectNegativeBalanceRankingLimit() throws Exception {
+    this.mockMvc.perform(get("/v1/accounts/by-balance/top?limit=-1")).andExpect(status().isBadRequest());
+    this.mockMvc.perform(get("/v1/accounts/by-balance/below?threshold=10&limit=-1")).andExpect(status().isBadRequest());
+  }
 }
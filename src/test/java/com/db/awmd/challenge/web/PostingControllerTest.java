@@ -0,0 +1,75 @@
+package com.db.awmd.challenge.web;
+
+import com.db.awmd.challenge.domain.Account;
+import com.db.awmd.challenge.repository.AccountsRepository;
+import com.db.awmd.challenge.service.NotificationService;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.context.web.WebAppConfiguration;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@WebAppConfiguration
+public class PostingControllerTest {
+
+    private static final String POSTINGS_URL = "/v1/postings";
+
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WebApplicationContext webApplicationContext;
+
+    @MockBean
+    private NotificationService mockNotificationService;
+
+    @Autowired
+    private AccountsRepository accountsRepository;
+
+    private Account accountA = new Account("ID-A", new BigDecimal("10.00"));
+
+    private Account accountB = new Account("ID-B", new BigDecimal("10.00"));
+
+    @Before
+    public void setUp() {
+        accountsRepository.clearAccounts();
+        accountsRepository.createAccount(accountA);
+        accountsRepository.createAccount(accountB);
+        this.mockMvc = MockMvcBuilders.webAppContextSetup(this.webApplicationContext).build();
+    }
+
+    @Test
+    public void itShouldApplyPosting() throws Exception {
+        this.mockMvc.perform(post(POSTINGS_URL).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"legs\":[{\"accountId\":\"ID-A\",\"amount\":-4},{\"accountId\":\"ID-B\",\"amount\":4}]}"))
+                .andExpect(status().isOk());
+
+        assertThat(accountA.getBalance()).isEqualByComparingTo("6.00");
+        assertThat(accountB.getBalance()).isEqualByComparingTo("14.00");
+    }
+
+    @Test
+    public void itShouldRejectPostingWithNullLeg() throws Exception {
+        this.mockMvc.perform(post(POSTINGS_URL).contentType(MediaType.APPLICATION_JSON)
+                .content("{\"legs\":[{\"accountId\":\"ID-A\",\"amount\":-4},null,{\"accountId\":\"ID-B\",\"amount\":4}]}"))
+                .andExpect(status().isBadRequest());
+
+        assertThat(accountA.getBalance()).isEqualByComparingTo("10.00");
+        assertThat(accountB.getBalance()).isEqualByComparingTo("10.00");
+    }
+}
@@ -10,6 +10,7 @@ import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.context.web.WebAppConfiguration;
@@ -139,4 +140,22 @@ public class TransferControllerTest {
                 .andExpect(status().isOk());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void itShouldTransferOnlyIfSourceVersionMatches() throws Exception {
+        accountsRepository.createAccount(accountA);
+        accountsRepository.createAccount(accountB);
+        String eTag = "\"" + accountA.getVersion() + "\"";
+
+        this.mockMvc.perform(post(TRANSFERS_URL).contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_MATCH, eTag)
+                .content("{\"fromAccountId\":\"ID-A\",\"toAccountId\":\"ID-B\",\"transferAmount\":4}"))
+                .andExpect(status().isOk());
+
+        this.mockMvc.perform(post(TRANSFERS_URL).contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_MATCH, eTag)
+                .content("{\"fromAccountId\":\"ID-A\",\"toAccountId\":\"ID-B\",\"transferAmount\":4}"))
+                .andExpect(status().isPreconditionFailed());
+
+        assertThat(accountA.getBalance()).isEqualByComparingTo("6.00");
+        assertThat(accountB.getBalance()).isEqualByComparingTo("14.00");
+    }
+}